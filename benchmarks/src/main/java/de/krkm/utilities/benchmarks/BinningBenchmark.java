@@ -0,0 +1,56 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.owlconfidencehistogram.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scalar binning kernel, e.g., run
+ * <code>java -jar target/benchmarks.jar BinningBenchmark -p values=100000000 -jvmArgs -Xmx2g</code>. The kernel
+ * based on the JDK Vector API is measured by {@link VectorBinningBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinningBenchmark {
+    @Param({"10000000"})
+    public int values;
+
+    @Param({"fixed", "log"})
+    public String bins;
+
+    private double[] confidences;
+    private BinningKernel binningKernel;
+    private long[] counts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        confidences = new double[values];
+        for (int i = 0; i < values; i++) {
+            confidences[i] = random.nextDouble();
+        }
+
+        BinScheme scheme = bins.equals("log") ? new LogBinScheme(0.001, 1, 50) : new FixedWidthBinScheme(0, 1, 50);
+        binningKernel = createKernel(scheme);
+        counts = new long[scheme.getBinCount() + 2];
+    }
+
+    /**
+     * Creates the kernel to measure for the given bin scheme
+     */
+    protected BinningKernel createKernel(BinScheme scheme) {
+        return BinningKernels.createScalar(scheme);
+    }
+
+    @Benchmark
+    public long[] count() {
+        binningKernel.count(confidences, 0, confidences.length, counts);
+        return counts;
+    }
+}
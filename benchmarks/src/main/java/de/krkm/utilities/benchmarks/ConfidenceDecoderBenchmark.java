@@ -0,0 +1,57 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.annotatedaxiomextractor.ConfidenceDecoder;
+import de.krkm.utilities.annotatedaxiomextractor.MalformedConfidenceException;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLLiteral;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the string splitting based confidence parsing previously used by the extractor to
+ * {@link ConfidenceDecoder}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfidenceDecoderBenchmark {
+    @Param({"100000"})
+    public int literals;
+
+    private OWLLiteral[] values;
+
+    @Setup
+    public void setUp() {
+        OWLDataFactory df = OWLManager.getOWLDataFactory();
+        Random random = new Random(42);
+        values = new OWLLiteral[literals];
+        for (int i = 0; i < values.length; i++) {
+            // mined confidences usually have a few decimal places
+            values[i] = df.getOWLLiteral(Math.round(random.nextDouble() * 1e6) / 1e6);
+        }
+    }
+
+    @Benchmark
+    public double split() {
+        double sum = 0;
+        for (OWLLiteral literal : values) {
+            sum += Double.parseDouble(literal.toString().split("\"")[1]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double decoder() throws MalformedConfidenceException {
+        double sum = 0;
+        for (OWLLiteral literal : values) {
+            sum += ConfidenceDecoder.decode(literal);
+        }
+        return sum;
+    }
+}
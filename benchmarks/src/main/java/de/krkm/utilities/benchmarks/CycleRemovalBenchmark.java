@@ -0,0 +1,50 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.owlsubpropertycycleremover.OntologyCycleRemover;
+import de.krkm.utilities.owlsubpropertycycleremover.cycletype.SubPropertyOfCycleType;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLOntologyStorageException;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures removing all subproperty cycles from a random property hierarchy. Since cleaning modifies the ontology,
+ * it is reloaded before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CycleRemovalBenchmark {
+    @Param({"50", "200"})
+    public int properties;
+
+    @Param({"3"})
+    public int axiomsPerProperty;
+
+    private byte[] document;
+    private OntologyCycleRemover remover;
+
+    @Setup(Level.Trial)
+    public void createDocument() throws OWLOntologyCreationException, OWLOntologyStorageException {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        document = SyntheticOntologies.toRDFXML(manager, SyntheticOntologies.createPropertyHierarchy(
+            manager, properties, properties * axiomsPerProperty));
+    }
+
+    @Setup(Level.Invocation)
+    public void loadOntology() throws OWLOntologyCreationException {
+        remover = new OntologyCycleRemover(new ByteArrayInputStream(document));
+    }
+
+    @Benchmark
+    public void clean() throws OWLOntologyStorageException {
+        remover.clean(new SubPropertyOfCycleType());
+    }
+}
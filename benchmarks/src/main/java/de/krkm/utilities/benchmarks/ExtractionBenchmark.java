@@ -0,0 +1,68 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidenceHandler;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidencePair;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidenceStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures extraction of annotated axioms from an already loaded ontology
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int axioms;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private OWLOntology ontology;
+    private AnnotatedAxiomExtractor extractor;
+
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        ontology = SyntheticOntologies.createClassHierarchy(manager, axioms);
+        ArrayList<IRI> iris = SyntheticOntologies.getConfidenceIRIs();
+        extractor = new AnnotatedAxiomExtractor(AnnotatedAxiomExtractor.getAnnotationsProperties(
+            manager.getOWLDataFactory(), iris.toArray(new IRI[iris.size()])));
+        extractor.setParallelism(threads);
+    }
+
+    @Benchmark
+    public PriorityQueue<AxiomConfidencePair> extract() {
+        return extractor.extract(ontology);
+    }
+
+    @Benchmark
+    public AxiomConfidenceStore extractSorted() {
+        return extractor.extractSorted(ontology);
+    }
+
+    @Benchmark
+    public void extractStreaming(final Blackhole blackhole) {
+        extractor.extract(ontology, new AxiomConfidenceHandler() {
+            public void handle(OWLAxiom axiom, double confidence) {
+                blackhole.consume(axiom);
+                blackhole.consume(confidence);
+            }
+        });
+    }
+}
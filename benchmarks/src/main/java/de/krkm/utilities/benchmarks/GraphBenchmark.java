@@ -0,0 +1,51 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.owlsubpropertycycleremover.graph.Graph;
+import de.krkm.utilities.owlsubpropertycycleremover.graph.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the search for the shortest cycle through a node of a random directed graph
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int nodes;
+
+    @Param({"3"})
+    public int edgesPerNode;
+
+    private Graph graph;
+    private Node start;
+
+    @Setup
+    public void setUp() {
+        graph = new Graph();
+        Random random = new Random(42);
+        for (int i = 0; i < nodes; i++) {
+            graph.getNode("node" + i);
+        }
+        for (int i = 0; i < nodes * edgesPerNode; i++) {
+            Node source = graph.getNode("node" + random.nextInt(nodes));
+            source.addOutEdge(graph.getNode("node" + random.nextInt(nodes)), random.nextDouble());
+        }
+        // make sure there is a cycle through the start node
+        start = graph.getNode("node0");
+        graph.getNode("node" + (nodes - 1)).addOutEdge(start, 0.5);
+        start.addOutEdge(graph.getNode("node" + (nodes - 1)), 0.5);
+    }
+
+    @Benchmark
+    public List<Node> getShortestPath() {
+        return graph.getShortestPath(start, start);
+    }
+}
@@ -0,0 +1,51 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanException;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.RdfXmlConfidenceScanner;
+import de.krkm.utilities.owlconfidencehistogram.ConfidenceValueExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting the confidence values of a serialized ontology as done by the histogram tool, once by loading
+ * the ontology and once by scanning the document
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistogramBenchmark {
+    @Param({"1000", "10000"})
+    public int axioms;
+
+    private byte[] document;
+    private ArrayList<IRI> iris;
+    private ArrayList<OWLAnnotationProperty> properties;
+
+    @Setup
+    public void setUp() throws OWLOntologyCreationException, OWLOntologyStorageException {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        document = SyntheticOntologies.toRDFXML(manager, SyntheticOntologies.createClassHierarchy(manager, axioms));
+        iris = SyntheticOntologies.getConfidenceIRIs();
+        properties = AnnotatedAxiomExtractor.getAnnotationsProperties(manager.getOWLDataFactory(),
+                                                                      iris.toArray(new IRI[iris.size()]));
+    }
+
+    @Benchmark
+    public ConfidenceValueExtractor load() throws OWLOntologyCreationException {
+        return new ConfidenceValueExtractor(new ByteArrayInputStream(document), properties);
+    }
+
+    @Benchmark
+    public ConfidenceValueExtractor scan() throws ConfidenceScanException {
+        return new ConfidenceValueExtractor(new ByteArrayInputStream(document), new RdfXmlConfidenceScanner(iris));
+    }
+}
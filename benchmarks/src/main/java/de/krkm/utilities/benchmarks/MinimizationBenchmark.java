@@ -0,0 +1,68 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.annotatedaxiomextractor.ConfidenceIndex;
+import de.krkm.utilities.ontologyminimizer.OntologyMinimizationException;
+import de.krkm.utilities.ontologyminimizer.OntologyMinimizer;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLOntologyStorageException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single iteration of the minimizer, i.e., removing the next axiom in order of confidence, checking whether
+ * it is still entailed and adding it again if required. Each measurement iteration starts on a fresh minimizer. Once
+ * all axioms have been processed, the traversal starts over at the lowest-confidence axiom still contained in the
+ * ontology, thus, later invocations check the remaining non-redundant axioms again.
+ * <p/>
+ * The minimizer is set up per iteration instead of per invocation to avoid the timing overhead JMH documents for
+ * {@link Level#Invocation}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MinimizationBenchmark {
+    @Param({"200", "1000"})
+    public int axioms;
+
+    private byte[] document;
+    private OntologyMinimizer minimizer;
+    private ConfidenceIndex.Entry entry;
+
+    @Setup(Level.Trial)
+    public void createDocument() throws OWLOntologyCreationException, OWLOntologyStorageException {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        document = SyntheticOntologies.toRDFXML(manager, SyntheticOntologies.createClassHierarchy(manager, axioms));
+    }
+
+    @Setup(Level.Iteration)
+    public void createMinimizer() throws OntologyMinimizationException {
+        minimizer = new OntologyMinimizer(new ByteArrayInputStream(document), new ByteArrayInputStream(document),
+                                          new ByteArrayOutputStream(), SyntheticOntologies.getConfidenceIRIs(), null);
+        entry = minimizer.getConfidenceIndex().getLowest();
+    }
+
+    @TearDown(Level.Iteration)
+    public void disposeMinimizer() {
+        // releases the reasoner, which would otherwise stay alive and skew later iterations
+        minimizer.dispose();
+        minimizer = null;
+    }
+
+    @Benchmark
+    public boolean iteration() {
+        boolean removed = minimizer.removeIfRedundant(entry.getAxiom());
+        entry = minimizer.getConfidenceIndex().getNext(entry);
+        if (entry == null) {
+            entry = minimizer.getConfidenceIndex().getLowest();
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,41 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.owlrandompartitioner.OntologyPartitioningException;
+import de.krkm.utilities.owlrandompartitioner.RandomOntologyPartitioner;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures random partitioning of an ontology
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int axioms;
+
+    @Param({"2", "10"})
+    public int partitions;
+
+    private OWLOntology ontology;
+
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        ontology = SyntheticOntologies.createClassHierarchy(OWLManager.createOWLOntologyManager(), axioms);
+    }
+
+    @Benchmark
+    public Set<OWLOntology> partition() throws OntologyPartitioningException {
+        // a new partitioner per invocation keeps the partitions of previous invocations collectable
+        return new RandomOntologyPartitioner(ontology).partition(partitions);
+    }
+}
@@ -0,0 +1,162 @@
+package de.krkm.utilities.benchmarks;
+
+import org.semanticweb.owlapi.io.RDFXMLOntologyFormat;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic annotated ontologies of configurable size. All generators are seeded, thus, the same size
+ * always results in the same ontology and benchmark results of different versions stay comparable.
+ */
+public class SyntheticOntologies {
+    public final static IRI CONFIDENCE_IRI =
+        IRI.create("http://ki.informatik.uni-mannheim.de/gold-miner/annotations#confidence");
+    public final static IRI SECONDARY_CONFIDENCE_IRI =
+        IRI.create("http://www.dl-learner.org/enrichment.owl#confidence");
+
+    private final static String CLASS_NAMESPACE = "http://example.org/synthetic#";
+    /**
+     * the cycle remover only considers properties from the DBpedia namespace
+     */
+    private final static String PROPERTY_NAMESPACE = "http://dbpedia.org/ontology/";
+
+    private final static long SEED = 42;
+
+    /**
+     * Returns the confidence annotation IRIs used in the generated ontologies ordered by descending priority
+     *
+     * @return confidence annotation IRIs
+     */
+    public static ArrayList<IRI> getConfidenceIRIs() {
+        ArrayList<IRI> iris = new ArrayList<IRI>();
+        iris.add(CONFIDENCE_IRI);
+        iris.add(SECONDARY_CONFIDENCE_IRI);
+        return iris;
+    }
+
+    /**
+     * Creates an ontology containing up to <code>axioms</code> annotated class axioms. About two thirds of the axioms
+     * form a random class hierarchy, the remaining ones are subsumptions entailed by this hierarchy and disjointness
+     * axioms between sibling classes. Thus, the ontology is coherent and contains redundant axioms.
+     *
+     * @param manager manager to create ontology in
+     * @param axioms  number of annotated axioms to create
+     * @return created ontology
+     * @throws OWLOntologyCreationException on errors creating the ontology
+     */
+    public static OWLOntology createClassHierarchy(OWLOntologyManager manager, int axioms)
+            throws OWLOntologyCreationException {
+        OWLDataFactory df = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        Random random = new Random(SEED);
+
+        int classCount = Math.max(2, axioms * 2 / 3 + 1);
+        OWLClass[] classes = new OWLClass[classCount];
+        int[] parents = new int[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classes[i] = df.getOWLClass(IRI.create(CLASS_NAMESPACE + "Class" + i));
+        }
+
+        ArrayList<OWLAxiom> result = new ArrayList<OWLAxiom>();
+        parents[0] = -1;
+        for (int i = 1; i < classCount && result.size() < axioms; i++) {
+            parents[i] = random.nextInt(i);
+            result.add(annotate(df, df.getOWLSubClassOfAxiom(classes[i], classes[parents[i]]), random));
+        }
+        while (result.size() < axioms) {
+            int sub = 1 + random.nextInt(classCount - 1);
+            if (random.nextBoolean()) {
+                // redundant subsumption of an arbitrary ancestor
+                int ancestor = parents[sub];
+                while (ancestor > 0 && random.nextBoolean()) {
+                    ancestor = parents[ancestor];
+                }
+                result.add(annotate(df, df.getOWLSubClassOfAxiom(classes[sub], classes[ancestor]), random));
+            }
+            else {
+                // siblings never share a subclass since each class has exactly one parent in the hierarchy
+                int sibling = 1 + random.nextInt(classCount - 1);
+                if (sibling != sub && parents[sibling] == parents[sub]) {
+                    result.add(annotate(df, df.getOWLDisjointClassesAxiom(classes[sub], classes[sibling]), random));
+                }
+                else {
+                    result.add(annotate(df, df.getOWLSubClassOfAxiom(classes[sub], classes[0]), random));
+                }
+            }
+        }
+        manager.addAxioms(ontology, new HashSet<OWLAxiom>(result));
+        return ontology;
+    }
+
+    /**
+     * Creates an ontology containing <code>axioms</code> annotated subproperty axioms between <code>properties</code>
+     * object properties from the DBpedia namespace. Edges are chosen randomly, thus, the property hierarchy contains
+     * cycles as soon as there are more axioms than properties.
+     *
+     * @param manager    manager to create ontology in
+     * @param properties number of properties to create
+     * @param axioms     number of annotated axioms to create
+     * @return created ontology
+     * @throws OWLOntologyCreationException on errors creating the ontology
+     */
+    public static OWLOntology createPropertyHierarchy(OWLOntologyManager manager, int properties, int axioms)
+            throws OWLOntologyCreationException {
+        if (axioms > (long) properties * (properties - 1)) {
+            throw new IllegalArgumentException("Unable to create " + axioms + " distinct axioms between " +
+                                               properties + " properties");
+        }
+        OWLDataFactory df = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        Random random = new Random(SEED);
+
+        List<OWLObjectProperty> props = new ArrayList<OWLObjectProperty>();
+        for (int i = 0; i < properties; i++) {
+            props.add(df.getOWLObjectProperty(IRI.create(PROPERTY_NAMESPACE + "property" + i)));
+        }
+        HashSet<OWLAxiom> result = new HashSet<OWLAxiom>();
+        while (result.size() < axioms) {
+            OWLObjectProperty sub = props.get(random.nextInt(properties));
+            OWLObjectProperty sup = props.get(random.nextInt(properties));
+            if (!sub.equals(sup)) {
+                result.add(annotate(df, df.getOWLSubObjectPropertyOfAxiom(sub, sup), random));
+            }
+        }
+        manager.addAxioms(ontology, result);
+        return ontology;
+    }
+
+    /**
+     * Serializes the given ontology into RDF/XML
+     *
+     * @param manager  manager of the ontology
+     * @param ontology ontology to serialize
+     * @return RDF/XML serialization of the ontology
+     * @throws OWLOntologyStorageException on errors serializing the ontology
+     */
+    public static byte[] toRDFXML(OWLOntologyManager manager, OWLOntology ontology)
+            throws OWLOntologyStorageException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        manager.saveOntology(ontology, new RDFXMLOntologyFormat(), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Annotates the given axiom with a random confidence value. Some axioms additionally get a lower-priority
+     * annotation to exercise annotation selection.
+     */
+    private static OWLAxiom annotate(OWLDataFactory df, OWLAxiom axiom, Random random) {
+        HashSet<OWLAnnotation> annotations = new HashSet<OWLAnnotation>();
+        annotations.add(df.getOWLAnnotation(df.getOWLAnnotationProperty(CONFIDENCE_IRI),
+                                            df.getOWLLiteral(random.nextDouble())));
+        if (random.nextInt(4) == 0) {
+            annotations.add(df.getOWLAnnotation(df.getOWLAnnotationProperty(SECONDARY_CONFIDENCE_IRI),
+                                                df.getOWLLiteral(random.nextDouble())));
+        }
+        return axiom.getAnnotatedAxiom(annotations);
+    }
+}
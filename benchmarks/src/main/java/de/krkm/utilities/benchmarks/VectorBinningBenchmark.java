@@ -0,0 +1,30 @@
+package de.krkm.utilities.benchmarks;
+
+import de.krkm.utilities.owlconfidencehistogram.BinScheme;
+import de.krkm.utilities.owlconfidencehistogram.BinningKernel;
+import de.krkm.utilities.owlconfidencehistogram.BinningKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the binning kernel based on the JDK Vector API on the same values as {@link BinningBenchmark}. Requires
+ * owl-confidence-histogram to be built using the <code>vector</code> profile and JDK 16 or later, only the forks of
+ * this benchmark are started with the incubator module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class VectorBinningBenchmark extends BinningBenchmark {
+    @Override
+    protected BinningKernel createKernel(BinScheme scheme) {
+        if (!BinningKernels.isVectorAvailable()) {
+            throw new IllegalStateException("Vector API kernel is not available, build owl-confidence-histogram " +
+                                            "using the vector profile");
+        }
+        return BinningKernels.create(scheme);
+    }
+}
@@ -0,0 +1,104 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+
+/**
+ * Assigns numbers to the logical axioms of an ontology which stay the same when loading the same ontology again. The
+ * axioms are identified ignoring their annotations and numbered in the order of their string representation.
+ */
+class AxiomOrdinals {
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private OWLAxiom[] axioms;
+    private HashMap<OWLAxiom, Integer> ordinals;
+    private long checksum;
+
+    /**
+     * Numbers the current logical axioms of the given ontology
+     *
+     * @param ontology ontology to number axioms of
+     */
+    public AxiomOrdinals(OWLOntology ontology) {
+        HashSet<OWLAxiom> unannotated = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : ontology.getLogicalAxioms()) {
+            unannotated.add(axiom.getAxiomWithoutAnnotations());
+        }
+        final HashMap<OWLAxiom, String> names = new HashMap<OWLAxiom, String>();
+        for (OWLAxiom axiom : unannotated) {
+            names.put(axiom, axiom.toString());
+        }
+        axioms = unannotated.toArray(new OWLAxiom[unannotated.size()]);
+        Arrays.sort(axioms, new Comparator<OWLAxiom>() {
+            public int compare(OWLAxiom a1, OWLAxiom a2) {
+                return names.get(a1).compareTo(names.get(a2));
+            }
+        });
+
+        ordinals = new HashMap<OWLAxiom, Integer>();
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < axioms.length; i++) {
+            ordinals.put(axioms[i], i);
+            crc.update(names.get(axioms[i]).getBytes(UTF8));
+        }
+        checksum = crc.getValue();
+    }
+
+    /**
+     * Returns the number of the given axiom ignoring its annotations
+     *
+     * @param axiom axiom to return number for
+     * @return number of the axiom or -1 if it is unknown
+     */
+    public int getOrdinal(OWLAxiom axiom) {
+        Integer ordinal = ordinals.get(axiom.getAxiomWithoutAnnotations());
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the number of the given axiom without annotations. Unlike {@link #getOrdinal(OWLAxiom)}, this does not
+     * create any objects, thus, it may be called for axioms of a data factory used by another thread.
+     *
+     * @param axiom axiom without annotations to return number for
+     * @return number of the axiom or -1 if it is unknown
+     */
+    public int getUnannotatedOrdinal(OWLAxiom axiom) {
+        Integer ordinal = ordinals.get(axiom);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the axiom without annotations having the given number
+     *
+     * @param ordinal number of the axiom
+     * @return axiom having the given number
+     */
+    public OWLAxiom getAxiom(int ordinal) {
+        return axioms[ordinal];
+    }
+
+    /**
+     * Returns the number of numbered axioms
+     *
+     * @return number of numbered axioms
+     */
+    public int size() {
+        return axioms.length;
+    }
+
+    /**
+     * Returns a checksum of all numbered axioms which allows to detect whether the numbers refer to the same axioms
+     *
+     * @return checksum of the numbered axioms
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+}
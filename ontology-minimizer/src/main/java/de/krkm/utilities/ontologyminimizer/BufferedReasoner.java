@@ -0,0 +1,176 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reasoner wrapper which only updates the wrapped buffering reasoner when required for answering an entailment check.
+ * The wrapper tracks the net changes of the ontology since the last update, thus, removing and adding the same axiom
+ * again does not cause an update. If there are only additions pending, an axiom entailed by the state known to the
+ * reasoner is also entailed by the current ontology and the update is skipped as well.
+ * <p/>
+ * Reasoners processing changes incrementally on their own, i.e., non-buffering reasoners, are queried directly.
+ * <p/>
+ * The reasoner is created on the first check. If a check times out, it is disposed and created again on the current
+ * state of the ontology for the next check since a reasoner might be left in an inconsistent state by the timeout. A
+ * timeout while creating the reasoner counts as a timed out check.
+ */
+class BufferedReasoner implements OWLOntologyChangeListener {
+    private OWLOntologyManager manager;
+    private OWLOntology ontology;
+    private ReasonerBackend backend;
+    private long timeout;
+    private OWLReasoner reasoner;
+
+    /**
+     * net changes since the last update of the reasoner mapped to true for additions and false for removals
+     */
+    private HashMap<OWLAxiom, Boolean> pendingChanges = new HashMap<OWLAxiom, Boolean>();
+    private int pendingRemovals;
+    private boolean buffered;
+
+    private long updates;
+    private long skippedUpdates;
+    private long timeouts;
+
+    /**
+     * Initializes the wrapper for a reasoner of the given backend working on <code>ontology</code> and starts
+     * tracking the changes applied using <code>manager</code>
+     *
+     * @param manager  manager used to modify the ontology
+     * @param ontology ontology the reasoner works on
+     * @param backend  backend of the reasoner
+     * @param timeout  timeout of a single check in milliseconds, 0 for none
+     */
+    public BufferedReasoner(OWLOntologyManager manager, OWLOntology ontology, ReasonerBackend backend,
+                            long timeout) {
+        this.manager = manager;
+        this.ontology = ontology;
+        this.backend = backend;
+        this.timeout = timeout;
+        manager.addOntologyChangeListener(this);
+    }
+
+    public void ontologiesChanged(List<? extends OWLOntologyChange> changes) throws OWLException {
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange() || !change.getOntology().equals(ontology)) {
+                continue;
+            }
+            buffered = true;
+            boolean addition = change instanceof AddAxiom;
+            Boolean pending = pendingChanges.remove(change.getAxiom());
+            if (pending == null) {
+                pendingChanges.put(change.getAxiom(), addition);
+                if (!addition) {
+                    pendingRemovals++;
+                }
+            }
+            else if (!pending) {
+                // the change reverts a pending removal
+                pendingRemovals--;
+            }
+        }
+    }
+
+    /**
+     * Checks whether all given axioms are entailed by the current state of the ontology
+     *
+     * @param axioms axioms to check
+     * @return true if all axioms are entailed, false if not and null if the check has timed out
+     */
+    public Boolean isEntailed(Set<OWLAxiom> axioms) {
+        Boolean entailed = check(axioms);
+        if (entailed == null) {
+            timeouts++;
+            if (reasoner != null) {
+                reasoner.dispose();
+                reasoner = null;
+            }
+        }
+        return entailed;
+    }
+
+    private Boolean check(Set<OWLAxiom> axioms) {
+        if (reasoner == null) {
+            reasoner = backend.tryCreateReasoner(ontology, timeout);
+            if (reasoner == null) {
+                return null;
+            }
+            clearPendingChanges();
+            return ReasonerBackend.isEntailed(reasoner, axioms);
+        }
+        if (backend.isIncremental()) {
+            if (buffered) {
+                updates++;
+            }
+            clearPendingChanges();
+            return ReasonerBackend.isEntailed(reasoner, axioms);
+        }
+        if (pendingChanges.isEmpty()) {
+            if (buffered) {
+                skippedUpdates++;
+            }
+            return ReasonerBackend.isEntailed(reasoner, axioms);
+        }
+        if (pendingRemovals == 0) {
+            Boolean entailed = ReasonerBackend.isEntailed(reasoner, axioms);
+            if (entailed == null || entailed) {
+                // the reasoner works on a subset of the current ontology
+                skippedUpdates++;
+                return entailed;
+            }
+        }
+        reasoner.flush();
+        updates++;
+        clearPendingChanges();
+        return ReasonerBackend.isEntailed(reasoner, axioms);
+    }
+
+    /**
+     * Returns the number of updates of the reasoner, i.e., reloads of the ontology for reasoners which are not
+     * incremental
+     *
+     * @return number of updates of the reasoner
+     */
+    public long getUpdates() {
+        return updates;
+    }
+
+    /**
+     * Returns the number of checks on a changed ontology answered without updating the reasoner
+     *
+     * @return number of skipped updates
+     */
+    public long getSkippedUpdates() {
+        return skippedUpdates;
+    }
+
+    /**
+     * Returns the number of checks which have timed out
+     *
+     * @return number of timed out checks
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Stops tracking changes and disposes the wrapped reasoner
+     */
+    public void dispose() {
+        manager.removeOntologyChangeListener(this);
+        if (reasoner != null) {
+            reasoner.dispose();
+        }
+    }
+
+    private void clearPendingChanges() {
+        pendingChanges.clear();
+        pendingRemovals = 0;
+        buffered = false;
+    }
+}
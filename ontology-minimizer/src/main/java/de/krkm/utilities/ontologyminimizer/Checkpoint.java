@@ -0,0 +1,119 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+/**
+ * State of a minimization which allows to continue it later on. Axioms are referenced by their number assigned by
+ * {@link AxiomOrdinals}, the sets of removed and kept axioms are stored as bit sets.
+ * <p/>
+ * A checkpoint file is written to a temporary file next to the target which is synced and atomically renamed
+ * afterwards, thus, the target always contains a complete checkpoint.
+ */
+class Checkpoint {
+    private final static int MAGIC = 0x4d434b31;
+    private final static int VERSION = 2;
+
+    long axiomCount;
+    long checksum;
+    int removedAxioms;
+    int readdedAxioms;
+    int entailmentChecks;
+    int snapShotCounter;
+    int timedOutAxioms;
+    /**
+     * number of the last processed axiom or -1 if none has been processed yet
+     */
+    int cursor = -1;
+    double cursorConfidence = Double.NaN;
+    BitSet removed = new BitSet();
+    BitSet kept = new BitSet();
+
+    /**
+     * Writes this checkpoint to the given file replacing any previous checkpoint atomically
+     *
+     * @param file file to write checkpoint to
+     * @throws IOException on errors writing the checkpoint
+     */
+    public void write(File file) throws IOException {
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(temp);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(axiomCount);
+            out.writeLong(checksum);
+            out.writeInt(removedAxioms);
+            out.writeInt(readdedAxioms);
+            out.writeInt(entailmentChecks);
+            out.writeInt(snapShotCounter);
+            out.writeInt(timedOutAxioms);
+            out.writeInt(cursor);
+            out.writeDouble(cursorConfidence);
+            writeBitSet(out, removed);
+            writeBitSet(out, kept);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        finally {
+            fileOut.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint from the given file
+     *
+     * @param file file to read checkpoint from
+     * @return read checkpoint
+     * @throws IOException on errors reading the file or if it does not contain a checkpoint
+     */
+    public static Checkpoint read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.axiomCount = in.readLong();
+            checkpoint.checksum = in.readLong();
+            checkpoint.removedAxioms = in.readInt();
+            checkpoint.readdedAxioms = in.readInt();
+            checkpoint.entailmentChecks = in.readInt();
+            checkpoint.snapShotCounter = in.readInt();
+            checkpoint.timedOutAxioms = in.readInt();
+            checkpoint.cursor = in.readInt();
+            checkpoint.cursorConfidence = in.readDouble();
+            checkpoint.removed = readBitSet(in);
+            checkpoint.kept = readBitSet(in);
+            return checkpoint;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private static void writeBitSet(DataOutput out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBitSet(DataInput in) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+}
@@ -0,0 +1,485 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.model.*;
+
+import java.util.*;
+
+/**
+ * Decides the entailment of simple axioms structurally without calling a reasoner. The checker maintains the told
+ * hierarchies of named classes, object properties and data properties as well as the told domains and ranges of the
+ * ontology it is attached to by listening for its changes. An atomic subsumption is entailed if there is a path of
+ * told subsumptions between both entities, a domain or range axiom is entailed if it follows from a told domain or
+ * range of a superproperty and a told subsumption. If no such path exists, the entailment is undecided and has to be
+ * checked by a reasoner.
+ * <p/>
+ * Additionally, entailments shown by a reasoner on a known set of supporting axioms, e.g., a module, can be recorded.
+ * A recorded entailment is kept until one of its supporting axioms is removed from the ontology.
+ */
+class EntailmentPreChecker implements OWLOntologyChangeListener {
+    private OWLOntologyManager manager;
+    private OWLOntology ontology;
+
+    private ToldHierarchy<OWLClass> classes = new ToldHierarchy<OWLClass>();
+    private ToldHierarchy<OWLObjectProperty> objectProperties = new ToldHierarchy<OWLObjectProperty>();
+    private ToldHierarchy<OWLDataProperty> dataProperties = new ToldHierarchy<OWLDataProperty>();
+    private ToldAssignments<OWLObjectProperty> objectPropertyDomains = new ToldAssignments<OWLObjectProperty>();
+    private ToldAssignments<OWLObjectProperty> objectPropertyRanges = new ToldAssignments<OWLObjectProperty>();
+    private ToldAssignments<OWLDataProperty> dataPropertyDomains = new ToldAssignments<OWLDataProperty>();
+
+    /**
+     * recorded entailments mapped to their supporting axioms
+     */
+    private HashMap<OWLAxiom, Set<OWLAxiom>> recorded = new HashMap<OWLAxiom, Set<OWLAxiom>>();
+    /**
+     * supporting axioms mapped to the recorded entailments depending on them
+     */
+    private HashMap<OWLAxiom, Set<OWLAxiom>> recordedBySupport = new HashMap<OWLAxiom, Set<OWLAxiom>>();
+
+    private long checks;
+    private long structuralHits;
+    private long recordedHits;
+
+    /**
+     * Hierarchy of entities given by told subsumptions. Each edge is labeled with the axioms it is stated by.
+     */
+    private static class ToldHierarchy<T> {
+        private HashMap<T, HashMap<T, Set<OWLAxiom>>> superEntities = new HashMap<T, HashMap<T, Set<OWLAxiom>>>();
+
+        private void add(T sub, T sup, OWLAxiom axiom) {
+            HashMap<T, Set<OWLAxiom>> edges = superEntities.get(sub);
+            if (edges == null) {
+                edges = new HashMap<T, Set<OWLAxiom>>();
+                superEntities.put(sub, edges);
+            }
+            Set<OWLAxiom> axioms = edges.get(sup);
+            if (axioms == null) {
+                axioms = new HashSet<OWLAxiom>();
+                edges.put(sup, axioms);
+            }
+            axioms.add(axiom);
+        }
+
+        private void remove(T sub, T sup, OWLAxiom axiom) {
+            HashMap<T, Set<OWLAxiom>> edges = superEntities.get(sub);
+            if (edges == null || !edges.containsKey(sup)) {
+                return;
+            }
+            Set<OWLAxiom> axioms = edges.get(sup);
+            axioms.remove(axiom);
+            if (axioms.isEmpty()) {
+                edges.remove(sup);
+                if (edges.isEmpty()) {
+                    superEntities.remove(sub);
+                }
+            }
+        }
+
+        /**
+         * Returns all super entities of <code>sub</code> including itself reachable without using any of the
+         * excluded axioms mapped to the axioms stating the path to them
+         */
+        private Map<T, List<OWLAxiom>> getSuperEntities(T sub, Set<OWLAxiom> excluded) {
+            HashMap<T, List<OWLAxiom>> paths = new HashMap<T, List<OWLAxiom>>();
+            paths.put(sub, Collections.<OWLAxiom>emptyList());
+            ArrayDeque<T> queue = new ArrayDeque<T>();
+            queue.add(sub);
+            while (!queue.isEmpty()) {
+                T current = queue.poll();
+                HashMap<T, Set<OWLAxiom>> edges = superEntities.get(current);
+                if (edges == null) {
+                    continue;
+                }
+                for (Map.Entry<T, Set<OWLAxiom>> edge : edges.entrySet()) {
+                    if (paths.containsKey(edge.getKey())) {
+                        continue;
+                    }
+                    OWLAxiom support = getSupport(edge.getValue(), excluded);
+                    if (support != null) {
+                        ArrayList<OWLAxiom> path = new ArrayList<OWLAxiom>(paths.get(current));
+                        path.add(support);
+                        paths.put(edge.getKey(), path);
+                        queue.add(edge.getKey());
+                    }
+                }
+            }
+            return paths;
+        }
+
+        /**
+         * Returns the axioms stating a path from <code>sub</code> to <code>sup</code> without using any of the
+         * excluded axioms or null if there is no such path
+         */
+        private List<OWLAxiom> getPath(T sub, T sup, Set<OWLAxiom> excluded) {
+            return getSuperEntities(sub, excluded).get(sup);
+        }
+    }
+
+    /**
+     * Told domains or ranges of properties together with the axioms stating them
+     */
+    private static class ToldAssignments<T> {
+        private HashMap<T, HashMap<OWLClass, Set<OWLAxiom>>> assignments =
+            new HashMap<T, HashMap<OWLClass, Set<OWLAxiom>>>();
+
+        private void add(T property, OWLClass cls, OWLAxiom axiom) {
+            HashMap<OWLClass, Set<OWLAxiom>> classes = assignments.get(property);
+            if (classes == null) {
+                classes = new HashMap<OWLClass, Set<OWLAxiom>>();
+                assignments.put(property, classes);
+            }
+            Set<OWLAxiom> axioms = classes.get(cls);
+            if (axioms == null) {
+                axioms = new HashSet<OWLAxiom>();
+                classes.put(cls, axioms);
+            }
+            axioms.add(axiom);
+        }
+
+        private void remove(T property, OWLClass cls, OWLAxiom axiom) {
+            HashMap<OWLClass, Set<OWLAxiom>> classes = assignments.get(property);
+            if (classes == null || !classes.containsKey(cls)) {
+                return;
+            }
+            Set<OWLAxiom> axioms = classes.get(cls);
+            axioms.remove(axiom);
+            if (axioms.isEmpty()) {
+                classes.remove(cls);
+                if (classes.isEmpty()) {
+                    assignments.remove(property);
+                }
+            }
+        }
+
+        private Map<OWLClass, Set<OWLAxiom>> get(T property) {
+            HashMap<OWLClass, Set<OWLAxiom>> classes = assignments.get(property);
+            return classes == null ? Collections.<OWLClass, Set<OWLAxiom>>emptyMap() : classes;
+        }
+    }
+
+    /**
+     * Initializes the checker on the current axioms of the given ontology and keeps it up to date with the changes
+     * applied using <code>manager</code>
+     *
+     * @param manager  manager used to modify the ontology
+     * @param ontology ontology to check entailments for
+     */
+    public EntailmentPreChecker(OWLOntologyManager manager, OWLOntology ontology) {
+        this.manager = manager;
+        this.ontology = ontology;
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            update(axiom, true);
+        }
+        manager.addOntologyChangeListener(this);
+    }
+
+    public void ontologiesChanged(List<? extends OWLOntologyChange> changes) throws OWLException {
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange() || !change.getOntology().equals(ontology)) {
+                continue;
+            }
+            update(change.getAxiom(), change instanceof AddAxiom);
+            if (change instanceof RemoveAxiom) {
+                invalidate(change.getAxiom());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given axiom is entailed by the ontology without the excluded axioms
+     *
+     * @param axiom    axiom to check
+     * @param excluded axioms of the ontology which must not be used
+     * @return true if the axiom is entailed, null if the entailment cannot be decided without a reasoner
+     */
+    public Boolean isEntailed(OWLAxiom axiom, Set<OWLAxiom> excluded) {
+        checks++;
+        OWLAxiom key = axiom.getAxiomWithoutAnnotations();
+        Set<OWLAxiom> support = recorded.get(key);
+        if (support != null && Collections.disjoint(support, excluded)) {
+            recordedHits++;
+            return true;
+        }
+        if (getStructuralSupport(key, excluded) != null) {
+            structuralHits++;
+            return true;
+        }
+        return null;
+    }
+
+    /**
+     * Records that the given axiom is entailed by the supporting axioms. The entailment is used by further checks until
+     * one of the supporting axioms is removed.
+     *
+     * @param axiom   entailed axiom
+     * @param support axioms of the ontology entailing the axiom
+     */
+    public void recordEntailed(OWLAxiom axiom, Set<OWLAxiom> support) {
+        OWLAxiom key = axiom.getAxiomWithoutAnnotations();
+        forget(key);
+        recorded.put(key, support);
+        for (OWLAxiom supportAxiom : support) {
+            Set<OWLAxiom> dependent = recordedBySupport.get(supportAxiom);
+            if (dependent == null) {
+                dependent = new HashSet<OWLAxiom>();
+                recordedBySupport.put(supportAxiom, dependent);
+            }
+            dependent.add(key);
+        }
+    }
+
+    /**
+     * Returns the number of performed checks
+     *
+     * @return number of performed checks
+     */
+    public long getChecks() {
+        return checks;
+    }
+
+    /**
+     * Returns the number of checks decided by the told hierarchies
+     *
+     * @return number of checks decided structurally
+     */
+    public long getStructuralHits() {
+        return structuralHits;
+    }
+
+    /**
+     * Returns the number of checks decided by a recorded entailment
+     *
+     * @return number of checks decided by recorded entailments
+     */
+    public long getRecordedHits() {
+        return recordedHits;
+    }
+
+    /**
+     * Stops listening for changes of the ontology
+     */
+    public void dispose() {
+        manager.removeOntologyChangeListener(this);
+    }
+
+    /**
+     * Returns the told axioms entailing the given unannotated axiom without using the excluded axioms or null if
+     * there are none
+     */
+    private List<OWLAxiom> getStructuralSupport(OWLAxiom axiom, Set<OWLAxiom> excluded) {
+        if (axiom instanceof OWLSubClassOfAxiom) {
+            OWLSubClassOfAxiom subClassOf = (OWLSubClassOfAxiom) axiom;
+            if (subClassOf.getSuperClass().isOWLThing() || subClassOf.getSubClass().isOWLNothing()) {
+                return Collections.emptyList();
+            }
+            if (subClassOf.getSubClass().isAnonymous() || subClassOf.getSuperClass().isAnonymous()) {
+                return null;
+            }
+            return classes.getPath(subClassOf.getSubClass().asOWLClass(), subClassOf.getSuperClass().asOWLClass(),
+                                   excluded);
+        }
+        if (axiom instanceof OWLSubObjectPropertyOfAxiom) {
+            OWLSubObjectPropertyOfAxiom subPropertyOf = (OWLSubObjectPropertyOfAxiom) axiom;
+            if (subPropertyOf.getSubProperty().isAnonymous() || subPropertyOf.getSuperProperty().isAnonymous()) {
+                return null;
+            }
+            return objectProperties.getPath(subPropertyOf.getSubProperty().asOWLObjectProperty(),
+                                            subPropertyOf.getSuperProperty().asOWLObjectProperty(), excluded);
+        }
+        if (axiom instanceof OWLSubDataPropertyOfAxiom) {
+            OWLSubDataPropertyOfAxiom subPropertyOf = (OWLSubDataPropertyOfAxiom) axiom;
+            return dataProperties.getPath(subPropertyOf.getSubProperty().asOWLDataProperty(),
+                                          subPropertyOf.getSuperProperty().asOWLDataProperty(), excluded);
+        }
+        if (axiom instanceof OWLObjectPropertyDomainAxiom) {
+            OWLObjectPropertyDomainAxiom domain = (OWLObjectPropertyDomainAxiom) axiom;
+            if (domain.getProperty().isAnonymous()) {
+                return null;
+            }
+            return getAssignmentSupport(objectProperties, objectPropertyDomains,
+                                        domain.getProperty().asOWLObjectProperty(), domain.getDomain(), excluded);
+        }
+        if (axiom instanceof OWLObjectPropertyRangeAxiom) {
+            OWLObjectPropertyRangeAxiom range = (OWLObjectPropertyRangeAxiom) axiom;
+            if (range.getProperty().isAnonymous()) {
+                return null;
+            }
+            return getAssignmentSupport(objectProperties, objectPropertyRanges,
+                                        range.getProperty().asOWLObjectProperty(), range.getRange(), excluded);
+        }
+        if (axiom instanceof OWLDataPropertyDomainAxiom) {
+            OWLDataPropertyDomainAxiom domain = (OWLDataPropertyDomainAxiom) axiom;
+            return getAssignmentSupport(dataProperties, dataPropertyDomains,
+                                        domain.getProperty().asOWLDataProperty(), domain.getDomain(), excluded);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the told axioms entailing that <code>cls</code> is a domain or range of <code>property</code>, i.e.,
+     * a path to a superproperty having a told domain or range which is a subclass of <code>cls</code>
+     */
+    private <T> List<OWLAxiom> getAssignmentSupport(ToldHierarchy<T> hierarchy, ToldAssignments<T> assignments,
+                                                    T property, OWLClassExpression cls, Set<OWLAxiom> excluded) {
+        if (cls.isOWLThing()) {
+            return Collections.emptyList();
+        }
+        if (cls.isAnonymous()) {
+            return null;
+        }
+        for (Map.Entry<T, List<OWLAxiom>> superProperty : hierarchy.getSuperEntities(property, excluded)
+                                                                   .entrySet()) {
+            for (Map.Entry<OWLClass, Set<OWLAxiom>> assigned : assignments.get(superProperty.getKey()).entrySet()) {
+                OWLAxiom assignment = getSupport(assigned.getValue(), excluded);
+                if (assignment == null) {
+                    continue;
+                }
+                List<OWLAxiom> path = classes.getPath(assigned.getKey(), cls.asOWLClass(), excluded);
+                if (path != null) {
+                    ArrayList<OWLAxiom> support = new ArrayList<OWLAxiom>(superProperty.getValue());
+                    support.add(assignment);
+                    support.addAll(path);
+                    return support;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the told information of the given axiom or removes it
+     */
+    private void update(OWLAxiom axiom, boolean add) {
+        if (axiom instanceof OWLSubClassOfAxiom) {
+            OWLSubClassOfAxiom subClassOf = (OWLSubClassOfAxiom) axiom;
+            if (!subClassOf.getSubClass().isAnonymous() && !subClassOf.getSuperClass().isAnonymous()) {
+                updateEdge(classes, subClassOf.getSubClass().asOWLClass(), subClassOf.getSuperClass().asOWLClass(),
+                           axiom, add);
+            }
+        }
+        else if (axiom instanceof OWLEquivalentClassesAxiom) {
+            updateEquivalences(classes, ((OWLEquivalentClassesAxiom) axiom).getNamedClasses(), axiom, add);
+        }
+        else if (axiom instanceof OWLSubObjectPropertyOfAxiom) {
+            OWLSubObjectPropertyOfAxiom subPropertyOf = (OWLSubObjectPropertyOfAxiom) axiom;
+            if (!subPropertyOf.getSubProperty().isAnonymous() && !subPropertyOf.getSuperProperty().isAnonymous()) {
+                updateEdge(objectProperties, subPropertyOf.getSubProperty().asOWLObjectProperty(),
+                           subPropertyOf.getSuperProperty().asOWLObjectProperty(), axiom, add);
+            }
+        }
+        else if (axiom instanceof OWLEquivalentObjectPropertiesAxiom) {
+            HashSet<OWLObjectProperty> properties = new HashSet<OWLObjectProperty>();
+            for (OWLObjectPropertyExpression property : ((OWLEquivalentObjectPropertiesAxiom) axiom).getProperties()) {
+                if (!property.isAnonymous()) {
+                    properties.add(property.asOWLObjectProperty());
+                }
+            }
+            updateEquivalences(objectProperties, properties, axiom, add);
+        }
+        else if (axiom instanceof OWLSubDataPropertyOfAxiom) {
+            OWLSubDataPropertyOfAxiom subPropertyOf = (OWLSubDataPropertyOfAxiom) axiom;
+            updateEdge(dataProperties, subPropertyOf.getSubProperty().asOWLDataProperty(),
+                       subPropertyOf.getSuperProperty().asOWLDataProperty(), axiom, add);
+        }
+        else if (axiom instanceof OWLEquivalentDataPropertiesAxiom) {
+            HashSet<OWLDataProperty> properties = new HashSet<OWLDataProperty>();
+            for (OWLDataPropertyExpression property : ((OWLEquivalentDataPropertiesAxiom) axiom).getProperties()) {
+                properties.add(property.asOWLDataProperty());
+            }
+            updateEquivalences(dataProperties, properties, axiom, add);
+        }
+        else if (axiom instanceof OWLObjectPropertyDomainAxiom) {
+            OWLObjectPropertyDomainAxiom domain = (OWLObjectPropertyDomainAxiom) axiom;
+            if (!domain.getProperty().isAnonymous() && !domain.getDomain().isAnonymous()) {
+                updateAssignment(objectPropertyDomains, domain.getProperty().asOWLObjectProperty(),
+                                 domain.getDomain().asOWLClass(), axiom, add);
+            }
+        }
+        else if (axiom instanceof OWLObjectPropertyRangeAxiom) {
+            OWLObjectPropertyRangeAxiom range = (OWLObjectPropertyRangeAxiom) axiom;
+            if (!range.getProperty().isAnonymous() && !range.getRange().isAnonymous()) {
+                updateAssignment(objectPropertyRanges, range.getProperty().asOWLObjectProperty(),
+                                 range.getRange().asOWLClass(), axiom, add);
+            }
+        }
+        else if (axiom instanceof OWLDataPropertyDomainAxiom) {
+            OWLDataPropertyDomainAxiom domain = (OWLDataPropertyDomainAxiom) axiom;
+            if (!domain.getDomain().isAnonymous()) {
+                updateAssignment(dataPropertyDomains, domain.getProperty().asOWLDataProperty(),
+                                 domain.getDomain().asOWLClass(), axiom, add);
+            }
+        }
+    }
+
+    private <T> void updateEdge(ToldHierarchy<T> hierarchy, T sub, T sup, OWLAxiom axiom, boolean add) {
+        if (add) {
+            hierarchy.add(sub, sup, axiom);
+        }
+        else {
+            hierarchy.remove(sub, sup, axiom);
+        }
+    }
+
+    private <T> void updateEquivalences(ToldHierarchy<T> hierarchy, Set<T> entities, OWLAxiom axiom, boolean add) {
+        for (T first : entities) {
+            for (T second : entities) {
+                if (!first.equals(second)) {
+                    updateEdge(hierarchy, first, second, axiom, add);
+                }
+            }
+        }
+    }
+
+    private <T> void updateAssignment(ToldAssignments<T> assignments, T property, OWLClass cls, OWLAxiom axiom,
+                                      boolean add) {
+        if (add) {
+            assignments.add(property, cls, axiom);
+        }
+        else {
+            assignments.remove(property, cls, axiom);
+        }
+    }
+
+    /**
+     * Drops all recorded entailments supported by the given axiom
+     */
+    private void invalidate(OWLAxiom axiom) {
+        Set<OWLAxiom> dependent = recordedBySupport.remove(axiom);
+        if (dependent == null) {
+            return;
+        }
+        for (OWLAxiom key : dependent) {
+            forget(key);
+        }
+    }
+
+    /**
+     * Drops the recorded entailment of the given axiom
+     */
+    private void forget(OWLAxiom key) {
+        Set<OWLAxiom> support = recorded.remove(key);
+        if (support == null) {
+            return;
+        }
+        for (OWLAxiom supportAxiom : support) {
+            Set<OWLAxiom> dependent = recordedBySupport.get(supportAxiom);
+            if (dependent != null) {
+                dependent.remove(key);
+                if (dependent.isEmpty()) {
+                    recordedBySupport.remove(supportAxiom);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns one of the given axioms which is not excluded or null if there is none
+     */
+    private static OWLAxiom getSupport(Set<OWLAxiom> axioms, Set<OWLAxiom> excluded) {
+        for (OWLAxiom axiom : axioms) {
+            if (!excluded.contains(axiom)) {
+                return axiom;
+            }
+        }
+        return null;
+    }
+}
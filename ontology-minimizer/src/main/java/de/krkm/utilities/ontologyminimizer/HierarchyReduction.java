@@ -0,0 +1,208 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import com.clarkparsia.owlapi.modularity.locality.LocalityClass;
+import com.clarkparsia.owlapi.modularity.locality.SyntacticLocalityEvaluator;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Decides the redundancy of atomic subsumptions between named classes or object properties on the graph of told
+ * subsumptions. An atomic subsumption <code>A &sube; B</code> is decided on the graph if no entity reachable from
+ * <code>A</code> or <code>B</code> occurs in any other logical axiom of the ontology. In this case, the bottom locality
+ * module for the signature of the axiom only consists of atomic subsumptions, thus, the axiom is entailed by the
+ * remaining axioms if and only if there is another path from <code>A</code> to <code>B</code>.
+ * <p/>
+ * Since the redundancy of these axioms only depends on each other and removing them never changes the entailments of
+ * the ontology, applying the reduction in order of confidence before checking all other axioms gives the same result
+ * as checking all axioms in order of confidence.
+ * <p/>
+ * Assertions are ignored. Adding fresh elements which only occur in the entities reachable from <code>A</code> to a
+ * model of the ontology does not change any fact about individuals, thus, assertions cannot make an atomic
+ * subsumption entailed as long as the ontology is consistent, which the reasoners require anyway.
+ */
+class HierarchyReduction {
+    private final static Logger log = LoggerFactory.getLogger(HierarchyReduction.class);
+
+    /**
+     * atomic subsumptions mapped by sub and super entity
+     */
+    private HashMap<OWLEntity, HashMap<OWLEntity, List<OWLAxiom>>> edges =
+        new HashMap<OWLEntity, HashMap<OWLEntity, List<OWLAxiom>>>();
+    /**
+     * entities occurring in logical axioms which are neither atomic subsumptions nor assertions
+     */
+    private HashSet<OWLEntity> complexSignature = new HashSet<OWLEntity>();
+    private boolean applicable = true;
+
+    /**
+     * Initializes the reduction on the current axioms of the given ontology
+     *
+     * @param ontology ontology to reduce
+     */
+    public HierarchyReduction(OWLOntology ontology) {
+        SyntacticLocalityEvaluator evaluator = new SyntacticLocalityEvaluator(LocalityClass.BOTTOM_BOTTOM);
+        Set<OWLEntity> emptySignature = Collections.emptySet();
+        for (OWLAxiom axiom : ontology.getLogicalAxioms()) {
+            OWLEntity[] subsumption = getSubsumption(axiom);
+            if (subsumption != null) {
+                HashMap<OWLEntity, List<OWLAxiom>> superEntities = edges.get(subsumption[0]);
+                if (superEntities == null) {
+                    superEntities = new HashMap<OWLEntity, List<OWLAxiom>>();
+                    edges.put(subsumption[0], superEntities);
+                }
+                List<OWLAxiom> axioms = superEntities.get(subsumption[1]);
+                if (axioms == null) {
+                    axioms = new ArrayList<OWLAxiom>(1);
+                    superEntities.put(subsumption[1], axioms);
+                }
+                axioms.add(axiom);
+            }
+            else if (!(axiom instanceof OWLIndividualAxiom)) {
+                for (OWLEntity entity : axiom.getSignature()) {
+                    // built-in entities are not part of any signature considered for locality
+                    if (!entity.isBuiltIn()) {
+                        complexSignature.add(entity);
+                    }
+                }
+                // such an axiom is part of every module and might interact with any subsumption, the evaluator
+                // considers subsumptions of owl:topObjectProperty local although they constrain every property
+                if (applicable && (!evaluator.isLocal(axiom, emptySignature) || getNamedSubsumption(axiom) != null)) {
+                    log.info("Hierarchy reduction disabled by non-local axiom '{}'", axiom);
+                    applicable = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the reduction is applicable to the ontology. This is not the case if the ontology contains an
+     * axiom which is not local with respect to the empty signature, e.g., a general concept inclusion having
+     * <code>owl:Thing</code> on its left-hand side.
+     *
+     * @return true if the reduction is applicable
+     */
+    public boolean isApplicable() {
+        return applicable;
+    }
+
+    /**
+     * Decides whether the given axiom is entailed by the remaining axioms of the ontology
+     *
+     * @param axiom axiom to check
+     * @return true if the axiom is entailed, false if not and null if it cannot be decided on the graph
+     */
+    public Boolean isRedundant(OWLAxiom axiom) {
+        OWLEntity[] subsumption = getSubsumption(axiom);
+        if (!applicable || subsumption == null) {
+            return null;
+        }
+        if (isBottom(subsumption[0]) || isTop(subsumption[1])) {
+            return true;
+        }
+        Set<OWLEntity> reachable = getReachable(subsumption[0], axiom);
+        Set<OWLEntity> superEntities = getReachable(subsumption[1], axiom);
+        if (!Collections.disjoint(reachable, complexSignature) ||
+            !Collections.disjoint(superEntities, complexSignature)) {
+            return null;
+        }
+        for (OWLEntity entity : reachable) {
+            // the sub entity is unsatisfiable or empty, respectively
+            if (isBottom(entity) || entity.equals(subsumption[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given axiom from the graph after it has been removed from the ontology
+     *
+     * @param axiom removed axiom
+     */
+    public void removeAxiom(OWLAxiom axiom) {
+        OWLEntity[] subsumption = getSubsumption(axiom);
+        if (subsumption == null || !edges.containsKey(subsumption[0])) {
+            return;
+        }
+        HashMap<OWLEntity, List<OWLAxiom>> superEntities = edges.get(subsumption[0]);
+        List<OWLAxiom> axioms = superEntities.get(subsumption[1]);
+        if (axioms != null) {
+            axioms.remove(axiom);
+            if (axioms.isEmpty()) {
+                superEntities.remove(subsumption[1]);
+            }
+        }
+    }
+
+    /**
+     * Returns all entities reachable from <code>start</code> including itself without using <code>excluded</code>
+     */
+    private Set<OWLEntity> getReachable(OWLEntity start, OWLAxiom excluded) {
+        HashSet<OWLEntity> reachable = new HashSet<OWLEntity>();
+        reachable.add(start);
+        ArrayDeque<OWLEntity> queue = new ArrayDeque<OWLEntity>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            HashMap<OWLEntity, List<OWLAxiom>> superEntities = edges.get(queue.poll());
+            if (superEntities == null) {
+                continue;
+            }
+            for (Map.Entry<OWLEntity, List<OWLAxiom>> edge : superEntities.entrySet()) {
+                List<OWLAxiom> axioms = edge.getValue();
+                boolean usable = axioms.size() > 1 || (axioms.size() == 1 && !axioms.get(0).equals(excluded));
+                if (usable && reachable.add(edge.getKey())) {
+                    queue.add(edge.getKey());
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static boolean isTop(OWLEntity entity) {
+        return entity.isOWLClass() && entity.asOWLClass().isOWLThing() ||
+               entity.isOWLObjectProperty() && entity.asOWLObjectProperty().isOWLTopObjectProperty();
+    }
+
+    private static boolean isBottom(OWLEntity entity) {
+        return entity.isOWLClass() && entity.asOWLClass().isOWLNothing() ||
+               entity.isOWLObjectProperty() && entity.asOWLObjectProperty().isOWLBottomObjectProperty();
+    }
+
+    /**
+     * Returns sub and super entity of an atomic subsumption between named classes or object properties or null for
+     * all other axioms. Subsumptions of the top entity are not atomic since they constrain every entity, thus, they
+     * are treated like all other axioms and disable the reduction.
+     */
+    private static OWLEntity[] getSubsumption(OWLAxiom axiom) {
+        OWLEntity[] subsumption = getNamedSubsumption(axiom);
+        if (subsumption != null && isTop(subsumption[0])) {
+            return null;
+        }
+        return subsumption;
+    }
+
+    /**
+     * Returns sub and super entity of a subsumption between named classes or object properties or null for all other
+     * axioms
+     */
+    private static OWLEntity[] getNamedSubsumption(OWLAxiom axiom) {
+        if (axiom instanceof OWLSubClassOfAxiom) {
+            OWLSubClassOfAxiom subClassOf = (OWLSubClassOfAxiom) axiom;
+            if (!subClassOf.getSubClass().isAnonymous() && !subClassOf.getSuperClass().isAnonymous()) {
+                return new OWLEntity[]{subClassOf.getSubClass().asOWLClass(),
+                                       subClassOf.getSuperClass().asOWLClass()};
+            }
+        }
+        else if (axiom instanceof OWLSubObjectPropertyOfAxiom) {
+            OWLSubObjectPropertyOfAxiom subPropertyOf = (OWLSubObjectPropertyOfAxiom) axiom;
+            if (!subPropertyOf.getSubProperty().isAnonymous() && !subPropertyOf.getSuperProperty().isAnonymous()) {
+                return new OWLEntity[]{subPropertyOf.getSubProperty().asOWLObjectProperty(),
+                                       subPropertyOf.getSuperProperty().asOWLObjectProperty()};
+            }
+        }
+        return null;
+    }
+}
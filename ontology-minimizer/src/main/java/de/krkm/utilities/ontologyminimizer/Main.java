@@ -2,8 +2,10 @@ package de.krkm.utilities.ontologyminimizer;
 
 
 import org.apache.commons.cli.*;
+import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyStorageException;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -35,8 +37,54 @@ public class Main {
                              .withArgName("IRI").create("conf"));
         options.addOption(OptionBuilder.withLongOpt("log").hasArg().withDescription("file to write removed axioms to")
                                        .withArgName("FILENAME").create("l"));
+        options.addOption(OptionBuilder.withLongOpt("threads").hasArg()
+                                       .withDescription("number of threads used for extracting annotated axioms")
+                                       .withArgName("NUMBER").create("t"));
+        options.addOption(OptionBuilder.withLongOpt("batch").hasArg()
+                                       .withDescription("maximum number of axioms checked by a single entailment check")
+                                       .withArgName("NUMBER").create("b"));
+        options.addOption(OptionBuilder.withLongOpt("parallel").hasArg()
+                                       .withDescription("number of reasoners checking axioms in parallel")
+                                       .withArgName("NUMBER").create("p"));
+        options.addOption(OptionBuilder.withLongOpt("module").hasArg()
+                                       .withDescription("check entailments on locality modules of type bot or star")
+                                       .withArgName("TYPE").create("m"));
+        options.addOption(OptionBuilder.withLongOpt("incremental")
+                                       .withDescription("use Pellet with incremental updates instead of HermiT")
+                                       .create("i"));
+        options.addOption(OptionBuilder.withLongOpt("reasoner").hasArg()
+                                       .withDescription("reasoner to use: hermit, pellet or structural")
+                                       .withArgName("NAME").create("rb"));
+        options.addOption(OptionBuilder.withLongOpt("reasoner-for").hasArgs()
+                                       .withDescription("reasoner to use for an axiom type, e.g., SubClassOf=pellet")
+                                       .withArgName("TYPE=NAME").create("rf"));
+        options.addOption(OptionBuilder.withLongOpt("timeout").hasArg()
+                                       .withDescription("timeout of a single entailment check in milliseconds")
+                                       .withArgName("MILLIS").create("to"));
+        options.addOption(OptionBuilder.withLongOpt("timeout-log").hasArg()
+                                       .withDescription("file to write axioms kept after a timeout to")
+                                       .withArgName("FILE").create("tl"));
+        options.addOption(OptionBuilder.withLongOpt("precheck")
+                                       .withDescription("decide simple entailments structurally before reasoning")
+                                       .create("pc"));
+        options.addOption(OptionBuilder.withLongOpt("hierarchy")
+                                       .withDescription("settle atomic subsumptions on the told hierarchy first")
+                                       .create("r"));
+        options.addOption(OptionBuilder.withLongOpt("full").hasArg()
+                                       .withDescription("number of delta snapshots between two full snapshots")
+                                       .withArgName("NUMBER").create("f"));
+        options.addOption(OptionBuilder.withLongOpt("checkpoint").hasArg()
+                                       .withDescription("file to write checkpoints of the minimization to")
+                                       .withArgName("FILE").create("k"));
+        options.addOption(OptionBuilder.withLongOpt("interval").hasArg()
+                                       .withDescription("number of processed axioms between two checkpoints")
+                                       .withArgName("NUMBER").create("ki"));
+        options.addOption(OptionBuilder.withLongOpt("resume")
+                                       .withDescription("continue the minimization from the checkpoint file")
+                                       .create("rs"));
 
         FileOutputStream removedAxiomStream = null;
+        FileOutputStream timedOutAxiomStream = null;
         FileInputStream annotatedStream = null;
         FileInputStream coherentStream = null;
         FileOutputStream outputStream = null;
@@ -73,15 +121,80 @@ public class Main {
             }
 
 
+            int threads = 1;
+            if (line.hasOption("t")) {
+                threads = Integer.parseInt(line.getOptionValue("t"));
+            }
+
             OntologyMinimizer minimizer =
-                    new OntologyMinimizer(coherentStream, annotatedStream, outputStream, iris, snapShotDir);
+                    new OntologyMinimizer(coherentStream, annotatedStream, outputStream, iris, snapShotDir, threads);
+
+            if (line.hasOption("b")) {
+                minimizer.setBatchSize(Integer.parseInt(line.getOptionValue("b")));
+            }
+            if (line.hasOption("f")) {
+                minimizer.setFullSnapShotInterval(Integer.parseInt(line.getOptionValue("f")));
+            }
+            if (line.hasOption("p")) {
+                minimizer.setParallelism(Integer.parseInt(line.getOptionValue("p")));
+            }
+            minimizer.setIncrementalReasoning(line.hasOption("i"));
+            if (line.hasOption("rb")) {
+                minimizer.setReasonerBackend(ReasonerBackend.forName(line.getOptionValue("rb")));
+            }
+            if (line.hasOption("rf")) {
+                setReasonerBackends(minimizer, line.getOptionValues("rf"));
+            }
+            if (line.hasOption("to")) {
+                minimizer.setTimeout(Long.parseLong(line.getOptionValue("to")));
+            }
+            minimizer.setPreChecks(line.hasOption("pc"));
+            minimizer.setHierarchyReduction(line.hasOption("r"));
+            if (line.hasOption("m")) {
+                String moduleType = line.getOptionValue("m");
+                if (moduleType.equalsIgnoreCase("bot")) {
+                    minimizer.setModuleType(ModuleType.BOT);
+                }
+                else if (moduleType.equalsIgnoreCase("star")) {
+                    minimizer.setModuleType(ModuleType.STAR);
+                }
+                else {
+                    throw new IllegalArgumentException("Unknown module type: " + moduleType);
+                }
+            }
+
+            File checkpointFile = null;
+            if (line.hasOption("k")) {
+                checkpointFile = new File(line.getOptionValue("k"));
+                int interval = 1000;
+                if (line.hasOption("ki")) {
+                    interval = Integer.parseInt(line.getOptionValue("ki"));
+                }
+                minimizer.setCheckpointFile(checkpointFile, interval);
+            }
+            else if (line.hasOption("rs")) {
+                throw new IllegalArgumentException("Resuming requires a checkpoint file");
+            }
+            boolean resume = line.hasOption("rs");
+            if (resume) {
+                if (!checkpointFile.exists()) {
+                    throw new IllegalArgumentException("Checkpoint file to resume from does not exist: " +
+                                                       checkpointFile);
+                }
+                minimizer.resume(checkpointFile);
+            }
 
             removedAxiomStream = null;
             if (line.hasOption("l")) {
-                removedAxiomStream = new FileOutputStream(line.getOptionValue("l"));
+                removedAxiomStream = new FileOutputStream(line.getOptionValue("l"), resume);
                 minimizer.setRemovedAxiomsStream(removedAxiomStream);
             }
+            if (line.hasOption("tl")) {
+                timedOutAxiomStream = new FileOutputStream(line.getOptionValue("tl"), resume);
+                minimizer.setTimedOutAxiomsStream(timedOutAxiomStream);
+            }
             minimizer.startMinimization();
+            minimizer.dispose();
             try {
                 minimizer.saveGeneratedOntology();
                 removedAxiomStream.close();
@@ -105,6 +218,14 @@ public class Main {
             System.err.println("Error opening file: " + e.getMessage());
             System.exit(2);
         }
+        catch (NumberFormatException e) {
+            System.err.println("Invalid number: " + e.getMessage());
+            System.exit(2);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument: " + e.getMessage());
+            System.exit(2);
+        }
         catch (OntologyMinimizationException e) {
             System.err.println("Unable to minimize ontology: " + e.getMessage());
             System.exit(3);
@@ -115,6 +236,10 @@ public class Main {
                     removedAxiomStream.close();
                 }
 
+                if (timedOutAxiomStream != null) {
+                    timedOutAxiomStream.close();
+                }
+
                 if (outputStream != null) {
                     outputStream.close();
                 }
@@ -132,4 +257,23 @@ public class Main {
             }
         }
     }
+
+    /**
+     * Sets the reasoners of the given minimizer for the axiom types given as <code>Type=reasoner</code>, e.g.,
+     * <code>SubClassOf=hermit</code>
+     *
+     * @param minimizer   minimizer to set reasoners of
+     * @param assignments assignments of reasoners to axiom types
+     * @throws IllegalArgumentException if an assignment is invalid
+     */
+    static void setReasonerBackends(OntologyMinimizer minimizer, String[] assignments) {
+        for (String assignment : assignments) {
+            String[] parts = assignment.split("=", 2);
+            AxiomType<?> type = AxiomType.getAxiomType(parts[0]);
+            if (parts.length != 2 || type == null) {
+                throw new IllegalArgumentException("Invalid reasoner for axiom type: " + assignment);
+            }
+            minimizer.setReasonerBackend(type, ReasonerBackend.forName(parts[1]));
+        }
+    }
 }
@@ -0,0 +1,224 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of syntactic locality modules of an ontology keyed by their signature. The cache works on its own copy of
+ * the ontology which has to be kept up to date by passing each axiom removed from the original ontology to
+ * {@link #removeAxiom(org.semanticweb.owlapi.model.OWLAxiom)}. Modules containing a removed axiom are dropped from
+ * the cache. The cache is bounded by the total number of axioms of the cached modules, if it is exceeded, the least
+ * recently used modules are dropped.
+ * <p/>
+ * The module extractor works on a snapshot of the axioms which is only renewed after a number of removals. Since
+ * locality-based modules are monotonic, the module of a signature in the snapshot restricted to the current axioms
+ * still contains the module in the current ontology and, thus, preserves all entailments over the signature. It is
+ * only less tight.
+ */
+class ModuleCache {
+    private final static Logger log = LoggerFactory.getLogger(ModuleCache.class);
+
+    /**
+     * minimum number of removals before the extractor snapshot is renewed
+     */
+    private final static int MIN_REBUILD_INTERVAL = 100;
+
+    /**
+     * default maximum total number of axioms of all cached modules
+     */
+    public final static long DEFAULT_MAX_CACHED_AXIOMS = 5000000;
+
+    private ModuleType moduleType;
+    private OWLOntologyManager manager;
+    private OWLOntology ontology;
+    private SyntacticLocalityModuleExtractor extractor;
+    private int removalsSinceRebuild;
+    private long maxCachedAxioms = DEFAULT_MAX_CACHED_AXIOMS;
+    private long cachedAxioms;
+
+    /**
+     * cached modules in least recently used order
+     */
+    private LinkedHashMap<Set<OWLEntity>, Set<OWLAxiom>> modules =
+            new LinkedHashMap<Set<OWLEntity>, Set<OWLAxiom>>(16, 0.75f, true);
+    /**
+     * signatures of all cached modules containing an axiom
+     */
+    private HashMap<OWLAxiom, Set<Set<OWLEntity>>> signaturesByAxiom = new HashMap<OWLAxiom, Set<Set<OWLEntity>>>();
+
+    private long requests;
+    private long hits;
+    private long moduleAxioms;
+
+    /**
+     * Initializes a cache for modules of the given type of the current axioms of <code>source</code>
+     *
+     * @param source     ontology to extract modules from
+     * @param moduleType type of the modules to extract
+     * @throws OntologyMinimizationException on errors copying the ontology
+     */
+    public ModuleCache(OWLOntology source, ModuleType moduleType) throws OntologyMinimizationException {
+        this.moduleType = moduleType;
+        manager = OWLManager.createOWLOntologyManager();
+        try {
+            ontology = manager.createOntology(source.getAxioms());
+        }
+        catch (OWLOntologyCreationException e) {
+            throw new OntologyMinimizationException("Unable to copy ontology for module extraction", e);
+        }
+    }
+
+    /**
+     * Sets the maximum total number of axioms of all cached modules. The module returned last is always kept, even if
+     * it exceeds the limit on its own.
+     *
+     * @param maxCachedAxioms maximum number of cached module axioms
+     */
+    public void setMaxCachedAxioms(long maxCachedAxioms) {
+        this.maxCachedAxioms = maxCachedAxioms;
+        evict();
+    }
+
+    /**
+     * Returns the module of the current ontology for the given signature
+     *
+     * @param signature signature to return module for
+     * @return axioms of the module
+     */
+    public Set<OWLAxiom> getModule(Set<OWLEntity> signature) {
+        requests++;
+        Set<OWLAxiom> module = modules.get(signature);
+        if (module != null) {
+            hits++;
+            moduleAxioms += module.size();
+            return module;
+        }
+        if (extractor == null || removalsSinceRebuild >= Math.max(MIN_REBUILD_INTERVAL,
+                                                                    ontology.getAxiomCount() / 20)) {
+            extractor = new SyntacticLocalityModuleExtractor(manager, ontology, moduleType);
+            removalsSinceRebuild = 0;
+            log.debug("Renewed module extractor on {} axioms", ontology.getAxiomCount());
+        }
+        module = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : extractor.extract(signature)) {
+            if (ontology.containsAxiom(axiom)) {
+                module.add(axiom);
+            }
+        }
+        Set<OWLEntity> key = new HashSet<OWLEntity>(signature);
+        modules.put(key, module);
+        for (OWLAxiom axiom : module) {
+            Set<Set<OWLEntity>> signatures = signaturesByAxiom.get(axiom);
+            if (signatures == null) {
+                signatures = new HashSet<Set<OWLEntity>>();
+                signaturesByAxiom.put(axiom, signatures);
+            }
+            signatures.add(key);
+        }
+        cachedAxioms += module.size();
+        moduleAxioms += module.size();
+        evict();
+        return module;
+    }
+
+    /**
+     * Drops the least recently used modules until the cached axioms fit into the limit, keeps at least one module
+     */
+    private void evict() {
+        Iterator<Map.Entry<Set<OWLEntity>, Set<OWLAxiom>>> iterator = modules.entrySet().iterator();
+        while (cachedAxioms > maxCachedAxioms && modules.size() > 1) {
+            Map.Entry<Set<OWLEntity>, Set<OWLAxiom>> eldest = iterator.next();
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Removes the given dropped module from the index of modules by axiom
+     */
+    private void unindex(Set<OWLEntity> signature, Set<OWLAxiom> module) {
+        cachedAxioms -= module.size();
+        for (OWLAxiom moduleAxiom : module) {
+            Set<Set<OWLEntity>> moduleSignatures = signaturesByAxiom.get(moduleAxiom);
+            if (moduleSignatures != null) {
+                moduleSignatures.remove(signature);
+                if (moduleSignatures.isEmpty()) {
+                    signaturesByAxiom.remove(moduleAxiom);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given axiom from the ontology and drops all cached modules containing it
+     *
+     * @param axiom axiom which has been removed from the original ontology
+     */
+    public void removeAxiom(OWLAxiom axiom) {
+        manager.removeAxiom(ontology, axiom);
+        removalsSinceRebuild++;
+        Set<Set<OWLEntity>> signatures = signaturesByAxiom.remove(axiom);
+        if (signatures == null) {
+            return;
+        }
+        for (Set<OWLEntity> signature : signatures) {
+            unindex(signature, modules.remove(signature));
+        }
+    }
+
+    /**
+     * Returns the number of currently cached modules
+     *
+     * @return number of cached modules
+     */
+    public int getCachedModules() {
+        return modules.size();
+    }
+
+    /**
+     * Returns the total number of axioms of the currently cached modules
+     *
+     * @return number of cached module axioms
+     */
+    public long getCachedAxioms() {
+        return cachedAxioms;
+    }
+
+    /**
+     * Returns the number of modules requested from this cache
+     *
+     * @return number of requested modules
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache
+     *
+     * @return number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the average number of axioms of the returned modules
+     *
+     * @return average module size
+     */
+    public double getAverageModuleSize() {
+        return requests == 0 ? 0 : (double) moduleAxioms / requests;
+    }
+}
@@ -1,20 +1,24 @@
 package de.krkm.utilities.ontologyminimizer;
 
 import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
-import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidencePair;
+import de.krkm.utilities.annotatedaxiomextractor.ConfidenceIndex;
 import de.krkm.utilities.collectiontostring.CollectionToStringWrapper;
-import org.semanticweb.HermiT.Configuration;
-import org.semanticweb.HermiT.Reasoner;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides method to determine an ontology's core.
@@ -23,18 +27,45 @@ public class OntologyMinimizer {
     private final static Logger log = LoggerFactory.getLogger(OntologyMinimizer.class);
 
     private File snapShotDir;
+    private SnapShotWriter snapShotWriter;
+    private int fullSnapShotInterval;
 
     private OWLOntologyManager manager;
     private OWLOntology generatedOntology;
+    private ReasonerSelection reasonerSelection = new ReasonerSelection();
+    private EnumMap<ReasonerBackend, BufferedReasoner> reasoners =
+        new EnumMap<ReasonerBackend, BufferedReasoner>(ReasonerBackend.class);
 
     private int snapShotCounter = 0;
     private int removedAxioms = 0;
     private int readdedAxioms = 0;
     private int axiomsNotInGenerated = 0;
-    private PriorityQueue<AxiomConfidencePair> pairs;
+    private int entailmentChecks = 0;
+    private int timedOutAxioms = 0;
+    private int batchSize = 1;
+    private int parallelism = 1;
+    private ModuleCache moduleCache;
+    private OWLOntologyManager moduleManager;
+    private EntailmentPreChecker preChecker;
+    private boolean hierarchyReduction;
+    /**
+     * axioms without annotations whose redundancy has already been decided by the hierarchy reduction or before
+     * resuming from a checkpoint
+     */
+    private HashSet<OWLAxiom> settledAxioms = new HashSet<OWLAxiom>();
+
+    private File checkpointFile;
+    private int checkpointInterval;
+    private int lastCheckpoint;
+    private AxiomOrdinals ordinals;
+    private BitSet removedOrdinals = new BitSet();
+    private BitSet keptOrdinals = new BitSet();
+    private int cursor = -1;
+    private ConfidenceIndex index;
     private OutputStream outputStream;
 
     private BufferedWriter removedAxiomWriter;
+    private BufferedWriter timedOutAxiomWriter;
 
 
     /**
@@ -54,6 +85,29 @@ public class OntologyMinimizer {
                              OutputStream outputStream,
                              ArrayList<IRI> annotationIRIs,
                              File snapShotDir) throws OntologyMinimizationException {
+        this(coherentStream, annotatedStream, outputStream, annotationIRIs, snapShotDir, 1);
+    }
+
+    /**
+     * Initializes the minimizer using the given input and output streams and extracts the annotated axioms using
+     * <code>extractionThreads</code> threads.
+     *
+     * @param coherentStream    inputstream for getting the coherent ontology
+     * @param annotatedStream   inputstream for getting the ontology containing axioms annotated with their confidence
+     *                          values
+     * @param outputStream      stream to write generated ontology to
+     * @param annotationIRIs    array list of all IRIs of confidence annotations
+     * @param snapShotDir       directory to regularly dump intermediate versions of the generated ontology. if null,
+     *                          no snapshots are created
+     * @param extractionThreads number of threads used to extract annotated axioms
+     * @throws OntologyMinimizationException on an error initializing the minimizer
+     */
+    public OntologyMinimizer(InputStream coherentStream,
+                             InputStream annotatedStream,
+                             OutputStream outputStream,
+                             ArrayList<IRI> annotationIRIs,
+                             File snapShotDir,
+                             int extractionThreads) throws OntologyMinimizationException {
         this.outputStream = outputStream;
         this.manager = OWLManager.createOWLOntologyManager();
         ArrayList<OWLAnnotationProperty> annotationProperties =
@@ -74,8 +128,10 @@ public class OntologyMinimizer {
 
         AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(annotationProperties);
         extractor.setPreserveAnnotations(true);
-        pairs = extractor.extract(annotatedOntology);
-        log.info("Extracted {} pairs", pairs.size());
+        extractor.setParallelism(extractionThreads);
+        index = new ConfidenceIndex(annotationProperties);
+        extractor.extract(annotatedOntology, index);
+        log.info("Extracted {} pairs", index.getKnownCount());
 
         manager.getOWLDataFactory().purge();
         manager = OWLManager.createOWLOntologyManager();
@@ -87,6 +143,20 @@ public class OntologyMinimizer {
             throw new OntologyMinimizationException("Unable to load original ontology", e);
         }
         log.info("Original ontology contains {} axioms", generatedOntology.getAxiomCount());
+
+        // the index follows all changes of the generated ontology from now on
+        index.attach(manager, generatedOntology);
+        axiomsNotInGenerated = index.getKnownCount() - index.size();
+    }
+
+    /**
+     * Returns the confidence index attached to the generated ontology. It reflects the current state of the generated
+     * ontology and may be used by further processing steps after minimization.
+     *
+     * @return confidence index attached to the generated ontology
+     */
+    public ConfidenceIndex getConfidenceIndex() {
+        return index;
     }
 
     /**
@@ -98,111 +168,818 @@ public class OntologyMinimizer {
         this.removedAxiomWriter = new BufferedWriter(new OutputStreamWriter(stream));
     }
 
+    /**
+     * Set the stream to log axioms kept because their entailment check has timed out to
+     *
+     * @param stream stream to write timed out axioms to
+     */
+    public void setTimedOutAxiomsStream(OutputStream stream) {
+        this.timedOutAxiomWriter = new BufferedWriter(new OutputStreamWriter(stream));
+    }
+
+    /**
+     * Sets the maximum number of consecutive axioms whose redundancy is checked by a single entailment check. If such
+     * a block is not entailed as a whole, it is bisected until the non-redundant axioms are found. The size of the
+     * next block is doubled after a block has been removed completely and halved otherwise, thus, the overhead stays
+     * small for regions of the ontology containing few redundant axioms. The result is identical to the one of the
+     * sequential minimization. Defaults to 1, i.e., checking each axiom on its own.
+     *
+     * @param batchSize maximum number of axioms checked at once
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size has to be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the number of reasoners checking the redundancy of consecutive axioms in parallel. Each reasoner works on
+     * its own copy of the generated ontology and all checks of a round are performed speculatively assuming that the
+     * preceding axioms are not redundant. The results are committed in order of confidence up to the first redundant
+     * axiom, the later ones are checked again in the next round. Thus, the result is identical to the one of the
+     * sequential minimization. Since the generated ontology only shrinks, axioms found to be not entailed are never
+     * checked again. If set to more than 1, the batch size is ignored. Defaults to 1.
+     *
+     * @param parallelism number of reasoners checking axioms in parallel
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be at least 1 but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Enables checking the entailment of axioms on the syntactic locality module of their signature instead of the
+     * whole generated ontology. For each check, a short-lived reasoner is created on the module without the checked
+     * axioms. Modules are cached by signature until one of their axioms is removed. Since bottom and top-bottom-star
+     * modules preserve all entailments over their signature, the result does not change. Checks performed by the
+     * reasoners enabled by {@link #setParallelism(int)} always work on the whole ontology.
+     *
+     * @param moduleType type of the modules to check entailments on, null to check on the whole ontology
+     * @throws OntologyMinimizationException on errors initializing the module extraction
+     */
+    public void setModuleType(ModuleType moduleType) throws OntologyMinimizationException {
+        if (moduleType == null) {
+            moduleCache = null;
+            return;
+        }
+        moduleCache = new ModuleCache(generatedOntology, moduleType);
+        if (moduleManager == null) {
+            moduleManager = OWLManager.createOWLOntologyManager();
+        }
+    }
+
+    /**
+     * Enables using Pellet instead of HermiT. Pellet applies the changes of the generated ontology to its knowledge
+     * base incrementally instead of reloading the whole ontology and uses incremental consistency checking where
+     * possible. Only changes of assertions are applied incrementally, see {@link ReasonerBackend#PELLET}. Must be set
+     * before the first entailment check.
+     *
+     * @param incrementalReasoning true to use Pellet with incremental updates
+     */
+    public void setIncrementalReasoning(boolean incrementalReasoning) {
+        reasonerSelection.setDefaultBackend(incrementalReasoning ? ReasonerBackend.PELLET : ReasonerBackend.HERMIT);
+    }
+
+    /**
+     * Sets the reasoner checking all axioms whose type has no reasoner of its own. Defaults to HermiT. Must be set
+     * before the first entailment check.
+     *
+     * @param backend reasoner to check axioms with
+     */
+    public void setReasonerBackend(ReasonerBackend backend) {
+        reasonerSelection.setDefaultBackend(backend);
+    }
+
+    /**
+     * Sets the reasoner checking all axioms of the given type. A block containing axioms of several types is checked
+     * by each of the reasoners for its axioms. Must be set before the first entailment check.
+     *
+     * @param type    axiom type
+     * @param backend reasoner to check axioms of the given type with
+     */
+    public void setReasonerBackend(AxiomType<?> type, ReasonerBackend backend) {
+        reasonerSelection.setBackend(type, backend);
+    }
+
+    /**
+     * Sets the timeout of a single entailment check. An axiom whose check times out is kept in the generated
+     * ontology and written to the timed out axiom stream for later review. A block whose check times out is bisected
+     * like a block which is not entailed. Defaults to 0, i.e., no timeout. Must be set before the first entailment
+     * check.
+     *
+     * @param timeout timeout in milliseconds, 0 for none
+     */
+    public void setTimeout(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        reasonerSelection.setTimeout(timeout);
+    }
+
+    /**
+     * Enables deciding entailments structurally before calling the reasoner. Atomic subsumptions between classes or
+     * properties as well as domains and ranges following from the told hierarchies are entailed without a reasoner.
+     * When checking on modules, entailments shown on a module are additionally recorded and reused as long as none of
+     * the axioms of the module is removed. All remaining checks are passed to the reasoner.
+     *
+     * @param preChecks true to enable structural pre-checks
+     */
+    public void setPreChecks(boolean preChecks) {
+        if (preChecker != null) {
+            preChecker.dispose();
+            preChecker = null;
+        }
+        if (preChecks) {
+            preChecker = new EntailmentPreChecker(manager, generatedOntology);
+        }
+    }
+
+    /**
+     * Sets the number of delta snapshots written between two full snapshots. By default, only the first snapshot is
+     * a full one and all further snapshots only record the axioms removed since the previous one.
+     *
+     * @param fullSnapShotInterval number of delta snapshots between two full snapshots, 0 for a single full snapshot
+     */
+    public void setFullSnapShotInterval(int fullSnapShotInterval) {
+        if (fullSnapShotInterval < 0) {
+            throw new IllegalArgumentException("Full snapshot interval must not be negative: " + fullSnapShotInterval);
+        }
+        this.fullSnapShotInterval = fullSnapShotInterval;
+    }
+
+    /**
+     * Enables settling atomic subsumptions between named classes or object properties on the graph of told
+     * subsumptions before checking the remaining axioms. The reduction only decides axioms whose locality module
+     * consists of atomic subsumptions and assertions, for which it gives the same result as the reasoner, all others
+     * are checked as usual.
+     *
+     * @param hierarchyReduction true to reduce the told hierarchies before checking the remaining axioms
+     */
+    public void setHierarchyReduction(boolean hierarchyReduction) {
+        this.hierarchyReduction = hierarchyReduction;
+    }
+
+    /**
+     * Enables writing checkpoints to the given file whenever <code>interval</code> further axioms have been processed
+     * and at the end of the minimization. A checkpoint contains the sets of removed and kept axioms as well as the
+     * counters including the number of axioms kept after a timeout, thus, an interrupted minimization can be
+     * continued using {@link #resume(java.io.File)}. Has to be called before any axiom is removed.
+     *
+     * @param checkpointFile file to write checkpoints to
+     * @param interval       number of processed axioms between two checkpoints
+     */
+    public void setCheckpointFile(File checkpointFile, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval has to be positive: " + interval);
+        }
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = interval;
+        getOrdinals();
+    }
+
+    /**
+     * Restores the state of a previous minimization of the same ontologies from the given checkpoint. All axioms
+     * removed before the checkpoint are removed again and all axioms processed before the checkpoint are skipped by
+     * the minimization. Has to be called before any axiom is removed.
+     *
+     * @param checkpoint file to read checkpoint from
+     * @throws OntologyMinimizationException if the checkpoint cannot be read or does not belong to the ontology
+     */
+    public void resume(File checkpoint) throws OntologyMinimizationException {
+        Checkpoint state;
+        try {
+            state = Checkpoint.read(checkpoint);
+        }
+        catch (IOException e) {
+            throw new OntologyMinimizationException("Unable to read checkpoint", e);
+        }
+        AxiomOrdinals ordinals = getOrdinals();
+        if (state.axiomCount != ordinals.size() || state.checksum != ordinals.getChecksum()) {
+            throw new OntologyMinimizationException("Checkpoint does not belong to the given ontology");
+        }
+
+        for (int i = state.removed.nextSetBit(0); i >= 0; i = state.removed.nextSetBit(i + 1)) {
+            OWLAxiom axiom = ordinals.getAxiom(i);
+            ConfidenceIndex.Entry entry = index.getEntry(axiom);
+            OWLAxiom annotated = entry == null ? axiom : entry.getAxiom();
+            manager.removeAxiom(generatedOntology, annotated);
+            if (moduleCache != null) {
+                moduleCache.removeAxiom(annotated);
+            }
+            settledAxioms.add(axiom);
+        }
+        for (int i = state.kept.nextSetBit(0); i >= 0; i = state.kept.nextSetBit(i + 1)) {
+            settledAxioms.add(ordinals.getAxiom(i));
+        }
+        removedOrdinals = state.removed;
+        keptOrdinals = state.kept;
+        removedAxioms = state.removedAxioms;
+        readdedAxioms = state.readdedAxioms;
+        entailmentChecks = state.entailmentChecks;
+        timedOutAxioms = state.timedOutAxioms;
+        snapShotCounter = state.snapShotCounter;
+        cursor = state.cursor;
+        lastCheckpoint = removedAxioms + readdedAxioms;
+        log.info("Resumed after {} processed axioms (Removed {} - Readded {}), last axiom had confidence {}",
+                 new Object[]{lastCheckpoint, removedAxioms, readdedAxioms, state.cursorConfidence});
+    }
+
     /**
      * Starts the minimization process
+     *
+     * @throws OntologyMinimizationException on errors checking axioms in parallel or writing snapshots
      */
-    public void startMinimization() {
+    public void startMinimization() throws OntologyMinimizationException {
         log.info("Starting minimization...");
-        Configuration config = new Configuration();
-        config.ignoreUnsupportedDatatypes = true;
-        OWLReasoner reasoner = new Reasoner(config, generatedOntology);
-        log.debug("Reasoner initialized");
-        int counter = 0;
-        while (!pairs.isEmpty()) {
-            AxiomConfidencePair pair = pairs.remove();
+        if (snapShotDir != null) {
+            snapShotWriter = new SnapShotWriter(snapShotDir, fullSnapShotInterval);
+        }
+        boolean minimized = false;
+        try {
+            minimize();
+            minimized = true;
+        }
+        finally {
+            if (snapShotWriter != null) {
+                SnapShotWriter writer = snapShotWriter;
+                snapShotWriter = null;
+                try {
+                    writer.close();
+                }
+                catch (OntologyMinimizationException e) {
+                    if (minimized) {
+                        throw e;
+                    }
+                    // do not mask the failure of the minimization
+                    log.error("Unable to create snapshot", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs the minimization
+     *
+     * @throws OntologyMinimizationException on errors checking axioms
+     */
+    private void minimize() throws OntologyMinimizationException {
+        if (hierarchyReduction) {
+            reduceHierarchy();
+            writeCheckpoint(true);
+        }
+        if (parallelism > 1) {
+            minimizeInParallel();
+            return;
+        }
+        int counter = removedAxioms + readdedAxioms;
+        int blockSize = batchSize;
+        // the index only contains axioms of the generated ontology and is updated on each change, thus, traversal has
+        // to continue from the last entry of the block which might have been removed meanwhile
+        ConfidenceIndex.Entry entry = index.getLowest();
+        while (entry != null) {
             log.debug("Progress: {} (Removed {} - Readded {} - Not In {})",
                       new Object[]{counter, removedAxioms, readdedAxioms, axiomsNotInGenerated});
-            log.debug("Trying to remove axiom '{}' having confidence of {}", pair.getAxiom(), pair.getConfidence());
-            counter++;
-            if (!generatedOntology.containsAxiomIgnoreAnnotations(pair.getAxiom())) {
-                axiomsNotInGenerated++;
+            ArrayList<OWLAxiom> block = new ArrayList<OWLAxiom>(blockSize);
+            ConfidenceIndex.Entry last = entry;
+            for (; entry != null && block.size() < blockSize; entry = index.getNext(entry)) {
+                if (settledAxioms.contains(entry.getAxiom().getAxiomWithoutAnnotations())) {
+                    continue;
+                }
+                log.debug("Trying to remove axiom '{}' having confidence of {}", entry.getAxiom(),
+                          entry.getConfidence());
+                block.add(entry.getAxiom());
+                last = entry;
+            }
+            if (block.isEmpty()) {
+                break;
+            }
+            int previousCounter = counter;
+            counter += block.size();
+            int removed = block.size() == 1 ? (removeIfRedundant(block.get(0)) ? 1 : 0) : removeRedundant(block);
+            blockSize = removed == block.size() ? Math.min(batchSize, blockSize * 2) : Math.max(1, blockSize / 2);
+            if (removed > 0 && counter / 1000 > previousCounter / 1000) {
+                log.debug("Progress: {} (Removed {} - Readded {} - Not In {})",
+                          new Object[]{counter, removedAxioms, readdedAxioms, axiomsNotInGenerated});
+                createSnapShot();
+            }
+            writeCheckpoint(false);
+            entry = index.getNext(last);
+        }
+        writeCheckpoint(true);
+        logSummary();
+    }
+
+    /**
+     * Removes all atomic subsumptions which are decidable on the told hierarchies and redundant in order of confidence
+     */
+    private void reduceHierarchy() {
+        HierarchyReduction reduction = new HierarchyReduction(generatedOntology);
+        if (!reduction.isApplicable()) {
+            log.info("Skipping hierarchy reduction");
+            return;
+        }
+        int settled = 0;
+        int removed = 0;
+        for (ConfidenceIndex.Entry entry = index.getLowest(); entry != null; entry = index.getNext(entry)) {
+            OWLAxiom axiom = entry.getAxiom();
+            if (settledAxioms.contains(axiom.getAxiomWithoutAnnotations())) {
                 continue;
             }
-            try {
-                List<OWLOntologyChange> changes = manager.removeAxiom(generatedOntology, pair.getAxiom());
-                log.debug("Changes that took place: {}", new CollectionToStringWrapper(changes));
-                reasoner.flush();
-                if (!reasoner.isEntailed(pair.getAxiom().getAxiomWithoutAnnotations())) {
-                    log.debug("Axiom '{}' is not entailed by ontology, add it again", pair.getAxiom());
-                    readdedAxioms++;
-                    manager.addAxiom(generatedOntology, pair.getAxiom());
-                }
-                else {
-                    log.debug("Axiom '{}' is still entailed", pair.getAxiom());
-                    removedAxioms++;
-                    try {
-                        logRemovedAxiom(pair);
+            Boolean redundant = reduction.isRedundant(axiom);
+            if (redundant == null) {
+                continue;
+            }
+            settled++;
+            settledAxioms.add(axiom.getAxiomWithoutAnnotations());
+            if (redundant) {
+                log.debug("Axiom '{}' is entailed by the told hierarchy", axiom);
+                manager.removeAxiom(generatedOntology, axiom);
+                reduction.removeAxiom(axiom);
+                commitRemoval(axiom);
+                removed++;
+            }
+            else {
+                commitKept(axiom);
+            }
+        }
+        log.info("Hierarchy reduction settled {} axioms, removed {}", settled, removed);
+    }
+
+    /**
+     * Performs the minimization using a pool of reasoners checking <code>parallelism</code> axioms at once
+     *
+     * @throws OntologyMinimizationException on errors initializing the pool or checking axioms
+     */
+    private void minimizeInParallel() throws OntologyMinimizationException {
+        ReasonerPool pool = new ReasonerPool(generatedOntology, parallelism, reasonerSelection);
+        // axioms known to be not entailed by a superset of the current generated ontology
+        Set<OWLAxiom> notEntailed = new HashSet<OWLAxiom>();
+        // axioms whose check has timed out, they are kept like axioms which are not entailed
+        Set<OWLAxiom> timedOut = new HashSet<OWLAxiom>();
+        int counter = removedAxioms + readdedAxioms;
+        try {
+            ConfidenceIndex.Entry entry = index.getLowest();
+            while (entry != null) {
+                log.debug("Progress: {} (Removed {} - Readded {} - Not In {})",
+                          new Object[]{counter, removedAxioms, readdedAxioms, axiomsNotInGenerated});
+                ArrayList<ConfidenceIndex.Entry> candidates = new ArrayList<ConfidenceIndex.Entry>();
+                ArrayList<OWLAxiom> unchecked = new ArrayList<OWLAxiom>();
+                for (; entry != null && unchecked.size() < pool.size(); entry = index.getNext(entry)) {
+                    if (settledAxioms.contains(entry.getAxiom().getAxiomWithoutAnnotations())) {
+                        continue;
                     }
-                    catch (IOException e) {
-                        log.error("Unable to log removed axiom", e);
+                    candidates.add(entry);
+                    if (!notEntailed.contains(entry.getAxiom().getAxiomWithoutAnnotations())) {
+                        unchecked.add(entry.getAxiom());
+                    }
+                }
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                Boolean[] results = checkRedundancy(pool, unchecked);
+
+                int previousCounter = counter;
+                boolean removed = false;
+                boolean pending = false;
+                ConfidenceIndex.Entry last = null;
+                int result = 0;
+                for (ConfidenceIndex.Entry candidate : candidates) {
+                    OWLAxiom axiom = candidate.getAxiom();
+                    OWLAxiom key = axiom.getAxiomWithoutAnnotations();
+                    Boolean checked = notEntailed.remove(key) ? Boolean.FALSE : results[result++];
+                    if (checked == null) {
+                        timedOut.add(key);
                     }
-                    if (counter % 1000 == 0) {
-                        log.debug("Progress: {} (Removed {} - Readded {} - Not In {})",
-                                  new Object[]{counter, removedAxioms, readdedAxioms, axiomsNotInGenerated});
-                        try {
-                            createSnapShot();
+                    boolean entailed = Boolean.TRUE.equals(checked);
+                    if (pending || (entailed && removed)) {
+                        // checked on an ontology still containing an axiom removed in this round, thus, only a
+                        // negative result stays valid and the axiom has to be committed in the next round
+                        pending = true;
+                        if (!entailed) {
+                            notEntailed.add(key);
                         }
-                        catch (OntologyMinimizationException e) {
-                            log.error("Unable to create snapshot", e);
+                        continue;
+                    }
+                    counter++;
+                    last = candidate;
+                    if (entailed) {
+                        log.debug("Axiom '{}' is still entailed", axiom);
+                        manager.removeAxiom(generatedOntology, axiom);
+                        pool.removeAxioms(Collections.singleton(axiom));
+                        removed = true;
+                        commitRemoval(axiom);
+                    }
+                    else {
+                        log.debug("Axiom '{}' is not entailed by ontology, keep it", axiom);
+                        if (timedOut.remove(key)) {
+                            recordTimeOut(axiom);
                         }
+                        commitKept(axiom);
                     }
                 }
+                if (removed && counter / 1000 > previousCounter / 1000) {
+                    createSnapShot();
+                }
+                writeCheckpoint(false);
+                entry = index.getNext(last);
             }
-            catch (OWLOntologyChangeException e) {
-                log.error("Unable to remove axiom '{}'", pair.getAxiom(), e);
+            writeCheckpoint(true);
+        }
+        finally {
+            log.info("** Reasoner updates: {}", pool.getUpdates());
+            pool.dispose();
+        }
+        logSummary();
+    }
+
+    /**
+     * Checks for each of the given axioms whether it is entailed by the generated ontology without it. Axioms which
+     * are not decided by the pre-checks are checked in parallel using the given pool.
+     *
+     * @param pool   pool of reasoners working on copies of the generated ontology
+     * @param axioms axioms to check
+     * @return for each axiom whether it is entailed by the remaining axioms of the ontology, null on a timeout
+     * @throws OntologyMinimizationException on errors checking the axioms
+     */
+    private Boolean[] checkRedundancy(ReasonerPool pool, List<OWLAxiom> axioms)
+            throws OntologyMinimizationException {
+        Boolean[] results = new Boolean[axioms.size()];
+        ArrayList<OWLAxiom> undecided = new ArrayList<OWLAxiom>();
+        for (int i = 0; i < results.length; i++) {
+            OWLAxiom axiom = axioms.get(i);
+            if (preChecker == null || preChecker.isEntailed(axiom, Collections.singleton(axiom)) == null) {
+                undecided.add(axiom);
+            }
+            else {
+                results[i] = true;
             }
         }
+        Boolean[] undecidedResults = pool.checkRedundancy(undecided);
+        entailmentChecks += undecided.size();
+        for (int i = 0, j = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = undecidedResults[j++];
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Logs the statistics of the finished minimization
+     */
+    private void logSummary() {
         log.info("Minimization done...");
         log.info("** Total axioms in result: {}", generatedOntology.getAxiomCount());
         log.info("** Axioms removed: {}", removedAxioms);
         log.info("** Axioms re-added: {}", readdedAxioms);
+        log.info("** Entailment checks: {}", entailmentChecks);
+        log.info("** Axioms kept after timeout: {}", timedOutAxioms);
+        for (Map.Entry<ReasonerBackend, BufferedReasoner> reasoner : reasoners.entrySet()) {
+            log.info("** Reasoner updates of {}: {} (skipped {})",
+                     new Object[]{reasoner.getKey(), reasoner.getValue().getUpdates(),
+                                  reasoner.getValue().getSkippedUpdates()});
+        }
+        if (preChecker != null) {
+            log.info("** Pre-check hits: {} structural and {} recorded of {} checks",
+                     new Object[]{preChecker.getStructuralHits(), preChecker.getRecordedHits(),
+                                  preChecker.getChecks()});
+        }
+        if (moduleCache != null) {
+            log.info("** Module cache hits: {} of {} (average module size {})",
+                     new Object[]{moduleCache.getHits(), moduleCache.getRequests(),
+                                  moduleCache.getAverageModuleSize()});
+        }
     }
 
     /**
-     * Creates a snapshot of the current generated ontology. If snapShotDir is not set, this is a no-op.
+     * Performs a single minimization step for the given axiom. The axiom is removed from the generated ontology and
+     * added again if it is not entailed by the remaining axioms.
      *
-     * @throws OntologyMinimizationException when unable to write snapshot
+     * @param axiom axiom to remove
+     * @return true if the axiom has been removed, false if it has been added again or could not be removed
      */
-    private void createSnapShot() throws OntologyMinimizationException {
-        if (snapShotDir == null) {
-            log.debug("Not creating snapshot since disabled");
-            return;
+    public boolean removeIfRedundant(OWLAxiom axiom) {
+        try {
+            List<OWLOntologyChange> changes = manager.removeAxiom(generatedOntology, axiom);
+            log.debug("Changes that took place: {}", new CollectionToStringWrapper(changes));
+            Boolean entailed = isEntailed(axiom);
+            if (entailed == null) {
+                recordTimeOut(axiom);
+            }
+            if (!Boolean.TRUE.equals(entailed)) {
+                log.debug("Axiom '{}' is not entailed by ontology, add it again", axiom);
+                manager.addAxiom(generatedOntology, axiom);
+                commitKept(axiom);
+                return false;
+            }
+            log.debug("Axiom '{}' is still entailed", axiom);
+            commitRemoval(axiom);
+            return true;
+        }
+        catch (OWLOntologyChangeException e) {
+            log.error("Unable to remove axiom '{}'", axiom, e);
+            return false;
         }
+    }
 
-        String snapShotFileName =
-            snapShotDir.getAbsolutePath() + File.separator + "generated_" + snapShotCounter + ".owl";
+    /**
+     * Performs the minimization steps for a block of axioms ordered by ascending confidence at once. All axioms of the
+     * block are removed and their entailment is checked by a single reasoner call. If not all of them are entailed,
+     * the block is bisected: the first half is settled recursively while the second half is present, afterwards the
+     * second half is settled on the resulting ontology. Since entailment is monotonic, this removes exactly the axioms
+     * which are removed by applying {@link #removeIfRedundant(org.semanticweb.owlapi.model.OWLAxiom)} to each axiom
+     * of the block in order.
+     *
+     * @param block axioms to remove ordered by ascending confidence
+     * @return number of removed axioms
+     */
+    public int removeRedundant(List<OWLAxiom> block) {
+        try {
+            manager.removeAxioms(generatedOntology, new HashSet<OWLAxiom>(block));
+            return settle(block);
+        }
+        catch (OWLOntologyChangeException e) {
+            log.error("Unable to remove block of {} axioms", block.size(), e);
+            return 0;
+        }
+    }
 
-        /*
-         * sure this is a race condition when other applications interfere with this one, but this solution is
-         * sufficient
-         */
-        while (new File(snapShotFileName).exists()) {
-            snapShotCounter++;
-            snapShotFileName = snapShotDir.getAbsolutePath() + File.separator + "generated_" + snapShotCounter + ".owl";
+    /**
+     * Decides which axioms of the given block, which has already been removed from the generated ontology, stay
+     * removed and adds the remaining ones again
+     *
+     * @param block removed axioms ordered by ascending confidence
+     * @return number of axioms which stay removed
+     */
+    private int settle(List<OWLAxiom> block) {
+        if (block.size() > 1 && !Boolean.TRUE.equals(isEntailed(block))) {
+            List<OWLAxiom> first = block.subList(0, block.size() / 2);
+            List<OWLAxiom> second = block.subList(block.size() / 2, block.size());
+            log.debug("Block of {} axioms is not entailed, bisecting", block.size());
+            manager.addAxioms(generatedOntology, new HashSet<OWLAxiom>(second));
+            int removed = settle(first);
+            manager.removeAxioms(generatedOntology, new HashSet<OWLAxiom>(second));
+            return removed + settle(second);
+        }
+        Boolean entailed = block.size() == 1 ? isEntailed(block.get(0)) : Boolean.TRUE;
+        if (entailed == null) {
+            recordTimeOut(block.get(0));
+        }
+        if (!Boolean.TRUE.equals(entailed)) {
+            log.debug("Axiom '{}' is not entailed by ontology, add it again", block.get(0));
+            manager.addAxiom(generatedOntology, block.get(0));
+            commitKept(block.get(0));
+            return 0;
         }
+        for (OWLAxiom axiom : block) {
+            log.debug("Axiom '{}' is still entailed", axiom);
+            commitRemoval(axiom);
+        }
+        return block.size();
+    }
 
-        log.info("Writing snapshot to '{}'", snapShotFileName);
-        FileOutputStream out;
+    /**
+     * Records that the given axiom has been removed from the generated ontology for good
+     *
+     * @param axiom removed axiom
+     */
+    private void commitRemoval(OWLAxiom axiom) {
+        removedAxioms++;
+        if (ordinals != null) {
+            cursor = ordinals.getOrdinal(axiom);
+            if (cursor >= 0) {
+                removedOrdinals.set(cursor);
+            }
+        }
+        if (moduleCache != null) {
+            moduleCache.removeAxiom(axiom);
+        }
+        if (snapShotWriter != null) {
+            snapShotWriter.removeAxiom(axiom);
+        }
         try {
-            out = new FileOutputStream(
-                snapShotFileName);
+            logRemovedAxiom(axiom);
         }
-        catch (FileNotFoundException e) {
-            throw new OntologyMinimizationException("Unable to open file for creating snapshot", e);
+        catch (IOException e) {
+            log.error("Unable to log removed axiom", e);
+        }
+    }
+
+    /**
+     * Records that the given axiom is kept in the generated ontology for good
+     *
+     * @param axiom kept axiom
+     */
+    private void commitKept(OWLAxiom axiom) {
+        readdedAxioms++;
+        if (ordinals != null) {
+            cursor = ordinals.getOrdinal(axiom);
+            if (cursor >= 0) {
+                keptOrdinals.set(cursor);
+            }
+        }
+    }
+
+    /**
+     * Records that the check of the given axiom has timed out and the axiom is kept for this reason
+     *
+     * @param axiom kept axiom
+     */
+    private void recordTimeOut(OWLAxiom axiom) {
+        timedOutAxioms++;
+        log.warn("Check of axiom '{}' has timed out, keeping it", axiom);
+        if (timedOutAxiomWriter == null) {
+            return;
         }
         try {
-            manager.saveOntology(generatedOntology, out);
+            timedOutAxiomWriter.write(axiom.toString());
+            timedOutAxiomWriter.newLine();
+            timedOutAxiomWriter.flush();
         }
-        catch (OWLOntologyStorageException e) {
-            throw new OntologyMinimizationException("Unable to save snapshot", e);
+        catch (IOException e) {
+            log.error("Unable to log timed out axiom", e);
         }
-        finally {
-            try {
-                out.close();
-            } catch (IOException ignored) {
+    }
+
+    /**
+     * Returns the numbers of the axioms of the generated ontology. They are assigned on first access, thus, this
+     * has to happen before any axiom is removed.
+     *
+     * @return numbers of the axioms of the generated ontology
+     */
+    private AxiomOrdinals getOrdinals() {
+        if (ordinals == null) {
+            ordinals = new AxiomOrdinals(generatedOntology);
+        }
+        return ordinals;
+    }
 
+    /**
+     * Writes a checkpoint if enabled and either forced or <code>checkpointInterval</code> axioms have been processed
+     * since the last checkpoint. Must only be called when no check is in progress.
+     *
+     * @param force true to write checkpoint regardless of the interval
+     */
+    private void writeCheckpoint(boolean force) {
+        int processed = removedAxioms + readdedAxioms;
+        if (checkpointFile == null || (!force && processed - lastCheckpoint < checkpointInterval)) {
+            return;
+        }
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.axiomCount = ordinals.size();
+        checkpoint.checksum = ordinals.getChecksum();
+        checkpoint.removedAxioms = removedAxioms;
+        checkpoint.readdedAxioms = readdedAxioms;
+        checkpoint.entailmentChecks = entailmentChecks;
+        checkpoint.snapShotCounter = snapShotCounter;
+        checkpoint.timedOutAxioms = timedOutAxioms;
+        checkpoint.cursor = cursor;
+        if (cursor >= 0) {
+            Double confidence = index.getConfidence(ordinals.getAxiom(cursor));
+            checkpoint.cursorConfidence = confidence == null ? Double.NaN : confidence;
+        }
+        checkpoint.removed = removedOrdinals;
+        checkpoint.kept = keptOrdinals;
+        try {
+            checkpoint.write(checkpointFile);
+            lastCheckpoint = processed;
+            log.debug("Wrote checkpoint after {} processed axioms", processed);
+        }
+        catch (IOException e) {
+            log.error("Unable to write checkpoint", e);
+        }
+    }
+
+    /**
+     * Checks whether the given axiom is entailed by the current generated ontology ignoring its annotations
+     *
+     * @param axiom axiom to check
+     * @return true if the axiom is entailed, false if not and null if the check has timed out
+     */
+    private Boolean isEntailed(OWLAxiom axiom) {
+        return isEntailed(Collections.singletonList(axiom));
+    }
+
+    /**
+     * Checks whether all given axioms are entailed by the current generated ontology ignoring their annotations. The
+     * axioms have to be removed from the generated ontology, all other removals have to be committed. Axioms checked
+     * by different reasoners are checked by one call per reasoner.
+     *
+     * @param axioms axioms to check
+     * @return true if all axioms are entailed, false if not and null if a check has timed out
+     */
+    private Boolean isEntailed(List<OWLAxiom> axioms) {
+        if (preChecker != null) {
+            ArrayList<OWLAxiom> undecided = new ArrayList<OWLAxiom>();
+            for (OWLAxiom axiom : axioms) {
+                if (preChecker.isEntailed(axiom, Collections.<OWLAxiom>emptySet()) == null) {
+                    undecided.add(axiom);
+                }
+            }
+            if (undecided.isEmpty()) {
+                return true;
+            }
+            axioms = undecided;
+        }
+        HashSet<OWLAxiom> unannotated = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : axioms) {
+            unannotated.add(axiom.getAxiomWithoutAnnotations());
+        }
+        Boolean entailed = true;
+        for (Map.Entry<ReasonerBackend, Set<OWLAxiom>> group : reasonerSelection.groupByBackend(unannotated)
+                                                                                .entrySet()) {
+            entailmentChecks++;
+            Boolean groupEntailed = moduleCache != null ? isEntailedByModule(group.getKey(), axioms, group.getValue())
+                                                        : getReasoner(group.getKey()).isEntailed(group.getValue());
+            if (groupEntailed == null) {
+                entailed = null;
+            }
+            else if (!groupEntailed) {
+                return false;
             }
         }
+        return entailed;
+    }
+
+    /**
+     * Checks whether the unannotated axioms are entailed by the module of their signature without the checked axioms
+     */
+    private Boolean isEntailedByModule(ReasonerBackend backend, List<OWLAxiom> axioms, Set<OWLAxiom> unannotated) {
+        HashSet<OWLEntity> signature = new HashSet<OWLEntity>();
+        for (OWLAxiom axiom : unannotated) {
+            signature.addAll(axiom.getSignature());
+        }
+        // the cache only knows committed removals, thus, its module still contains the checked axioms
+        HashSet<OWLAxiom> module = new HashSet<OWLAxiom>(moduleCache.getModule(signature));
+        module.removeAll(axioms);
+        OWLOntology moduleOntology;
+        try {
+            moduleOntology = moduleManager.createOntology(module);
+        }
+        catch (OWLOntologyCreationException e) {
+            log.warn("Unable to create module ontology, checking on whole ontology", e);
+            return getReasoner(backend).isEntailed(unannotated);
+        }
+        OWLReasoner moduleReasoner = backend.tryCreateReasoner(moduleOntology, reasonerSelection.getTimeout());
+        if (moduleReasoner == null) {
+            moduleManager.removeOntology(moduleOntology);
+            return null;
+        }
+        try {
+            Boolean entailed = ReasonerBackend.isEntailed(moduleReasoner, unannotated);
+            if (entailed != null && entailed && preChecker != null) {
+                for (OWLAxiom axiom : unannotated) {
+                    preChecker.recordEntailed(axiom, module);
+                }
+            }
+            return entailed;
+        }
+        finally {
+            moduleReasoner.dispose();
+            moduleManager.removeOntology(moduleOntology);
+        }
+    }
+
+    /**
+     * Returns the reasoner of the given backend working on the generated ontology. The reasoner is created on first
+     * access.
+     *
+     * @param backend backend of the reasoner
+     * @return reasoner working on the generated ontology
+     */
+    private BufferedReasoner getReasoner(ReasonerBackend backend) {
+        BufferedReasoner reasoner = reasoners.get(backend);
+        if (reasoner == null) {
+            reasoner = new BufferedReasoner(manager, generatedOntology, backend, reasonerSelection.getTimeout());
+            reasoners.put(backend, reasoner);
+            log.debug("Reasoner {} initialized", backend);
+        }
+        return reasoner;
+    }
+
+    /**
+     * Schedules a snapshot of the current generated ontology which is written in the background. If snapShotDir is
+     * not set, this is a no-op.
+     *
+     * @throws OntologyMinimizationException if writing a previous snapshot has failed
+     */
+    private void createSnapShot() throws OntologyMinimizationException {
+        if (snapShotWriter == null) {
+            log.debug("Not creating snapshot since disabled");
+            return;
+        }
+
+        /*
+         * sure this is a race condition when other applications interfere with this one, but this solution is
+         * sufficient
+         */
+        while (new File(snapShotDir, "generated_" + snapShotCounter + ".owl").exists()) {
+            snapShotCounter++;
+        }
+        snapShotWriter.createSnapShot(generatedOntology, snapShotCounter);
         snapShotCounter++;
     }
 
@@ -215,17 +992,33 @@ public class OntologyMinimizer {
         manager.saveOntology(generatedOntology, outputStream);
     }
 
+    /**
+     * Releases the reasoners and detaches all listeners from the generated ontology. Only
+     * {@link #saveGeneratedOntology()} may be called afterwards.
+     */
+    public void dispose() {
+        index.dispose();
+        if (preChecker != null) {
+            preChecker.dispose();
+            preChecker = null;
+        }
+        for (BufferedReasoner reasoner : reasoners.values()) {
+            reasoner.dispose();
+        }
+        reasoners.clear();
+    }
+
     /**
      * Writes the given axiom into the removed axiom stream if the stream is set. Otherwise this is
      * a no-op
      *
      * @param axiom axiom to write to removed axiom stream
      */
-    private void logRemovedAxiom(AxiomConfidencePair axiom) throws IOException {
+    private void logRemovedAxiom(OWLAxiom axiom) throws IOException {
         if (removedAxiomWriter == null) {
             return;
         }
-        removedAxiomWriter.write(axiom.getAxiom().toString());
+        removedAxiomWriter.write(axiom.toString());
         removedAxiomWriter.newLine();
         removedAxiomWriter.flush();
     }
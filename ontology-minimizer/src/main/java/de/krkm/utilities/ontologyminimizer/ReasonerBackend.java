@@ -0,0 +1,157 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import com.clarkparsia.pellet.owlapiv3.PelletReasonerFactory;
+import org.mindswap.pellet.PelletOptions;
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
+import org.semanticweb.owlapi.reasoner.SimpleConfiguration;
+import org.semanticweb.owlapi.reasoner.TimeOutException;
+import org.semanticweb.owlapi.reasoner.structural.StructuralReasonerFactory;
+
+import java.util.Set;
+
+/**
+ * Reasoners available for checking entailments during the minimization
+ */
+public enum ReasonerBackend {
+    /**
+     * HermiT reloading the ontology on changes
+     */
+    HERMIT {
+        @Override
+        public OWLReasoner createReasoner(OWLOntology ontology, long timeout) {
+            Configuration config = new Configuration();
+            config.ignoreUnsupportedDatatypes = true;
+            if (timeout > 0) {
+                config.individualTaskTimeout = timeout;
+            }
+            return new Reasoner(config, ontology);
+        }
+    },
+    /**
+     * Pellet applying changes of the ontology to its knowledge base incrementally. Incremental consistency checking
+     * and deletion only cover ABox changes, i.e., added or removed assertions. Each change of a TBox or RBox axiom,
+     * e.g., removing a subsumption and adding it again, makes Pellet reload its knowledge base on the next check.
+     * Unlike the buffered backends, such changes are not coalesced, thus, HermiT is usually faster for minimizing
+     * schema axioms.
+     */
+    PELLET {
+        @Override
+        public OWLReasoner createReasoner(OWLOntology ontology, long timeout) {
+            return Pellet.FACTORY.createNonBufferingReasoner(ontology, getConfiguration(timeout));
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return true;
+        }
+    },
+    /**
+     * OWL API structural reasoner answering from the told axioms only. It never takes long but only finds axioms
+     * contained in the ontology with different annotations, thus, it is meant for axiom types left to the pre-checks.
+     */
+    STRUCTURAL {
+        @Override
+        public OWLReasoner createReasoner(OWLOntology ontology, long timeout) {
+            return new StructuralReasonerFactory().createReasoner(ontology, getConfiguration(timeout));
+        }
+    };
+
+    /**
+     * Creates a reasoner of this type working on the given ontology
+     *
+     * @param ontology ontology to create reasoner for
+     * @param timeout  timeout of a single check in milliseconds, 0 for none
+     * @return reasoner working on the given ontology
+     */
+    public abstract OWLReasoner createReasoner(OWLOntology ontology, long timeout);
+
+    /**
+     * Creates a reasoner of this type like {@link #createReasoner(OWLOntology, long)} but returns null if loading the
+     * ontology already exceeds the timeout, as HermiT applies its timeout to the preprocessing as well
+     *
+     * @param ontology ontology to create reasoner for
+     * @param timeout  timeout of a single check in milliseconds, 0 for none
+     * @return reasoner working on the given ontology or null if its creation has timed out
+     */
+    OWLReasoner tryCreateReasoner(OWLOntology ontology, long timeout) {
+        try {
+            return createReasoner(ontology, timeout);
+        }
+        catch (TimeOutException e) {
+            return null;
+        }
+        catch (ReasonerInterruptedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether reasoners of this type process changes of the ontology on their own instead of buffering them
+     * until flushed
+     *
+     * @return true if reasoners of this type are not buffering
+     */
+    public boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * Returns the backend having the given name ignoring case
+     *
+     * @param name name of the backend, i.e., hermit, pellet or structural
+     * @return backend having the given name
+     * @throws IllegalArgumentException if there is no backend having the given name
+     */
+    public static ReasonerBackend forName(String name) {
+        for (ReasonerBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(name)) {
+                return backend;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reasoner: " + name);
+    }
+
+    /**
+     * Checks whether the given axioms are entailed using the given reasoner
+     *
+     * @param reasoner reasoner to use
+     * @param axioms   axioms to check
+     * @return true if all axioms are entailed, false if not and null if the check has timed out
+     */
+    static Boolean isEntailed(OWLReasoner reasoner, Set<OWLAxiom> axioms) {
+        try {
+            return reasoner.isEntailed(axioms);
+        }
+        catch (TimeOutException e) {
+            return null;
+        }
+        catch (ReasonerInterruptedException e) {
+            // HermiT signals an exceeded task timeout by an interruption
+            return null;
+        }
+    }
+
+    private static SimpleConfiguration getConfiguration(long timeout) {
+        return timeout > 0 ? new SimpleConfiguration(timeout) : new SimpleConfiguration();
+    }
+
+    /**
+     * Sets the global options of Pellet once when the first Pellet reasoner is created
+     */
+    private static class Pellet {
+        private final static PelletReasonerFactory FACTORY;
+
+        static {
+            PelletOptions.USE_COMPLETION_QUEUE = true;
+            PelletOptions.USE_INCREMENTAL_CONSISTENCY = true;
+            PelletOptions.USE_INCREMENTAL_DELETION = true;
+            PelletOptions.USE_SMART_RESTORE = false;
+            FACTORY = PelletReasonerFactory.getInstance();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.OWLObjectDuplicator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Pool of reasoners working on private copies of an ontology which allows to check whether several axioms are
+ * redundant in parallel. Each check removes the axiom from one of the copies, checks whether it is still entailed and
+ * adds it again, thus, the checks are independent of each other. Changes which should persist have to be applied to
+ * all copies using {@link #removeAxioms(java.util.Collection)}.
+ * <p/>
+ * Each copy is managed by its own manager and data factory since neither of them is thread-safe. The axioms of a
+ * copy are duplicated using its own data factory, thus, the workers only read the axioms of the source ontology and
+ * never create OWL objects through its data factory.
+ */
+class ReasonerPool {
+    private final static Logger log = LoggerFactory.getLogger(ReasonerPool.class);
+
+    private ReasonerSelection selection;
+    private ArrayList<Worker> workers = new ArrayList<Worker>();
+    private BlockingQueue<Worker> idleWorkers;
+    private ExecutorService executor;
+
+    /**
+     * Ontology copy together with the reasoners working on it
+     */
+    private static class Worker {
+        private OWLOntologyManager manager;
+        private OWLOntology ontology;
+        private OWLObjectDuplicator duplicator;
+        private EnumMap<ReasonerBackend, BufferedReasoner> reasoners =
+            new EnumMap<ReasonerBackend, BufferedReasoner>(ReasonerBackend.class);
+
+        private Worker(OWLOntology source) throws OWLOntologyCreationException {
+            OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+            manager = OWLManager.createOWLOntologyManager(dataFactory);
+            duplicator = new OWLObjectDuplicator(dataFactory);
+            HashSet<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+            for (OWLAxiom axiom : source.getAxioms()) {
+                axioms.add(duplicator.<OWLAxiom>duplicateObject(axiom));
+            }
+            ontology = manager.createOntology(axioms);
+        }
+
+        /**
+         * Checks whether the given axiom of the source ontology is entailed by the copy after removing it, returns
+         * null on a timeout
+         */
+        private Boolean isRedundant(OWLAxiom sourceAxiom, ReasonerSelection selection) {
+            OWLAxiom axiom = duplicator.duplicateObject(sourceAxiom);
+            ReasonerBackend backend = selection.getBackend(axiom);
+            BufferedReasoner reasoner = reasoners.get(backend);
+            if (reasoner == null) {
+                reasoner = new BufferedReasoner(manager, ontology, backend, selection.getTimeout());
+                reasoners.put(backend, reasoner);
+            }
+            manager.removeAxiom(ontology, axiom);
+            try {
+                return reasoner.isEntailed(Collections.singleton(axiom.getAxiomWithoutAnnotations()));
+            }
+            finally {
+                manager.addAxiom(ontology, axiom);
+            }
+        }
+    }
+
+    /**
+     * Initializes a pool of <code>size</code> reasoners working on copies of the given ontology
+     *
+     * @param source    ontology to copy
+     * @param size      number of reasoners
+     * @param selection selection of the reasoner backends
+     * @throws OntologyMinimizationException on errors copying the ontology
+     */
+    public ReasonerPool(OWLOntology source, int size, ReasonerSelection selection)
+            throws OntologyMinimizationException {
+        this.selection = selection;
+        idleWorkers = new ArrayBlockingQueue<Worker>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Worker worker = new Worker(source);
+                workers.add(worker);
+                idleWorkers.add(worker);
+            }
+        }
+        catch (OWLOntologyCreationException e) {
+            throw new OntologyMinimizationException("Unable to copy ontology for reasoner pool", e);
+        }
+        executor = Executors.newFixedThreadPool(size);
+        log.debug("Initialized pool of {} reasoners", size);
+    }
+
+    /**
+     * Returns the number of reasoners in this pool
+     *
+     * @return number of reasoners in this pool
+     */
+    public int size() {
+        return workers.size();
+    }
+
+    /**
+     * Checks for each of the given axioms whether it is entailed by the ontology without it. All checks are performed
+     * on the current state of the ontology, i.e., the result for an axiom does not consider the removal of any other
+     * axiom of the list.
+     *
+     * @param axioms axioms to check
+     * @return for each axiom whether it is entailed by the remaining axioms of the ontology, null on a timeout
+     * @throws OntologyMinimizationException if interrupted while waiting for the results
+     */
+    public Boolean[] checkRedundancy(List<OWLAxiom> axioms) throws OntologyMinimizationException {
+        ArrayList<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(axioms.size());
+        for (final OWLAxiom axiom : axioms) {
+            futures.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    Worker worker = idleWorkers.take();
+                    try {
+                        return worker.isRedundant(axiom, selection);
+                    }
+                    finally {
+                        idleWorkers.put(worker);
+                    }
+                }
+            }));
+        }
+
+        Boolean[] results = new Boolean[axioms.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = futures.get(i).get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntologyMinimizationException("Interrupted while checking entailments");
+        }
+        catch (ExecutionException e) {
+            // reasoner failures surface the same way as in sequential minimization
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new OntologyMinimizationException("Unable to check entailment", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Removes the given axioms from all ontology copies
+     *
+     * @param axioms axioms to remove
+     */
+    public void removeAxioms(Collection<OWLAxiom> axioms) {
+        for (Worker worker : workers) {
+            worker.manager.removeAxioms(worker.ontology, new HashSet<OWLAxiom>(axioms));
+        }
+    }
+
+    /**
+     * Returns the number of reasoner updates summed over all reasoners of this pool
+     *
+     * @return number of reasoner updates
+     */
+    public long getUpdates() {
+        long updates = 0;
+        for (Worker worker : workers) {
+            for (BufferedReasoner reasoner : worker.reasoners.values()) {
+                updates += reasoner.getUpdates();
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Stops the threads of this pool and disposes all reasoners
+     */
+    public void dispose() {
+        executor.shutdownNow();
+        for (Worker worker : workers) {
+            for (BufferedReasoner reasoner : worker.reasoners.values()) {
+                reasoner.dispose();
+            }
+        }
+    }
+}
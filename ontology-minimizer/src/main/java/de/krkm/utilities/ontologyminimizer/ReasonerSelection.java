@@ -0,0 +1,84 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.*;
+
+/**
+ * Selects the reasoner backend checking an axiom by its type and holds the timeout of a single check
+ */
+class ReasonerSelection {
+    private ReasonerBackend defaultBackend = ReasonerBackend.HERMIT;
+    private HashMap<AxiomType<?>, ReasonerBackend> backends = new HashMap<AxiomType<?>, ReasonerBackend>();
+    private long timeout;
+
+    /**
+     * Sets the backend checking all axioms whose type has no backend of its own
+     *
+     * @param backend default backend
+     */
+    public void setDefaultBackend(ReasonerBackend backend) {
+        defaultBackend = backend;
+    }
+
+    /**
+     * Sets the backend checking all axioms of the given type
+     *
+     * @param type    axiom type
+     * @param backend backend to check axioms of the given type with
+     */
+    public void setBackend(AxiomType<?> type, ReasonerBackend backend) {
+        backends.put(type, backend);
+    }
+
+    /**
+     * Returns the backend checking the given axiom
+     *
+     * @param axiom axiom to check
+     * @return backend checking the given axiom
+     */
+    public ReasonerBackend getBackend(OWLAxiom axiom) {
+        ReasonerBackend backend = backends.get(axiom.getAxiomType());
+        return backend == null ? defaultBackend : backend;
+    }
+
+    /**
+     * Groups the given axioms by the backend checking them
+     *
+     * @param axioms axioms to group
+     * @return axioms mapped by the backend checking them
+     */
+    public Map<ReasonerBackend, Set<OWLAxiom>> groupByBackend(Collection<OWLAxiom> axioms) {
+        EnumMap<ReasonerBackend, Set<OWLAxiom>> groups =
+            new EnumMap<ReasonerBackend, Set<OWLAxiom>>(ReasonerBackend.class);
+        for (OWLAxiom axiom : axioms) {
+            ReasonerBackend backend = getBackend(axiom);
+            Set<OWLAxiom> group = groups.get(backend);
+            if (group == null) {
+                group = new HashSet<OWLAxiom>();
+                groups.put(backend, group);
+            }
+            group.add(axiom);
+        }
+        return groups;
+    }
+
+    /**
+     * Sets the timeout of a single entailment check
+     *
+     * @param timeout timeout in milliseconds, 0 for none
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the timeout of a single entailment check
+     *
+     * @return timeout in milliseconds, 0 for none
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+}
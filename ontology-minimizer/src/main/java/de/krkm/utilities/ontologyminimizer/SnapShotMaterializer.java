@@ -0,0 +1,186 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.apache.commons.cli.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.*;
+import java.util.BitSet;
+import java.util.HashSet;
+
+/**
+ * Materializes a snapshot written by {@link SnapShotWriter} by loading the last full snapshot before it and removing
+ * all axioms recorded by the delta snapshots up to the requested one.
+ */
+public class SnapShotMaterializer {
+    private File snapShotDir;
+
+    /**
+     * Initializes the materializer for snapshots in the given directory
+     *
+     * @param snapShotDir directory containing full and delta snapshots
+     */
+    public SnapShotMaterializer(File snapShotDir) {
+        this.snapShotDir = snapShotDir;
+    }
+
+    /**
+     * Writes the generated ontology as of the snapshot having the given number into the given stream
+     *
+     * @param number number of the snapshot
+     * @param out    stream to write ontology to
+     * @throws OntologyMinimizationException if the snapshot does not exist or cannot be materialized
+     */
+    public void materialize(int number, OutputStream out) throws OntologyMinimizationException {
+        int base = number;
+        while (base >= 0 && !new File(snapShotDir, "generated_" + base + ".owl").exists()) {
+            base--;
+        }
+        if (base < 0) {
+            throw new OntologyMinimizationException("No full snapshot found for snapshot " + number);
+        }
+
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology;
+        try {
+            ontology = manager.loadOntologyFromOntologyDocument(new File(snapShotDir, "generated_" + base + ".owl"));
+        }
+        catch (OWLOntologyCreationException e) {
+            throw new OntologyMinimizationException("Unable to load full snapshot " + base, e);
+        }
+
+        if (base < number) {
+            AxiomOrdinals ordinals = new AxiomOrdinals(ontology);
+            BitSet removed = readDeltas(new File(snapShotDir, "generated_" + base + ".delta"), ordinals, number);
+            HashSet<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+            for (OWLAxiom axiom : ontology.getLogicalAxioms()) {
+                int ordinal = ordinals.getOrdinal(axiom);
+                if (ordinal >= 0 && removed.get(ordinal)) {
+                    axioms.add(axiom);
+                }
+            }
+            manager.removeAxioms(ontology, axioms);
+        }
+
+        try {
+            manager.saveOntology(ontology, out);
+        }
+        catch (OWLOntologyStorageException e) {
+            throw new OntologyMinimizationException("Unable to save materialized snapshot", e);
+        }
+    }
+
+    /**
+     * Reads the numbers of all axioms removed up to snapshot <code>number</code> from the given delta file
+     */
+    private static BitSet readDeltas(File deltaFile, AxiomOrdinals ordinals, int number)
+            throws OntologyMinimizationException {
+        BitSet removed = new BitSet();
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(deltaFile)));
+        }
+        catch (FileNotFoundException e) {
+            throw new OntologyMinimizationException("No delta snapshots for full snapshot " + deltaFile, e);
+        }
+        try {
+            if (in.readInt() != SnapShotWriter.MAGIC || in.readInt() != SnapShotWriter.VERSION) {
+                throw new OntologyMinimizationException("Not a supported delta file: " + deltaFile);
+            }
+            if (in.readInt() != ordinals.size() || in.readLong() != ordinals.getChecksum()) {
+                throw new OntologyMinimizationException("Delta file does not belong to its full snapshot");
+            }
+            while (true) {
+                int snapShot;
+                try {
+                    snapShot = in.readInt();
+                }
+                catch (EOFException e) {
+                    throw new OntologyMinimizationException("Snapshot " + number + " not found in " + deltaFile);
+                }
+                if (snapShot > number) {
+                    throw new OntologyMinimizationException("Snapshot " + number + " not found in " + deltaFile);
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    removed.set(in.readInt());
+                }
+                if (snapShot == number) {
+                    return removed;
+                }
+            }
+        }
+        catch (EOFException e) {
+            throw new OntologyMinimizationException("Delta snapshot " + number + " is incomplete", e);
+        }
+        catch (IOException e) {
+            throw new OntologyMinimizationException("Unable to read delta file", e);
+        }
+        finally {
+            try {
+                in.close();
+            }
+            catch (IOException ignored) {
+
+            }
+        }
+    }
+
+    @SuppressWarnings("AccessStaticViaInstance")
+    public static void main(String[] args) {
+        CommandLineParser parser = new PosixParser();
+
+        Options options = new Options();
+        options.addOption("h", "help", false, "print this message");
+        options.addOption(OptionBuilder.withLongOpt("snapshot").isRequired().hasArg()
+                                       .withDescription("directory containing the snapshots").withArgName("DIR")
+                                       .create("s"));
+        options.addOption(OptionBuilder.withLongOpt("number").isRequired().hasArg()
+                                       .withDescription("number of the snapshot to materialize")
+                                       .withArgName("NUMBER").create("n"));
+        options.addOption(OptionBuilder.withLongOpt("output").isRequired().hasArg()
+                                       .withDescription("file to write materialized ontology to")
+                                       .withArgName("FILE").create("o"));
+
+        OutputStream outputStream = null;
+        try {
+            CommandLine line = parser.parse(options, args);
+            if (line.hasOption("h")) {
+                HelpFormatter formatter = new HelpFormatter();
+                formatter.printHelp("java " + SnapShotMaterializer.class.getCanonicalName(), options);
+                System.exit(0);
+            }
+            int number = Integer.parseInt(line.getOptionValue("n"));
+            outputStream = new FileOutputStream(line.getOptionValue("o"));
+            new SnapShotMaterializer(new File(line.getOptionValue("s"))).materialize(number, outputStream);
+        }
+        catch (ParseException e) {
+            System.err.println("Error parsing arguments: " + e.getMessage());
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("java " + SnapShotMaterializer.class.getCanonicalName(), options);
+            System.exit(2);
+        }
+        catch (FileNotFoundException e) {
+            System.err.println("Error opening file: " + e.getMessage());
+            System.exit(2);
+        }
+        catch (NumberFormatException e) {
+            System.err.println("Invalid number: " + e.getMessage());
+            System.exit(2);
+        }
+        catch (OntologyMinimizationException e) {
+            System.err.println("Unable to materialize snapshot: " + e.getMessage());
+            System.exit(3);
+        }
+        finally {
+            try {
+                if (outputStream != null) {
+                    outputStream.close();
+                }
+            }
+            catch (IOException ignored) {
+
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.OWLObjectDuplicator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes snapshots of the generated ontology on a background thread. A full snapshot <code>generated_N.owl</code>
+ * contains all axioms of the ontology. Each following delta snapshot appends a record to <code>generated_N.delta</code>
+ * which contains the numbers of the axioms removed since the previous snapshot, thus, its cost only depends on the
+ * number of removed axioms. The axioms are numbered by {@link AxiomOrdinals} on the full snapshot, any snapshot can be
+ * materialized using {@link SnapShotMaterializer}.
+ * <p/>
+ * All snapshots are written in the order they are requested by a single thread which only works on copies of the
+ * axiom sets, thus, the minimization may change the ontology meanwhile. Since data factories are not thread-safe,
+ * the snapshot thread duplicates the axioms using a data factory of its own. The axioms of a full snapshot are
+ * numbered on this copy. Loading the written file yields the same axioms and numbers unless they contain anonymous
+ * individuals, whose identifiers are not preserved, in which case the checksum in the delta header makes
+ * {@link SnapShotMaterializer} refuse the deltas. If writing a snapshot fails, the failure is reported by the next
+ * call of {@link #createSnapShot(OWLOntology, int)} or {@link #close()}.
+ * <p/>
+ * A delta file starts with a header consisting of magic number, version, number of axioms and checksum of the full
+ * snapshot. Each record consists of the snapshot number, the number of removed axioms and their numbers.
+ */
+class SnapShotWriter {
+    private final static Logger log = LoggerFactory.getLogger(SnapShotWriter.class);
+
+    final static int MAGIC = 0x4d444c31;
+    final static int VERSION = 1;
+
+    private File snapShotDir;
+    private int fullSnapShotInterval;
+    private ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * number of delta snapshots written since the last full snapshot, -1 if there is no full snapshot yet
+     */
+    private int deltas = -1;
+    /**
+     * axioms without annotations removed since the last snapshot
+     */
+    private ArrayList<OWLAxiom> removedAxioms = new ArrayList<OWLAxiom>();
+    /**
+     * first failure of the snapshot thread which has not been reported yet
+     */
+    private volatile Throwable failure;
+
+    // only accessed by the snapshot thread
+    private AxiomOrdinals baseOrdinals;
+    private File deltaFile;
+
+    /**
+     * Initializes a writer for snapshots in the given directory
+     *
+     * @param snapShotDir          directory to write snapshots to
+     * @param fullSnapShotInterval number of delta snapshots between two full snapshots, 0 to only write a full
+     *                             snapshot the first time
+     */
+    public SnapShotWriter(File snapShotDir, int fullSnapShotInterval) {
+        this.snapShotDir = snapShotDir;
+        this.fullSnapShotInterval = fullSnapShotInterval;
+    }
+
+    /**
+     * Records that the given axiom has been removed from the ontology since the last snapshot
+     *
+     * @param axiom removed axiom
+     */
+    public void removeAxiom(OWLAxiom axiom) {
+        if (deltas >= 0) {
+            // stripping annotations uses the data factory of the axiom, thus, it has to happen on the calling thread
+            removedAxioms.add(axiom.getAxiomWithoutAnnotations());
+        }
+    }
+
+    /**
+     * Schedules writing a snapshot of the given ontology having the given number. Depending on the number of delta
+     * snapshots since the last full snapshot, a full or a delta snapshot is written.
+     *
+     * @param ontology ontology to write snapshot of
+     * @param number   number of the snapshot
+     * @throws OntologyMinimizationException if writing a previous snapshot has failed
+     */
+    public void createSnapShot(OWLOntology ontology, final int number) throws OntologyMinimizationException {
+        checkFailure();
+        if (deltas < 0 || (fullSnapShotInterval > 0 && deltas >= fullSnapShotInterval)) {
+            final Set<OWLAxiom> axioms = Collections.unmodifiableSet(new HashSet<OWLAxiom>(ontology.getAxioms()));
+            final OWLOntologyID id = ontology.getOntologyID();
+            removedAxioms = new ArrayList<OWLAxiom>();
+            deltas = 0;
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        writeFullSnapShot(id, axioms, number);
+                    }
+                    catch (Throwable e) {
+                        recordFailure(e);
+                    }
+                }
+            });
+        }
+        else {
+            final List<OWLAxiom> removed = Collections.unmodifiableList(removedAxioms);
+            removedAxioms = new ArrayList<OWLAxiom>();
+            deltas++;
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        writeDeltaSnapShot(removed, number);
+                    }
+                    catch (Throwable e) {
+                        recordFailure(e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until all scheduled snapshots have been written and stops the snapshot thread
+     *
+     * @throws OntologyMinimizationException if writing a snapshot has failed
+     */
+    public void close() throws OntologyMinimizationException {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for snapshots to be written");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Records a failure of the snapshot thread unless an earlier one has not been reported yet
+     */
+    private void recordFailure(Throwable e) {
+        log.error("Unable to create snapshot", e);
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Throws the first failure of the snapshot thread which has not been reported yet
+     */
+    private void checkFailure() throws OntologyMinimizationException {
+        Throwable e = failure;
+        if (e == null) {
+            return;
+        }
+        failure = null;
+        if (e instanceof OntologyMinimizationException) {
+            throw (OntologyMinimizationException) e;
+        }
+        throw new OntologyMinimizationException("Unable to create snapshot", e);
+    }
+
+    private void writeFullSnapShot(OWLOntologyID id, Set<OWLAxiom> axioms, int number)
+            throws OntologyMinimizationException {
+        File file = new File(snapShotDir, "generated_" + number + ".owl");
+        log.info("Writing snapshot to '{}'", file);
+        OWLDataFactory dataFactory = new OWLDataFactoryImpl();
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager(dataFactory);
+        OWLObjectDuplicator duplicator = new OWLObjectDuplicator(dataFactory);
+        HashSet<OWLAxiom> copies = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : axioms) {
+            copies.add(duplicator.<OWLAxiom>duplicateObject(axiom));
+        }
+        OWLOntology copy;
+        try {
+            copy = id.isAnonymous() ? manager.createOntology(copies)
+                                    : manager.createOntology(copies, id.getOntologyIRI());
+        }
+        catch (OWLOntologyCreationException e) {
+            throw new OntologyMinimizationException("Unable to copy ontology for snapshot", e);
+        }
+        FileOutputStream out;
+        try {
+            out = new FileOutputStream(file);
+        }
+        catch (FileNotFoundException e) {
+            throw new OntologyMinimizationException("Unable to open file for creating snapshot", e);
+        }
+        try {
+            manager.saveOntology(copy, out);
+        }
+        catch (OWLOntologyStorageException e) {
+            throw new OntologyMinimizationException("Unable to save snapshot", e);
+        }
+        finally {
+            try {
+                out.close();
+            }
+            catch (IOException ignored) {
+
+            }
+        }
+
+        baseOrdinals = new AxiomOrdinals(copy);
+        manager.removeOntology(copy);
+
+        deltaFile = new File(snapShotDir, "generated_" + number + ".delta");
+        try {
+            DataOutputStream delta = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(deltaFile)));
+            try {
+                delta.writeInt(MAGIC);
+                delta.writeInt(VERSION);
+                delta.writeInt(baseOrdinals.size());
+                delta.writeLong(baseOrdinals.getChecksum());
+            }
+            finally {
+                delta.close();
+            }
+        }
+        catch (IOException e) {
+            deltaFile = null;
+            throw new OntologyMinimizationException("Unable to create delta file", e);
+        }
+    }
+
+    private void writeDeltaSnapShot(List<OWLAxiom> removed, int number) throws OntologyMinimizationException {
+        if (deltaFile == null) {
+            throw new OntologyMinimizationException("No full snapshot to write delta snapshot " + number + " for");
+        }
+        log.info("Appending snapshot {} to '{}'", number, deltaFile);
+        int[] numbers = new int[removed.size()];
+        int count = 0;
+        for (OWLAxiom axiom : removed) {
+            int ordinal = baseOrdinals.getUnannotatedOrdinal(axiom);
+            if (ordinal < 0) {
+                log.warn("Removed axiom '{}' is not contained in the full snapshot", axiom);
+                continue;
+            }
+            numbers[count++] = ordinal;
+        }
+        try {
+            DataOutputStream delta =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(deltaFile, true)));
+            try {
+                delta.writeInt(number);
+                delta.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    delta.writeInt(numbers[i]);
+                }
+            }
+            finally {
+                delta.close();
+            }
+        }
+        catch (IOException e) {
+            throw new OntologyMinimizationException("Unable to append delta snapshot", e);
+        }
+    }
+}
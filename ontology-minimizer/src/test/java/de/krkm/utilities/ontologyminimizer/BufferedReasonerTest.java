@@ -0,0 +1,209 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class BufferedReasonerTest {
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+
+    private OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+    private OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+    private OWLAxiom ac = df.getOWLSubClassOfAxiom(cls("a"), cls("c"));
+    private OWLAxiom de = df.getOWLSubClassOfAxiom(cls("d"), cls("e"));
+
+    private OWLOntology ontology;
+    private BufferedReasoner reasoner;
+
+    @Before
+    public void setUp() throws Exception {
+        ontology = manager.createOntology();
+        manager.addAxiom(ontology, ab);
+        manager.addAxiom(ontology, bc);
+    }
+
+    @After
+    public void tearDown() {
+        if (reasoner != null) {
+            reasoner.dispose();
+        }
+    }
+
+    @Test
+    public void testRevertedChangesDoNotUpdate() throws Exception {
+        reasoner = new BufferedReasoner(manager, ontology, ReasonerBackend.HERMIT, 0);
+        assertEntailment(true, ac);
+
+        manager.removeAxiom(ontology, bc);
+        manager.addAxiom(ontology, bc);
+        assertEntailment(true, ac);
+        // adding an axiom and removing it again is no net change either
+        manager.addAxiom(ontology, de);
+        manager.removeAxiom(ontology, de);
+        assertEntailment(false, de);
+
+        assertEquals(0, reasoner.getUpdates());
+        assertEquals(2, reasoner.getSkippedUpdates());
+    }
+
+    @Test
+    public void testRemovalUpdates() throws Exception {
+        reasoner = new BufferedReasoner(manager, ontology, ReasonerBackend.HERMIT, 0);
+        assertEntailment(true, ac);
+
+        manager.removeAxiom(ontology, bc);
+        assertEntailment(false, ac);
+        assertEquals(1, reasoner.getUpdates());
+
+        // re-adding the axiom after the update is a net change again
+        manager.addAxiom(ontology, bc);
+        assertEntailment(true, ac);
+        assertEquals(2, reasoner.getUpdates());
+        assertEquals(0, reasoner.getSkippedUpdates());
+    }
+
+    @Test
+    public void testAdditionsOnlySkipUpdateForEntailedAxioms() throws Exception {
+        reasoner = new BufferedReasoner(manager, ontology, ReasonerBackend.HERMIT, 0);
+        assertEntailment(true, ac);
+
+        manager.addAxiom(ontology, de);
+        // entailed by the state known to the reasoner, thus, by the current ontology
+        assertEntailment(true, ab);
+        assertEquals(0, reasoner.getUpdates());
+        assertEquals(1, reasoner.getSkippedUpdates());
+        // not entailed by the known state, requires an update
+        assertEntailment(true, de);
+        assertEquals(1, reasoner.getUpdates());
+
+        // a removal pending besides additions always updates
+        manager.removeAxiom(ontology, de);
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(cls("c"), cls("d")));
+        manager.removeAxiom(ontology, ab);
+        assertEntailment(false, ac);
+        assertEquals(2, reasoner.getUpdates());
+        assertEquals(1, reasoner.getSkippedUpdates());
+    }
+
+    @Test
+    public void testIncrementalReasonerCountsChangedChecks() throws Exception {
+        reasoner = new BufferedReasoner(manager, ontology, ReasonerBackend.PELLET, 0);
+        assertEntailment(true, ac);
+        assertEntailment(true, ab);
+        assertEquals(0, reasoner.getUpdates());
+
+        manager.removeAxiom(ontology, bc);
+        assertEntailment(false, ac);
+        manager.addAxiom(ontology, bc);
+        assertEntailment(true, ac);
+        assertEquals(2, reasoner.getUpdates());
+        assertEquals(0, reasoner.getSkippedUpdates());
+    }
+
+    @Test
+    public void testReasonerRecreatedAfterTimeout() throws Exception {
+        List<OWLAxiom> pigeonhole = createPigeonholeAxioms(8);
+        manager.addAxioms(ontology, new HashSet<OWLAxiom>(pigeonhole));
+        reasoner = new BufferedReasoner(manager, ontology, ReasonerBackend.HERMIT, 100);
+        OWLAxiom az = df.getOWLSubClassOfAxiom(cls("a"), cls("z"));
+        assertNull(reasoner.isEntailed(Collections.singleton(az)));
+        assertEquals(1, reasoner.getTimeouts());
+
+        // a is satisfiable without the disjointness of the holes, which is decided by the recreated reasoner
+        for (OWLAxiom axiom : pigeonhole) {
+            if (axiom instanceof OWLDisjointClassesAxiom) {
+                manager.removeAxiom(ontology, axiom);
+            }
+        }
+        assertEntailment(false, az);
+        assertEntailment(true, ac);
+        assertEquals(1, reasoner.getTimeouts());
+        assertEquals(0, reasoner.getUpdates());
+    }
+
+    @Test
+    public void testInterruptedCheckTimesOut() throws Exception {
+        manager.addAxioms(ontology, new HashSet<OWLAxiom>(createPigeonholeAxioms(8)));
+        final OWLReasoner hermit = ReasonerBackend.HERMIT.createReasoner(ontology, 0);
+        // interrupt repeatedly since an interruption before the check has started is discarded
+        Thread interrupter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (!isInterrupted()) {
+                        Thread.sleep(50);
+                        hermit.interrupt();
+                    }
+                }
+                catch (InterruptedException ignored) {
+                }
+            }
+        };
+        interrupter.start();
+        try {
+            Set<OWLAxiom> az = Collections.singleton(df.getOWLSubClassOfAxiom(cls("a"), cls("z")));
+            // HermiT signals the interruption by a ReasonerInterruptedException
+            assertNull(ReasonerBackend.isEntailed(hermit, az));
+        }
+        finally {
+            interrupter.interrupt();
+            interrupter.join();
+            hermit.dispose();
+        }
+    }
+
+    /**
+     * Returns axioms stating that the n + 1 pigeons of each instance of a sit in n holes which are never shared,
+     * thus, a is unsatisfiable. Showing this takes a tableau reasoner exponentially many steps.
+     */
+    private List<OWLAxiom> createPigeonholeAxioms(int n) {
+        ArrayList<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        for (int pigeon = 0; pigeon <= n; pigeon++) {
+            HashSet<OWLClassExpression> holes = new HashSet<OWLClassExpression>();
+            for (int hole = 0; hole < n; hole++) {
+                holes.add(cls("p" + pigeon + "h" + hole));
+            }
+            axioms.add(df.getOWLSubClassOfAxiom(cls("a"), df.getOWLObjectUnionOf(holes)));
+        }
+        for (int hole = 0; hole < n; hole++) {
+            HashSet<OWLClassExpression> pigeons = new HashSet<OWLClassExpression>();
+            for (int pigeon = 0; pigeon <= n; pigeon++) {
+                pigeons.add(cls("p" + pigeon + "h" + hole));
+            }
+            axioms.add(df.getOWLDisjointClassesAxiom(pigeons));
+        }
+        return axioms;
+    }
+
+    /**
+     * Asserts that the buffered reasoner and a reasoner freshly created on the current ontology both return the
+     * expected entailment of the axiom
+     */
+    private void assertEntailment(boolean expected, OWLAxiom axiom) {
+        OWLReasoner fresh = ReasonerBackend.HERMIT.createReasoner(ontology, 0);
+        try {
+            assertEquals(Boolean.valueOf(expected), ReasonerBackend.isEntailed(fresh, Collections.singleton(axiom)));
+        }
+        finally {
+            fresh.dispose();
+        }
+        assertEquals(Boolean.valueOf(expected), reasoner.isEntailed(Collections.singleton(axiom)));
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://example.com/" + name));
+    }
+}
@@ -0,0 +1,59 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.BitSet;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+public class CheckpointTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.axiomCount = 1000;
+        checkpoint.checksum = 0xcafebabeL;
+        checkpoint.removedAxioms = 17;
+        checkpoint.readdedAxioms = 23;
+        checkpoint.entailmentChecks = 42;
+        checkpoint.snapShotCounter = 3;
+        checkpoint.timedOutAxioms = 5;
+        checkpoint.cursor = 999;
+        checkpoint.cursorConfidence = 0.75;
+        checkpoint.removed.set(0);
+        checkpoint.removed.set(63, 65);
+        checkpoint.kept.set(999);
+
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        checkpoint.write(file);
+        Checkpoint read = Checkpoint.read(file);
+
+        assertEquals(checkpoint.axiomCount, read.axiomCount);
+        assertEquals(checkpoint.checksum, read.checksum);
+        assertEquals(checkpoint.removedAxioms, read.removedAxioms);
+        assertEquals(checkpoint.readdedAxioms, read.readdedAxioms);
+        assertEquals(checkpoint.entailmentChecks, read.entailmentChecks);
+        assertEquals(checkpoint.snapShotCounter, read.snapShotCounter);
+        assertEquals(checkpoint.timedOutAxioms, read.timedOutAxioms);
+        assertEquals(checkpoint.cursor, read.cursor);
+        assertEquals(checkpoint.cursorConfidence, read.cursorConfidence);
+        assertEquals(checkpoint.removed, read.removed);
+        assertEquals(checkpoint.kept, read.kept);
+        // the temporary file has been renamed
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testEmptyRoundTrip() throws Exception {
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        new Checkpoint().write(file);
+        Checkpoint read = Checkpoint.read(file);
+
+        assertEquals(-1, read.cursor);
+        assertEquals(new BitSet(), read.removed);
+        assertEquals(new BitSet(), read.kept);
+    }
+}
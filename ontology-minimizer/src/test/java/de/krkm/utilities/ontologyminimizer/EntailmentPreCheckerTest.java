@@ -0,0 +1,179 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class EntailmentPreCheckerTest {
+    private final static Set<OWLAxiom> NONE = Collections.emptySet();
+
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+
+    private OWLOntology ontology;
+    private EntailmentPreChecker checker;
+
+    @Before
+    public void setUp() throws Exception {
+        ontology = manager.createOntology();
+    }
+
+    @After
+    public void tearDown() {
+        checker.dispose();
+    }
+
+    @Test
+    public void testToldSubClassPath() throws Exception {
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+        manager.addAxiom(ontology, ab);
+        checker = new EntailmentPreChecker(manager, ontology);
+        // changes after the initialization are tracked as well
+        manager.addAxiom(ontology, bc);
+
+        OWLAxiom ac = df.getOWLSubClassOfAxiom(cls("a"), cls("c"));
+        assertEquals(Boolean.TRUE, checker.isEntailed(ac, NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(annotated(ac), NONE));
+        assertNull(checker.isEntailed(df.getOWLSubClassOfAxiom(cls("c"), cls("a")), NONE));
+        // no path without the excluded axiom
+        assertNull(checker.isEntailed(ac, Collections.singleton(bc)));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubClassOfAxiom(cls("x"), df.getOWLThing()), NONE));
+
+        manager.removeAxiom(ontology, ab);
+        assertNull(checker.isEntailed(ac, NONE));
+        assertEquals(3, checker.getStructuralHits());
+        assertEquals(6, checker.getChecks());
+    }
+
+    @Test
+    public void testToldSubPropertyPaths() throws Exception {
+        manager.addAxiom(ontology, df.getOWLSubObjectPropertyOfAxiom(prop("r"), prop("s")));
+        manager.addAxiom(ontology, df.getOWLSubObjectPropertyOfAxiom(prop("s"), prop("t")));
+        manager.addAxiom(ontology, df.getOWLSubDataPropertyOfAxiom(dataProp("p"), dataProp("q")));
+        manager.addAxiom(ontology, df.getOWLSubDataPropertyOfAxiom(dataProp("q"), dataProp("u")));
+        checker = new EntailmentPreChecker(manager, ontology);
+
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubObjectPropertyOfAxiom(prop("r"), prop("t")), NONE));
+        assertNull(checker.isEntailed(df.getOWLSubObjectPropertyOfAxiom(prop("t"), prop("r")), NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubDataPropertyOfAxiom(dataProp("p"), dataProp("u")),
+                                                      NONE));
+        assertNull(checker.isEntailed(df.getOWLSubDataPropertyOfAxiom(dataProp("u"), dataProp("p")), NONE));
+    }
+
+    @Test
+    public void testEquivalenceEdges() throws Exception {
+        OWLAxiom equivalentClasses = df.getOWLEquivalentClassesAxiom(cls("a"), cls("b"));
+        manager.addAxiom(ontology, equivalentClasses);
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(cls("b"), cls("c")));
+        manager.addAxiom(ontology, df.getOWLEquivalentObjectPropertiesAxiom(prop("r"), prop("s")));
+        manager.addAxiom(ontology, df.getOWLEquivalentDataPropertiesAxiom(dataProp("p"), dataProp("q")));
+        checker = new EntailmentPreChecker(manager, ontology);
+
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubClassOfAxiom(cls("b"), cls("a")), NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubClassOfAxiom(cls("a"), cls("c")), NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubObjectPropertyOfAxiom(prop("s"), prop("r")), NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLSubDataPropertyOfAxiom(dataProp("q"), dataProp("p")),
+                                                      NONE));
+
+        // both edges of an equivalence are dropped with it
+        manager.removeAxiom(ontology, equivalentClasses);
+        assertNull(checker.isEntailed(df.getOWLSubClassOfAxiom(cls("b"), cls("a")), NONE));
+        assertNull(checker.isEntailed(df.getOWLSubClassOfAxiom(cls("a"), cls("c")), NONE));
+    }
+
+    @Test
+    public void testDomainAndRangeOfSuperProperty() throws Exception {
+        OWLAxiom rs = df.getOWLSubObjectPropertyOfAxiom(prop("r"), prop("s"));
+        manager.addAxiom(ontology, rs);
+        manager.addAxiom(ontology, df.getOWLObjectPropertyDomainAxiom(prop("s"), cls("a")));
+        manager.addAxiom(ontology, df.getOWLObjectPropertyRangeAxiom(prop("s"), cls("b")));
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(cls("a"), cls("c")));
+        manager.addAxiom(ontology, df.getOWLSubDataPropertyOfAxiom(dataProp("p"), dataProp("q")));
+        manager.addAxiom(ontology, df.getOWLDataPropertyDomainAxiom(dataProp("q"), cls("a")));
+        checker = new EntailmentPreChecker(manager, ontology);
+
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLObjectPropertyDomainAxiom(prop("r"), cls("c")), NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLObjectPropertyRangeAxiom(prop("r"), cls("b")), NONE));
+        assertEquals(Boolean.TRUE, checker.isEntailed(df.getOWLDataPropertyDomainAxiom(dataProp("p"), cls("c")),
+                                                      NONE));
+        // the domain is not mistaken for the range
+        assertNull(checker.isEntailed(df.getOWLObjectPropertyRangeAxiom(prop("r"), cls("a")), NONE));
+        assertNull(checker.isEntailed(df.getOWLObjectPropertyDomainAxiom(prop("r"), cls("c")),
+                                      Collections.singleton(rs)));
+    }
+
+    @Test
+    public void testUnsupportedAxiomsAreUndecided() throws Exception {
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(cls("a"), cls("b")));
+        manager.addAxiom(ontology, df.getOWLClassAssertionAxiom(cls("a"), ind("i")));
+        checker = new EntailmentPreChecker(manager, ontology);
+
+        assertNull(checker.isEntailed(df.getOWLClassAssertionAxiom(cls("b"), ind("i")), NONE));
+        assertNull(checker.isEntailed(df.getOWLSubClassOfAxiom(cls("a"), df.getOWLObjectSomeValuesFrom(
+                prop("r"), cls("b"))), NONE));
+        assertNull(checker.isEntailed(df.getOWLDisjointClassesAxiom(cls("a"), cls("c")), NONE));
+        assertNull(checker.isEntailed(df.getOWLSubObjectPropertyOfAxiom(df.getOWLObjectInverseOf(prop("r")),
+                                                                        prop("s")), NONE));
+        assertEquals(0, checker.getStructuralHits());
+    }
+
+    @Test
+    public void testRecordedEntailmentInvalidatedBySupportRemoval() throws Exception {
+        OWLAxiom some = df.getOWLSubClassOfAxiom(cls("a"), df.getOWLObjectSomeValuesFrom(prop("r"), cls("b")));
+        OWLAxiom domain = df.getOWLObjectPropertyDomainAxiom(prop("r"), cls("c"));
+        OWLAxiom unrelated = df.getOWLSubClassOfAxiom(cls("d"), cls("e"));
+        manager.addAxiom(ontology, some);
+        manager.addAxiom(ontology, domain);
+        manager.addAxiom(ontology, unrelated);
+        checker = new EntailmentPreChecker(manager, ontology);
+
+        OWLAxiom ac = df.getOWLSubClassOfAxiom(cls("a"), cls("c"));
+        assertNull(checker.isEntailed(ac, NONE));
+        HashSet<OWLAxiom> support = new HashSet<OWLAxiom>();
+        support.add(some);
+        support.add(domain);
+        checker.recordEntailed(annotated(ac), support);
+        assertEquals(Boolean.TRUE, checker.isEntailed(ac, NONE));
+        assertNull(checker.isEntailed(ac, Collections.singleton(domain)));
+
+        manager.removeAxiom(ontology, unrelated);
+        assertEquals(Boolean.TRUE, checker.isEntailed(ac, NONE));
+        manager.removeAxiom(ontology, domain);
+        assertNull(checker.isEntailed(ac, NONE));
+        // adding the support back does not restore the forgotten entailment
+        manager.addAxiom(ontology, domain);
+        assertNull(checker.isEntailed(ac, NONE));
+        assertEquals(2, checker.getRecordedHits());
+    }
+
+    private OWLAxiom annotated(OWLAxiom axiom) {
+        OWLAnnotation annotation = df.getOWLAnnotation(df.getRDFSComment(), df.getOWLLiteral("annotated"));
+        return axiom.getAnnotatedAxiom(Collections.singleton(annotation));
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://example.com/" + name));
+    }
+
+    private OWLObjectProperty prop(String name) {
+        return df.getOWLObjectProperty(IRI.create("http://example.com/" + name));
+    }
+
+    private OWLDataProperty dataProp(String name) {
+        return df.getOWLDataProperty(IRI.create("http://example.com/" + name));
+    }
+
+    private OWLNamedIndividual ind(String name) {
+        return df.getOWLNamedIndividual(IRI.create("http://example.com/" + name));
+    }
+}
@@ -0,0 +1,87 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class HierarchyReductionTest {
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+
+    @Test
+    public void testAssertionsDoNotDisableReduction() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+        OWLAxiom ac = df.getOWLSubClassOfAxiom(cls("a"), cls("c"));
+        manager.addAxiom(ontology, ab);
+        manager.addAxiom(ontology, bc);
+        manager.addAxiom(ontology, ac);
+        manager.addAxiom(ontology, df.getOWLClassAssertionAxiom(cls("a"), ind("i")));
+        manager.addAxiom(ontology, df.getOWLObjectPropertyAssertionAxiom(prop("r"), ind("i"), ind("j")));
+        manager.addAxiom(ontology, df.getOWLDifferentIndividualsAxiom(ind("i"), ind("j")));
+
+        HierarchyReduction reduction = new HierarchyReduction(ontology);
+        assertTrue(reduction.isApplicable());
+        assertEquals(Boolean.TRUE, reduction.isRedundant(ac));
+        assertEquals(Boolean.FALSE, reduction.isRedundant(ab));
+    }
+
+    @Test
+    public void testComplexAxiomsAreLeftToReasoner() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        OWLAxiom ef = df.getOWLSubClassOfAxiom(cls("e"), cls("f"));
+        manager.addAxiom(ontology, ab);
+        manager.addAxiom(ontology, ef);
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(cls("b"), df.getOWLObjectSomeValuesFrom(prop("r"),
+                                                                                                   cls("c"))));
+
+        HierarchyReduction reduction = new HierarchyReduction(ontology);
+        assertTrue(reduction.isApplicable());
+        assertNull(reduction.isRedundant(ab));
+        // unrelated parts of the hierarchy are still decided
+        assertFalse(reduction.isRedundant(ef));
+    }
+
+    @Test
+    public void testNonLocalAxiomDisablesReduction() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        manager.addAxiom(ontology, ab);
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(df.getOWLThing(), cls("c")));
+
+        HierarchyReduction reduction = new HierarchyReduction(ontology);
+        assertFalse(reduction.isApplicable());
+        assertNull(reduction.isRedundant(ab));
+    }
+
+    @Test
+    public void testTopPropertySubsumptionDisablesReduction() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        OWLAxiom rs = df.getOWLSubObjectPropertyOfAxiom(prop("r"), prop("s"));
+        manager.addAxiom(ontology, rs);
+        manager.addAxiom(ontology, df.getOWLSubObjectPropertyOfAxiom(df.getOWLTopObjectProperty(), prop("s")));
+
+        HierarchyReduction reduction = new HierarchyReduction(ontology);
+        assertFalse(reduction.isApplicable());
+        assertNull(reduction.isRedundant(rs));
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://example.com/" + name));
+    }
+
+    private OWLObjectProperty prop(String name) {
+        return df.getOWLObjectProperty(IRI.create("http://example.com/" + name));
+    }
+
+    private OWLNamedIndividual ind(String name) {
+        return df.getOWLNamedIndividual(IRI.create("http://example.com/" + name));
+    }
+}
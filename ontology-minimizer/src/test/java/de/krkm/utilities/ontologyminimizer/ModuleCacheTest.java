@@ -0,0 +1,95 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class ModuleCacheTest {
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+
+    @Test
+    public void testRemovalInvalidatesModules() throws Exception {
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+        OWLAxiom de = df.getOWLSubClassOfAxiom(cls("d"), cls("e"));
+        ModuleCache cache = new ModuleCache(createOntology(ab, bc, de), ModuleType.BOT);
+
+        Set<OWLAxiom> moduleA = cache.getModule(signature("a"));
+        assertEquals(new HashSet<OWLAxiom>(Arrays.asList(ab, bc)), moduleA);
+        assertEquals(Collections.singleton(de), cache.getModule(signature("d")));
+        assertEquals(2, cache.getCachedModules());
+
+        // only the module containing the removed axiom is dropped
+        cache.removeAxiom(bc);
+        assertEquals(1, cache.getCachedModules());
+        assertEquals(Collections.singleton(ab), cache.getModule(signature("a")));
+        assertEquals(Collections.singleton(de), cache.getModule(signature("d")));
+        assertEquals(4, cache.getRequests());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedModulesAreDropped() throws Exception {
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+        OWLAxiom de = df.getOWLSubClassOfAxiom(cls("d"), cls("e"));
+        ModuleCache cache = new ModuleCache(createOntology(ab, bc, de), ModuleType.BOT);
+        cache.setMaxCachedAxioms(3);
+
+        cache.getModule(signature("a"));
+        cache.getModule(signature("d"));
+        assertEquals(3, cache.getCachedAxioms());
+        // touch a, thus, d is dropped when b is added
+        cache.getModule(signature("a"));
+        cache.getModule(signature("b"));
+        assertEquals(2, cache.getCachedModules());
+        assertEquals(3, cache.getCachedAxioms());
+
+        long hits = cache.getHits();
+        cache.getModule(signature("a"));
+        assertEquals(hits + 1, cache.getHits());
+        cache.getModule(signature("d"));
+        assertEquals(hits + 1, cache.getHits());
+
+        // dropped modules do not leave stale index entries behind
+        cache.removeAxiom(de);
+        assertFalse(cache.getModule(signature("d")).contains(de));
+        assertTrue(cache.getCachedAxioms() <= 3);
+    }
+
+    @Test
+    public void testSingleModuleExceedingLimitIsKept() throws Exception {
+        OWLAxiom ab = df.getOWLSubClassOfAxiom(cls("a"), cls("b"));
+        OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+        ModuleCache cache = new ModuleCache(createOntology(ab, bc), ModuleType.BOT);
+        cache.setMaxCachedAxioms(1);
+
+        cache.getModule(signature("a"));
+        assertEquals(1, cache.getCachedModules());
+        cache.getModule(signature("a"));
+        assertEquals(1, cache.getHits());
+    }
+
+    private OWLOntology createOntology(OWLAxiom... axioms) throws Exception {
+        return manager.createOntology(new HashSet<OWLAxiom>(Arrays.asList(axioms)));
+    }
+
+    private Set<OWLEntity> signature(String name) {
+        return Collections.<OWLEntity>singleton(cls(name));
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://example.com/" + name));
+    }
+}
@@ -0,0 +1,388 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import de.krkm.utilities.annotatedaxiomextractor.ConfidenceIndex;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+public class OntologyMinimizerTest {
+    private final static IRI CONFIDENCE = IRI.create("http://example.com/conf1");
+
+    private OWLDataFactory df = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+
+    @Test
+    public void testBlockRemovalEqualsSingleRemoval() throws Exception {
+        byte[] document = createDocument();
+
+        ByteArrayOutputStream singleOut = new ByteArrayOutputStream();
+        OntologyMinimizer single = createMinimizer(document, singleOut);
+        for (OWLAxiom axiom : getAxiomsByConfidence(single)) {
+            single.removeIfRedundant(axiom);
+        }
+        Set<OWLAxiom> singleResult = getGeneratedAxioms(single, singleOut);
+
+        ByteArrayOutputStream blockOut = new ByteArrayOutputStream();
+        OntologyMinimizer block = createMinimizer(document, blockOut);
+        int removed = block.removeRedundant(getAxiomsByConfidence(block));
+        Set<OWLAxiom> blockResult = getGeneratedAxioms(block, blockOut);
+
+        assertEquals(getExpectedAxioms(), singleResult);
+        assertEquals(singleResult, blockResult);
+        assertEquals(4, removed);
+    }
+
+    @Test
+    public void testBatchedMinimizationEqualsSequential() throws Exception {
+        byte[] document = createDocument();
+
+        ByteArrayOutputStream sequentialOut = new ByteArrayOutputStream();
+        OntologyMinimizer sequential = createMinimizer(document, sequentialOut);
+        sequential.startMinimization();
+        Set<OWLAxiom> sequentialResult = getGeneratedAxioms(sequential, sequentialOut);
+
+        ByteArrayOutputStream batchedOut = new ByteArrayOutputStream();
+        OntologyMinimizer batched = createMinimizer(document, batchedOut);
+        batched.setBatchSize(4);
+        batched.startMinimization();
+
+        assertEquals(getExpectedAxioms(), sequentialResult);
+        assertEquals(sequentialResult, getGeneratedAxioms(batched, batchedOut));
+    }
+
+    @Test
+    public void testParallelMinimizationEqualsSequential() throws Exception {
+        byte[] document = createDocument();
+
+        ByteArrayOutputStream sequentialOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream sequentialRemoved = new ByteArrayOutputStream();
+        OntologyMinimizer sequential = createMinimizer(document, sequentialOut);
+        sequential.setRemovedAxiomsStream(sequentialRemoved);
+        sequential.startMinimization();
+        Set<OWLAxiom> sequentialResult = getGeneratedAxioms(sequential, sequentialOut);
+
+        // more reasoners than the chain is long per round exercises committing up to the first redundant axiom
+        for (int parallelism : new int[]{2, 3, 8}) {
+            ByteArrayOutputStream parallelOut = new ByteArrayOutputStream();
+            ByteArrayOutputStream parallelRemoved = new ByteArrayOutputStream();
+            OntologyMinimizer parallel = createMinimizer(document, parallelOut);
+            parallel.setRemovedAxiomsStream(parallelRemoved);
+            parallel.setParallelism(parallelism);
+            parallel.startMinimization();
+
+            assertEquals(sequentialResult, getGeneratedAxioms(parallel, parallelOut));
+            // axioms are removed in the same order
+            assertEquals(sequentialRemoved.toString("UTF-8"), parallelRemoved.toString("UTF-8"));
+        }
+        assertEquals(getExpectedAxioms(), sequentialResult);
+    }
+
+    @Test
+    public void testModuleCheckEqualsWholeOntologyCheck() throws Exception {
+        byte[] document = createDocument();
+
+        ByteArrayOutputStream wholeOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream wholeRemoved = new ByteArrayOutputStream();
+        OntologyMinimizer whole = createMinimizer(document, wholeOut);
+        whole.setRemovedAxiomsStream(wholeRemoved);
+        whole.startMinimization();
+        Set<OWLAxiom> wholeResult = getGeneratedAxioms(whole, wholeOut);
+
+        for (ModuleType moduleType : new ModuleType[]{ModuleType.BOT, ModuleType.STAR}) {
+            ByteArrayOutputStream moduleOut = new ByteArrayOutputStream();
+            ByteArrayOutputStream moduleRemoved = new ByteArrayOutputStream();
+            OntologyMinimizer module = createMinimizer(document, moduleOut);
+            module.setRemovedAxiomsStream(moduleRemoved);
+            module.setModuleType(moduleType);
+            module.startMinimization();
+
+            assertEquals(wholeResult, getGeneratedAxioms(module, moduleOut));
+            assertEquals(wholeRemoved.toString("UTF-8"), moduleRemoved.toString("UTF-8"));
+        }
+        assertEquals(getExpectedAxioms(), wholeResult);
+    }
+
+    @Test
+    public void testPreCheckedMinimizationEqualsSequential() throws Exception {
+        byte[] document = createDocument();
+
+        ByteArrayOutputStream sequentialOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream sequentialRemoved = new ByteArrayOutputStream();
+        OntologyMinimizer sequential = createMinimizer(document, sequentialOut);
+        sequential.setRemovedAxiomsStream(sequentialRemoved);
+        sequential.startMinimization();
+        Set<OWLAxiom> sequentialResult = getGeneratedAxioms(sequential, sequentialOut);
+
+        // with modules, entailments shown on a module are recorded by the pre-checker
+        for (ModuleType moduleType : new ModuleType[]{null, ModuleType.BOT}) {
+            ByteArrayOutputStream preCheckedOut = new ByteArrayOutputStream();
+            ByteArrayOutputStream preCheckedRemoved = new ByteArrayOutputStream();
+            OntologyMinimizer preChecked = createMinimizer(document, preCheckedOut);
+            preChecked.setRemovedAxiomsStream(preCheckedRemoved);
+            preChecked.setModuleType(moduleType);
+            preChecked.setPreChecks(true);
+            preChecked.startMinimization();
+
+            assertEquals(sequentialResult, getGeneratedAxioms(preChecked, preCheckedOut));
+            assertEquals(sequentialRemoved.toString("UTF-8"), preCheckedRemoved.toString("UTF-8"));
+        }
+        assertEquals(getExpectedAxioms(), sequentialResult);
+    }
+
+    @Test
+    public void testResumedMinimizationEqualsUninterrupted() throws Exception {
+        byte[] document = createDocument();
+        File checkpoint = File.createTempFile("checkpoint", ".bin");
+        checkpoint.deleteOnExit();
+
+        ByteArrayOutputStream uninterruptedOut = new ByteArrayOutputStream();
+        OntologyMinimizer uninterrupted = createMinimizer(document, uninterruptedOut);
+        uninterrupted.startMinimization();
+        Set<OWLAxiom> uninterruptedResult = getGeneratedAxioms(uninterrupted, uninterruptedOut);
+
+        // crash while committing the second removal, the checkpoint only covers the axioms processed before
+        OntologyMinimizer interrupted = createMinimizer(document, new ByteArrayOutputStream());
+        interrupted.setCheckpointFile(checkpoint, 1);
+        interrupted.setRemovedAxiomsStream(new CrashingOutputStream(2));
+        try {
+            interrupted.startMinimization();
+            fail("Minimization has not been interrupted");
+        }
+        catch (IllegalStateException expected) {
+            interrupted.dispose();
+        }
+
+        ByteArrayOutputStream resumedOut = new ByteArrayOutputStream();
+        OntologyMinimizer resumed = createMinimizer(document, resumedOut);
+        resumed.setCheckpointFile(checkpoint, 1);
+        resumed.resume(checkpoint);
+        resumed.startMinimization();
+
+        assertEquals(uninterruptedResult, getGeneratedAxioms(resumed, resumedOut));
+        assertEquals(getExpectedAxioms(), uninterruptedResult);
+        Checkpoint last = Checkpoint.read(checkpoint);
+        assertEquals(4, last.removedAxioms);
+        assertEquals(createAxioms().size() - 4, last.readdedAxioms);
+        assertEquals(0, last.timedOutAxioms);
+    }
+
+    @Test
+    public void testHierarchyReductionEqualsSequential() throws Exception {
+        List<OWLAxiom> axioms = new ArrayList<OWLAxiom>(createAxioms());
+        // makes a subClassOf c entailed without any path between them
+        axioms.add(df.getOWLSubClassOfAxiom(df.getOWLThing(), cls("c"), Collections.singleton(
+                df.getOWLAnnotation(df.getOWLAnnotationProperty(CONFIDENCE), df.getOWLLiteral(0.99)))));
+        byte[] document = createDocument(axioms);
+
+        ByteArrayOutputStream sequentialOut = new ByteArrayOutputStream();
+        OntologyMinimizer sequential = createMinimizer(document, sequentialOut);
+        sequential.startMinimization();
+        Set<OWLAxiom> sequentialResult = getGeneratedAxioms(sequential, sequentialOut);
+
+        ByteArrayOutputStream reducedOut = new ByteArrayOutputStream();
+        OntologyMinimizer reduced = createMinimizer(document, reducedOut);
+        reduced.setHierarchyReduction(true);
+        reduced.startMinimization();
+
+        assertFalse(sequentialResult.contains(subClassOf("a", "c", 0).getAxiomWithoutAnnotations()));
+        assertEquals(sequentialResult, getGeneratedAxioms(reduced, reducedOut));
+    }
+
+    @Test
+    public void testReasonerForAxiomType() throws Exception {
+        byte[] document = createDocument();
+
+        // the structural reasoner only finds told axioms, thus, it does not remove anything
+        ByteArrayOutputStream structuralOut = new ByteArrayOutputStream();
+        OntologyMinimizer structural = createMinimizer(document, structuralOut);
+        Main.setReasonerBackends(structural, new String[]{"SubClassOf=structural"});
+        structural.startMinimization();
+        Set<OWLAxiom> all = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : createAxioms()) {
+            all.add(axiom.getAxiomWithoutAnnotations());
+        }
+        assertEquals(all, getGeneratedAxioms(structural, structuralOut));
+
+        ByteArrayOutputStream hermitOut = new ByteArrayOutputStream();
+        OntologyMinimizer hermit = createMinimizer(document, hermitOut);
+        hermit.setReasonerBackend(ReasonerBackend.STRUCTURAL);
+        Main.setReasonerBackends(hermit, new String[]{"SubClassOf=hermit"});
+        hermit.startMinimization();
+        assertEquals(getExpectedAxioms(), getGeneratedAxioms(hermit, hermitOut));
+
+        OntologyMinimizer invalid = createMinimizer(document, new ByteArrayOutputStream());
+        try {
+            Main.setReasonerBackends(invalid, new String[]{"SubClassOf"});
+            fail("Assignment without reasoner has been accepted");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+        finally {
+            invalid.dispose();
+        }
+    }
+
+    @Test
+    public void testTimedOutAxiomIsKeptAndLogged() throws Exception {
+        List<OWLAxiom> axioms = createPigeonholeAxioms(8);
+        // entailed since a is unsatisfiable, but showing this takes far longer than the timeout
+        OWLAxiom az = subClassOf("a", "z", 0.5);
+        axioms.add(az);
+        byte[] document = createDocument(axioms);
+        File checkpoint = File.createTempFile("checkpoint", ".bin");
+        checkpoint.deleteOnExit();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream removed = new ByteArrayOutputStream();
+        ByteArrayOutputStream timedOut = new ByteArrayOutputStream();
+        OntologyMinimizer minimizer = createMinimizer(document, out);
+        minimizer.setTimeout(1);
+        minimizer.setCheckpointFile(checkpoint, 1);
+        minimizer.setRemovedAxiomsStream(removed);
+        minimizer.setTimedOutAxiomsStream(timedOut);
+        minimizer.startMinimization();
+
+        assertTrue(getGeneratedAxioms(minimizer, out).contains(az.getAxiomWithoutAnnotations()));
+        assertEquals("", removed.toString("UTF-8"));
+        assertEquals(az.toString(), timedOut.toString("UTF-8").trim());
+        assertEquals(1, Checkpoint.read(checkpoint).timedOutAxioms);
+    }
+
+    /**
+     * Returns unannotated axioms stating that the n + 1 pigeons of each instance of a sit in n holes which are never
+     * shared, thus, a is unsatisfiable. Showing this takes a tableau reasoner exponentially many steps.
+     */
+    private List<OWLAxiom> createPigeonholeAxioms(int n) {
+        ArrayList<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        for (int pigeon = 0; pigeon <= n; pigeon++) {
+            HashSet<OWLClassExpression> holes = new HashSet<OWLClassExpression>();
+            for (int hole = 0; hole < n; hole++) {
+                holes.add(cls("p" + pigeon + "h" + hole));
+            }
+            axioms.add(df.getOWLSubClassOfAxiom(cls("a"), df.getOWLObjectUnionOf(holes)));
+        }
+        for (int hole = 0; hole < n; hole++) {
+            HashSet<OWLClassExpression> pigeons = new HashSet<OWLClassExpression>();
+            for (int pigeon = 0; pigeon <= n; pigeon++) {
+                pigeons.add(cls("p" + pigeon + "h" + hole));
+            }
+            axioms.add(df.getOWLDisjointClassesAxiom(pigeons));
+        }
+        return axioms;
+    }
+
+    /**
+     * Returns the annotated axioms of the test ontology. The subsumptions between a, b, c and d form a chain whose
+     * shortcuts have low confidences and are redundant. k subClassOf l is redundant due to k subClassOf m, but once
+     * it is removed, k subClassOf m is not redundant anymore, thus, checking both at once does not decide them.
+     */
+    private List<OWLAxiom> createAxioms() {
+        return Arrays.asList(subClassOf("a", "c", 0.1), subClassOf("k", "l", 0.12), subClassOf("k", "m", 0.13),
+                             subClassOf("a", "d", 0.2), subClassOf("b", "d", 0.3), subClassOf("a", "b", 0.5),
+                             subClassOf("b", "c", 0.6), subClassOf("c", "d", 0.7), subClassOf("m", "l", 0.95),
+                             subClassOf("l", "m", 0.96));
+    }
+
+    /**
+     * Returns the axioms without annotations which have to remain after minimizing the test ontology
+     */
+    private Set<OWLAxiom> getExpectedAxioms() {
+        Set<OWLAxiom> expected = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : createAxioms()) {
+            expected.add(axiom.getAxiomWithoutAnnotations());
+        }
+        expected.remove(subClassOf("a", "c", 0).getAxiomWithoutAnnotations());
+        expected.remove(subClassOf("a", "d", 0).getAxiomWithoutAnnotations());
+        expected.remove(subClassOf("b", "d", 0).getAxiomWithoutAnnotations());
+        expected.remove(subClassOf("k", "l", 0).getAxiomWithoutAnnotations());
+        return expected;
+    }
+
+    private byte[] createDocument() throws Exception {
+        return createDocument(createAxioms());
+    }
+
+    private static byte[] createDocument(Collection<OWLAxiom> axioms) throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = manager.createOntology(new HashSet<OWLAxiom>(axioms));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        manager.saveOntology(ontology, out);
+        return out.toByteArray();
+    }
+
+    private static OntologyMinimizer createMinimizer(byte[] document, ByteArrayOutputStream out) throws Exception {
+        return new OntologyMinimizer(new ByteArrayInputStream(document), new ByteArrayInputStream(document), out,
+                                     new ArrayList<IRI>(Arrays.asList(CONFIDENCE)), null);
+    }
+
+    private static List<OWLAxiom> getAxiomsByConfidence(OntologyMinimizer minimizer) {
+        ArrayList<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        ConfidenceIndex index = minimizer.getConfidenceIndex();
+        for (ConfidenceIndex.Entry entry = index.getLowest(); entry != null; entry = index.getNext(entry)) {
+            axioms.add(entry.getAxiom());
+        }
+        return axioms;
+    }
+
+    /**
+     * Disposes the minimizer and returns the logical axioms of the generated ontology written to <code>out</code>
+     * without annotations
+     */
+    private static Set<OWLAxiom> getGeneratedAxioms(OntologyMinimizer minimizer, ByteArrayOutputStream out)
+            throws Exception {
+        minimizer.dispose();
+        minimizer.saveGeneratedOntology();
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology generated = manager.loadOntologyFromOntologyDocument(new ByteArrayInputStream(out.toByteArray()));
+        Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : generated.getLogicalAxioms()) {
+            axioms.add(axiom.getAxiomWithoutAnnotations());
+        }
+        return axioms;
+    }
+
+    /**
+     * Stream failing on the <code>n</code>-th flush, which the minimizer performs after each logged axiom
+     */
+    private static class CrashingOutputStream extends OutputStream {
+        private int flushes;
+        private int n;
+
+        private CrashingOutputStream(int n) {
+            this.n = n;
+        }
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void flush() {
+            if (++flushes == n) {
+                throw new IllegalStateException("Simulated crash");
+            }
+        }
+    }
+
+    private OWLAxiom subClassOf(String sub, String sup, double confidence) {
+        OWLAnnotation annotation = df.getOWLAnnotation(df.getOWLAnnotationProperty(CONFIDENCE),
+                                                       df.getOWLLiteral(confidence));
+        return df.getOWLSubClassOfAxiom(cls(sub), cls(sup),
+                                        new HashSet<OWLAnnotation>(Collections.singleton(annotation)));
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://example.com/" + name));
+    }
+}
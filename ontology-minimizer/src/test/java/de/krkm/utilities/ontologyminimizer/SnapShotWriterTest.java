@@ -0,0 +1,137 @@
+package de.krkm.utilities.ontologyminimizer;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+public class SnapShotWriterTest {
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+
+    @Test
+    public void testMaterializedDeltasMatchOntology() throws Exception {
+        File dir = createTempDir();
+        OWLOntology ontology = manager.createOntology(IRI.create("http://example.com/ontology"));
+        OWLAnnotation annotation = df.getOWLAnnotation(df.getOWLAnnotationProperty(IRI.create("http://example.com/c")),
+                                                       df.getOWLLiteral(0.5));
+        OWLAxiom annotated = df.getOWLSubClassOfAxiom(cls("a"), cls("b"),
+                                                      new HashSet<OWLAnnotation>(Collections.singleton(annotation)));
+        OWLAxiom bc = df.getOWLSubClassOfAxiom(cls("b"), cls("c"));
+        OWLAxiom ac = df.getOWLSubClassOfAxiom(cls("a"), cls("c"));
+        manager.addAxiom(ontology, annotated);
+        manager.addAxiom(ontology, bc);
+        manager.addAxiom(ontology, ac);
+
+        try {
+            SnapShotWriter writer = new SnapShotWriter(dir, 0);
+            writer.createSnapShot(ontology, 0);
+            manager.removeAxiom(ontology, annotated);
+            writer.removeAxiom(annotated);
+            writer.createSnapShot(ontology, 1);
+            Set<OWLAxiom> expected = getLogicalAxioms(ontology);
+            manager.removeAxiom(ontology, ac);
+            writer.removeAxiom(ac);
+            writer.createSnapShot(ontology, 2);
+            writer.close();
+
+            assertTrue(new File(dir, "generated_0.owl").exists());
+            assertTrue(new File(dir, "generated_0.delta").exists());
+            assertEquals(expected, materialize(dir, 1));
+            assertEquals(getLogicalAxioms(ontology), materialize(dir, 2));
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testDeltasOfAnonymousIndividualsAreRefused() throws Exception {
+        File dir = createTempDir();
+        OWLOntology ontology = manager.createOntology(IRI.create("http://example.com/ontology"));
+        OWLAxiom assertion = df.getOWLClassAssertionAxiom(cls("a"), df.getOWLAnonymousIndividual());
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(cls("a"), cls("b")));
+        manager.addAxiom(ontology, assertion);
+
+        try {
+            SnapShotWriter writer = new SnapShotWriter(dir, 0);
+            writer.createSnapShot(ontology, 0);
+            manager.removeAxiom(ontology, assertion);
+            writer.removeAxiom(assertion);
+            writer.createSnapShot(ontology, 1);
+            writer.close();
+
+            // the numbers of the reloaded axioms differ, thus, the deltas must not be applied to them
+            try {
+                materialize(dir, 1);
+                fail("Deltas of a snapshot with anonymous individuals have been applied");
+            }
+            catch (OntologyMinimizationException expected) {
+            }
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = OntologyMinimizationException.class)
+    public void testFailureIsReported() throws Exception {
+        File dir = createTempDir();
+        try {
+            // the snapshot directory does not exist, thus, writing the full snapshot fails in the background
+            SnapShotWriter writer = new SnapShotWriter(new File(dir, "missing"), 0);
+            writer.createSnapShot(manager.createOntology(), 0);
+            writer.close();
+        }
+        finally {
+            delete(dir);
+        }
+    }
+
+    private Set<OWLAxiom> materialize(File dir, int number) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapShotMaterializer(dir).materialize(number, out);
+        OWLOntologyManager loader = OWLManager.createOWLOntologyManager();
+        return getLogicalAxioms(loader.loadOntologyFromOntologyDocument(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    private static Set<OWLAxiom> getLogicalAxioms(OWLOntology ontology) {
+        Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+        for (OWLAxiom axiom : ontology.getLogicalAxioms()) {
+            axioms.add(axiom.getAxiomWithoutAnnotations());
+        }
+        return axioms;
+    }
+
+    private static File createTempDir() throws Exception {
+        File dir = File.createTempFile("snapshots", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IllegalStateException("Unable to create directory " + dir);
+        }
+        return dir;
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://example.com/" + name));
+    }
+}
@@ -5,10 +5,9 @@ import org.semanticweb.owlapi.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Provides methods to extract all axioms annotated by a given annotation from an OWL ontology
@@ -18,8 +17,20 @@ public class AnnotatedAxiomExtractor {
 
     private ArrayList<OWLAnnotationProperty> annotationIRIs;
 
+    private AnnotationPriorityIndex annotationIndex;
+
     private boolean preserve = false;
 
+    /**
+     * number of axioms a single fork/join task processes without splitting further
+     */
+    private final static int CHUNK_SIZE = 1024;
+
+    private int parallelism = 1;
+
+    private double minConfidence = Double.NEGATIVE_INFINITY;
+    private double maxConfidence = Double.POSITIVE_INFINITY;
+
     /**
      * Initializes an extractor using the given IRIs to extract a confidence value from. The IRIs are checked in the
      * order they are given in the array. The first annotation with an IRI contained in <code>annotationIRIs</code>.
@@ -29,6 +40,7 @@ public class AnnotatedAxiomExtractor {
     public AnnotatedAxiomExtractor(ArrayList<OWLAnnotationProperty> annotationIRIs) {
         log.info("Initializing the extractor with IRIs '{}'", new CollectionToStringWrapper(annotationIRIs));
         this.annotationIRIs = annotationIRIs;
+        this.annotationIndex = new AnnotationPriorityIndex(annotationIRIs);
     }
 
     /**
@@ -40,6 +52,37 @@ public class AnnotatedAxiomExtractor {
         this.preserve = preserve;
     }
 
+    /**
+     * Sets the number of threads used for extracting axioms. For values larger than 1, the axioms are partitioned by
+     * their axiom type and into chunks of at most {@value #CHUNK_SIZE} axioms which are processed on a fork/join pool
+     * of the given size. Defaults to 1, i.e., sequential extraction.
+     *
+     * @param parallelism number of threads to use for extraction
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism has to be at least 1 but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Restricts the extraction to axioms whose confidence lies in the closed interval
+     * <code>[minConfidence, maxConfidence]</code>. All other axioms are dropped directly after parsing their confidence
+     * value. By default, no axiom is dropped.
+     *
+     * @param minConfidence lowest confidence value of axioms to extract
+     * @param maxConfidence highest confidence value of axioms to extract
+     */
+    public void setConfidenceRange(double minConfidence, double maxConfidence) {
+        if (minConfidence > maxConfidence) {
+            throw new IllegalArgumentException(
+                "Empty confidence range [" + minConfidence + ", " + maxConfidence + "]");
+        }
+        this.minConfidence = minConfidence;
+        this.maxConfidence = maxConfidence;
+    }
+
     /**
      * Extracts all axioms which have one of the defined annotations containing confidence values.
      *
@@ -47,30 +90,190 @@ public class AnnotatedAxiomExtractor {
      * @return queue containing all extracted axioms ordered by descending confidence
      */
     public PriorityQueue<AxiomConfidencePair> extract(OWLOntology ontology) {
-        PriorityQueue<AxiomConfidencePair> queue =
+        final PriorityQueue<AxiomConfidencePair> queue =
             new PriorityQueue<AxiomConfidencePair>(100, new Comparator<AxiomConfidencePair>() {
                 public int compare(AxiomConfidencePair axiomConfidencePair, AxiomConfidencePair axiomConfidencePair1) {
                     return axiomConfidencePair.compareTo(axiomConfidencePair1);
                 }
             });
 
-        for (OWLAxiom ax : ontology.getAxioms()) {
-            log.debug("Reviewing axiom '{}'", ax);
-            for (OWLAnnotationProperty annotationProperty : annotationIRIs) {
-                Set<OWLAnnotation> annotations = ax.getAnnotations(annotationProperty);
-                log.debug("Got annotations: '{}'", new CollectionToStringWrapper(annotations));
-                if (!annotations.isEmpty()) {
-                    OWLAnnotation annotation = annotations.iterator().next();
-                    Double confidence = Double.parseDouble(annotation.getValue().toString().split("\"")[1]);
+        if (parallelism > 1) {
+            for (List<AxiomConfidencePair> pairs : extractParallel(ontology)) {
+                queue.addAll(pairs);
+            }
+            return queue;
+        }
+
+        extract(ontology, new AxiomConfidenceHandler() {
+            public void handle(OWLAxiom axiom, double confidence) {
+                queue.add(new AxiomConfidencePair(axiom, confidence));
+            }
+        });
+
+        return queue;
+    }
+
+    /**
+     * Extracts all axioms which have one of the defined annotations containing confidence values into a compact
+     * store sorted by ascending confidence. Compared to {@link #extract(OWLOntology)}, confidence values are not boxed
+     * and the pairs are sorted once instead of being kept in a heap.
+     *
+     * @param ontology ontology to extract axioms from
+     * @return store containing all extracted axioms ordered by ascending confidence
+     */
+    public AxiomConfidenceStore extractSorted(OWLOntology ontology) {
+        AxiomConfidenceStore store = new AxiomConfidenceStore();
+        extract(ontology, store);
+        store.sort(parallelism);
+        return store;
+    }
+
+    /**
+     * Extracts the <code>k</code> axioms having the lowest confidence values. Only <code>k</code> axioms are retained
+     * during the extraction, if the extraction is not run in parallel.
+     *
+     * @param ontology ontology to extract axioms from
+     * @param k        number of axioms to extract
+     * @return store containing the extracted axioms ordered by ascending confidence
+     */
+    public AxiomConfidenceStore extractLowest(OWLOntology ontology, int k) {
+        BoundedAxiomConfidenceHeap heap = new BoundedAxiomConfidenceHeap(k, true);
+        extract(ontology, heap);
+        return heap.toStore();
+    }
+
+    /**
+     * Extracts the <code>k</code> axioms having the highest confidence values. Only <code>k</code> axioms are retained
+     * during the extraction, if the extraction is not run in parallel.
+     *
+     * @param ontology ontology to extract axioms from
+     * @param k        number of axioms to extract
+     * @return store containing the extracted axioms ordered by ascending confidence
+     */
+    public AxiomConfidenceStore extractHighest(OWLOntology ontology, int k) {
+        BoundedAxiomConfidenceHeap heap = new BoundedAxiomConfidenceHeap(k, false);
+        extract(ontology, heap);
+        return heap.toStore();
+    }
+
+    /**
+     * Extracts all axioms which have one of the defined annotations containing confidence values and passes them to
+     * the given <code>handler</code> as soon as they are found. In contrast to {@link #extract(OWLOntology)}, no
+     * extracted axiom is retained by the extractor and the axioms are passed in no particular order.
+     *
+     * <p/>
+     * If a parallelism larger than 1 is set, the axioms are extracted concurrently and passed to the handler from the
+     * calling thread after the extraction has finished. In this case, the extracted axioms are kept in memory
+     * temporarily.
+     *
+     * @param ontology ontology to extract axioms from
+     * @param handler  handler to pass each extracted axiom and its confidence to
+     */
+    public void extract(OWLOntology ontology, AxiomConfidenceHandler handler) {
+        if (parallelism > 1) {
+            for (List<AxiomConfidencePair> pairs : extractParallel(ontology)) {
+                for (AxiomConfidencePair pair : pairs) {
+                    handler.handle(pair.getAxiom(), pair.getConfidenceValue());
+                }
+            }
+            return;
+        }
 
-                    queue.add(new AxiomConfidencePair(preserve ? ax : ax.getAxiomWithoutAnnotations(), confidence));
+        for (AxiomType<?> type : AxiomType.AXIOM_TYPES) {
+            for (OWLAxiom ax : ontology.getAxioms(type)) {
+                Double confidence = getConfidence(ax);
+                if (confidence != null) {
+                    handler.handle(preserve ? ax : ax.getAxiomWithoutAnnotations(), confidence);
                     log.debug("Added axiom '{}'", ax.getAxiomWithoutAnnotations());
-                    break;
                 }
             }
         }
+    }
 
-        return queue;
+    /**
+     * Returns an iterator lazily extracting the annotated axioms of the given ontology. Axioms are extracted one axiom
+     * type at a time while iterating and are returned in no particular order.
+     *
+     * @param ontology ontology to extract axioms from
+     * @return iterator over all axioms having one of the defined confidence annotations
+     */
+    public Iterator<AxiomConfidencePair> iterator(OWLOntology ontology) {
+        return new AnnotatedAxiomIterator(ontology);
+    }
+
+    /**
+     * Extracts the annotated axioms of the given ontology on a fork/join pool. The ontology is only accessed from the
+     * calling thread, the workers only inspect the annotations of the axioms assigned to them. Since the data factory
+     * of the ontology is not thread-safe, the workers do not create any OWL objects, the annotations are removed on
+     * the calling thread after all workers have finished.
+     *
+     * @param ontology ontology to extract axioms from
+     * @return per axiom type lists of extracted axioms
+     */
+    private List<List<AxiomConfidencePair>> extractParallel(OWLOntology ontology) {
+        log.info("Extracting annotated axioms using {} threads", parallelism);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ArrayList<ExtractionTask> tasks = new ArrayList<ExtractionTask>();
+            for (AxiomType<?> type : AxiomType.AXIOM_TYPES) {
+                Set<? extends OWLAxiom> axioms = ontology.getAxioms(type);
+                if (axioms.isEmpty()) {
+                    continue;
+                }
+                OWLAxiom[] axiomArray = axioms.toArray(new OWLAxiom[axioms.size()]);
+                ExtractionTask task = new ExtractionTask(axiomArray, 0, axiomArray.length);
+                pool.execute(task);
+                tasks.add(task);
+            }
+
+            ArrayList<List<AxiomConfidencePair>> results = new ArrayList<List<AxiomConfidencePair>>();
+            for (ExtractionTask task : tasks) {
+                List<AxiomConfidencePair> pairs = task.join();
+                if (!preserve) {
+                    for (int i = 0; i < pairs.size(); i++) {
+                        AxiomConfidencePair pair = pairs.get(i);
+                        pairs.set(i, new AxiomConfidencePair(pair.getAxiom().getAxiomWithoutAnnotations(),
+                                                             pair.getConfidenceValue()));
+                    }
+                }
+                results.add(pairs);
+            }
+            return results;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the confidence value assigned to the given axiom by the first matching annotation property or null if
+     * the axiom has no such annotation. Malformed confidence values are logged and the axiom is treated as not
+     * annotated. Confidence values outside of the configured confidence range are treated the same way.
+     *
+     * @param ax axiom to get confidence value for
+     * @return confidence value of axiom or null if not annotated
+     */
+    private Double getConfidence(OWLAxiom ax) {
+        log.debug("Reviewing axiom '{}'", ax);
+        OWLAnnotation annotation = annotationIndex.select(ax);
+        if (annotation == null) {
+            return null;
+        }
+        log.debug("Got annotation: '{}'", annotation);
+
+        double confidence;
+        try {
+            confidence = ConfidenceDecoder.decode(annotation.getValue());
+        }
+        catch (MalformedConfidenceException e) {
+            log.warn("Ignoring axiom '{}': {}", ax, e.getMessage());
+            return null;
+        }
+        if (confidence < minConfidence || confidence > maxConfidence) {
+            log.debug("Dropping axiom '{}' having confidence {} outside of range", ax, confidence);
+            return null;
+        }
+        return confidence;
     }
 
     /**
@@ -88,4 +291,96 @@ public class AnnotatedAxiomExtractor {
 
         return properties;
     }
+
+    /**
+     * Fork/join task extracting the annotated axioms from a range of an axiom array. Ranges larger than
+     * {@value #CHUNK_SIZE} axioms are split in halves whose results are concatenated in order. The extracted axioms
+     * keep their annotations, see {@link #extractParallel(OWLOntology)}.
+     */
+    private class ExtractionTask extends RecursiveTask<List<AxiomConfidencePair>> {
+        private OWLAxiom[] axioms;
+        private int from;
+        private int to;
+
+        private ExtractionTask(OWLAxiom[] axioms, int from, int to) {
+            this.axioms = axioms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<AxiomConfidencePair> compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                ExtractionTask left = new ExtractionTask(axioms, from, middle);
+                left.fork();
+                List<AxiomConfidencePair> right = new ExtractionTask(axioms, middle, to).compute();
+                List<AxiomConfidencePair> res = left.join();
+                res.addAll(right);
+                return res;
+            }
+
+            ArrayList<AxiomConfidencePair> res = new ArrayList<AxiomConfidencePair>();
+            for (int i = from; i < to; i++) {
+                OWLAxiom ax = axioms[i];
+                Double confidence = getConfidence(ax);
+                if (confidence != null) {
+                    res.add(new AxiomConfidencePair(ax, confidence));
+                }
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Iterator fetching the axioms of one axiom type at a time and skipping all axioms without confidence annotation
+     */
+    private class AnnotatedAxiomIterator implements Iterator<AxiomConfidencePair> {
+        private OWLOntology ontology;
+        private Iterator<AxiomType<?>> typeIterator = AxiomType.AXIOM_TYPES.iterator();
+        private Iterator<? extends OWLAxiom> axiomIterator = Collections.<OWLAxiom>emptySet().iterator();
+        private AxiomConfidencePair next;
+
+        private AnnotatedAxiomIterator(OWLOntology ontology) {
+            this.ontology = ontology;
+            advance();
+        }
+
+        /**
+         * Moves <code>next</code> to the next annotated axiom or to null if there is no further one
+         */
+        private void advance() {
+            next = null;
+            while (next == null) {
+                while (!axiomIterator.hasNext()) {
+                    if (!typeIterator.hasNext()) {
+                        return;
+                    }
+                    axiomIterator = ontology.getAxioms(typeIterator.next()).iterator();
+                }
+                OWLAxiom ax = axiomIterator.next();
+                Double confidence = getConfidence(ax);
+                if (confidence != null) {
+                    next = new AxiomConfidencePair(preserve ? ax : ax.getAxiomWithoutAnnotations(), confidence);
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public AxiomConfidencePair next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            AxiomConfidencePair res = next;
+            advance();
+            return res;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Removing axioms is not supported");
+        }
+    }
 }
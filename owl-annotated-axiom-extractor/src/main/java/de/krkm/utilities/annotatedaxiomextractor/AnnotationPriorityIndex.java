@@ -0,0 +1,56 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.model.OWLAnnotation;
+import org.semanticweb.owlapi.model.OWLAnnotationProperty;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Selects the confidence annotation of an axiom from a prioritized list of annotation properties. The annotations of
+ * an axiom are traversed only once and each annotation property is looked up in a precomputed map, thus, the cost of
+ * a selection does not depend on the number of configured annotation properties.
+ */
+public class AnnotationPriorityIndex {
+    private HashMap<OWLAnnotationProperty, Integer> priorities;
+
+    /**
+     * Initializes the index for the given annotation properties. Properties earlier in the list have a higher
+     * priority.
+     *
+     * @param properties annotation properties ordered by descending priority
+     */
+    public AnnotationPriorityIndex(List<OWLAnnotationProperty> properties) {
+        priorities = new HashMap<OWLAnnotationProperty, Integer>();
+        for (int i = 0; i < properties.size(); i++) {
+            // for duplicate properties, the first occurrence defines the priority
+            if (!priorities.containsKey(properties.get(i))) {
+                priorities.put(properties.get(i), i);
+            }
+        }
+    }
+
+    /**
+     * Returns the annotation of the given axiom whose property has the highest priority or null if the axiom has no
+     * annotation using any of the indexed properties.
+     *
+     * @param axiom axiom to select annotation from
+     * @return highest-priority annotation of axiom or null if there is no such annotation
+     */
+    public OWLAnnotation select(OWLAxiom axiom) {
+        OWLAnnotation best = null;
+        int bestPriority = Integer.MAX_VALUE;
+        for (OWLAnnotation annotation : axiom.getAnnotations()) {
+            Integer priority = priorities.get(annotation.getProperty());
+            if (priority != null && priority < bestPriority) {
+                best = annotation;
+                bestPriority = priority;
+                if (bestPriority == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
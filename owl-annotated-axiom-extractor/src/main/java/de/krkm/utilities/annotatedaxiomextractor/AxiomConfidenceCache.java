@@ -0,0 +1,508 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.SimpleRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Binary sidecar cache of the annotated axioms extracted from an ontology document. The cache is identified by a
+ * digest of the document's content and the confidence annotation IRIs used for extraction. Thus, it is only used as
+ * long as neither of them changes. Since computing the digest requires reading the whole document, the cache also
+ * records the document's size and modification time and the digest is only computed if one of them has changed.
+ * <p/>
+ * The cache file consists of a header followed by four sections:
+ * <ol>
+ * <li>the confidence values of all axioms in ascending order</li>
+ * <li>the offsets of the axiom records in the record section</li>
+ * <li>the axiom type of each axiom as an index into the type table of the header</li>
+ * <li>the axiom records, i.e., the UTF-8 encoded rendering of each axiom in OWLAPI's functional-style syntax as
+ * produced by {@link SimpleRenderer}</li>
+ * </ol>
+ * The first three sections are memory-mapped when opening the cache, records are only read on demand. Thus, opening a
+ * cache costs at most computing the digest of the document, which is much cheaper than parsing it.
+ * <p/>
+ * The records are meant for display only. The rendering of {@link SimpleRenderer} is no valid functional-style
+ * document, e.g., it lacks prefixes and renders literals and annotations in its own way, thus, records cannot be
+ * parsed back into <code>OWLAxiom</code> objects. Consequently, the cache only serves tools which need confidence
+ * values, axiom types and renderings, i.e., the extractor and the histogram. Tools requiring the axioms themselves,
+ * like the ontology minimizer, still have to load the ontology.
+ */
+public class AxiomConfidenceCache implements Closeable {
+    private final static Logger log = LoggerFactory.getLogger(AxiomConfidenceCache.class);
+
+    /**
+     * suffix appended to the name of an ontology document to get the name of its cache file
+     */
+    public final static String FILE_SUFFIX = ".confcache";
+
+    private final static int MAGIC = 0x41434331;
+    private final static int VERSION = 2;
+    private final static String DIGEST_ALGORITHM = "SHA-1";
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private RandomAccessFile file;
+    private int size;
+    private AxiomType<?>[] types;
+    private DoubleBuffer confidences;
+    private ByteBuffer typeIndexes;
+    private LongBuffer recordOffsets;
+    private long recordsStart;
+
+    private AxiomConfidenceCache(RandomAccessFile file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the cache file belonging to the given ontology document
+     *
+     * @param ontologyFile ontology document to get cache file for
+     * @return cache file of the document
+     */
+    public static File getCacheFile(File ontologyFile) {
+        return new File(ontologyFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Computes the digest identifying the cache of the given ontology document when extracting confidence values
+     * using the given annotation IRIs.
+     *
+     * @param ontologyFile   ontology document to compute digest for
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     * @return digest identifying the cache
+     * @throws IOException on errors reading the ontology document
+     */
+    public static byte[] computeDigest(File ontologyFile, List<IRI> confidenceIRIs) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException("Digest algorithm " + DIGEST_ALGORITHM + " is not available", e);
+        }
+        for (IRI iri : confidenceIRIs) {
+            digest.update(iri.toString().getBytes(UTF8));
+            digest.update((byte) '\n');
+        }
+
+        DigestInputStream in = new DigestInputStream(new FileInputStream(ontologyFile), digest);
+        try {
+            byte[] buffer = new byte[1 << 16];
+            //noinspection StatementWithEmptyBody
+            while (in.read(buffer) != -1) {
+            }
+        }
+        finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Opens the given cache file if it exists and matches the given digest.
+     *
+     * @param cacheFile cache file to open
+     * @param digest    digest the cache has to match as returned by
+     *                  {@link #computeDigest(java.io.File, java.util.List)}
+     * @return opened cache or null if the cache file does not exist, is outdated or corrupt
+     * @throws IOException on errors reading the cache file
+     */
+    public static AxiomConfidenceCache open(File cacheFile, byte[] digest) throws IOException {
+        return open(cacheFile, digest, null, null);
+    }
+
+    /**
+     * Opens the given cache file if it exists and belongs to the given ontology document and confidence annotation
+     * IRIs. The digest of the document is only computed if its size or modification time differ from the ones
+     * recorded in the cache.
+     *
+     * @param cacheFile      cache file to open
+     * @param ontologyFile   ontology document the cache has to belong to
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     * @return opened cache or null if the cache file does not exist, is outdated or corrupt
+     * @throws IOException on errors reading the cache file or the ontology document
+     */
+    public static AxiomConfidenceCache open(File cacheFile, File ontologyFile, List<IRI> confidenceIRIs)
+            throws IOException {
+        return open(cacheFile, null, ontologyFile, confidenceIRIs);
+    }
+
+    private static AxiomConfidenceCache open(File cacheFile, byte[] digest, File ontologyFile,
+                                             List<IRI> confidenceIRIs) throws IOException {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+        AxiomConfidenceCache cache = new AxiomConfidenceCache(file);
+        boolean valid = false;
+        try {
+            valid = cache.readHeader(digest, ontologyFile, confidenceIRIs);
+        }
+        catch (EOFException e) {
+            log.warn("Cache file {} is truncated", cacheFile);
+        }
+        catch (IllegalArgumentException e) {
+            log.warn("Cache file {} is corrupt: {}", cacheFile, e.getMessage());
+        }
+        finally {
+            if (!valid) {
+                file.close();
+            }
+        }
+        return valid ? cache : null;
+    }
+
+    /**
+     * Opens the cache of the given ontology document. If there is no up-to-date cache, the ontology is loaded, its
+     * annotated axioms are extracted and written to a new cache which is opened afterwards.
+     *
+     * @param ontologyFile   ontology document to open cache for
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     * @param threads        number of threads to use if extraction is required
+     * @return opened cache of the ontology document
+     * @throws IOException                  on errors reading the document or reading or writing the cache file
+     * @throws OWLOntologyCreationException on errors loading the ontology
+     */
+    public static AxiomConfidenceCache openOrCreate(File ontologyFile, List<IRI> confidenceIRIs, int threads)
+            throws IOException, OWLOntologyCreationException {
+        File cacheFile = getCacheFile(ontologyFile);
+        AxiomConfidenceCache cache = open(cacheFile, ontologyFile, confidenceIRIs);
+        if (cache != null) {
+            log.info("Using cache file {}", cacheFile);
+            return cache;
+        }
+
+        log.info("Creating cache file {}", cacheFile);
+        // recorded before reading the document, thus, changes while creating the cache invalidate it
+        long documentLength = ontologyFile.length();
+        long documentModified = ontologyFile.lastModified();
+        byte[] digest = computeDigest(ontologyFile, confidenceIRIs);
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = manager.loadOntologyFromOntologyDocument(ontologyFile);
+        AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(AnnotatedAxiomExtractor
+            .getAnnotationsProperties(manager.getOWLDataFactory(),
+                                      confidenceIRIs.toArray(new IRI[confidenceIRIs.size()])));
+        extractor.setParallelism(threads);
+        write(cacheFile, digest, documentLength, documentModified, confidenceIRIs, extractor.extractSorted(ontology));
+        manager.removeOntology(ontology);
+
+        cache = open(cacheFile, digest);
+        if (cache == null) {
+            throw new IOException("Unable to read cache file " + cacheFile + " after writing it");
+        }
+        return cache;
+    }
+
+    /**
+     * Writes the given store to the given cache file. The file is written to a temporary file first which replaces
+     * the cache file afterwards, thus, concurrent readers never see incomplete caches.
+     *
+     * @param cacheFile cache file to write
+     * @param digest    digest identifying the cache as returned by
+     *                  {@link #computeDigest(java.io.File, java.util.List)}
+     * @param store     axioms and confidence values to write, sorted if required
+     * @throws IOException on errors writing the cache file
+     */
+    public static void write(File cacheFile, byte[] digest, AxiomConfidenceStore store) throws IOException {
+        write(cacheFile, digest, -1, -1, Collections.<IRI>emptyList(), store);
+    }
+
+    /**
+     * Writes the given store to the given cache file recording the size and modification time of the ontology
+     * document and the confidence annotation IRIs, which allow to skip computing the digest when opening the cache
+     */
+    private static void write(File cacheFile, byte[] digest, long documentLength, long documentModified,
+                              List<IRI> confidenceIRIs, AxiomConfidenceStore store) throws IOException {
+        store.sort();
+
+        // collect axiom types used in the store
+        HashMap<AxiomType<?>, Integer> typeIndexes = new HashMap<AxiomType<?>, Integer>();
+        ArrayList<AxiomType<?>> types = new ArrayList<AxiomType<?>>();
+        for (int i = 0; i < store.size(); i++) {
+            AxiomType<?> type = store.getAxiom(i).getAxiomType();
+            if (!typeIndexes.containsKey(type)) {
+                typeIndexes.put(type, types.size());
+                types.add(type);
+            }
+        }
+
+        // the header is small and of variable length, thus, it is written to memory first
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(documentLength);
+        header.writeLong(documentModified);
+        header.writeInt(confidenceIRIs.size());
+        for (IRI iri : confidenceIRIs) {
+            header.writeUTF(iri.toString());
+        }
+        header.writeInt(digest.length);
+        header.write(digest);
+        header.writeInt(store.size());
+        header.writeInt(types.size());
+        for (AxiomType<?> type : types) {
+            header.writeUTF(type.getName());
+        }
+        header.flush();
+
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        boolean replaced = false;
+        try {
+            FileOutputStream fileOut = new FileOutputStream(tempFile);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+                headerBytes.writeTo(out);
+                // DataOutputStream#size() overflows for files larger than 2 GB, thus, the position is tracked here
+                long position = headerBytes.size();
+                // align the confidence and offset columns to eight bytes
+                for (; position % 8 != 0; position++) {
+                    out.writeByte(0);
+                }
+                long recordsStart = position + 8 + store.size() * 17L + 8;
+                recordsStart += (8 - recordsStart % 8) % 8;
+                out.writeLong(recordsStart);
+                position += 8;
+
+                for (int i = 0; i < store.size(); i++) {
+                    out.writeDouble(store.getConfidence(i));
+                }
+                position += store.size() * 8L;
+                // record offsets are written after the records to render each axiom only once
+                long offsetsStart = position;
+                for (int i = 0; i <= store.size(); i++) {
+                    out.writeLong(0);
+                }
+                position += (store.size() + 1) * 8L;
+                for (int i = 0; i < store.size(); i++) {
+                    out.writeByte(typeIndexes.get(store.getAxiom(i).getAxiomType()));
+                }
+                position += store.size();
+                for (; position < recordsStart; position++) {
+                    out.writeByte(0);
+                }
+
+                // toString() uses the globally configurable renderer, thus, the records are rendered explicitly
+                SimpleRenderer renderer = new SimpleRenderer();
+                ByteBuffer offsets = ByteBuffer.allocate((store.size() + 1) * 8);
+                long offset = 0;
+                for (int i = 0; i < store.size(); i++) {
+                    offsets.putLong(offset);
+                    byte[] record = renderer.render(store.getAxiom(i)).getBytes(UTF8);
+                    out.write(record);
+                    offset += record.length;
+                }
+                offsets.putLong(offset);
+                out.flush();
+
+                offsets.flip();
+                FileChannel channel = fileOut.getChannel();
+                while (offsets.hasRemaining()) {
+                    channel.write(offsets, offsetsStart + offsets.position());
+                }
+            }
+            finally {
+                fileOut.close();
+            }
+
+            if (!tempFile.renameTo(cacheFile)) {
+                // renaming over an existing file fails on some platforms
+                if (!cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+                    throw new IOException("Unable to replace cache file " + cacheFile);
+                }
+            }
+            replaced = true;
+        }
+        finally {
+            if (!replaced && tempFile.exists() && !tempFile.delete()) {
+                log.warn("Unable to delete temporary cache file {}", tempFile);
+            }
+        }
+    }
+
+    /**
+     * Reads the header and maps the columns of the cache file. Returns false if the cache does not match the digest.
+     * If no digest is given, the cache has to belong to the given ontology document and IRIs. The digest of the
+     * document is only computed in this case if its size or modification time do not match.
+     */
+    private boolean readHeader(byte[] digest, File ontologyFile, List<IRI> confidenceIRIs) throws IOException {
+        FileChannel channel = file.getChannel();
+        if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+            log.info("Ignoring cache file of unknown format or version");
+            return false;
+        }
+        long documentLength = file.readLong();
+        long documentModified = file.readLong();
+        int iriCount = file.readInt();
+        if (iriCount < 0 || iriCount > 1024) {
+            throw new IllegalArgumentException("invalid number of confidence IRIs " + iriCount);
+        }
+        boolean sameIRIs = confidenceIRIs != null && iriCount == confidenceIRIs.size();
+        for (int i = 0; i < iriCount; i++) {
+            String iri = file.readUTF();
+            sameIRIs = sameIRIs && iri.equals(confidenceIRIs.get(i).toString());
+        }
+        int digestLength = file.readInt();
+        if (digestLength < 0 || digestLength > 1024) {
+            throw new IllegalArgumentException("invalid digest length " + digestLength);
+        }
+        byte[] cachedDigest = new byte[digestLength];
+        file.readFully(cachedDigest);
+        if (digest == null) {
+            if (sameIRIs && documentLength == ontologyFile.length() &&
+                documentModified == ontologyFile.lastModified()) {
+                digest = cachedDigest;
+            }
+            else {
+                digest = computeDigest(ontologyFile, confidenceIRIs);
+            }
+        }
+        if (!Arrays.equals(digest, cachedDigest)) {
+            log.info("Ignoring outdated cache file");
+            return false;
+        }
+
+        size = file.readInt();
+        types = new AxiomType<?>[file.readInt()];
+        for (int i = 0; i < types.length; i++) {
+            String name = file.readUTF();
+            types[i] = AxiomType.getAxiomType(name);
+            if (types[i] == null) {
+                throw new IllegalArgumentException("unknown axiom type " + name);
+            }
+        }
+        long position = file.getFilePointer();
+        position += (8 - position % 8) % 8;
+        file.seek(position);
+        recordsStart = file.readLong();
+        position += 8;
+
+        long columnsLength = size * 17L + 8;
+        if (size < 0 || recordsStart < position + columnsLength || recordsStart > channel.size()) {
+            throw new IllegalArgumentException("invalid section offsets");
+        }
+        confidences = channel.map(FileChannel.MapMode.READ_ONLY, position, size * 8L).asDoubleBuffer();
+        position += size * 8L;
+        recordOffsets = channel.map(FileChannel.MapMode.READ_ONLY, position, (size + 1) * 8L).asLongBuffer();
+        position += (size + 1) * 8L;
+        typeIndexes = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        if (recordsStart + recordOffsets.get(size) != channel.size()) {
+            throw new IllegalArgumentException("invalid length of record section");
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of axioms contained in this cache
+     *
+     * @return number of axioms contained in this cache
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the confidence value at position <code>index</code>. Confidence values are in ascending order.
+     *
+     * @param index position of the confidence value to return
+     * @return confidence value at the given position
+     */
+    public double getConfidence(int index) {
+        return confidences.get(index);
+    }
+
+    /**
+     * Returns the type of the axiom at position <code>index</code>
+     *
+     * @param index position of the axiom
+     * @return type of the axiom at the given position
+     */
+    public AxiomType<?> getAxiomType(int index) {
+        return types[typeIndexes.get(index)];
+    }
+
+    /**
+     * Returns the functional-style rendering of the axiom at position <code>index</code> as produced by
+     * {@link SimpleRenderer} when writing the cache. The rendering is meant for display and cannot be parsed back
+     * into an axiom.
+     *
+     * @param index position of the axiom
+     * @return rendering of the axiom at the given position
+     * @throws IOException on errors reading the record from the cache file
+     */
+    public String getAxiomString(int index) throws IOException {
+        long start = recordOffsets.get(index);
+        int length = (int) (recordOffsets.get(index + 1) - start);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        FileChannel channel = file.getChannel();
+        while (record.hasRemaining()) {
+            if (channel.read(record, recordsStart + start + record.position()) < 0) {
+                throw new EOFException("Unexpected end of cache file");
+            }
+        }
+        return new String(record.array(), UTF8);
+    }
+
+    /**
+     * Returns the position of the first axiom whose confidence value is not lower than <code>confidence</code> or
+     * {@link #size()} if there is no such axiom.
+     *
+     * @param confidence confidence value to search for
+     * @return position of the first axiom having a confidence value of at least <code>confidence</code>
+     */
+    public int lowerBound(double confidence) {
+        return search(confidence, false);
+    }
+
+    /**
+     * Returns the position of the first axiom whose confidence value is higher than <code>confidence</code> or
+     * {@link #size()} if there is no such axiom.
+     *
+     * @param confidence confidence value to search for
+     * @return position of the first axiom having a confidence value higher than <code>confidence</code>
+     */
+    public int upperBound(double confidence) {
+        return search(confidence, true);
+    }
+
+    private int search(double confidence, boolean upper) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Double.compare(confidences.get(middle), confidence);
+            if (comparison < 0 || upper && comparison == 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Closes the underlying cache file. The mapped columns are released by the garbage collector.
+     *
+     * @throws IOException on errors closing the file
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+}
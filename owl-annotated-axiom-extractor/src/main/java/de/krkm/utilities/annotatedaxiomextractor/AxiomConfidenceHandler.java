@@ -0,0 +1,18 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+/**
+ * Callback interface for consuming annotated axioms while they are extracted from an ontology. Using a handler instead
+ * of the queue returned by {@link AnnotatedAxiomExtractor#extract(org.semanticweb.owlapi.model.OWLOntology)} allows
+ * to process arbitrarily large ontologies without keeping all extracted axioms in memory.
+ */
+public interface AxiomConfidenceHandler {
+    /**
+     * Called once for every axiom having a confidence annotation. Axioms are passed in no particular order.
+     *
+     * @param axiom      the extracted axiom, with or without annotations depending on the extractor settings
+     * @param confidence confidence value assigned to the axiom
+     */
+    public void handle(OWLAxiom axiom, double confidence);
+}
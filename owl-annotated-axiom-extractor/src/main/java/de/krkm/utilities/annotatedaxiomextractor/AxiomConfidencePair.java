@@ -11,21 +11,19 @@ import org.semanticweb.owlapi.model.OWLAxiom;
 @SuppressWarnings("RedundantIfStatement")
 public class AxiomConfidencePair implements Comparable<AxiomConfidencePair> {
     private OWLAxiom axiom;
-    private Double confidence;
+    private double confidence;
 
-    public AxiomConfidencePair(OWLAxiom axiom, Double confidence) {
+    public AxiomConfidencePair(OWLAxiom axiom, double confidence) {
         this.axiom = axiom;
         this.confidence = confidence;
     }
 
+    public AxiomConfidencePair(OWLAxiom axiom, Double confidence) {
+        this(axiom, confidence.doubleValue());
+    }
+
     public int compareTo(AxiomConfidencePair axiomConfidencePair) {
-        if (this.confidence < axiomConfidencePair.confidence) {
-            return -1;
-        }
-        if (this.confidence > axiomConfidencePair.confidence) {
-            return 1;
-        }
-        return 0;
+        return Double.compare(this.confidence, axiomConfidencePair.confidence);
     }
 
     @Override
@@ -42,7 +40,7 @@ public class AxiomConfidencePair implements Comparable<AxiomConfidencePair> {
         if (!axiom.equals(that.axiom)) {
             return false;
         }
-        if (!confidence.equals(that.confidence)) {
+        if (Double.compare(confidence, that.confidence) != 0) {
             return false;
         }
 
@@ -51,6 +49,14 @@ public class AxiomConfidencePair implements Comparable<AxiomConfidencePair> {
 
     @Override
     public String toString() {
+        return toString(axiom, confidence);
+    }
+
+    /**
+     * Returns the string representation of a pair consisting of the given axiom and confidence value. Used for
+     * printing pairs whose axiom is only available as string.
+     */
+    static String toString(Object axiom, double confidence) {
         return "AxiomConfidencePair{" +
                "axiom=" + axiom +
                ", confidence=" + confidence +
@@ -60,7 +66,8 @@ public class AxiomConfidencePair implements Comparable<AxiomConfidencePair> {
     @Override
     public int hashCode() {
         int result = axiom.hashCode();
-        result = 31 * result + confidence.hashCode();
+        long confidenceBits = Double.doubleToLongBits(confidence);
+        result = 31 * result + (int) (confidenceBits ^ (confidenceBits >>> 32));
         return result;
     }
 
@@ -79,4 +86,12 @@ public class AxiomConfidencePair implements Comparable<AxiomConfidencePair> {
     public Double getConfidence() {
         return confidence;
     }
+
+    /**
+     * Returns the confidence value for this pair without boxing it
+     * @return confidence for this pair
+     */
+    public double getConfidenceValue() {
+        return confidence;
+    }
 }
@@ -0,0 +1,321 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compact container for axioms and their confidence values. The confidence values are stored in a primitive array
+ * next to an array holding the corresponding axioms. The container is meant to be filled in one pass, sorted once by
+ * {@link #sort()} and then be accessed by index or iterated in ascending or descending order of confidence.
+ */
+public class AxiomConfidenceStore implements AxiomConfidenceHandler {
+    /**
+     * ranges smaller than this are sorted by insertion sort
+     */
+    private final static int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * ranges smaller than this are not split further when sorting in parallel
+     */
+    private final static int PARALLEL_SORT_THRESHOLD = 8192;
+
+    private double[] confidences;
+    private OWLAxiom[] axioms;
+    private int size = 0;
+    private boolean sorted = true;
+
+    /**
+     * Initializes an empty store.
+     */
+    public AxiomConfidenceStore() {
+        this(100);
+    }
+
+    /**
+     * Initializes an empty store which is able to hold <code>initialCapacity</code> pairs before growing.
+     *
+     * @param initialCapacity number of pairs the store is able to hold initially
+     */
+    public AxiomConfidenceStore(int initialCapacity) {
+        confidences = new double[Math.max(initialCapacity, 1)];
+        axioms = new OWLAxiom[confidences.length];
+    }
+
+    /**
+     * Adds the given axiom with the given confidence value to this store. Adding pairs invalidates a previous sort.
+     *
+     * @param axiom      axiom to add
+     * @param confidence confidence value of the axiom
+     */
+    public void add(OWLAxiom axiom, double confidence) {
+        if (size == confidences.length) {
+            int newCapacity = confidences.length + (confidences.length >> 1) + 1;
+            confidences = Arrays.copyOf(confidences, newCapacity);
+            axioms = Arrays.copyOf(axioms, newCapacity);
+        }
+        if (size > 0 && Double.compare(confidences[size - 1], confidence) > 0) {
+            sorted = false;
+        }
+        confidences[size] = confidence;
+        axioms[size] = axiom;
+        size++;
+    }
+
+    /**
+     * Adds the given axiom with the given confidence value to this store.
+     *
+     * @param axiom      axiom to add
+     * @param confidence confidence value of the axiom
+     */
+    public void handle(OWLAxiom axiom, double confidence) {
+        add(axiom, confidence);
+    }
+
+    /**
+     * Returns the number of pairs contained in this store
+     *
+     * @return number of pairs contained in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this store contains no pairs
+     *
+     * @return true if store is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns whether the pairs in this store are ordered by ascending confidence
+     *
+     * @return true if pairs are ordered by ascending confidence, otherwise false
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Returns the axiom at position <code>index</code>
+     *
+     * @param index position of the axiom to return
+     * @return axiom at the given position
+     */
+    public OWLAxiom getAxiom(int index) {
+        checkIndex(index);
+        return axioms[index];
+    }
+
+    /**
+     * Returns the confidence value at position <code>index</code>
+     *
+     * @param index position of the confidence value to return
+     * @return confidence value at the given position
+     */
+    public double getConfidence(int index) {
+        checkIndex(index);
+        return confidences[index];
+    }
+
+    /**
+     * Returns a copy of all confidence values in the current order of the store
+     *
+     * @return array containing all confidence values
+     */
+    public double[] getConfidences() {
+        return Arrays.copyOf(confidences, size);
+    }
+
+    /**
+     * Sorts the pairs in this store by ascending confidence. Pairs having the same confidence keep their relative
+     * order.
+     */
+    public void sort() {
+        sort(1);
+    }
+
+    /**
+     * Sorts the pairs in this store by ascending confidence using <code>parallelism</code> threads. Pairs having the
+     * same confidence keep their relative order, thus, the result does not depend on the number of threads.
+     *
+     * @param parallelism number of threads to use for sorting
+     */
+    public void sort(int parallelism) {
+        if (sorted) {
+            return;
+        }
+        double[] confidenceBuffer = new double[(size + 1) / 2];
+        OWLAxiom[] axiomBuffer = new OWLAxiom[confidenceBuffer.length];
+        if (parallelism > 1 && size >= PARALLEL_SORT_THRESHOLD) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new SortTask(0, size, confidenceBuffer, axiomBuffer));
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+        else {
+            mergeSort(0, size, confidenceBuffer, axiomBuffer);
+        }
+        sorted = true;
+    }
+
+    /**
+     * Returns an iterator over all pairs in ascending order of confidence. The store is sorted if required.
+     *
+     * @return iterator over pairs in ascending order of confidence
+     */
+    public Iterator<AxiomConfidencePair> ascendingIterator() {
+        sort();
+        return new PairIterator(true);
+    }
+
+    /**
+     * Returns an iterator over all pairs in descending order of confidence. The store is sorted if required.
+     *
+     * @return iterator over pairs in descending order of confidence
+     */
+    public Iterator<AxiomConfidencePair> descendingIterator() {
+        sort();
+        return new PairIterator(false);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Sorts the range <code>[from, to)</code> by a stable merge sort. The buffers have to be able to hold half of the
+     * range.
+     */
+    private void mergeSort(int from, int to, double[] confidenceBuffer, OWLAxiom[] axiomBuffer) {
+        if (to - from < INSERTION_SORT_THRESHOLD) {
+            insertionSort(from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(from, middle, confidenceBuffer, axiomBuffer);
+        mergeSort(middle, to, confidenceBuffer, axiomBuffer);
+        merge(from, middle, to, confidenceBuffer, axiomBuffer);
+    }
+
+    /**
+     * Merges the sorted ranges <code>[from, middle)</code> and <code>[middle, to)</code>. The left range is moved to
+     * the buffers at the same offset relative to <code>from / 2</code> which keeps buffer regions of concurrently
+     * merged ranges disjoint.
+     */
+    private void merge(int from, int middle, int to, double[] confidenceBuffer, OWLAxiom[] axiomBuffer) {
+        if (Double.compare(confidences[middle - 1], confidences[middle]) <= 0) {
+            // ranges are already in order
+            return;
+        }
+        int leftLength = middle - from;
+        int bufferOffset = from / 2;
+        System.arraycopy(confidences, from, confidenceBuffer, bufferOffset, leftLength);
+        System.arraycopy(axioms, from, axiomBuffer, bufferOffset, leftLength);
+
+        int left = bufferOffset;
+        int leftEnd = bufferOffset + leftLength;
+        int right = middle;
+        int target = from;
+        while (left < leftEnd && right < to) {
+            if (Double.compare(confidenceBuffer[left], confidences[right]) <= 0) {
+                confidences[target] = confidenceBuffer[left];
+                axioms[target++] = axiomBuffer[left++];
+            }
+            else {
+                confidences[target] = confidences[right];
+                axioms[target++] = axioms[right++];
+            }
+        }
+        int remaining = leftEnd - left;
+        System.arraycopy(confidenceBuffer, left, confidences, target, remaining);
+        System.arraycopy(axiomBuffer, left, axioms, target, remaining);
+        Arrays.fill(axiomBuffer, bufferOffset, leftEnd, null);
+    }
+
+    private void insertionSort(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            double confidence = confidences[i];
+            OWLAxiom axiom = axioms[i];
+            int j = i - 1;
+            while (j >= from && Double.compare(confidences[j], confidence) > 0) {
+                confidences[j + 1] = confidences[j];
+                axioms[j + 1] = axioms[j];
+                j--;
+            }
+            confidences[j + 1] = confidence;
+            axioms[j + 1] = axiom;
+        }
+    }
+
+    /**
+     * Fork/join task sorting both halves of a range concurrently before merging them
+     */
+    private class SortTask extends RecursiveAction {
+        private int from;
+        private int to;
+        private double[] confidenceBuffer;
+        private OWLAxiom[] axiomBuffer;
+
+        private SortTask(int from, int to, double[] confidenceBuffer, OWLAxiom[] axiomBuffer) {
+            this.from = from;
+            this.to = to;
+            this.confidenceBuffer = confidenceBuffer;
+            this.axiomBuffer = axiomBuffer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < PARALLEL_SORT_THRESHOLD) {
+                mergeSort(from, to, confidenceBuffer, axiomBuffer);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(from, middle, confidenceBuffer, axiomBuffer),
+                      new SortTask(middle, to, confidenceBuffer, axiomBuffer));
+            merge(from, middle, to, confidenceBuffer, axiomBuffer);
+        }
+    }
+
+    /**
+     * Iterator creating pairs on the fly while traversing the store in either direction
+     */
+    private class PairIterator implements Iterator<AxiomConfidencePair> {
+        private boolean ascending;
+        private int position;
+
+        private PairIterator(boolean ascending) {
+            this.ascending = ascending;
+            this.position = ascending ? 0 : size - 1;
+        }
+
+        public boolean hasNext() {
+            return ascending ? position < size : position >= 0;
+        }
+
+        public AxiomConfidencePair next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AxiomConfidencePair pair = new AxiomConfidencePair(axioms[position], confidences[position]);
+            position += ascending ? 1 : -1;
+            return pair;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Removing pairs is not supported");
+        }
+    }
+}
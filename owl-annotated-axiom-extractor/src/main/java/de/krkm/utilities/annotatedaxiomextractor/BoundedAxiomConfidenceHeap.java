@@ -0,0 +1,124 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+/**
+ * Handler retaining only the <code>k</code> axioms having the lowest (or highest) confidence values of all axioms
+ * passed to it. The axioms are kept in a binary heap backed by a primitive confidence array, thus, memory usage only
+ * depends on <code>k</code> and each axiom is processed in O(log k).
+ */
+public class BoundedAxiomConfidenceHeap implements AxiomConfidenceHandler {
+    private double[] confidences;
+    private OWLAxiom[] axioms;
+    private int size = 0;
+
+    /**
+     * if true, the lowest confidences are retained and the root holds the largest retained confidence
+     */
+    private boolean lowest;
+
+    /**
+     * Initializes a heap retaining at most <code>k</code> axioms.
+     *
+     * @param k      maximum number of axioms to retain
+     * @param lowest if true, the axioms having the lowest confidence values are retained, otherwise the ones having
+     *               the highest confidence values
+     */
+    public BoundedAxiomConfidenceHeap(int k, boolean lowest) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k has to be at least 1 but was " + k);
+        }
+        this.confidences = new double[k];
+        this.axioms = new OWLAxiom[k];
+        this.lowest = lowest;
+    }
+
+    /**
+     * Offers the given axiom to this heap. It is retained if fewer than <code>k</code> axioms are contained or if it
+     * is ranked before the currently worst retained axiom which is dropped in this case.
+     *
+     * @param axiom      axiom to offer
+     * @param confidence confidence value of axiom
+     */
+    public void handle(OWLAxiom axiom, double confidence) {
+        if (size < confidences.length) {
+            confidences[size] = confidence;
+            axioms[size] = axiom;
+            siftUp(size++);
+        }
+        else if (before(confidence, confidences[0])) {
+            confidences[0] = confidence;
+            axioms[0] = axiom;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns the number of axioms currently retained
+     *
+     * @return number of axioms currently retained
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a store containing all retained axioms sorted by ascending confidence
+     *
+     * @return store containing all retained axioms
+     */
+    public AxiomConfidenceStore toStore() {
+        AxiomConfidenceStore store = new AxiomConfidenceStore(size);
+        for (int i = 0; i < size; i++) {
+            store.add(axioms[i], confidences[i]);
+        }
+        store.sort();
+        return store;
+    }
+
+    /**
+     * Returns true if a confidence value of <code>a</code> is ranked before <code>b</code>, i.e., it is lower when
+     * retaining the lowest values and higher otherwise
+     */
+    private boolean before(double a, double b) {
+        return lowest ? Double.compare(a, b) < 0 : Double.compare(a, b) > 0;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            // the worst retained element has to stay at the root
+            if (!before(confidences[parent], confidences[index])) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && before(confidences[child], confidences[child + 1])) {
+                child++;
+            }
+            if (!before(confidences[index], confidences[child])) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double confidence = confidences[i];
+        confidences[i] = confidences[j];
+        confidences[j] = confidence;
+        OWLAxiom axiom = axioms[i];
+        axioms[i] = axioms[j];
+        axioms[j] = axiom;
+    }
+}
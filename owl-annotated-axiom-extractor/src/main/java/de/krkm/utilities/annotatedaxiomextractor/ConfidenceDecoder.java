@@ -0,0 +1,176 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.model.OWLAnnotationValue;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decodes confidence values from the typed literals of confidence annotations. Supported datatypes are xsd:double,
+ * xsd:float, xsd:decimal and all its integer subtypes like xsd:integer or xsd:int, xsd:string and plain literals.
+ * <p/>
+ * The lexical form of the literal is parsed directly. Plain decimal numbers having at most 15 significant digits are
+ * converted without any intermediate objects, all other forms are delegated to {@link Double#parseDouble(String)}.
+ * In both cases, the result is identical to applying {@link Double#parseDouble(String)} to the lexical form.
+ */
+public class ConfidenceDecoder {
+    /**
+     * maximum number of significant digits which are exactly representable in a double
+     */
+    private final static int MAX_FAST_DIGITS = 15;
+
+    /**
+     * powers of ten which are exactly representable in a double
+     */
+    private final static double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * IRIs of the numeric XSD datatypes besides xsd:double and xsd:float
+     */
+    private final static Set<IRI> DECIMAL_DATATYPES = new HashSet<IRI>();
+
+    static {
+        OWL2Datatype[] datatypes = {
+            OWL2Datatype.XSD_DECIMAL, OWL2Datatype.XSD_INTEGER, OWL2Datatype.XSD_NON_NEGATIVE_INTEGER,
+            OWL2Datatype.XSD_NON_POSITIVE_INTEGER, OWL2Datatype.XSD_POSITIVE_INTEGER,
+            OWL2Datatype.XSD_NEGATIVE_INTEGER, OWL2Datatype.XSD_LONG, OWL2Datatype.XSD_INT, OWL2Datatype.XSD_SHORT,
+            OWL2Datatype.XSD_BYTE, OWL2Datatype.XSD_UNSIGNED_LONG, OWL2Datatype.XSD_UNSIGNED_INT,
+            OWL2Datatype.XSD_UNSIGNED_SHORT, OWL2Datatype.XSD_UNSIGNED_BYTE
+        };
+        for (OWL2Datatype datatype : datatypes) {
+            DECIMAL_DATATYPES.add(datatype.getIRI());
+        }
+    }
+
+    private ConfidenceDecoder() {
+    }
+
+    /**
+     * Returns the confidence value contained in the given annotation value.
+     *
+     * @param value annotation value to decode
+     * @return confidence value contained in annotation value
+     * @throws MalformedConfidenceException if the value is no literal of a supported datatype or its lexical form is
+     *                                      no valid number
+     */
+    public static double decode(OWLAnnotationValue value) throws MalformedConfidenceException {
+        if (!(value instanceof OWLLiteral)) {
+            throw new MalformedConfidenceException("Confidence value '" + value + "' is no literal");
+        }
+        return decode((OWLLiteral) value);
+    }
+
+    /**
+     * Returns the confidence value contained in the given literal.
+     *
+     * @param literal literal to decode
+     * @return confidence value contained in literal
+     * @throws MalformedConfidenceException if the literal is not of a supported datatype or its lexical form is no
+     *                                      valid number
+     */
+    public static double decode(OWLLiteral literal) throws MalformedConfidenceException {
+        if (!isSupportedDatatype(literal.getDatatype())) {
+            throw new MalformedConfidenceException(
+                "Unsupported datatype '" + literal.getDatatype() + "' for confidence value '" + literal + "'");
+        }
+        return parse(literal.getLiteral());
+    }
+
+    /**
+     * Checks whether the given datatype may hold confidence values
+     *
+     * @param datatype datatype to check
+     * @return true if datatype is supported for confidence values, otherwise false
+     */
+    private static boolean isSupportedDatatype(OWLDatatype datatype) {
+        return datatype.isDouble() || datatype.isFloat() || datatype.isRDFPlainLiteral() || datatype.isString() ||
+               DECIMAL_DATATYPES.contains(datatype.getIRI());
+    }
+
+    /**
+     * Parses the given lexical form into a double value.
+     *
+     * @param lexicalForm lexical form to parse
+     * @return double value of lexical form
+     * @throws MalformedConfidenceException if the lexical form is no valid number
+     */
+    public static double parse(String lexicalForm) throws MalformedConfidenceException {
+        int start = 0;
+        int end = lexicalForm.length();
+        while (start < end && Character.isWhitespace(lexicalForm.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(lexicalForm.charAt(end - 1))) {
+            end--;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (lexicalForm.charAt(i) == '-' || lexicalForm.charAt(i) == '+')) {
+            negative = lexicalForm.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = lexicalForm.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                if (mantissa == 0 && c == '0') {
+                    // leading zeros are not significant
+                    continue;
+                }
+                if (significantDigits == MAX_FAST_DIGITS) {
+                    return parseSlow(lexicalForm);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                significantDigits++;
+            }
+            else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            }
+            else {
+                // exponents, special values and invalid characters
+                return parseSlow(lexicalForm);
+            }
+        }
+
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseSlow(lexicalForm);
+        }
+
+        // both operands are exactly representable, thus, the division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the given lexical form using {@link Double#parseDouble(String)}.
+     *
+     * @param lexicalForm lexical form to parse
+     * @return double value of lexical form
+     * @throws MalformedConfidenceException if the lexical form is no valid number
+     */
+    private static double parseSlow(String lexicalForm) throws MalformedConfidenceException {
+        try {
+            return Double.parseDouble(lexicalForm);
+        }
+        catch (NumberFormatException e) {
+            throw new MalformedConfidenceException("Invalid confidence value '" + lexicalForm + "'", e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Index of the confidence values of the axioms contained in an ontology which is kept up to date while the ontology
+ * is modified. The index knows the confidence values of all axioms passed to it, either as extracted pairs or as
+ * axioms carrying a confidence annotation which are added to the attached ontology. After attaching it to an
+ * ontology, it listens for changes of this ontology and maintains an ordered view of all known axioms currently
+ * contained in it.
+ * <p/>
+ * Axioms are identified ignoring their annotations. If several copies of an axiom having different confidence values
+ * become known, e.g., because it is annotated differently in several places, the index keeps the highest confidence
+ * value. Thus, an axiom is never considered less certain than its most confident source. Note that this differs from
+ * the map previously used by the ontology minimizer, where the value extracted last won. Such axioms may therefore be
+ * checked later during minimization than before. Ties between equal confidence values are broken by the order in
+ * which the axioms became known to the index.
+ * <p/>
+ * Queries for the lowest-confidence axiom overall or of a specific axiom type as well as updates take O(log n).
+ */
+public class ConfidenceIndex implements OWLOntologyChangeListener, AxiomConfidenceHandler {
+    private final static Logger log = LoggerFactory.getLogger(ConfidenceIndex.class);
+
+    private final static Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            int comparison = Double.compare(e1.confidence, e2.confidence);
+            if (comparison != 0) {
+                return comparison;
+            }
+            return e1.id < e2.id ? -1 : (e1.id == e2.id ? 0 : 1);
+        }
+    };
+
+    private AnnotationPriorityIndex annotationIndex;
+
+    /**
+     * all known axioms mapped by the axiom without annotations
+     */
+    private HashMap<OWLAxiom, Entry> entries = new HashMap<OWLAxiom, Entry>();
+    private TreeSet<Entry> present = new TreeSet<Entry>(ENTRY_COMPARATOR);
+    private HashMap<AxiomType<?>, TreeSet<Entry>> presentByType = new HashMap<AxiomType<?>, TreeSet<Entry>>();
+    private long nextId = 0;
+
+    private OWLOntologyManager manager;
+    private OWLOntology ontology;
+
+    /**
+     * An axiom known to the index together with its confidence value
+     */
+    public static class Entry {
+        private OWLAxiom axiom;
+        private double confidence;
+        private long id;
+        private boolean present;
+
+        private Entry(OWLAxiom axiom, double confidence, long id) {
+            this.axiom = axiom;
+            this.confidence = confidence;
+            this.id = id;
+        }
+
+        /**
+         * Returns the axiom as it was passed to the index, i.e., including its annotations if any
+         *
+         * @return axiom of this entry
+         */
+        public OWLAxiom getAxiom() {
+            return axiom;
+        }
+
+        /**
+         * Returns the confidence value of the axiom
+         *
+         * @return confidence value of the axiom
+         */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public String toString() {
+            return AxiomConfidencePair.toString(axiom, confidence);
+        }
+    }
+
+    /**
+     * Initializes an empty index which reads confidence values of axioms added to the attached ontology from the given
+     * annotation properties.
+     *
+     * @param properties annotation properties which contain confidence values ordered by descending priority
+     */
+    public ConfidenceIndex(List<OWLAnnotationProperty> properties) {
+        annotationIndex = new AnnotationPriorityIndex(properties);
+    }
+
+    /**
+     * Makes the confidence value of the given axiom known to the index. If the index is attached to an ontology which
+     * contains the axiom, it is added to the ordered view. If the axiom is already known, its confidence value is only
+     * changed if the given one is higher.
+     *
+     * @param axiom      axiom to add
+     * @param confidence confidence value of the axiom
+     */
+    public void handle(OWLAxiom axiom, double confidence) {
+        OWLAxiom key = axiom.getAxiomWithoutAnnotations();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(axiom, confidence, nextId++);
+            entries.put(key, entry);
+        }
+        else if (Double.compare(confidence, entry.confidence) > 0) {
+            // the position in the ordered view changes with the confidence value
+            boolean wasPresent = entry.present;
+            setPresent(entry, false);
+            entry.confidence = confidence;
+            setPresent(entry, wasPresent);
+        }
+        if (ontology != null && ontology.containsAxiomIgnoreAnnotations(key)) {
+            setPresent(entry, true);
+        }
+    }
+
+    /**
+     * Attaches this index to the given ontology. The ordered view is rebuilt from all known axioms contained in the
+     * ontology and kept up to date by listening to the changes of the ontology applied using <code>manager</code>. An
+     * index is attached to at most one ontology at a time.
+     * <p/>
+     * To index the annotated axioms of the ontology itself, pass the index to
+     * {@link AnnotatedAxiomExtractor#extract(org.semanticweb.owlapi.model.OWLOntology, AxiomConfidenceHandler)}.
+     *
+     * @param manager  manager used to modify the ontology
+     * @param ontology ontology to attach index to
+     */
+    public void attach(OWLOntologyManager manager, OWLOntology ontology) {
+        detach();
+        this.manager = manager;
+        this.ontology = ontology;
+
+        for (Map.Entry<OWLAxiom, Entry> entry : entries.entrySet()) {
+            setPresent(entry.getValue(), ontology.containsAxiomIgnoreAnnotations(entry.getKey()));
+        }
+        manager.addOntologyChangeListener(this);
+        log.debug("Attached index containing {} of {} known axioms", present.size(), entries.size());
+    }
+
+    /**
+     * Stops listening for changes of the attached ontology. The ordered view keeps its current state. If the index is
+     * not attached to any ontology, this is a no-op.
+     */
+    public void detach() {
+        if (manager != null) {
+            manager.removeOntologyChangeListener(this);
+        }
+        manager = null;
+        ontology = null;
+    }
+
+    /**
+     * Detaches the index from its ontology and releases all known axioms. The index is empty afterwards.
+     */
+    public void dispose() {
+        detach();
+        entries.clear();
+        present.clear();
+        presentByType.clear();
+    }
+
+    public void ontologiesChanged(List<? extends OWLOntologyChange> changes) throws OWLException {
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange() || !change.getOntology().equals(ontology)) {
+                continue;
+            }
+            OWLAxiom axiom = change.getAxiom();
+            if (change instanceof AddAxiom) {
+                Double confidence = getAnnotatedConfidence(axiom);
+                if (confidence != null) {
+                    handle(axiom, confidence);
+                }
+                else {
+                    Entry entry = entries.get(axiom.getAxiomWithoutAnnotations());
+                    if (entry != null) {
+                        setPresent(entry, true);
+                    }
+                }
+            }
+            else if (change instanceof RemoveAxiom) {
+                OWLAxiom key = axiom.getAxiomWithoutAnnotations();
+                Entry entry = entries.get(key);
+                // the ontology might still contain the axiom with other annotations
+                if (entry != null && !ontology.containsAxiomIgnoreAnnotations(key)) {
+                    setPresent(entry, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the entry of the axiom having the lowest confidence of all known axioms contained in the attached
+     * ontology
+     *
+     * @return entry having the lowest confidence or null if there is no such entry
+     */
+    public Entry getLowest() {
+        return present.isEmpty() ? null : present.first();
+    }
+
+    /**
+     * Returns the entry of the axiom of the given type having the lowest confidence of all known axioms contained in
+     * the attached ontology
+     *
+     * @param type axiom type to return entry for
+     * @return entry having the lowest confidence or null if there is no such entry
+     */
+    public Entry getLowest(AxiomType<?> type) {
+        TreeSet<Entry> typeEntries = presentByType.get(type);
+        return typeEntries == null || typeEntries.isEmpty() ? null : typeEntries.first();
+    }
+
+    /**
+     * Returns the entry following <code>entry</code> in ascending order of confidence among all known axioms
+     * contained in the attached ontology. The given entry does not have to be contained itself, thus, this method
+     * allows to traverse the index while modifying the ontology.
+     *
+     * @param entry entry to return successor for
+     * @return successor of the entry or null if there is no such entry
+     */
+    public Entry getNext(Entry entry) {
+        return present.higher(entry);
+    }
+
+    /**
+     * Returns the entry following <code>entry</code> in ascending order of confidence among all known axioms of the
+     * same type contained in the attached ontology.
+     *
+     * @param entry entry to return successor for
+     * @return successor of the entry having the same axiom type or null if there is no such entry
+     * @see #getNext(de.krkm.utilities.annotatedaxiomextractor.ConfidenceIndex.Entry)
+     */
+    public Entry getNextOfType(Entry entry) {
+        TreeSet<Entry> typeEntries = presentByType.get(entry.axiom.getAxiomType());
+        return typeEntries == null ? null : typeEntries.higher(entry);
+    }
+
+    /**
+     * Returns the entry of the given axiom ignoring its annotations
+     *
+     * @param axiom axiom to return entry for
+     * @return entry of the axiom or null if the axiom is not known
+     */
+    public Entry getEntry(OWLAxiom axiom) {
+        return entries.get(axiom.getAxiomWithoutAnnotations());
+    }
+
+    /**
+     * Returns the confidence value of the given axiom ignoring its annotations
+     *
+     * @param axiom axiom to return confidence value for
+     * @return confidence value of the axiom or null if the axiom is not known
+     */
+    public Double getConfidence(OWLAxiom axiom) {
+        Entry entry = entries.get(axiom.getAxiomWithoutAnnotations());
+        return entry == null ? null : entry.confidence;
+    }
+
+    /**
+     * Returns the number of known axioms contained in the attached ontology
+     *
+     * @return number of known axioms contained in the attached ontology
+     */
+    public int size() {
+        return present.size();
+    }
+
+    /**
+     * Returns the number of known axioms of the given type contained in the attached ontology
+     *
+     * @param type axiom type to return number of axioms for
+     * @return number of known axioms of the given type contained in the attached ontology
+     */
+    public int size(AxiomType<?> type) {
+        TreeSet<Entry> typeEntries = presentByType.get(type);
+        return typeEntries == null ? 0 : typeEntries.size();
+    }
+
+    /**
+     * Returns the number of axioms whose confidence values are known to the index, regardless of whether they are
+     * contained in the attached ontology
+     *
+     * @return number of known axioms
+     */
+    public int getKnownCount() {
+        return entries.size();
+    }
+
+    private void setPresent(Entry entry, boolean isPresent) {
+        if (entry.present == isPresent) {
+            return;
+        }
+        entry.present = isPresent;
+        AxiomType<?> type = entry.axiom.getAxiomType();
+        TreeSet<Entry> typeEntries = presentByType.get(type);
+        if (isPresent) {
+            if (typeEntries == null) {
+                typeEntries = new TreeSet<Entry>(ENTRY_COMPARATOR);
+                presentByType.put(type, typeEntries);
+            }
+            present.add(entry);
+            typeEntries.add(entry);
+        }
+        else {
+            present.remove(entry);
+            typeEntries.remove(entry);
+        }
+    }
+
+    /**
+     * Returns the confidence value of the given axiom read from its annotations or null if it has none
+     */
+    private Double getAnnotatedConfidence(OWLAxiom axiom) {
+        OWLAnnotation annotation = annotationIndex.select(axiom);
+        if (annotation == null) {
+            return null;
+        }
+        try {
+            return ConfidenceDecoder.decode(annotation.getValue());
+        }
+        catch (MalformedConfidenceException e) {
+            log.warn("Ignoring confidence of axiom '{}': {}", axiom, e.getMessage());
+            return null;
+        }
+    }
+}
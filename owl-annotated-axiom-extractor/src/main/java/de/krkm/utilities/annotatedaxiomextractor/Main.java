@@ -1,24 +1,81 @@
 package de.krkm.utilities.annotatedaxiomextractor;
 
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanException;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanner;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ReifiedAxiomHandler;
+import org.apache.commons.cli.*;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.PriorityQueue;
 
 /**
  * Entry point for standalone execution of the extractor
  */
 public class Main {
+    @SuppressWarnings("AccessStaticViaInstance")
     public static void main(String[] args) throws OWLOntologyCreationException {
-        if (args.length != 1) {
-            System.out.println("Usage: <ontologyfile>");
+        Options options = new Options();
+        options.addOption(OptionBuilder.withLongOpt("sorted")
+                                       .withDescription("print axioms ordered by ascending confidence").create("s"));
+        options.addOption(OptionBuilder.withLongOpt("lowest").hasArg().withArgName("K")
+                                       .withDescription("only print the K axioms having the lowest confidence")
+                                       .create("k"));
+        options.addOption(OptionBuilder.withLongOpt("highest").hasArg().withArgName("K")
+                                       .withDescription("only print the K axioms having the highest confidence")
+                                       .create("K"));
+        options.addOption(OptionBuilder.withLongOpt("min").hasArg().withArgName("CONFIDENCE")
+                                       .withDescription("drop axioms having a confidence lower than CONFIDENCE")
+                                       .create("min"));
+        options.addOption(OptionBuilder.withLongOpt("max").hasArg().withArgName("CONFIDENCE")
+                                       .withDescription("drop axioms having a confidence higher than CONFIDENCE")
+                                       .create("max"));
+        options.addOption(OptionBuilder.withLongOpt("threads").hasArg().withArgName("NUMBER")
+                                       .withDescription("number of threads used for extraction").create("t"));
+        options.addOption(OptionBuilder.withLongOpt("scan")
+                                       .withDescription("scan RDF/XML or N-Triples (.nt) document for annotated " +
+                                                        "axioms instead of loading the ontology and print their " +
+                                                        "source, property, target and confidence")
+                                       .create("scan"));
+        options.addOption(OptionBuilder.withLongOpt("cache")
+                                       .withDescription("read axioms from the cache file next to the ontology file " +
+                                                        "and create it if it is missing or outdated")
+                                       .create("c"));
+
+        CommandLineParser parser = new PosixParser();
+        CommandLine line = null;
+        try {
+            line = parser.parse(options, args);
+            if (line.getArgs().length != 1) {
+                throw new ParseException("Exactly one ontology file has to be given");
+            }
+            if (line.hasOption("scan") && (line.hasOption("s") || line.hasOption("k") || line.hasOption("K"))) {
+                throw new ParseException("Option --scan can not be combined with --sorted, --lowest or --highest");
+            }
+            if (line.hasOption("scan") && line.hasOption("c")) {
+                throw new ParseException("Options --scan and --cache are mutually exclusive");
+            }
+            if (line.hasOption("k") && line.hasOption("K")) {
+                throw new ParseException("Options --lowest and --highest are mutually exclusive");
+            }
+        }
+        catch (ParseException e) {
+            System.err.println("Unable to parse arguments: " + e.getMessage());
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("java -jar ... " + Main.class.getCanonicalName() + " [OPTIONS] <ontologyfile>",
+                                options);
             System.exit(1);
         }
+
         ArrayList<IRI> iris = new ArrayList<IRI>();
         iris.add(IRI.create("http://ki.informatik.uni-mannheim.de/gold-miner/annotations#confidence"));
         iris.add(IRI.create("http://www.dl-learner.org/enrichment.owl#confidence"));
@@ -27,12 +84,153 @@ public class Main {
             new AnnotatedAxiomExtractor(AnnotatedAxiomExtractor.getAnnotationsProperties(
                 OWLManager.getOWLDataFactory(), iris.toArray(new IRI[iris.size()])));
 
-        OWLOntology ontology = manager.loadOntology(IRI.create(new File(args[0])));
+        int k = 0;
+        int threads = 1;
+        double min = Double.NEGATIVE_INFINITY;
+        double max = Double.POSITIVE_INFINITY;
+        try {
+            if (line.hasOption("k")) {
+                k = Integer.parseInt(line.getOptionValue("k"));
+            }
+            else if (line.hasOption("K")) {
+                k = Integer.parseInt(line.getOptionValue("K"));
+            }
+            if ((line.hasOption("k") || line.hasOption("K")) && k < 1) {
+                throw new IllegalArgumentException("K has to be at least 1 but was " + k);
+            }
+            if (line.hasOption("min")) {
+                min = Double.parseDouble(line.getOptionValue("min"));
+            }
+            if (line.hasOption("max")) {
+                max = Double.parseDouble(line.getOptionValue("max"));
+            }
+            extractor.setConfidenceRange(min, max);
+            if (line.hasOption("t")) {
+                threads = Integer.parseInt(line.getOptionValue("t"));
+            }
+            extractor.setParallelism(threads);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument: " + e.getMessage());
+            System.exit(1);
+        }
 
-        PriorityQueue<AxiomConfidencePair> pairs = extractor.extract(ontology);
+        if (line.hasOption("scan")) {
+            scan(line.getArgs()[0], iris, min, max);
+            return;
+        }
+
+        if (line.hasOption("c")) {
+            printFromCache(new File(line.getArgs()[0]), iris, threads, min, max,
+                           line.hasOption("k") ? k : 0, line.hasOption("K") ? k : 0);
+            return;
+        }
+
+        OWLOntology ontology = manager.loadOntology(IRI.create(new File(line.getArgs()[0])));
+
+        if (line.hasOption("k") || line.hasOption("K")) {
+            AxiomConfidenceStore store;
+            if (line.hasOption("k")) {
+                store = extractor.extractLowest(ontology, k);
+            }
+            else {
+                store = extractor.extractHighest(ontology, k);
+            }
+
+            Iterator<AxiomConfidencePair> it = store.ascendingIterator();
+            while (it.hasNext()) {
+                System.out.println(it.next());
+            }
+        }
+        else if (line.hasOption("s")) {
+            PriorityQueue<AxiomConfidencePair> pairs = extractor.extract(ontology);
 
-        while (!pairs.isEmpty()) {
-            System.out.println(pairs.remove());
+            while (!pairs.isEmpty()) {
+                System.out.println(pairs.remove());
+            }
+        }
+        else {
+            // print axioms as soon as they are extracted to avoid keeping all of them in memory
+            extractor.extract(ontology, new AxiomConfidenceHandler() {
+                public void handle(OWLAxiom axiom, double confidence) {
+                    System.out.println(new AxiomConfidencePair(axiom, confidence));
+                }
+            });
+        }
+    }
+
+    /**
+     * Prints the axioms having a confidence value in the given range from the cache of the given ontology document in
+     * ascending order of confidence. If <code>lowest</code> or <code>highest</code> is positive, only the given number
+     * of axioms having the lowest or highest confidence values are printed.
+     */
+    private static void printFromCache(File ontologyFile, ArrayList<IRI> iris, int threads, double min, double max,
+                                       int lowest, int highest) throws OWLOntologyCreationException {
+        AxiomConfidenceCache cache = null;
+        try {
+            cache = AxiomConfidenceCache.openOrCreate(ontologyFile, iris, threads);
+            // the cache is sorted by confidence, thus, the range is found by binary search
+            int from = cache.lowerBound(min);
+            int to = cache.upperBound(max);
+            if (lowest > 0) {
+                to = Math.min(to, from + lowest);
+            }
+            else if (highest > 0) {
+                from = Math.max(from, to - highest);
+            }
+            for (int i = from; i < to; i++) {
+                System.out.println(AxiomConfidencePair.toString(cache.getAxiomString(i), cache.getConfidence(i)));
+            }
+        }
+        catch (IOException e) {
+            System.err.println("Unable to use cache file: " + e.getMessage());
+            System.exit(2);
+        }
+        finally {
+            if (cache != null) {
+                try {
+                    cache.close();
+                }
+                catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans the given ontology document for annotated axioms and prints each axiom having a confidence value in the
+     * given range as a tab-separated line of source, property, target and confidence.
+     */
+    private static void scan(String fileName, ArrayList<IRI> iris, final double min, final double max) {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(fileName);
+            ConfidenceScanner.forFileName(fileName, iris).scan(in, new ReifiedAxiomHandler() {
+                public void handle(String source, String property, String target, boolean targetLiteral,
+                                   double confidence) {
+                    if (confidence >= min && confidence <= max) {
+                        System.out.println(source + "\t" + property + "\t" + (targetLiteral ? "\"" + target + "\"" :
+                                                                              target) + "\t" + confidence);
+                    }
+                }
+            });
+        }
+        catch (IOException e) {
+            System.err.println("Unable to open file: " + e.getMessage());
+            System.exit(2);
+        }
+        catch (ConfidenceScanException e) {
+            System.err.println("Unable to scan ontology: " + e.getMessage());
+            System.exit(2);
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (IOException ignored) {
+                }
+            }
         }
     }
 }
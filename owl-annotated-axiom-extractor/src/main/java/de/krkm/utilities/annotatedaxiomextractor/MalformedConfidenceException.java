@@ -0,0 +1,14 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+/**
+ * Thrown if the value of a confidence annotation cannot be interpreted as a confidence value
+ */
+public class MalformedConfidenceException extends Exception {
+    public MalformedConfidenceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public MalformedConfidenceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+/**
+ * Thrown if a document cannot be scanned for annotated axioms
+ */
+public class ConfidenceScanException extends Exception {
+    public ConfidenceScanException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ConfidenceScanException(String message) {
+        super(message);
+    }
+}
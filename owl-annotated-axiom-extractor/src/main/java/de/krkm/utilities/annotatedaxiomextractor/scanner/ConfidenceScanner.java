@@ -0,0 +1,125 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+import de.krkm.utilities.annotatedaxiomextractor.ConfidenceDecoder;
+import de.krkm.utilities.annotatedaxiomextractor.MalformedConfidenceException;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Base class for scanners which find annotated axioms in ontology documents without loading them into the OWLAPI.
+ * Scanners only recognize axioms reified by <code>owl:annotatedSource</code>, <code>owl:annotatedProperty</code> and
+ * <code>owl:annotatedTarget</code> having one of the configured confidence annotations. Thus, neither the structure
+ * of complex class expressions nor axioms spanning multiple triples such as n-ary disjointness axioms are resolved,
+ * but their confidence values are reported nevertheless.
+ */
+public abstract class ConfidenceScanner {
+    private final static Logger log = LoggerFactory.getLogger(ConfidenceScanner.class);
+
+    public final static String RDF_NAMESPACE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    public final static String OWL_NAMESPACE = "http://www.w3.org/2002/07/owl#";
+
+    public final static String ANNOTATED_SOURCE = OWL_NAMESPACE + "annotatedSource";
+    public final static String ANNOTATED_PROPERTY = OWL_NAMESPACE + "annotatedProperty";
+    public final static String ANNOTATED_TARGET = OWL_NAMESPACE + "annotatedTarget";
+    public final static String RDF_TYPE = RDF_NAMESPACE + "type";
+
+    private HashMap<String, Integer> priorities;
+
+    /**
+     * Initializes the scanner to search for the given confidence annotation IRIs. IRIs earlier in the list have a
+     * higher priority if an axiom is annotated by several of them.
+     *
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     */
+    public ConfidenceScanner(List<IRI> confidenceIRIs) {
+        priorities = new HashMap<String, Integer>();
+        for (int i = 0; i < confidenceIRIs.size(); i++) {
+            String iri = confidenceIRIs.get(i).toString();
+            if (!priorities.containsKey(iri)) {
+                priorities.put(iri, i);
+            }
+        }
+    }
+
+    /**
+     * Scans the document contained in the given stream and passes all annotated axioms found to
+     * <code>handler</code>.
+     *
+     * @param in      stream to read document from
+     * @param handler handler to pass found axioms to
+     * @throws ConfidenceScanException on errors reading or parsing the document
+     */
+    public void scan(InputStream in, ReifiedAxiomHandler handler) throws ConfidenceScanException {
+        scan(in, handler, new ReifiedAxiomTypes());
+    }
+
+    /**
+     * Scans the document contained in the given stream and passes all annotated axioms found to
+     * <code>handler</code>. The property declarations found are recorded in <code>types</code>, thus, the handler
+     * may use it to resolve the types of the axioms declared so far and all others after the scan.
+     *
+     * @param in      stream to read document from
+     * @param handler handler to pass found axioms to
+     * @param types   axiom types to record property declarations in
+     * @throws ConfidenceScanException on errors reading or parsing the document
+     */
+    public abstract void scan(InputStream in, ReifiedAxiomHandler handler, ReifiedAxiomTypes types)
+            throws ConfidenceScanException;
+
+    /**
+     * Returns the priority of the given confidence annotation IRI, lower values denoting higher priorities, or -1 if
+     * the IRI is no confidence annotation IRI.
+     *
+     * @param iri IRI to get priority for
+     * @return priority of the IRI or -1 if not a confidence annotation IRI
+     */
+    protected int getPriority(String iri) {
+        Integer priority = priorities.get(iri);
+        return priority == null ? -1 : priority;
+    }
+
+    /**
+     * Returns all confidence annotation IRIs this scanner searches for
+     *
+     * @return confidence annotation IRIs
+     */
+    protected Iterable<String> getConfidenceIRIs() {
+        return priorities.keySet();
+    }
+
+    /**
+     * Parses the lexical form of a confidence value. Malformed values are logged and reported as NaN.
+     *
+     * @param lexicalForm lexical form to parse
+     * @return parsed confidence value or NaN if malformed
+     */
+    protected static double parseConfidence(String lexicalForm) {
+        try {
+            return ConfidenceDecoder.parse(lexicalForm);
+        }
+        catch (MalformedConfidenceException e) {
+            log.warn("Ignoring malformed confidence value: {}", e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Returns a scanner suitable for the given file name. Files ending in <code>.nt</code> are scanned as N-Triples,
+     * all others as RDF/XML.
+     *
+     * @param fileName       name of file to return scanner for
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     * @return scanner for file
+     */
+    public static ConfidenceScanner forFileName(String fileName, List<IRI> confidenceIRIs) {
+        if (fileName.toLowerCase().endsWith(".nt")) {
+            return new NTriplesConfidenceScanner(confidenceIRIs);
+        }
+        return new RdfXmlConfidenceScanner(confidenceIRIs);
+    }
+}
@@ -0,0 +1,454 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Scans N-Triples documents for annotated axioms. The document is processed as raw bytes and only the predicate of
+ * each triple is inspected first. Subjects and objects are only decoded into strings for triples whose predicate is
+ * one of <code>owl:annotatedSource</code>, <code>owl:annotatedProperty</code>, <code>owl:annotatedTarget</code> or a
+ * confidence annotation IRI, thus, most triples are skipped without any allocation. Property declarations are
+ * recognized by comparing the object of <code>rdf:type</code> triples before decoding their subject.
+ * <p/>
+ * Triples about a reified axiom are collected per subject. A complete axiom is reported as soon as it has a
+ * confidence annotation of the highest priority or the next relevant triple is about another subject. Incomplete
+ * axioms are kept until their remaining triples appear, thus, the triples of a reified axiom may be interleaved with
+ * those of other subjects. Since serializers like the OWLAPI write them next to each other, only few axioms are
+ * pending at any time. At most {@link #setMaxPendingAxioms(int)} incomplete axioms are kept, the oldest ones are
+ * dropped and counted as incomplete if there are more. A confidence annotation of higher priority appearing after the
+ * axiom has been reported is ignored.
+ */
+public class NTriplesConfidenceScanner extends ConfidenceScanner {
+    private final static Logger log = LoggerFactory.getLogger(NTriplesConfidenceScanner.class);
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private final static int KIND_SOURCE = 0;
+    private final static int KIND_PROPERTY = 1;
+    private final static int KIND_TARGET = 2;
+    private final static int KIND_TYPE = 3;
+    private final static int KIND_CONFIDENCE = 4;
+
+    public final static int DEFAULT_MAX_PENDING_AXIOMS = 1000000;
+
+    /**
+     * predicates of interest including their angle brackets
+     */
+    private byte[][] predicates;
+    private int[] predicateKinds;
+    private int[] predicatePriorities;
+    /**
+     * types declaring the kind of a property including their angle brackets
+     */
+    private byte[][] declarationTypes;
+    private int maxPendingAxioms = DEFAULT_MAX_PENDING_AXIOMS;
+
+    /**
+     * Initializes the scanner to search for the given confidence annotation IRIs.
+     *
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     */
+    public NTriplesConfidenceScanner(List<IRI> confidenceIRIs) {
+        super(confidenceIRIs);
+        ArrayList<String> iris = new ArrayList<String>();
+        iris.add(ANNOTATED_SOURCE);
+        iris.add(ANNOTATED_PROPERTY);
+        iris.add(ANNOTATED_TARGET);
+        iris.add(RDF_TYPE);
+        for (String iri : getConfidenceIRIs()) {
+            iris.add(iri);
+        }
+
+        predicates = new byte[iris.size()][];
+        predicateKinds = new int[iris.size()];
+        predicatePriorities = new int[iris.size()];
+        for (int i = 0; i < iris.size(); i++) {
+            predicates[i] = ("<" + iris.get(i) + ">").getBytes(UTF8);
+            predicateKinds[i] = i < KIND_CONFIDENCE ? i : KIND_CONFIDENCE;
+            predicatePriorities[i] = getPriority(iris.get(i));
+        }
+
+        ArrayList<byte[]> types = new ArrayList<byte[]>();
+        for (String type : ReifiedAxiomTypes.getPropertyDeclarationTypes()) {
+            types.add(("<" + type + ">").getBytes(UTF8));
+        }
+        declarationTypes = types.toArray(new byte[types.size()][]);
+    }
+
+    /**
+     * Sets the maximum number of incomplete reified axioms kept while scanning a document
+     *
+     * @param maxPendingAxioms maximum number of incomplete reified axioms
+     */
+    public void setMaxPendingAxioms(int maxPendingAxioms) {
+        if (maxPendingAxioms < 1) {
+            throw new IllegalArgumentException("At least one pending axiom has to be kept");
+        }
+        this.maxPendingAxioms = maxPendingAxioms;
+    }
+
+    @Override
+    public void scan(InputStream in, ReifiedAxiomHandler handler, ReifiedAxiomTypes types)
+            throws ConfidenceScanException {
+        DocumentScan scan = new DocumentScan(handler, types);
+        byte[] buffer = new byte[1 << 16];
+        int length = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer[i] == '\n' || buffer[i] == '\r') {
+                        scan.processLine(buffer, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                // move incomplete last line to the front and grow the buffer if it is completely filled by one line
+                length -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            scan.processLine(buffer, 0, length);
+        }
+        catch (IOException e) {
+            throw new ConfidenceScanException("Unable to read N-Triples document", e);
+        }
+        scan.finish();
+    }
+
+    /**
+     * Parts of a reified axiom collected so far
+     */
+    private static class PendingAxiom {
+        private String source;
+        private String property;
+        private String target;
+        private boolean targetLiteral;
+        private double confidence = Double.NaN;
+        private int confidencePriority = Integer.MAX_VALUE;
+
+        private boolean isComplete() {
+            return source != null && property != null && target != null && !Double.isNaN(confidence);
+        }
+    }
+
+    /**
+     * State of scanning a single document
+     */
+    private class DocumentScan {
+        private ReifiedAxiomHandler handler;
+        private ReifiedAxiomTypes types;
+        private long lineNumber = 0;
+
+        /**
+         * parts of the reified axioms collected so far by subject in the order of their first triple
+         */
+        private LinkedHashMap<String, PendingAxiom> pending = new LinkedHashMap<String, PendingAxiom>();
+        /**
+         * subject of the last relevant triple and whether its axiom has already been reported
+         */
+        private String lastSubject;
+        private boolean lastReported;
+        /**
+         * number of subjects having incomplete reifications or no confidence value
+         */
+        private long incomplete = 0;
+        private long dropped = 0;
+
+        /**
+         * whether the object term parsed last is a literal
+         */
+        private boolean objectLiteral;
+
+        private DocumentScan(ReifiedAxiomHandler handler, ReifiedAxiomTypes types) {
+            this.handler = handler;
+            this.types = types;
+        }
+
+        private void processLine(byte[] buf, int start, int end) {
+            lineNumber++;
+            int pos = skipWhitespace(buf, start, end);
+            if (pos >= end || buf[pos] == '#') {
+                return;
+            }
+
+            int subjectStart = pos;
+            int subjectEnd = skipTerm(buf, pos, end);
+            int predicateStart = subjectEnd < 0 ? end : skipWhitespace(buf, subjectEnd, end);
+            int predicateEnd = skipTerm(buf, predicateStart, end);
+            if (subjectEnd < 0 || predicateEnd < 0) {
+                log.warn("Skipping malformed triple in line {}", lineNumber);
+                return;
+            }
+
+            int predicate = findTerm(predicates, buf, predicateStart, predicateEnd);
+            if (predicate < 0) {
+                return;
+            }
+            if (predicateKinds[predicate] == KIND_TYPE) {
+                int objectStart = skipWhitespace(buf, predicateEnd, end);
+                int objectEnd = skipTerm(buf, objectStart, end);
+                if (objectEnd >= 0 && findTerm(declarationTypes, buf, objectStart, objectEnd) >= 0) {
+                    types.declare(decodeTerm(buf, subjectStart, subjectEnd), decodeTerm(buf, objectStart, objectEnd));
+                }
+                return;
+            }
+
+            String object = parseObject(buf, skipWhitespace(buf, predicateEnd, end), end);
+            if (object == null) {
+                log.warn("Skipping malformed triple in line {}", lineNumber);
+                return;
+            }
+            String subject = decodeTerm(buf, subjectStart, subjectEnd);
+
+            // triples about a reified axiom are usually consecutive, thus, a complete axiom is reported when the
+            // subject changes
+            if (!subject.equals(lastSubject)) {
+                leaveLastSubject();
+                lastSubject = subject;
+                lastReported = false;
+            }
+            if (lastReported) {
+                return;
+            }
+            PendingAxiom axiom = pending.get(subject);
+            if (axiom == null) {
+                axiom = new PendingAxiom();
+                pending.put(subject, axiom);
+                if (pending.size() > maxPendingAxioms) {
+                    dropOldest();
+                }
+            }
+            switch (predicateKinds[predicate]) {
+                case KIND_SOURCE:
+                    axiom.source = object;
+                    break;
+                case KIND_PROPERTY:
+                    axiom.property = object;
+                    break;
+                case KIND_TARGET:
+                    axiom.target = object;
+                    axiom.targetLiteral = objectLiteral;
+                    break;
+                default:
+                    if (objectLiteral && predicatePriorities[predicate] < axiom.confidencePriority) {
+                        double confidence = parseConfidence(object);
+                        if (!Double.isNaN(confidence)) {
+                            axiom.confidence = confidence;
+                            axiom.confidencePriority = predicatePriorities[predicate];
+                        }
+                    }
+                    break;
+            }
+
+            // no other confidence annotation can take precedence over one having the highest priority
+            if (axiom.isComplete() && axiom.confidencePriority == 0) {
+                pending.remove(subject);
+                lastReported = true;
+                report(axiom);
+            }
+        }
+
+        private void report(PendingAxiom axiom) {
+            handler.handle(axiom.source, axiom.property, axiom.target, axiom.targetLiteral, axiom.confidence);
+        }
+
+        /**
+         * Reports the axiom of the last subject if it is complete, incomplete axioms stay pending
+         */
+        private void leaveLastSubject() {
+            if (lastSubject == null || lastReported) {
+                return;
+            }
+            PendingAxiom axiom = pending.get(lastSubject);
+            if (axiom != null && axiom.isComplete()) {
+                pending.remove(lastSubject);
+                report(axiom);
+            }
+        }
+
+        /**
+         * Drops the incomplete axiom whose first triple has been read first
+         */
+        private void dropOldest() {
+            Iterator<PendingAxiom> iterator = pending.values().iterator();
+            iterator.next();
+            iterator.remove();
+            if (dropped++ == 0) {
+                log.warn("More than {} incomplete reified axioms, dropping the oldest ones", maxPendingAxioms);
+            }
+        }
+
+        /**
+         * Reports all complete axioms and logs the number of ignored axioms
+         */
+        private void finish() {
+            leaveLastSubject();
+            for (PendingAxiom axiom : pending.values()) {
+                if (axiom.isComplete()) {
+                    report(axiom);
+                }
+                else {
+                    incomplete++;
+                }
+            }
+            pending.clear();
+            incomplete += dropped;
+            if (incomplete > 0) {
+                log.info("Ignored {} reified axioms without confidence value or incomplete reification", incomplete);
+            }
+        }
+
+        /**
+         * Returns the index of the term in <code>terms</code> equal to the bytes between <code>start</code> and
+         * <code>end</code> or -1 if there is none
+         */
+        private int findTerm(byte[][] terms, byte[] buf, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < terms.length; i++) {
+                byte[] term = terms[i];
+                if (term.length != length) {
+                    continue;
+                }
+                int j = length - 1;
+                // IRIs of interest mostly differ at their end
+                while (j >= 0 && term[j] == buf[start + j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Parses the object term starting at <code>start</code> and returns its IRI, blank node identifier or the
+         * lexical form of the literal. Sets {@link #objectLiteral} accordingly.
+         */
+        private String parseObject(byte[] buf, int start, int end) {
+            if (start >= end) {
+                return null;
+            }
+            if (buf[start] != '"') {
+                objectLiteral = false;
+                int termEnd = skipTerm(buf, start, end);
+                return termEnd < 0 ? null : decodeTerm(buf, start, termEnd);
+            }
+            objectLiteral = true;
+            int pos = start + 1;
+            while (pos < end && buf[pos] != '"') {
+                pos += buf[pos] == '\\' ? 2 : 1;
+            }
+            if (pos >= end) {
+                return null;
+            }
+            // datatype and language tag are irrelevant for confidence values
+            return unescape(buf, start + 1, pos);
+        }
+
+        /**
+         * Returns the end of the IRI or blank node term starting at <code>start</code> or -1 if the term is malformed
+         */
+        private int skipTerm(byte[] buf, int start, int end) {
+            if (start >= end) {
+                return -1;
+            }
+            int pos = start;
+            if (buf[pos] == '<') {
+                while (pos < end && buf[pos] != '>') {
+                    pos++;
+                }
+                return pos < end ? pos + 1 : -1;
+            }
+            while (pos < end && buf[pos] != ' ' && buf[pos] != '\t' && buf[pos] != '<' && buf[pos] != '"') {
+                pos++;
+            }
+            // blank node labels may contain but not end with a dot, thus, trailing dots terminate the statement
+            while (pos > start + 2 && buf[pos - 1] == '.') {
+                pos--;
+            }
+            return pos;
+        }
+
+        /**
+         * Returns the IRI without angle brackets or the blank node identifier including its prefix
+         */
+        private String decodeTerm(byte[] buf, int start, int end) {
+            if (buf[start] == '<') {
+                return unescape(buf, start + 1, end - 1);
+            }
+            return new String(buf, start, end - start, UTF8);
+        }
+    }
+
+    private static int skipWhitespace(byte[] buf, int start, int end) {
+        int pos = start;
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Decodes the given UTF-8 bytes and resolves N-Triples escape sequences
+     */
+    private static String unescape(byte[] buf, int start, int end) {
+        String raw = new String(buf, start, end - start, UTF8);
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length()) {
+                sb.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'u':
+                case 'U':
+                    int digits = escaped == 'u' ? 4 : 8;
+                    if (i + digits < raw.length()) {
+                        try {
+                            sb.appendCodePoint(Integer.parseInt(raw.substring(i + 1, i + 1 + digits), 16));
+                            i += digits;
+                            break;
+                        }
+                        catch (IllegalArgumentException ignored) {
+                            // invalid hex digits or code point, keep the escape sequence as it is
+                        }
+                    }
+                    sb.append('\\').append(escaped);
+                    break;
+                default:
+                    sb.append(escaped);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,445 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scans RDF/XML documents for annotated axioms using a StAX parser. Each open element is tracked by a small frame and
+ * the IRI of each property element is built to recognize the parts of reified axioms, but values are only collected
+ * for these parts, confidence values and property declarations.
+ * <p/>
+ * The scanner expects all statements about a reified axiom to be contained in a single node element as written by
+ * the OWLAPI. Statements about the same blank node spread over multiple node elements are not merged.
+ * <p/>
+ * Large documents written by the OWLAPI reference entities like <code>&amp;xsd;</code> far more often than the JDK's
+ * default limits allow, thus, the scanner raises the number of entity expansions and their total size. The size of
+ * each single entity stays limited to prevent entity expansion attacks. All limits can be changed by
+ * {@link #setEntityLimits(int, int, int)}.
+ */
+public class RdfXmlConfidenceScanner extends ConfidenceScanner {
+    private final static Logger log = LoggerFactory.getLogger(RdfXmlConfidenceScanner.class);
+
+    private final static String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+    private final static int KIND_OTHER = 0;
+    private final static int KIND_SOURCE = 1;
+    private final static int KIND_PROPERTY = 2;
+    private final static int KIND_TARGET = 3;
+    private final static int KIND_CONFIDENCE = 4;
+
+    public final static int DEFAULT_ENTITY_EXPANSION_LIMIT = 100000000;
+    public final static int DEFAULT_MAX_ENTITY_SIZE = 65536;
+    /**
+     * ten times the JDK's default, which documents written by the OWLAPI with a few million axioms exceed
+     */
+    public final static int DEFAULT_TOTAL_ENTITY_SIZE_LIMIT = 500000000;
+
+    private int entityExpansionLimit = DEFAULT_ENTITY_EXPANSION_LIMIT;
+    private int maxEntitySize = DEFAULT_MAX_ENTITY_SIZE;
+    private int totalEntitySizeLimit = DEFAULT_TOTAL_ENTITY_SIZE_LIMIT;
+
+    /**
+     * Initializes the scanner to search for the given confidence annotation IRIs.
+     *
+     * @param confidenceIRIs IRIs of confidence annotations ordered by descending priority
+     */
+    public RdfXmlConfidenceScanner(List<IRI> confidenceIRIs) {
+        super(confidenceIRIs);
+    }
+
+    /**
+     * Sets the limits on entity expansion passed to the XML parser. A limit of 0 disables the respective check, which
+     * makes the scanner vulnerable to entity expansion attacks if all limits are disabled.
+     *
+     * @param expansionLimit       maximum number of entity expansions in a document
+     * @param maxEntitySize        maximum size of a single expanded entity
+     * @param totalEntitySizeLimit maximum total size of all expanded entities in a document
+     */
+    public void setEntityLimits(int expansionLimit, int maxEntitySize, int totalEntitySizeLimit) {
+        this.entityExpansionLimit = expansionLimit;
+        this.maxEntitySize = maxEntitySize;
+        this.totalEntitySizeLimit = totalEntitySizeLimit;
+    }
+
+    @Override
+    public void scan(InputStream in, ReifiedAxiomHandler handler, ReifiedAxiomTypes types)
+            throws ConfidenceScanException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        setOptionalProperty(factory, "http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit",
+                            String.valueOf(entityExpansionLimit));
+        setOptionalProperty(factory, "http://www.oracle.com/xml/jaxp/properties/maxGeneralEntitySizeLimit",
+                            String.valueOf(maxEntitySize));
+        setOptionalProperty(factory, "http://www.oracle.com/xml/jaxp/properties/totalEntitySizeLimit",
+                            String.valueOf(totalEntitySizeLimit));
+
+        XMLStreamReader reader;
+        try {
+            reader = factory.createXMLStreamReader(in);
+        }
+        catch (XMLStreamException e) {
+            throw new ConfidenceScanException("Unable to initialize XML parser", e);
+        }
+        try {
+            new DocumentScan(reader, handler, types).run();
+        }
+        catch (XMLStreamException e) {
+            throw new ConfidenceScanException("Unable to parse RDF/XML document", e);
+        }
+        finally {
+            try {
+                reader.close();
+            }
+            catch (XMLStreamException ignored) {
+            }
+        }
+    }
+
+    private static void setOptionalProperty(XMLInputFactory factory, String name, Object value) {
+        try {
+            factory.setProperty(name, value);
+        }
+        catch (IllegalArgumentException e) {
+            log.debug("XML parser does not support property {}", name);
+        }
+    }
+
+    /**
+     * Element on the stack of currently open elements
+     */
+    private static class Frame {
+        /**
+         * true for node elements, false for property elements and the rdf:RDF element
+         */
+        private boolean node;
+        private String base;
+
+        // fields of node elements
+        private String subject;
+        private String source;
+        private String property;
+        private String target;
+        private boolean targetLiteral;
+        private double confidence = Double.NaN;
+        private int confidencePriority = Integer.MAX_VALUE;
+        /**
+         * true for the node implicitly created by rdf:parseType="Resource"
+         */
+        private boolean implicit;
+
+        // fields of property elements
+        private int kind = KIND_OTHER;
+        private int priority;
+        private String object;
+        private StringBuilder text;
+        private boolean literalContent;
+        private boolean collection;
+    }
+
+    /**
+     * State of scanning a single document
+     */
+    private class DocumentScan {
+        private XMLStreamReader reader;
+        private ReifiedAxiomHandler handler;
+        private ReifiedAxiomTypes types;
+        private ArrayList<Frame> stack = new ArrayList<Frame>();
+        private int blankNodeCounter = 0;
+
+        /**
+         * number of currently open elements inside of a literal property element which are skipped
+         */
+        private int skipDepth = 0;
+
+        private DocumentScan(XMLStreamReader reader, ReifiedAxiomHandler handler, ReifiedAxiomTypes types) {
+            this.reader = reader;
+            this.handler = handler;
+            this.types = types;
+        }
+
+        private void run() throws XMLStreamException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (skipDepth > 0) {
+                            skipDepth++;
+                        }
+                        else {
+                            startElement();
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (skipDepth > 0) {
+                            skipDepth--;
+                        }
+                        else {
+                            endElement();
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (skipDepth == 0 && !stack.isEmpty()) {
+                            Frame top = stack.get(stack.size() - 1);
+                            if (top.text != null) {
+                                top.text.append(reader.getTextCharacters(), reader.getTextStart(),
+                                                reader.getTextLength());
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void startElement() {
+            Frame parent = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+            Frame frame = new Frame();
+            frame.base = parent == null ? null : parent.base;
+            String xmlBase = reader.getAttributeValue(XML_NAMESPACE, "base");
+            if (xmlBase != null) {
+                frame.base = resolve(frame.base, xmlBase);
+            }
+
+            if (parent == null && isRdf("RDF")) {
+                // children of rdf:RDF are node elements just like children of property elements
+                frame.node = false;
+                stack.add(frame);
+            }
+            else if (parent == null || !parent.node) {
+                if (parent != null && parent.literalContent) {
+                    skipDepth = 1;
+                    return;
+                }
+                startNodeElement(frame, parent);
+            }
+            else {
+                startPropertyElement(frame);
+            }
+        }
+
+        private void startNodeElement(Frame frame, Frame parent) {
+            frame.node = true;
+            frame.subject = getSubject(frame.base);
+            if (OWL_NAMESPACE.equals(reader.getNamespaceURI())) {
+                // typed node elements like owl:ObjectProperty declare their subject
+                String type = OWL_NAMESPACE + reader.getLocalName();
+                if (ReifiedAxiomTypes.isPropertyDeclaration(type)) {
+                    types.declare(frame.subject, type);
+                }
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String namespace = reader.getAttributeNamespace(i);
+                if (namespace == null || namespace.equals(RDF_NAMESPACE) || namespace.equals(XML_NAMESPACE)) {
+                    continue;
+                }
+                // property attributes may hold confidence values as well
+                int priority = getPriority(namespace + reader.getAttributeLocalName(i));
+                if (priority >= 0) {
+                    setConfidence(frame, priority, reader.getAttributeValue(i));
+                }
+            }
+            if (parent != null && !parent.collection && parent.object == null) {
+                parent.object = frame.subject;
+            }
+            stack.add(frame);
+        }
+
+        private void startPropertyElement(Frame frame) {
+            frame.node = false;
+            String iri = reader.getNamespaceURI() + reader.getLocalName();
+            if (iri.equals(ANNOTATED_SOURCE)) {
+                frame.kind = KIND_SOURCE;
+            }
+            else if (iri.equals(ANNOTATED_PROPERTY)) {
+                frame.kind = KIND_PROPERTY;
+            }
+            else if (iri.equals(ANNOTATED_TARGET)) {
+                frame.kind = KIND_TARGET;
+            }
+            else {
+                frame.priority = getPriority(iri);
+                if (frame.priority >= 0) {
+                    frame.kind = KIND_CONFIDENCE;
+                }
+            }
+
+            String resource = reader.getAttributeValue(RDF_NAMESPACE, "resource");
+            String nodeID = reader.getAttributeValue(RDF_NAMESPACE, "nodeID");
+            String parseType = reader.getAttributeValue(RDF_NAMESPACE, "parseType");
+            if (resource != null) {
+                frame.object = resolve(frame.base, resource);
+            }
+            else if (nodeID != null) {
+                frame.object = "_:" + nodeID;
+            }
+            if (resource != null && iri.equals(RDF_TYPE) && ReifiedAxiomTypes.isPropertyDeclaration(frame.object)) {
+                types.declare(stack.get(stack.size() - 1).subject, frame.object);
+            }
+
+            if (frame.kind != KIND_OTHER && frame.object == null) {
+                frame.text = new StringBuilder();
+            }
+            stack.add(frame);
+
+            if ("Literal".equals(parseType)) {
+                frame.literalContent = true;
+            }
+            else if ("Collection".equals(parseType)) {
+                frame.collection = true;
+                frame.object = nextBlankNode();
+            }
+            else if ("Resource".equals(parseType)) {
+                Frame implicitNode = new Frame();
+                implicitNode.node = true;
+                implicitNode.implicit = true;
+                implicitNode.base = frame.base;
+                implicitNode.subject = nextBlankNode();
+                frame.object = implicitNode.subject;
+                stack.add(implicitNode);
+            }
+        }
+
+        private void endElement() {
+            Frame frame = stack.remove(stack.size() - 1);
+            if (frame.node) {
+                endNodeElement(frame);
+                if (frame.implicit) {
+                    endPropertyElement(stack.remove(stack.size() - 1));
+                }
+            }
+            else {
+                endPropertyElement(frame);
+            }
+        }
+
+        private void endNodeElement(Frame frame) {
+            if (frame.source != null && frame.property != null && frame.target != null &&
+                !Double.isNaN(frame.confidence)) {
+                handler.handle(frame.source, frame.property, frame.target, frame.targetLiteral, frame.confidence);
+            }
+        }
+
+        private void endPropertyElement(Frame frame) {
+            if (frame.kind == KIND_OTHER || stack.isEmpty()) {
+                return;
+            }
+            Frame node = stack.get(stack.size() - 1);
+            boolean literal = frame.object == null;
+            String value = literal ? frame.text.toString() : frame.object;
+            switch (frame.kind) {
+                case KIND_SOURCE:
+                    node.source = value;
+                    break;
+                case KIND_PROPERTY:
+                    node.property = value;
+                    break;
+                case KIND_TARGET:
+                    node.target = value;
+                    node.targetLiteral = literal;
+                    break;
+                case KIND_CONFIDENCE:
+                    if (literal) {
+                        setConfidence(node, frame.priority, value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void setConfidence(Frame node, int priority, String lexicalForm) {
+            if (priority >= node.confidencePriority) {
+                return;
+            }
+            double confidence = parseConfidence(lexicalForm);
+            if (!Double.isNaN(confidence)) {
+                node.confidence = confidence;
+                node.confidencePriority = priority;
+            }
+        }
+
+        /**
+         * Returns the identifier of the node described by the current node element
+         */
+        private String getSubject(String base) {
+            String about = reader.getAttributeValue(RDF_NAMESPACE, "about");
+            if (about != null) {
+                return resolve(base, about);
+            }
+            String id = reader.getAttributeValue(RDF_NAMESPACE, "ID");
+            if (id != null) {
+                return resolve(base, "#" + id);
+            }
+            String nodeID = reader.getAttributeValue(RDF_NAMESPACE, "nodeID");
+            if (nodeID != null) {
+                return "_:" + nodeID;
+            }
+            return nextBlankNode();
+        }
+
+        private String nextBlankNode() {
+            return "_:genid" + (++blankNodeCounter);
+        }
+
+        private boolean isRdf(String localName) {
+            return RDF_NAMESPACE.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+        }
+    }
+
+    /**
+     * Resolves the given IRI reference against <code>base</code>. Absolute IRIs and references without a base are
+     * returned unchanged.
+     *
+     * @param base base IRI, may be null
+     * @param iri  IRI reference to resolve
+     * @return resolved IRI
+     */
+    private static String resolve(String base, String iri) {
+        if (base == null || isAbsolute(iri)) {
+            return iri;
+        }
+        try {
+            if (iri.startsWith("#")) {
+                // URI#resolve does not handle fragment-only references relative to bases with fragments correctly
+                int fragmentStart = base.indexOf('#');
+                return (fragmentStart < 0 ? base : base.substring(0, fragmentStart)) + iri;
+            }
+            return new URI(base).resolve(iri).toString();
+        }
+        catch (URISyntaxException e) {
+            log.debug("Unable to resolve '{}' against '{}'", iri, base);
+            return iri;
+        }
+        catch (IllegalArgumentException e) {
+            log.debug("Unable to resolve '{}' against '{}'", iri, base);
+            return iri;
+        }
+    }
+
+    private static boolean isAbsolute(String iri) {
+        for (int i = 0; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (c == ':') {
+                return i > 0;
+            }
+            if (c == '/' || c == '#' || c == '?') {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+/**
+ * Callback interface for consuming the annotated axioms found by a {@link ConfidenceScanner}. Axioms are identified by
+ * the source, property and target of their reification, i.e., the values of <code>owl:annotatedSource</code>,
+ * <code>owl:annotatedProperty</code> and <code>owl:annotatedTarget</code>.
+ */
+public interface ReifiedAxiomHandler {
+    /**
+     * Called once for every reified axiom having a confidence annotation.
+     *
+     * @param source         IRI or blank node identifier (prefixed by <code>_:</code>) of the annotated source
+     * @param property       IRI of the annotated property
+     * @param target         IRI, blank node identifier or lexical form of the annotated target
+     * @param targetLiteral  true if <code>target</code> is the lexical form of a literal
+     * @param confidence     confidence value of the axiom
+     */
+    public void handle(String source, String property, String target, boolean targetLiteral, double confidence);
+}
@@ -0,0 +1,204 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+import org.semanticweb.owlapi.model.AxiomType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Derives the OWLAPI axiom type of a reified axiom from its annotated source, property and target. Axioms which exist
+ * for object, data and annotation properties alike (e.g., <code>rdfs:subPropertyOf</code>) as well as property
+ * assertions are resolved using the kinds of the properties declared in the scanned document. Scanners record these
+ * declarations, i.e., statements typing an entity as <code>owl:ObjectProperty</code>,
+ * <code>owl:DatatypeProperty</code> or <code>owl:AnnotationProperty</code>, while scanning.
+ * <p/>
+ * If the kind of the relevant property has not been declared (yet), the axiom type is unknown and
+ * {@link #getAxiomType(String, String, String, boolean)} returns null. Since declarations may appear anywhere in a
+ * document, callers should resolve such axioms again after the scan has finished.
+ */
+public class ReifiedAxiomTypes {
+    private final static String RDFS_NAMESPACE = "http://www.w3.org/2000/01/rdf-schema#";
+    private final static String OWL = ConfidenceScanner.OWL_NAMESPACE;
+
+    private final static int KIND_OBJECT = 0;
+    private final static int KIND_DATA = 1;
+    private final static int KIND_ANNOTATION = 2;
+
+    /**
+     * axiom types not depending on the kind of any property
+     */
+    private final static HashMap<String, AxiomType<?>> FIXED_TYPES = new HashMap<String, AxiomType<?>>();
+    /**
+     * variants of property axioms indexed by property kind, null entries for variants not existing in OWL 2
+     */
+    private final static HashMap<String, AxiomType<?>[]> PROPERTY_TYPES = new HashMap<String, AxiomType<?>[]>();
+    /**
+     * variants of property characteristics indexed by property kind
+     */
+    private final static HashMap<String, AxiomType<?>[]> CHARACTERISTIC_TYPES = new HashMap<String, AxiomType<?>[]>();
+    /**
+     * kinds of properties implied by the types of their declarations and characteristics
+     */
+    private final static HashMap<String, Integer> DECLARED_KINDS = new HashMap<String, Integer>();
+    /**
+     * kinds of the properties built into RDF(S) and OWL
+     */
+    private final static HashMap<String, Integer> BUILT_IN_KINDS = new HashMap<String, Integer>();
+    /**
+     * types of entity declarations
+     */
+    private final static HashSet<String> DECLARATION_TYPES = new HashSet<String>();
+
+    static {
+        FIXED_TYPES.put(RDFS_NAMESPACE + "subClassOf", AxiomType.SUBCLASS_OF);
+        FIXED_TYPES.put(OWL + "equivalentClass", AxiomType.EQUIVALENT_CLASSES);
+        FIXED_TYPES.put(OWL + "disjointWith", AxiomType.DISJOINT_CLASSES);
+        FIXED_TYPES.put(OWL + "disjointUnionOf", AxiomType.DISJOINT_UNION);
+        FIXED_TYPES.put(OWL + "propertyChainAxiom", AxiomType.SUB_PROPERTY_CHAIN_OF);
+        FIXED_TYPES.put(OWL + "inverseOf", AxiomType.INVERSE_OBJECT_PROPERTIES);
+        FIXED_TYPES.put(OWL + "sameAs", AxiomType.SAME_INDIVIDUAL);
+        FIXED_TYPES.put(OWL + "differentFrom", AxiomType.DIFFERENT_INDIVIDUALS);
+        FIXED_TYPES.put(OWL + "hasKey", AxiomType.HAS_KEY);
+
+        PROPERTY_TYPES.put(RDFS_NAMESPACE + "subPropertyOf", new AxiomType<?>[]{
+            AxiomType.SUB_OBJECT_PROPERTY, AxiomType.SUB_DATA_PROPERTY, AxiomType.SUB_ANNOTATION_PROPERTY_OF});
+        PROPERTY_TYPES.put(OWL + "equivalentProperty", new AxiomType<?>[]{
+            AxiomType.EQUIVALENT_OBJECT_PROPERTIES, AxiomType.EQUIVALENT_DATA_PROPERTIES, null});
+        PROPERTY_TYPES.put(OWL + "propertyDisjointWith", new AxiomType<?>[]{
+            AxiomType.DISJOINT_OBJECT_PROPERTIES, AxiomType.DISJOINT_DATA_PROPERTIES, null});
+        PROPERTY_TYPES.put(RDFS_NAMESPACE + "domain", new AxiomType<?>[]{
+            AxiomType.OBJECT_PROPERTY_DOMAIN, AxiomType.DATA_PROPERTY_DOMAIN, AxiomType.ANNOTATION_PROPERTY_DOMAIN});
+        PROPERTY_TYPES.put(RDFS_NAMESPACE + "range", new AxiomType<?>[]{
+            AxiomType.OBJECT_PROPERTY_RANGE, AxiomType.DATA_PROPERTY_RANGE, AxiomType.ANNOTATION_PROPERTY_RANGE});
+
+        CHARACTERISTIC_TYPES.put(OWL + "FunctionalProperty", new AxiomType<?>[]{
+            AxiomType.FUNCTIONAL_OBJECT_PROPERTY, AxiomType.FUNCTIONAL_DATA_PROPERTY, null});
+        // all other characteristics only exist for object properties, thus, they also declare their property
+        CHARACTERISTIC_TYPES.put(OWL + "InverseFunctionalProperty", new AxiomType<?>[]{
+            AxiomType.INVERSE_FUNCTIONAL_OBJECT_PROPERTY, null, null});
+        CHARACTERISTIC_TYPES.put(OWL + "SymmetricProperty", new AxiomType<?>[]{
+            AxiomType.SYMMETRIC_OBJECT_PROPERTY, null, null});
+        CHARACTERISTIC_TYPES.put(OWL + "AsymmetricProperty", new AxiomType<?>[]{
+            AxiomType.ASYMMETRIC_OBJECT_PROPERTY, null, null});
+        CHARACTERISTIC_TYPES.put(OWL + "TransitiveProperty", new AxiomType<?>[]{
+            AxiomType.TRANSITIVE_OBJECT_PROPERTY, null, null});
+        CHARACTERISTIC_TYPES.put(OWL + "ReflexiveProperty", new AxiomType<?>[]{
+            AxiomType.REFLEXIVE_OBJECT_PROPERTY, null, null});
+        CHARACTERISTIC_TYPES.put(OWL + "IrreflexiveProperty", new AxiomType<?>[]{
+            AxiomType.IRREFLEXIVE_OBJECT_PROPERTY, null, null});
+
+        DECLARED_KINDS.put(OWL + "ObjectProperty", KIND_OBJECT);
+        DECLARED_KINDS.put(OWL + "DatatypeProperty", KIND_DATA);
+        DECLARED_KINDS.put(OWL + "AnnotationProperty", KIND_ANNOTATION);
+        for (String characteristic : CHARACTERISTIC_TYPES.keySet()) {
+            if (CHARACTERISTIC_TYPES.get(characteristic)[KIND_DATA] == null) {
+                DECLARED_KINDS.put(characteristic, KIND_OBJECT);
+            }
+        }
+
+        String[] annotationProperties = {
+            RDFS_NAMESPACE + "label", RDFS_NAMESPACE + "comment", RDFS_NAMESPACE + "seeAlso",
+            RDFS_NAMESPACE + "isDefinedBy", OWL + "versionInfo", OWL + "deprecated", OWL + "priorVersion",
+            OWL + "backwardCompatibleWith", OWL + "incompatibleWith"
+        };
+        for (String property : annotationProperties) {
+            BUILT_IN_KINDS.put(property, KIND_ANNOTATION);
+        }
+        BUILT_IN_KINDS.put(OWL + "topObjectProperty", KIND_OBJECT);
+        BUILT_IN_KINDS.put(OWL + "bottomObjectProperty", KIND_OBJECT);
+        BUILT_IN_KINDS.put(OWL + "topDataProperty", KIND_DATA);
+        BUILT_IN_KINDS.put(OWL + "bottomDataProperty", KIND_DATA);
+
+        DECLARATION_TYPES.add(OWL + "Class");
+        DECLARATION_TYPES.add(OWL + "ObjectProperty");
+        DECLARATION_TYPES.add(OWL + "DatatypeProperty");
+        DECLARATION_TYPES.add(OWL + "AnnotationProperty");
+        DECLARATION_TYPES.add(OWL + "NamedIndividual");
+        DECLARATION_TYPES.add(RDFS_NAMESPACE + "Datatype");
+    }
+
+    private HashMap<String, Integer> kinds = new HashMap<String, Integer>(BUILT_IN_KINDS);
+
+    /**
+     * Returns whether a statement typing an entity as <code>type</code> declares the kind of a property. Scanners
+     * may use this to skip all other type statements without decoding their subject.
+     *
+     * @param type IRI of the type
+     * @return true if the type declares the kind of a property
+     */
+    public static boolean isPropertyDeclaration(String type) {
+        return DECLARED_KINDS.containsKey(type);
+    }
+
+    /**
+     * Returns all types which declare the kind of a property
+     *
+     * @return immutable set of the IRIs of all types declaring the kind of a property
+     */
+    public static Set<String> getPropertyDeclarationTypes() {
+        return Collections.unmodifiableSet(DECLARED_KINDS.keySet());
+    }
+
+    /**
+     * Records that the document types <code>entity</code> as <code>type</code>. Types not declaring the kind of a
+     * property are ignored.
+     *
+     * @param entity IRI of the typed entity
+     * @param type   IRI of the type
+     */
+    public void declare(String entity, String type) {
+        Integer kind = DECLARED_KINDS.get(type);
+        if (kind != null) {
+            kinds.put(entity, kind);
+        }
+    }
+
+    /**
+     * Returns the axiom type of the reified axiom having the given source, property and target.
+     *
+     * @param source        IRI or blank node identifier of the annotated source
+     * @param property      IRI of the annotated property
+     * @param target        IRI, blank node identifier or lexical form of the annotated target
+     * @param targetLiteral true if <code>target</code> is a literal
+     * @return axiom type of the reified axiom or null if it depends on the kind of a property which has not been
+     *         declared
+     */
+    public AxiomType<?> getAxiomType(String source, String property, String target, boolean targetLiteral) {
+        AxiomType<?> type = FIXED_TYPES.get(property);
+        if (type != null) {
+            return type;
+        }
+        AxiomType<?>[] variants = PROPERTY_TYPES.get(property);
+        if (variants != null) {
+            Integer kind = kinds.get(source);
+            if (kind == null && !targetLiteral) {
+                // super and equivalent properties are of the same kind
+                kind = kinds.get(target);
+            }
+            return kind == null ? null : variants[kind];
+        }
+        if (property.equals(ConfidenceScanner.RDF_TYPE)) {
+            variants = CHARACTERISTIC_TYPES.get(target);
+            if (variants == null) {
+                return DECLARATION_TYPES.contains(target) ? AxiomType.DECLARATION : AxiomType.CLASS_ASSERTION;
+            }
+            Integer kind = kinds.get(source);
+            return kind == null ? null : variants[kind];
+        }
+
+        Integer kind = kinds.get(property);
+        if (kind == null) {
+            return null;
+        }
+        switch (kind) {
+            case KIND_OBJECT:
+                return AxiomType.OBJECT_PROPERTY_ASSERTION;
+            case KIND_DATA:
+                return AxiomType.DATA_PROPERTY_ASSERTION;
+            default:
+                return AxiomType.ANNOTATION_ASSERTION;
+        }
+    }
+}
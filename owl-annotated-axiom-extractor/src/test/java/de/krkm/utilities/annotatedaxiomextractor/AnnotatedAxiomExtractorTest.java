@@ -4,22 +4,170 @@ import org.junit.Test;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
 
+import java.io.File;
 import java.util.*;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 
 public class AnnotatedAxiomExtractorTest {
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+    private ArrayList<OWLAnnotationProperty> properties =
+        AnnotatedAxiomExtractor.getAnnotationsProperties(df,
+                                                         new IRI[]{IRI.create("http://example.com/conf1"),
+                                                                   IRI.create("http://example.com/conf2")});
+
     @Test
     public void testExtract() throws Exception {
-        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
-        OWLDataFactory df = manager.getOWLDataFactory();
-        ArrayList<OWLAnnotationProperty> properties =
-            AnnotatedAxiomExtractor.getAnnotationsProperties(df,
-                                                             new IRI[]{IRI.create("http://example.com/conf1"),
-                                                                       IRI.create("http://example.com/conf2")});
         AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(properties);
+        OWLOntology ontology = createAnnotatedOntology();
+
+        PriorityQueue<AxiomConfidencePair> q = extractor.extract(ontology);
+
+        LinkedList<Double> reference = new LinkedList<Double>();
+        Collections.addAll(reference, 0.988, 0.8, 0.1);
+        Collections.reverse(reference);
+
+        while (!q.isEmpty()) {
+            Double ret = q.poll().getConfidence();
+            assertEquals(reference.removeFirst(), ret);
+        }
+    }
+
+    @Test
+    public void testExtractStreaming() throws Exception {
+        AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(properties);
+        OWLOntology ontology = createAnnotatedOntology();
+
+        final ArrayList<Double> handled = new ArrayList<Double>();
+        extractor.extract(ontology, new AxiomConfidenceHandler() {
+            public void handle(OWLAxiom axiom, double confidence) {
+                assertTrue(axiom.getAnnotations().isEmpty());
+                handled.add(confidence);
+            }
+        });
+        Collections.sort(handled);
+        assertEquals(Arrays.asList(0.1, 0.8, 0.988), handled);
+
+        ArrayList<Double> iterated = new ArrayList<Double>();
+        Iterator<AxiomConfidencePair> it = extractor.iterator(ontology);
+        while (it.hasNext()) {
+            iterated.add(it.next().getConfidence());
+        }
+        Collections.sort(iterated);
+        assertEquals(Arrays.asList(0.1, 0.8, 0.988), iterated);
+    }
+
+    @Test
+    public void testExtractParallel() throws Exception {
+        AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(properties);
+        extractor.setParallelism(4);
+        OWLOntology ontology = createAnnotatedOntology();
+
+        PriorityQueue<AxiomConfidencePair> q = extractor.extract(ontology);
+
+        assertEquals(3, q.size());
+        assertEquals(0.1, q.poll().getConfidence());
+        assertEquals(0.8, q.poll().getConfidence());
+        assertEquals(0.988, q.poll().getConfidence());
+    }
+
+    @Test
+    public void testExtractSorted() throws Exception {
+        AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(properties);
+        AxiomConfidenceStore store = extractor.extractSorted(createAnnotatedOntology());
+
+        assertEquals(3, store.size());
+        assertTrue(store.isSorted());
+        assertEquals(0.1, store.getConfidence(0));
+        assertEquals(0.8, store.getConfidence(1));
+        assertEquals(0.988, store.getConfidence(2));
+
+        Iterator<AxiomConfidencePair> it = store.descendingIterator();
+        assertEquals(0.988, it.next().getConfidence());
+        assertEquals(0.8, it.next().getConfidence());
+        assertEquals(0.1, it.next().getConfidence());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testExtractLowestAndRange() throws Exception {
+        AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(properties);
+        OWLOntology ontology = createAnnotatedOntology();
+
+        AxiomConfidenceStore lowest = extractor.extractLowest(ontology, 2);
+        assertEquals(2, lowest.size());
+        assertEquals(0.1, lowest.getConfidence(0));
+        assertEquals(0.8, lowest.getConfidence(1));
+
+        AxiomConfidenceStore highest = extractor.extractHighest(ontology, 1);
+        assertEquals(1, highest.size());
+        assertEquals(0.988, highest.getConfidence(0));
+
+        extractor.setConfidenceRange(0.5, 0.9);
+        AxiomConfidenceStore range = extractor.extractSorted(ontology);
+        assertEquals(1, range.size());
+        assertEquals(0.8, range.getConfidence(0));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        OWLOntology ontology = createAnnotatedOntology();
+        File ontologyFile = File.createTempFile("annotated", ".owl");
+        File cacheFile = AxiomConfidenceCache.getCacheFile(ontologyFile);
+        List<IRI> iris = Arrays.asList(IRI.create("http://example.com/conf1"), IRI.create("http://example.com/conf2"));
+        try {
+            manager.saveOntology(ontology, IRI.create(ontologyFile));
+
+            AxiomConfidenceCache cache = AxiomConfidenceCache.openOrCreate(ontologyFile, iris, 1);
+            try {
+                assertEquals(3, cache.size());
+                assertEquals(0.1, cache.getConfidence(0));
+                assertEquals(0.8, cache.getConfidence(1));
+                assertEquals(0.988, cache.getConfidence(2));
+                assertEquals(AxiomType.SUBCLASS_OF, cache.getAxiomType(0));
+                assertTrue(cache.getAxiomString(2).contains("http://df.de/c1"));
+                assertEquals(1, cache.lowerBound(0.5));
+                assertEquals(2, cache.upperBound(0.8));
+            }
+            finally {
+                cache.close();
+            }
+
+            // a cache built for other annotation properties must not be used
+            assertNull(AxiomConfidenceCache.open(cacheFile, AxiomConfidenceCache.computeDigest(
+                ontologyFile, Collections.singletonList(IRI.create("http://example.com/conf2")))));
+            cache = AxiomConfidenceCache.open(cacheFile, AxiomConfidenceCache.computeDigest(ontologyFile, iris));
+            assertNotNull(cache);
+            cache.close();
 
+            // size and modification time of the document are checked instead of its digest
+            assertNull(AxiomConfidenceCache.open(cacheFile, ontologyFile,
+                                                 Collections.singletonList(IRI.create("http://example.com/conf2"))));
+            cache = AxiomConfidenceCache.open(cacheFile, ontologyFile, iris);
+            assertNotNull(cache);
+            cache.close();
+            assertFalse(new File(cacheFile.getPath() + ".tmp").exists());
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            ontologyFile.delete();
+            //noinspection ResultOfMethodCallIgnored
+            cacheFile.delete();
+        }
+    }
+
+    /**
+     * Creates an ontology containing three subclass axioms annotated with confidence values 0.988, 0.8 and 0.1 where
+     * the last one also carries a lower-priority annotation
+     */
+    private OWLOntology createAnnotatedOntology() throws OWLOntologyCreationException {
         OWLOntology ontology = manager.createOntology();
+
         HashSet<OWLAnnotation> annotations = new HashSet<OWLAnnotation>();
         annotations.add(df.getOWLAnnotation(properties.get(0), df.getOWLLiteral(0.988)));
         OWLAxiom ax = df.getOWLSubClassOfAxiom(df.getOWLClass(IRI.create("http://df.de/c1")),
@@ -45,15 +193,6 @@ public class AnnotatedAxiomExtractorTest {
 
         manager.addAxiom(ontology, ax);
 
-        PriorityQueue<AxiomConfidencePair> q = extractor.extract(ontology);
-
-        LinkedList<Double> reference = new LinkedList<Double>();
-        Collections.addAll(reference, 0.988, 0.8, 0.1);
-        Collections.reverse(reference);
-        
-        while (!q.isEmpty()) {
-            Double ret = q.poll().getConfidence();
-            assertEquals(reference.removeFirst(), ret);
-        }
+        return ontology;
     }
 }
@@ -0,0 +1,58 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+
+import static junit.framework.Assert.assertEquals;
+
+public class ConfidenceDecoderTest {
+    private OWLDataFactory df = OWLManager.getOWLDataFactory();
+
+    @Test
+    public void testDecodeTypedLiterals() throws Exception {
+        assertEquals(0.988, ConfidenceDecoder.decode(df.getOWLLiteral(0.988)));
+        assertEquals(0.5, ConfidenceDecoder.decode(df.getOWLLiteral(0.5f)));
+        assertEquals(0.75, ConfidenceDecoder.decode(
+            df.getOWLLiteral("0.75", df.getOWLDatatype(OWL2Datatype.XSD_DECIMAL.getIRI()))));
+        assertEquals(0.3, ConfidenceDecoder.decode(df.getOWLLiteral("0.3", "")));
+        assertEquals(0.3, ConfidenceDecoder.decode(df.getOWLLiteral("0.3")));
+        assertEquals(1.5E-3, ConfidenceDecoder.decode(df.getOWLLiteral(1.5E-3)));
+    }
+
+    @Test
+    public void testDecodeIntegerLiterals() throws Exception {
+        assertEquals(1.0, ConfidenceDecoder.decode(df.getOWLLiteral(1)));
+        assertEquals(0.0, ConfidenceDecoder.decode(
+            df.getOWLLiteral("0", df.getOWLDatatype(OWL2Datatype.XSD_INTEGER.getIRI()))));
+        assertEquals(1.0, ConfidenceDecoder.decode(
+            df.getOWLLiteral("1", df.getOWLDatatype(OWL2Datatype.XSD_NON_NEGATIVE_INTEGER.getIRI()))));
+        assertEquals(1.0, ConfidenceDecoder.decode(
+            df.getOWLLiteral("1", df.getOWLDatatype(OWL2Datatype.XSD_UNSIGNED_BYTE.getIRI()))));
+    }
+
+    @Test
+    public void testParseMatchesParseDouble() throws Exception {
+        String[] values = {"0.05", "-0.25", " 0.1 ", "1", "0.1234567890123456789", "123456789012345678.5", "1e-4"};
+        for (String value : values) {
+            assertEquals(Double.parseDouble(value), ConfidenceDecoder.parse(value));
+        }
+    }
+
+    @Test(expected = MalformedConfidenceException.class)
+    public void testMalformedLexicalForm() throws Exception {
+        ConfidenceDecoder.decode(df.getOWLLiteral("high", ""));
+    }
+
+    @Test(expected = MalformedConfidenceException.class)
+    public void testUnsupportedDatatype() throws Exception {
+        ConfidenceDecoder.decode(df.getOWLLiteral(true));
+    }
+
+    @Test(expected = MalformedConfidenceException.class)
+    public void testNoLiteral() throws Exception {
+        ConfidenceDecoder.decode(IRI.create("http://example.com/confidence"));
+    }
+}
@@ -0,0 +1,113 @@
+package de.krkm.utilities.annotatedaxiomextractor;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class ConfidenceIndexTest {
+    private OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+    private OWLDataFactory df = manager.getOWLDataFactory();
+    private ArrayList<OWLAnnotationProperty> properties =
+        AnnotatedAxiomExtractor.getAnnotationsProperties(df, new IRI[]{IRI.create("http://example.com/conf1")});
+
+    @Test
+    public void testIndexFollowsChanges() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        OWLAxiom sub1 = annotated(df.getOWLSubClassOfAxiom(cls("c1"), cls("c2")), 0.5);
+        OWLAxiom sub2 = annotated(df.getOWLSubClassOfAxiom(cls("c3"), cls("c4")), 0.2);
+        OWLAxiom disjoint = annotated(df.getOWLDisjointClassesAxiom(cls("c1"), cls("c3")), 0.1);
+        manager.addAxiom(ontology, sub1);
+        manager.addAxiom(ontology, sub2);
+        manager.addAxiom(ontology, disjoint);
+
+        ConfidenceIndex index = new ConfidenceIndex(properties);
+        new AnnotatedAxiomExtractor(properties).extract(ontology, index);
+        index.attach(manager, ontology);
+
+        assertEquals(3, index.size());
+        assertEquals(0.1, index.getLowest().getConfidence());
+        assertEquals(0.2, index.getLowest(AxiomType.SUBCLASS_OF).getConfidence());
+        assertEquals(0.5, index.getNextOfType(index.getLowest(AxiomType.SUBCLASS_OF)).getConfidence());
+
+        manager.removeAxiom(ontology, sub2);
+        assertEquals(2, index.size());
+        assertEquals(0.5, index.getLowest(AxiomType.SUBCLASS_OF).getConfidence());
+        assertEquals(0.2, index.getConfidence(sub2));
+
+        // re-adding an axiom without annotations restores its known confidence
+        manager.addAxiom(ontology, sub2.getAxiomWithoutAnnotations());
+        assertEquals(0.2, index.getLowest(AxiomType.SUBCLASS_OF).getConfidence());
+
+        // new annotated axioms are indexed on addition
+        manager.addAxiom(ontology, annotated(df.getOWLSubClassOfAxiom(cls("c5"), cls("c6")), 0.05));
+        assertEquals(4, index.size());
+        assertEquals(0.05, index.getLowest().getConfidence());
+
+        manager.removeAxiom(ontology, disjoint);
+        assertNull(index.getLowest(AxiomType.DISJOINT_CLASSES));
+
+        index.detach();
+        manager.removeAxiom(ontology, sub1);
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testTraversalWhileModifying() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        for (int i = 0; i < 10; i++) {
+            manager.addAxiom(ontology, annotated(df.getOWLSubClassOfAxiom(cls("a" + i), cls("b" + i)), i / 10.0));
+        }
+        ConfidenceIndex index = new ConfidenceIndex(properties);
+        AnnotatedAxiomExtractor extractor = new AnnotatedAxiomExtractor(properties);
+        // entries have to keep the annotations to be able to remove the axioms from the ontology
+        extractor.setPreserveAnnotations(true);
+        extractor.extract(ontology, index);
+        index.attach(manager, ontology);
+
+        int visited = 0;
+        for (ConfidenceIndex.Entry entry = index.getLowest(); entry != null; entry = index.getNext(entry)) {
+            manager.removeAxiom(ontology, entry.getAxiom());
+            visited++;
+        }
+        assertEquals(10, visited);
+        assertEquals(0, index.size());
+        assertEquals(10, index.getKnownCount());
+    }
+
+    @Test
+    public void testDuplicatesKeepHighestConfidence() throws Exception {
+        OWLOntology ontology = manager.createOntology();
+        OWLAxiom axiom = df.getOWLSubClassOfAxiom(cls("c1"), cls("c2"));
+        manager.addAxiom(ontology, axiom);
+
+        ConfidenceIndex index = new ConfidenceIndex(properties);
+        index.handle(annotated(axiom, 0.4), 0.4);
+        index.handle(annotated(axiom, 0.7), 0.7);
+        index.handle(annotated(axiom, 0.2), 0.2);
+        index.attach(manager, ontology);
+        assertEquals(1, index.size());
+        assertEquals(0.7, index.getConfidence(axiom));
+
+        index.dispose();
+        assertEquals(0, index.getKnownCount());
+        manager.removeAxiom(ontology, axiom);
+        manager.addAxiom(ontology, annotated(axiom, 0.3));
+        assertEquals(0, index.size());
+    }
+
+    private OWLClass cls(String name) {
+        return df.getOWLClass(IRI.create("http://df.de/" + name));
+    }
+
+    private OWLAxiom annotated(OWLAxiom axiom, double confidence) {
+        return axiom.getAnnotatedAxiom(new HashSet<OWLAnnotation>(
+            Collections.singleton(df.getOWLAnnotation(properties.get(0), df.getOWLLiteral(confidence)))));
+    }
+}
@@ -0,0 +1,186 @@
+package de.krkm.utilities.annotatedaxiomextractor.scanner;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.RDFXMLOntologyFormat;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+
+public class ConfidenceScannerTest {
+    private final static String NS = "http://example.org/scanner#";
+    private final static String CONF1 = "http://ki.informatik.uni-mannheim.de/gold-miner/annotations#confidence";
+    private final static String CONF2 = "http://www.dl-learner.org/enrichment.owl#confidence";
+
+    private List<IRI> iris = Arrays.asList(IRI.create(CONF1), IRI.create(CONF2));
+
+    @Test
+    public void testScanRdfXmlWrittenByOWLAPI() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory df = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology(IRI.create(NS));
+        OWLAnnotationProperty conf1 = df.getOWLAnnotationProperty(IRI.create(CONF1));
+        OWLAnnotationProperty conf2 = df.getOWLAnnotationProperty(IRI.create(CONF2));
+        OWLClass a = df.getOWLClass(IRI.create(NS + "A"));
+        OWLClass b = df.getOWLClass(IRI.create(NS + "B"));
+        OWLObjectProperty p = df.getOWLObjectProperty(IRI.create(NS + "p"));
+        OWLDataProperty d = df.getOWLDataProperty(IRI.create(NS + "d"));
+        OWLDataProperty e = df.getOWLDataProperty(IRI.create(NS + "e"));
+
+        HashSet<OWLAnnotation> annotations = new HashSet<OWLAnnotation>();
+        annotations.add(df.getOWLAnnotation(conf1, df.getOWLLiteral(0.8)));
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(a, b, annotations));
+        annotations = new HashSet<OWLAnnotation>();
+        annotations.add(df.getOWLAnnotation(conf1, df.getOWLLiteral(0.1)));
+        annotations.add(df.getOWLAnnotation(conf2, df.getOWLLiteral(0.7)));
+        manager.addAxiom(ontology, df.getOWLDisjointClassesAxiom(new HashSet<OWLClassExpression>(Arrays.asList(a, b)),
+                                                                 annotations));
+        annotations = new HashSet<OWLAnnotation>();
+        annotations.add(df.getOWLAnnotation(conf2, df.getOWLLiteral(0.5)));
+        manager.addAxiom(ontology, df.getOWLTransitiveObjectPropertyAxiom(p, annotations));
+        annotations = new HashSet<OWLAnnotation>();
+        annotations.add(df.getOWLAnnotation(conf1, df.getOWLLiteral(0.6)));
+        manager.addAxiom(ontology, df.getOWLSubDataPropertyOfAxiom(d, e, annotations));
+        annotations = new HashSet<OWLAnnotation>();
+        annotations.add(df.getOWLAnnotation(conf1, df.getOWLLiteral(0.4)));
+        manager.addAxiom(ontology, df.getOWLAnnotationAssertionAxiom(a.getIRI(), df.getOWLAnnotation(
+            df.getRDFSLabel(), df.getOWLLiteral("A")), annotations));
+        // axioms without confidence annotation must not be reported
+        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(b, a));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        manager.saveOntology(ontology, new RDFXMLOntologyFormat(), out);
+
+        Map<AxiomType<?>, Double> found = scan(new RdfXmlConfidenceScanner(iris), out.toByteArray());
+        assertEquals(5, found.size());
+        assertEquals(0.8, found.get(AxiomType.SUBCLASS_OF));
+        assertEquals(0.1, found.get(AxiomType.DISJOINT_CLASSES));
+        assertEquals(0.5, found.get(AxiomType.TRANSITIVE_OBJECT_PROPERTY));
+        assertEquals(0.6, found.get(AxiomType.SUB_DATA_PROPERTY));
+        assertEquals(0.4, found.get(AxiomType.ANNOTATION_ASSERTION));
+    }
+
+    @Test
+    public void testScanNTriples() throws Exception {
+        String document =
+            "<" + NS + "A> <http://www.w3.org/2000/01/rdf-schema#subClassOf> <" + NS + "B> .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "A> .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedProperty> " +
+            "<http://www.w3.org/2000/01/rdf-schema#subClassOf> .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedTarget> <" + NS + "B> .\n" +
+            "_:x <" + CONF2 + "> \"0.3\"^^<http://www.w3.org/2001/XMLSchema#double> .\n" +
+            "_:x <" + CONF1 + "> \"0.9\"^^<http://www.w3.org/2001/XMLSchema#double> .\n" +
+            "_:y <" + CONF2 + "> \"0.4\" .\r\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "i> .\r\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedProperty> <" + NS + "name> .\r\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedTarget> \"a \\\"name\\\"\"@en .\r\n" +
+            "_:z <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "i> .\n" +
+            "_:u <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "i> .\n" +
+            "_:u <http://www.w3.org/2002/07/owl#annotatedProperty> <" + NS + "undeclared> .\n" +
+            "_:u <http://www.w3.org/2002/07/owl#annotatedTarget> <" + NS + "j> .\n" +
+            "_:u <" + CONF1 + "> \"0.2\" .\n" +
+            "<" + NS + "name> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> " +
+            "<http://www.w3.org/2002/07/owl#DatatypeProperty> .\n";
+
+        Map<AxiomType<?>, Double> found = scan(new NTriplesConfidenceScanner(iris), document.getBytes("UTF-8"));
+        assertEquals(3, found.size());
+        assertEquals(0.9, found.get(AxiomType.SUBCLASS_OF));
+        // the property is declared after the axiom
+        assertEquals(0.4, found.get(AxiomType.DATA_PROPERTY_ASSERTION));
+        assertEquals(0.2, found.get(null));
+    }
+
+    @Test
+    public void testScanInterleavedNTriples() throws Exception {
+        String document =
+            "_:x <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "A> .\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "A> .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedProperty> " +
+            "<http://www.w3.org/2000/01/rdf-schema#subClassOf> .\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedProperty> " +
+            "<http://www.w3.org/2002/07/owl#disjointWith> .\n" +
+            "<" + NS + "A> <http://www.w3.org/2000/01/rdf-schema#subClassOf> <" + NS + "B> .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedTarget> <" + NS + "B> .\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedTarget> <" + NS + "C> .\n" +
+            "_:y <" + CONF2 + "> \"0.3\" .\n" +
+            "_:x <" + CONF1 + "> \"0.9\" .\n";
+
+        Map<AxiomType<?>, Double> found = scan(new NTriplesConfidenceScanner(iris), document.getBytes("UTF-8"));
+        assertEquals(2, found.size());
+        assertEquals(0.9, found.get(AxiomType.SUBCLASS_OF));
+        assertEquals(0.3, found.get(AxiomType.DISJOINT_CLASSES));
+    }
+
+    @Test
+    public void testScanNTriplesWithoutWhitespaceBeforeDot() throws Exception {
+        String document =
+            "<" + NS + "A> <http://www.w3.org/2000/01/rdf-schema#subClassOf> _:b.\n" +
+            "_:x.1 <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "A>.\n" +
+            "_:x.1 <http://www.w3.org/2002/07/owl#annotatedProperty> " +
+            "<http://www.w3.org/2000/01/rdf-schema#subClassOf>.\n" +
+            "_:x.1 <http://www.w3.org/2002/07/owl#annotatedTarget> _:b.\n" +
+            "_:x.1 <" + CONF1 + "> \"0.7\".\n";
+
+        final ArrayList<String> targets = new ArrayList<String>();
+        new NTriplesConfidenceScanner(iris).scan(new ByteArrayInputStream(document.getBytes("UTF-8")),
+                                                 new ReifiedAxiomHandler() {
+            public void handle(String source, String property, String target, boolean targetLiteral,
+                               double confidence) {
+                targets.add(target);
+                assertEquals(0.7, confidence);
+            }
+        });
+        assertEquals(Arrays.asList("_:b"), targets);
+    }
+
+    @Test
+    public void testDropOldestPendingAxiom() throws Exception {
+        String document =
+            "_:x <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "A> .\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedSource> <" + NS + "A> .\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedProperty> " +
+            "<http://www.w3.org/2002/07/owl#disjointWith> .\n" +
+            "_:y <http://www.w3.org/2002/07/owl#annotatedTarget> <" + NS + "C> .\n" +
+            "_:y <" + CONF1 + "> \"0.8\" .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedProperty> " +
+            "<http://www.w3.org/2000/01/rdf-schema#subClassOf> .\n" +
+            "_:x <http://www.w3.org/2002/07/owl#annotatedTarget> <" + NS + "B> .\n" +
+            "_:x <" + CONF1 + "> \"0.9\" .\n";
+
+        NTriplesConfidenceScanner scanner = new NTriplesConfidenceScanner(iris);
+        scanner.setMaxPendingAxioms(1);
+        Map<AxiomType<?>, Double> found = scan(scanner, document.getBytes("UTF-8"));
+        // the source of _:x is dropped when _:y starts, thus, only _:y is complete
+        assertEquals(1, found.size());
+        assertEquals(0.8, found.get(AxiomType.DISJOINT_CLASSES));
+    }
+
+    /**
+     * Scans the given document and returns the confidence values found by axiom type, resolving the types after the
+     * scan when all declarations are known
+     */
+    private Map<AxiomType<?>, Double> scan(ConfidenceScanner scanner, byte[] document) throws Exception {
+        final ArrayList<String[]> axioms = new ArrayList<String[]>();
+        final ArrayList<Double> confidences = new ArrayList<Double>();
+        ReifiedAxiomTypes types = new ReifiedAxiomTypes();
+        scanner.scan(new ByteArrayInputStream(document), new ReifiedAxiomHandler() {
+            public void handle(String source, String property, String target, boolean targetLiteral,
+                               double confidence) {
+                axioms.add(new String[]{source, property, target, String.valueOf(targetLiteral)});
+                confidences.add(confidence);
+            }
+        }, types);
+
+        HashMap<AxiomType<?>, Double> found = new HashMap<AxiomType<?>, Double>();
+        for (int i = 0; i < axioms.size(); i++) {
+            String[] axiom = axioms.get(i);
+            found.put(types.getAxiomType(axiom[0], axiom[1], axiom[2], Boolean.parseBoolean(axiom[3])),
+                      confidences.get(i));
+        }
+        return found;
+    }
+}
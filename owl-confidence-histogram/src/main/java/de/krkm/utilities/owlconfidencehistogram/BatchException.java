@@ -0,0 +1,10 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+/**
+ * Thrown if processing a batch of ontologies did not succeed for all ontologies
+ */
+public class BatchException extends Exception {
+    public BatchException(String message) {
+        super(message);
+    }
+}
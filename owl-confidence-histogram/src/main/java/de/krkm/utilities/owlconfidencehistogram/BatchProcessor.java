@@ -0,0 +1,204 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Computes histograms and quantile sketches for many ontologies in a single JVM. Ontologies are processed
+ * concurrently by a fixed number of workers which is bounded by a memory budget. For each ontology, its tables and
+ * sketch file are written to a subdirectory of the output directory named after the ontology file. The results of all
+ * ontologies are merged into aggregate tables per axiom type written to the output directory itself.
+ */
+public class BatchProcessor {
+    private final static Logger log = LoggerFactory.getLogger(BatchProcessor.class);
+
+    /**
+     * name of the sketch file written for each ontology, these files can be merged later on
+     */
+    public final static String SKETCH_FILE_NAME = "sketches.bin";
+
+    private ConfidenceSource source;
+    private List<IRI> iris;
+    private BinScheme scheme;
+    private double[] quantiles;
+
+    /**
+     * Initializes a batch processor reading ontologies using <code>source</code>
+     *
+     * @param source    way of reading the confidence values of each ontology
+     * @param iris      IRIs of the annotation properties containing confidence values ordered by descending priority
+     * @param scheme    bin scheme of the histograms to compute or null to only compute quantile sketches
+     * @param quantiles quantiles to write to the quantile tables
+     */
+    public BatchProcessor(ConfidenceSource source, List<IRI> iris, BinScheme scheme, double[] quantiles) {
+        this.source = source;
+        this.iris = iris;
+        this.scheme = scheme;
+        this.quantiles = quantiles;
+    }
+
+    /**
+     * Returns the ontology files given by <code>pattern</code>. If the pattern denotes a directory, all regular files
+     * in this directory except for cache files are returned. Otherwise, the last path component of the pattern is
+     * matched as glob against the files in its parent directory, e.g., <code>mined/*.nt</code>.
+     *
+     * @param pattern directory or glob pattern
+     * @return matching files sorted by name
+     * @throws IOException if the directory to search in does not exist
+     */
+    public static List<File> resolve(String pattern) throws IOException {
+        File file = new File(pattern);
+        File directory;
+        final PathMatcher matcher;
+        if (file.isDirectory()) {
+            directory = file;
+            matcher = null;
+        }
+        else {
+            directory = file.getAbsoluteFile().getParentFile();
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + file.getName());
+        }
+
+        File[] files = directory == null ? null : directory.listFiles(new FileFilter() {
+            public boolean accept(File candidate) {
+                String name = candidate.getName();
+                if (!candidate.isFile() || name.startsWith(".") || name.endsWith(".confcache")) {
+                    return false;
+                }
+                return matcher == null || matcher.matches(Paths.get(name));
+            }
+        });
+        if (files == null) {
+            throw new IOException("Unable to list directory " + directory);
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Returns the number of workers which can process the given files concurrently without exceeding
+     * <code>memoryBudget</code>. The estimate assumes that each worker processes the largest of the files.
+     *
+     * @param files        files to process
+     * @param memoryBudget heap available for processing ontologies in bytes
+     * @param maxWorkers   upper bound of the number of workers
+     * @return number of workers, at least 1
+     */
+    public int getWorkerCount(List<File> files, long memoryBudget, int maxWorkers) {
+        long largest = 1;
+        for (File file : files) {
+            largest = Math.max(largest, source.estimateMemory(file));
+        }
+        long workers = Math.min(Math.min(maxWorkers, files.size()), memoryBudget / largest);
+        return (int) Math.max(1, workers);
+    }
+
+    /**
+     * Processes the given files using <code>workers</code> concurrent workers and writes the results to
+     * <code>outDir</code>. Errors processing single ontologies are logged and the remaining ontologies are processed
+     * nevertheless.
+     *
+     * @param files   ontology files to process
+     * @param outDir  directory to write results to
+     * @param workers number of ontologies to process concurrently
+     * @return merged sketches of all successfully processed ontologies
+     * @throws IOException on errors writing the merged results
+     * @throws BatchException if at least one ontology could not be processed, the merged results of the remaining
+     *                        ontologies are written anyway
+     */
+    public ConfidenceSketches run(List<File> files, final File outDir, int workers)
+            throws IOException, BatchException {
+        log.info("Processing {} ontologies using {} workers", files.size(), workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<Result>> futures = new ArrayList<Future<Result>>();
+        for (final File file : files) {
+            futures.add(executor.submit(new Callable<Result>() {
+                public Result call() throws Exception {
+                    return process(file, new File(outDir, file.getName()));
+                }
+            }));
+        }
+        executor.shutdown();
+
+        // merge in the order of the files to get reproducible results
+        ConfidenceHistogram histogram = scheme == null ? null : new ConfidenceHistogram(scheme);
+        ConfidenceSketches sketches = new ConfidenceSketches();
+        List<String> failed = new ArrayList<String>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Result result = futures.get(i).get();
+                    if (histogram != null) {
+                        histogram.merge(result.histogram);
+                    }
+                    sketches.merge(result.sketches);
+                }
+                catch (ExecutionException e) {
+                    log.error("Unable to process ontology " + files.get(i), e.getCause());
+                    failed.add(files.get(i).getName());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new BatchException("Interrupted while processing ontologies");
+        }
+
+        if (histogram != null) {
+            Main.writeHistogram(histogram, outDir);
+        }
+        Main.writeSketches(sketches, null, outDir, quantiles);
+        if (!failed.isEmpty()) {
+            throw new BatchException("Unable to process " + failed.size() + " of " + files.size() +
+                                     " ontologies: " + failed);
+        }
+        return sketches;
+    }
+
+    private Result process(File file, File outDir) throws Exception {
+        log.debug("Processing ontology {}", file);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + outDir);
+        }
+        final Result result = new Result();
+        result.histogram = scheme == null ? null : new ConfidenceHistogram(scheme);
+        result.sketches = new ConfidenceSketches();
+        final HistogramBuffer buffer = result.histogram == null ? null : new HistogramBuffer(result.histogram);
+        source.extract(file, iris, 1, new ConfidenceValueHandler() {
+            public void handle(AxiomType<?> type, double confidence) {
+                if (buffer != null) {
+                    buffer.handle(type, confidence);
+                }
+                result.sketches.handle(type, confidence);
+            }
+        });
+        if (buffer != null) {
+            buffer.flush();
+        }
+
+        if (result.histogram != null) {
+            Main.writeHistogram(result.histogram, outDir);
+        }
+        Main.writeSketches(result.sketches, new File(outDir, SKETCH_FILE_NAME).getPath(), outDir, quantiles);
+        return result;
+    }
+
+    private static class Result {
+        private ConfidenceHistogram histogram;
+        private ConfidenceSketches sketches;
+    }
+}
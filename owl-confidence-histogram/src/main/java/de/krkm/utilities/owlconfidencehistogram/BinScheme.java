@@ -0,0 +1,39 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+/**
+ * Partitions a range of confidence values into consecutive bins. Each bin contains its lower edge, the last bin
+ * additionally contains its upper edge.
+ */
+public interface BinScheme {
+    /**
+     * Returns the number of bins of this scheme
+     *
+     * @return number of bins
+     */
+    int getBinCount();
+
+    /**
+     * Returns the index of the bin containing <code>value</code>
+     *
+     * @param value value to return bin for, must not be NaN
+     * @return index of the bin containing the value, -1 if the value is below the first bin or
+     *         {@link #getBinCount()} if it is above the last bin
+     */
+    int getBin(double value);
+
+    /**
+     * Returns the lower edge of the given bin
+     *
+     * @param bin index of the bin
+     * @return lower edge of the bin
+     */
+    double getLowerEdge(int bin);
+
+    /**
+     * Returns the upper edge of the given bin
+     *
+     * @param bin index of the bin
+     * @return upper edge of the bin
+     */
+    double getUpperEdge(int bin);
+}
@@ -0,0 +1,21 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+/**
+ * Computes the bin counts of an array of values for a fixed bin scheme
+ *
+ * @see BinningKernels
+ */
+public interface BinningKernel {
+    /**
+     * Adds the values <code>values[from]</code> to <code>values[to - 1]</code> to <code>counts</code>. The counts
+     * array has <code>bins + 2</code> slots: slot 0 counts values below the first bin, slot <code>i + 1</code> values
+     * in bin <code>i</code> and the last slot values above the last bin. NaN values are not counted in any slot.
+     *
+     * @param values values to count
+     * @param from   index of the first value to count
+     * @param to     index after the last value to count
+     * @param counts counters to add the values to
+     * @return number of NaN values
+     */
+    long count(double[] values, int from, int to, long[] counts);
+}
@@ -0,0 +1,75 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates binning kernels. If the module has been built using the <code>vector</code> profile and the JVM has been
+ * started with <code>--add-modules jdk.incubator.vector</code>, fixed-width and logarithmic bins are computed by a
+ * kernel based on the JDK Vector API. Otherwise, or if the system property
+ * <code>de.krkm.utilities.owlconfidencehistogram.vector</code> is set to <code>false</code>, the scalar kernel is used.
+ */
+public class BinningKernels {
+    private final static Logger log = LoggerFactory.getLogger(BinningKernels.class);
+
+    private final static String VECTOR_KERNEL_CLASS =
+        "de.krkm.utilities.owlconfidencehistogram.VectorBinningKernel";
+    private final static String VECTOR_PROPERTY = "de.krkm.utilities.owlconfidencehistogram.vector";
+
+    private static Boolean vectorAvailable;
+
+    /**
+     * Returns the fastest available kernel for the given bin scheme
+     *
+     * @param scheme bin scheme to create kernel for
+     * @return kernel for the bin scheme
+     */
+    public static BinningKernel create(BinScheme scheme) {
+        if (isVectorAvailable() && (scheme instanceof FixedWidthBinScheme || scheme instanceof LogBinScheme)) {
+            BinningKernel kernel = createVector(scheme);
+            if (kernel != null) {
+                return kernel;
+            }
+        }
+        return createScalar(scheme);
+    }
+
+    /**
+     * Returns a kernel for the given scheme which processes one value at a time
+     *
+     * @param scheme bin scheme to create kernel for
+     * @return scalar kernel for the bin scheme
+     */
+    public static BinningKernel createScalar(BinScheme scheme) {
+        return new ScalarBinningKernel(scheme);
+    }
+
+    /**
+     * Returns whether the kernel based on the Vector API is available
+     *
+     * @return true if the vector kernel is available, otherwise false
+     */
+    public static synchronized boolean isVectorAvailable() {
+        if (vectorAvailable == null) {
+            vectorAvailable = !"false".equals(System.getProperty(VECTOR_PROPERTY)) &&
+                    createVector(new FixedWidthBinScheme(0, 1, 1)) != null;
+            log.debug("Vector API binning kernel available: {}", vectorAvailable);
+        }
+        return vectorAvailable;
+    }
+
+    private static BinningKernel createVector(BinScheme scheme) {
+        try {
+            return (BinningKernel) Class.forName(VECTOR_KERNEL_CLASS).getConstructor(BinScheme.class)
+                                        .newInstance(scheme);
+        }
+        catch (ReflectiveOperationException e) {
+            // the module has been built without the vector profile
+            return null;
+        }
+        catch (LinkageError e) {
+            // the incubator module is not available at runtime
+            return null;
+        }
+    }
+}
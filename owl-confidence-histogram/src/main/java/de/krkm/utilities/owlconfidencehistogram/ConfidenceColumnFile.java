@@ -0,0 +1,185 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Binary file containing a column of confidence values. The file starts with a header followed by the values as
+ * little-endian doubles which start at a multiple of 8 bytes, thus, the file can be memory-mapped by analysis code,
+ * e.g., using <code>numpy.memmap</code>. All header fields are little-endian as well:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic number, the file starts with "COL1"
+ *      4     4  format version
+ *      8     8  number of values
+ *     16     8  minimum value ignoring NaNs (NaN if empty)
+ *     24     8  maximum value ignoring NaNs (NaN if empty)
+ *     32     4  offset of the first value
+ *     36     4  length of the axiom type name in bytes
+ *     40     n  axiom type name in UTF-8
+ * </pre>
+ */
+public class ConfidenceColumnFile {
+    public final static String FILE_SUFFIX = ".bin";
+
+    private final static int MAGIC = 0x314c4f43;
+    private final static int VERSION = 1;
+    private final static int HEADER_SIZE = 40;
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private String axiomTypeName;
+    private long count;
+    private double min;
+    private double max;
+    private DoubleBuffer values;
+
+    private ConfidenceColumnFile(String axiomTypeName, long count, double min, double max, DoubleBuffer values) {
+        this.axiomTypeName = axiomTypeName;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.values = values;
+    }
+
+    /**
+     * Writes the given values to <code>file</code>
+     *
+     * @param file          file to write values to
+     * @param axiomTypeName name of the axiom type the values belong to
+     * @param values        values to write
+     * @throws IOException on errors writing the file
+     */
+    public static void write(File file, String axiomTypeName, double[] values) throws IOException {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (double value : values) {
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (Double.isNaN(min) || value < min) {
+                min = value;
+            }
+            if (Double.isNaN(max) || value > max) {
+                max = value;
+            }
+        }
+        byte[] name = axiomTypeName.getBytes(UTF8);
+        int dataOffset = (HEADER_SIZE + name.length + 7) & ~7;
+
+        ByteBuffer header = ByteBuffer.allocate(dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(values.length).putDouble(min).putDouble(max);
+        header.putInt(dataOffset).putInt(name.length).put(name);
+        header.rewind();
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer chunk = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            DoubleBuffer doubles = chunk.asDoubleBuffer();
+            for (int i = 0; i < values.length; i += doubles.capacity()) {
+                int length = Math.min(doubles.capacity(), values.length - i);
+                doubles.clear();
+                doubles.put(values, i, length);
+                chunk.clear().limit(length * 8);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Opens the given file by memory-mapping its values
+     *
+     * @param file file to open
+     * @return opened file
+     * @throws IOException on errors reading the file or if it is not a valid column file
+     */
+    public static ConfidenceColumnFile open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("File " + file + " is not a confidence column file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                                       .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("File " + file + " is not a confidence column file");
+            }
+            long count = header.getLong();
+            double min = header.getDouble();
+            double max = header.getDouble();
+            int dataOffset = header.getInt();
+            int nameLength = header.getInt();
+            if (nameLength < 0 || dataOffset < HEADER_SIZE + nameLength || dataOffset % 8 != 0 || count < 0 ||
+                    count > Integer.MAX_VALUE || channel.size() != dataOffset + count * 8) {
+                throw new IOException("File " + file + " has an invalid header or is truncated");
+            }
+            ByteBuffer name = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, nameLength);
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, count * 8);
+            return new ConfidenceColumnFile(UTF8.decode(name).toString(), count, min, max,
+                                            data.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+        }
+        finally {
+            // the mappings stay valid after closing the file
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the name of the axiom type of the values
+     *
+     * @return name of the axiom type
+     */
+    public String getAxiomTypeName() {
+        return axiomTypeName;
+    }
+
+    /**
+     * Returns the number of values in the file
+     *
+     * @return number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value in the file
+     *
+     * @return smallest value or NaN if the file is empty
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value in the file
+     *
+     * @return largest value or NaN if the file is empty
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns a read-only view of the memory-mapped values
+     *
+     * @return read-only view of the values
+     */
+    public DoubleBuffer getValues() {
+        return values.asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,255 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.semanticweb.owlapi.model.AxiomType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Histogram of confidence values which is updated while streaming the values from an ontology. For each axiom type and
+ * for all values in aggregate, only one counter per bin is kept, thus, memory usage does not depend on the number of
+ * values and adding a value takes constant time for fixed-width and logarithmic bins.
+ * <p/>
+ * Values outside the range of the bin scheme are counted as underflow or overflow, NaN values are counted as invalid.
+ */
+public class ConfidenceHistogram implements ConfidenceValueHandler {
+    private BinScheme scheme;
+    /**
+     * counters per axiom type, slot 0 counts underflows, slot <code>bins + 1</code> overflows
+     */
+    private HashMap<AxiomType<?>, long[]> typeCounts = new HashMap<AxiomType<?>, long[]>();
+    private long[] aggregatedCounts;
+    private long invalid;
+    private BinningKernel kernel;
+
+    /**
+     * Initializes an empty histogram using the given bin scheme
+     *
+     * @param scheme scheme defining the bins of the histogram
+     */
+    public ConfidenceHistogram(BinScheme scheme) {
+        this.scheme = scheme;
+        this.aggregatedCounts = new long[scheme.getBinCount() + 2];
+    }
+
+    public void handle(AxiomType<?> type, double confidence) {
+        if (Double.isNaN(confidence)) {
+            invalid++;
+            return;
+        }
+        int slot = scheme.getBin(confidence) + 1;
+        long[] counts = typeCounts.get(type);
+        if (counts == null) {
+            counts = new long[aggregatedCounts.length];
+            typeCounts.put(type, counts);
+        }
+        counts[slot]++;
+        aggregatedCounts[slot]++;
+    }
+
+    /**
+     * Adds all given values of the given axiom type to the histogram. This is considerably faster than adding the
+     * values one by one since the values are binned by the fastest available {@link BinningKernel}.
+     *
+     * @param type   axiom type of the values
+     * @param values values to add
+     * @see HistogramBuffer
+     */
+    public void addAll(AxiomType<?> type, double[] values) {
+        addAll(type, values, 0, values.length);
+    }
+
+    /**
+     * Adds the values <code>values[from]</code> to <code>values[to - 1]</code> of the given axiom type to the
+     * histogram
+     *
+     * @param type   axiom type of the values
+     * @param values array containing the values to add
+     * @param from   index of the first value to add
+     * @param to     index after the last value to add
+     */
+    public void addAll(AxiomType<?> type, double[] values, int from, int to) {
+        if (kernel == null) {
+            kernel = BinningKernels.create(scheme);
+        }
+        long[] counts = new long[aggregatedCounts.length];
+        invalid += kernel.count(values, from, to, counts);
+        long[] existing = typeCounts.get(type);
+        if (existing == null) {
+            typeCounts.put(type, counts.clone());
+        }
+        else {
+            add(existing, counts);
+        }
+        add(aggregatedCounts, counts);
+    }
+
+    /**
+     * Adds the counts of the given histogram to this histogram. Both histograms have to use the same bin scheme.
+     *
+     * @param other histogram to merge into this one
+     * @throws IllegalArgumentException if the histograms use different bin schemes
+     */
+    public void merge(ConfidenceHistogram other) {
+        if (other.scheme != scheme) {
+            throw new IllegalArgumentException("Unable to merge histograms using different bin schemes");
+        }
+        for (Map.Entry<AxiomType<?>, long[]> entry : other.typeCounts.entrySet()) {
+            long[] counts = typeCounts.get(entry.getKey());
+            if (counts == null) {
+                counts = new long[aggregatedCounts.length];
+                typeCounts.put(entry.getKey(), counts);
+            }
+            add(counts, entry.getValue());
+        }
+        add(aggregatedCounts, other.aggregatedCounts);
+        invalid += other.invalid;
+    }
+
+    /**
+     * Returns the bin scheme of this histogram
+     *
+     * @return bin scheme of this histogram
+     */
+    public BinScheme getBinScheme() {
+        return scheme;
+    }
+
+    /**
+     * Returns the number of values contained in the given bin for all axiom types
+     *
+     * @param bin index of the bin
+     * @return number of values in the bin
+     */
+    public long getCount(int bin) {
+        return aggregatedCounts[bin + 1];
+    }
+
+    /**
+     * Returns the number of values of the given axiom type contained in the given bin
+     *
+     * @param type axiom type to return count for
+     * @param bin  index of the bin
+     * @return number of values of the axiom type in the bin
+     */
+    public long getCount(AxiomType<?> type, int bin) {
+        long[] counts = typeCounts.get(type);
+        return counts == null ? 0 : counts[bin + 1];
+    }
+
+    /**
+     * Returns the number of values below the first bin
+     *
+     * @return number of values below the first bin
+     */
+    public long getUnderflow() {
+        return aggregatedCounts[0];
+    }
+
+    /**
+     * Returns the number of values above the last bin
+     *
+     * @return number of values above the last bin
+     */
+    public long getOverflow() {
+        return aggregatedCounts[aggregatedCounts.length - 1];
+    }
+
+    /**
+     * Returns the number of NaN values which have not been assigned to any bin
+     *
+     * @return number of NaN values
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * Returns the number of values counted in the histogram including underflows and overflows
+     *
+     * @return number of values counted in the histogram
+     */
+    public long getTotal() {
+        return sum(aggregatedCounts);
+    }
+
+    /**
+     * Returns all axiom types for which at least one value has been counted
+     *
+     * @return immutable set of axiom types contained in the histogram
+     */
+    public Set<AxiomType<?>> getAxiomTypes() {
+        return Collections.unmodifiableSet(typeCounts.keySet());
+    }
+
+    /**
+     * Writes the bin table of all values in aggregate to <code>out</code>
+     *
+     * @param out writer to write table to
+     * @throws IOException on errors writing the table
+     * @see #writeTable(org.semanticweb.owlapi.model.AxiomType, java.io.Writer)
+     */
+    public void writeTable(Writer out) throws IOException {
+        writeTable(aggregatedCounts, out);
+    }
+
+    /**
+     * Writes the bin table of the values of the given axiom type to <code>out</code>. The table contains one line per
+     * bin holding the lower edge, the upper edge, the number of values and the fraction of all values of the table,
+     * separated by tabs. Underflows and overflows are written as additional bins with infinite edges if there are any.
+     * The header line starts with <code>#</code>, thus, the table can be directly plotted with tools like gnuplot.
+     *
+     * @param type axiom type to write table for
+     * @param out  writer to write table to
+     * @throws IOException on errors writing the table
+     */
+    public void writeTable(AxiomType<?> type, Writer out) throws IOException {
+        long[] counts = typeCounts.get(type);
+        writeTable(counts == null ? new long[aggregatedCounts.length] : counts, out);
+    }
+
+    private void writeTable(long[] counts, Writer out) throws IOException {
+        long total = sum(counts);
+        int bins = scheme.getBinCount();
+        out.write("# lower\tupper\tcount\tfraction\n");
+        if (counts[0] > 0) {
+            writeRow(out, Double.NEGATIVE_INFINITY, scheme.getLowerEdge(0), counts[0], total);
+        }
+        for (int bin = 0; bin < bins; bin++) {
+            writeRow(out, scheme.getLowerEdge(bin), scheme.getUpperEdge(bin), counts[bin + 1], total);
+        }
+        if (counts[bins + 1] > 0) {
+            writeRow(out, scheme.getUpperEdge(bins - 1), Double.POSITIVE_INFINITY, counts[bins + 1], total);
+        }
+    }
+
+    private static void writeRow(Writer out, double lower, double upper, long count, long total)
+            throws IOException {
+        out.write(String.valueOf(lower));
+        out.write('\t');
+        out.write(String.valueOf(upper));
+        out.write('\t');
+        out.write(String.valueOf(count));
+        out.write('\t');
+        out.write(String.valueOf(total == 0 ? 0.0 : (double) count / total));
+        out.write('\n');
+    }
+
+    private static void add(long[] counts, long[] other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other[i];
+        }
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
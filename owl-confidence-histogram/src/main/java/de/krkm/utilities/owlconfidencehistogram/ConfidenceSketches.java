@@ -0,0 +1,192 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.semanticweb.owlapi.model.AxiomType;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Quantile sketches of the confidence values of each axiom type and of all values in aggregate. The sketches of
+ * different ontologies can be written to files and merged later on without reprocessing the ontologies.
+ *
+ * @see QuantileSketch
+ */
+public class ConfidenceSketches implements ConfidenceValueHandler {
+    private final static int MAGIC = 0x43534b31;
+    private final static int VERSION = 1;
+
+    private int k;
+    private QuantileSketch aggregated;
+    private HashMap<AxiomType<?>, QuantileSketch> typeSketches = new HashMap<AxiomType<?>, QuantileSketch>();
+
+    /**
+     * Initializes empty sketches using the default accuracy parameter
+     */
+    public ConfidenceSketches() {
+        this(QuantileSketch.DEFAULT_K);
+    }
+
+    /**
+     * Initializes empty sketches using the given accuracy parameter
+     *
+     * @param k accuracy parameter of the sketches
+     * @see QuantileSketch#QuantileSketch(int)
+     */
+    public ConfidenceSketches(int k) {
+        this.k = k;
+        this.aggregated = new QuantileSketch(k);
+    }
+
+    public void handle(AxiomType<?> type, double confidence) {
+        getOrCreate(type).update(confidence);
+        aggregated.update(confidence);
+    }
+
+    /**
+     * Returns the sketch of all confidence values
+     *
+     * @return sketch of all confidence values
+     */
+    public QuantileSketch getSketch() {
+        return aggregated;
+    }
+
+    /**
+     * Returns the sketch of the confidence values of the given axiom type
+     *
+     * @param type axiom type to return sketch for
+     * @return sketch of the confidence values of the axiom type or null if there are no such values
+     */
+    public QuantileSketch getSketch(AxiomType<?> type) {
+        return typeSketches.get(type);
+    }
+
+    /**
+     * Returns all axiom types for which sketches exist
+     *
+     * @return immutable set of axiom types having a sketch
+     */
+    public Set<AxiomType<?>> getAxiomTypes() {
+        return Collections.unmodifiableSet(typeSketches.keySet());
+    }
+
+    /**
+     * Merges the given sketches into these sketches
+     *
+     * @param other sketches to merge into these ones
+     * @throws IllegalArgumentException if the sketches have different accuracy parameters
+     */
+    public void merge(ConfidenceSketches other) {
+        aggregated.merge(other.aggregated);
+        for (Map.Entry<AxiomType<?>, QuantileSketch> entry : other.typeSketches.entrySet()) {
+            getOrCreate(entry.getKey()).merge(entry.getValue());
+        }
+    }
+
+    /**
+     * Writes a table of the given quantiles per axiom type to <code>out</code>. Each line contains the axiom type,
+     * the number of values and the quantiles separated by tabs. The first data line contains the quantiles of all
+     * values and uses <code>all</code> as axiom type.
+     *
+     * @param fractions fractions of the quantiles to write
+     * @param out       writer to write table to
+     * @throws IOException on errors writing the table
+     */
+    public void writeQuantileTable(double[] fractions, Writer out) throws IOException {
+        out.write("# type\tcount");
+        for (double fraction : fractions) {
+            out.write("\tq" + fraction);
+        }
+        out.write('\n');
+        writeQuantileRow("all", aggregated, fractions, out);
+        for (Map.Entry<AxiomType<?>, QuantileSketch> entry : typeSketches.entrySet()) {
+            writeQuantileRow(Main.filterAxiomTypeName(entry.getKey()), entry.getValue(), fractions, out);
+        }
+    }
+
+    /**
+     * Writes the sketches to the given file
+     *
+     * @param file file to write sketches to
+     * @throws IOException on errors writing the file
+     */
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            aggregated.write(out);
+            out.writeInt(typeSketches.size());
+            for (Map.Entry<AxiomType<?>, QuantileSketch> entry : typeSketches.entrySet()) {
+                out.writeUTF(Main.getAxiomTypeName(entry.getKey()));
+                entry.getValue().write(out);
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads sketches written by {@link #write(java.io.File)} from the given file
+     *
+     * @param file file to read sketches from
+     * @return sketches contained in the file
+     * @throws IOException on errors reading the file or if it does not contain valid sketches
+     */
+    public static ConfidenceSketches read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("File " + file + " does not contain confidence sketches");
+            }
+            QuantileSketch aggregated = QuantileSketch.read(in);
+            ConfidenceSketches sketches = new ConfidenceSketches(aggregated.getK());
+            sketches.aggregated = aggregated;
+            int types = in.readInt();
+            for (int i = 0; i < types; i++) {
+                String name = in.readUTF();
+                AxiomType<?> type = AxiomType.getAxiomType(name);
+                if (type == null && !name.equals(Main.UNKNOWN_AXIOM_TYPE)) {
+                    throw new IOException("Unknown axiom type '" + name + "' in file " + file);
+                }
+                QuantileSketch sketch = QuantileSketch.read(in);
+                if (sketch.getK() != aggregated.getK()) {
+                    throw new IOException("Inconsistent sketch parameters in file " + file);
+                }
+                sketches.typeSketches.put(type, sketch);
+            }
+            return sketches;
+        }
+        catch (EOFException e) {
+            throw new IOException("File " + file + " is truncated", e);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private QuantileSketch getOrCreate(AxiomType<?> type) {
+        QuantileSketch sketch = typeSketches.get(type);
+        if (sketch == null) {
+            sketch = new QuantileSketch(k);
+            typeSketches.put(type, sketch);
+        }
+        return sketch;
+    }
+
+    private static void writeQuantileRow(String name, QuantileSketch sketch, double[] fractions, Writer out)
+            throws IOException {
+        out.write(name);
+        out.write('\t');
+        out.write(String.valueOf(sketch.getCount()));
+        for (double quantile : sketch.getQuantiles(fractions)) {
+            out.write('\t');
+            out.write(String.valueOf(quantile));
+        }
+        out.write('\n');
+    }
+}
@@ -0,0 +1,117 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidenceCache;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanException;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanner;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Ways of reading the confidence values of an ontology file
+ */
+public enum ConfidenceSource {
+    /**
+     * load the ontology using the OWLAPI
+     */
+    LOAD {
+        @Override
+        public void extract(File file, List<IRI> iris, int threads, ConfidenceValueHandler handler)
+                throws IOException, OWLOntologyCreationException {
+            InputStream in = new FileInputStream(file);
+            try {
+                // a factory of its own since batches extract several files concurrently
+                ConfidenceValueExtractor.extract(in, AnnotatedAxiomExtractor.getAnnotationsProperties(
+                        new OWLDataFactoryImpl(), iris.toArray(new IRI[iris.size()])), threads, handler);
+            }
+            finally {
+                in.close();
+            }
+        }
+
+        @Override
+        public long estimateMemory(File file) {
+            return LOAD_MEMORY_FACTOR * file.length() + BASE_MEMORY;
+        }
+    },
+    /**
+     * scan the RDF/XML or N-Triples document without loading it
+     */
+    SCAN {
+        @Override
+        public void extract(File file, List<IRI> iris, int threads, ConfidenceValueHandler handler)
+                throws IOException, ConfidenceScanException {
+            InputStream in = new FileInputStream(file);
+            try {
+                ConfidenceValueExtractor.extract(in, ConfidenceScanner.forFileName(file.getName(), iris), handler);
+            }
+            finally {
+                in.close();
+            }
+        }
+
+        @Override
+        public long estimateMemory(File file) {
+            // the scanners only keep the pending reifications in memory
+            return BASE_MEMORY;
+        }
+    },
+    /**
+     * read the values from the cache file next to the ontology file, creating it if necessary
+     */
+    CACHE {
+        @Override
+        public void extract(File file, List<IRI> iris, int threads, ConfidenceValueHandler handler)
+                throws IOException, OWLOntologyCreationException {
+            AxiomConfidenceCache cache = AxiomConfidenceCache.openOrCreate(file, iris, threads);
+            try {
+                ConfidenceValueExtractor.extract(cache, handler);
+            }
+            finally {
+                cache.close();
+            }
+        }
+
+        @Override
+        public long estimateMemory(File file) {
+            File cacheFile = AxiomConfidenceCache.getCacheFile(file);
+            if (cacheFile.exists() && cacheFile.lastModified() >= file.lastModified()) {
+                // the cache is memory-mapped
+                return BASE_MEMORY;
+            }
+            return LOAD.estimateMemory(file);
+        }
+    };
+
+    /**
+     * rough ratio between the heap used by the OWLAPI for a loaded ontology and the size of its document
+     */
+    private final static long LOAD_MEMORY_FACTOR = 10;
+    private final static long BASE_MEMORY = 32L * 1024 * 1024;
+
+    /**
+     * Passes the confidence values of the ontology contained in <code>file</code> to <code>handler</code>
+     *
+     * @param file    file containing the ontology
+     * @param iris    IRIs of the annotation properties containing confidence values ordered by descending priority
+     * @param threads number of threads to use for extracting annotated axioms
+     * @param handler handler to pass confidence values to
+     * @throws IOException                  on errors reading the file
+     * @throws ConfidenceScanException      on errors scanning the ontology document
+     * @throws OWLOntologyCreationException on errors loading the ontology
+     */
+    public abstract void extract(File file, List<IRI> iris, int threads, ConfidenceValueHandler handler)
+            throws IOException, ConfidenceScanException, OWLOntologyCreationException;
+
+    /**
+     * Returns a rough estimate of the heap required for reading the confidence values of the given file
+     *
+     * @param file file containing the ontology
+     * @return estimated memory usage in bytes
+     */
+    public abstract long estimateMemory(File file);
+}
@@ -1,19 +1,29 @@
 package de.krkm.utilities.owlconfidencehistogram;
 
 import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
-import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidencePair;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidenceCache;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidenceHandler;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanException;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanner;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ReifiedAxiomHandler;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ReifiedAxiomTypes;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
 
 import java.io.InputStream;
 import java.util.*;
 
 /**
- * Provides methods to extract the confidence values from annotated ontologies.
+ * Provides methods to extract the confidence values from annotated ontologies. Collected values are stored in
+ * primitive columns, thus, each value takes 16 bytes: 8 bytes in the aggregated column and 8 bytes in the column of
+ * its axiom type. For computing histograms or quantiles of large ontologies, use the static <code>extract</code>
+ * methods instead which do not collect the values at all.
  */
 public class ConfidenceValueExtractor {
-    private HashMap<AxiomType<?>, List<Double>> confidenceLists;
-    private List<Double> aggregatedConfidenceList;
+    private HashMap<AxiomType<?>, DoubleColumn> confidenceColumns;
+    private DoubleColumn aggregatedConfidenceColumn;
+    private ConfidenceValueHandler collector;
 
     /**
      * Initialize the internal list of annotated axioms contained in the ontology given by <code>in</code>. Only axioms
@@ -27,60 +37,219 @@ public class ConfidenceValueExtractor {
      */
     public ConfidenceValueExtractor(InputStream in, ArrayList<OWLAnnotationProperty> properties)
             throws OWLOntologyCreationException {
-        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        this(in, properties, 1);
+    }
+
+    /**
+     * Initialize the internal list of annotated axioms contained in the ontology given by <code>in</code> using
+     * <code>threads</code> threads for extracting the annotated axioms.
+     *
+     * @param in         stream containing the ontology to read
+     * @param properties annotation properties which contain confidence values
+     * @param threads    number of threads to use for extracting annotated axioms
+     * @throws OWLOntologyCreationException error loading the ontology
+     * @see AnnotatedAxiomExtractor#setParallelism(int)
+     */
+    public ConfidenceValueExtractor(InputStream in, ArrayList<OWLAnnotationProperty> properties, int threads)
+            throws OWLOntologyCreationException {
+        init();
+        extract(in, properties, threads, collector);
+    }
+
+    /**
+     * Initialize the internal list of annotated axioms by scanning the ontology document given by <code>in</code>
+     * using <code>scanner</code>. The ontology is not loaded into the OWLAPI, thus, this is much faster for large
+     * documents. Axiom types are derived from the reified axioms as described in {@link ReifiedAxiomTypes}, values of
+     * axioms whose type cannot be determined are collected for the type <code>null</code>.
+     *
+     * @param in      stream containing the ontology document to scan
+     * @param scanner scanner to use for finding annotated axioms
+     * @throws ConfidenceScanException error reading or parsing the ontology document
+     */
+    public ConfidenceValueExtractor(InputStream in, ConfidenceScanner scanner) throws ConfidenceScanException {
+        init();
+        extract(in, scanner, collector);
+    }
+
+    /**
+     * Initialize the internal list of annotated axioms from the given cache. Confidence values are added in ascending
+     * order.
+     *
+     * @param cache cache of the annotated axioms of an ontology
+     */
+    public ConfidenceValueExtractor(AxiomConfidenceCache cache) {
+        init();
+        extract(cache, collector);
+    }
+
+    /**
+     * Loads the ontology given by <code>in</code> and passes the confidence values of its annotated axioms to
+     * <code>handler</code> without collecting them. The ontology is loaded using a data factory of its own, thus,
+     * several ontologies may be processed concurrently.
+     *
+     * @param in         stream containing the ontology to read
+     * @param properties annotation properties which contain confidence values
+     * @param threads    number of threads to use for extracting annotated axioms
+     * @param handler    handler to pass confidence values to, always called from the calling thread
+     * @throws OWLOntologyCreationException error loading the ontology
+     */
+    public static void extract(InputStream in, ArrayList<OWLAnnotationProperty> properties, int threads,
+                               final ConfidenceValueHandler handler) throws OWLOntologyCreationException {
+        // data factories are not thread-safe, thus, do not share the global one with concurrent extractions
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager(new OWLDataFactoryImpl());
         OWLOntology ontology = manager.loadOntologyFromOntologyDocument(in);
         AnnotatedAxiomExtractor aae = new AnnotatedAxiomExtractor(properties);
+        aae.setParallelism(threads);
 
-        confidenceLists = new HashMap<AxiomType<?>, List<Double>>();
-        aggregatedConfidenceList = new LinkedList<Double>();
+        // the order of the extracted axioms is irrelevant here, thus, we do not need to keep them in a queue
+        aae.extract(ontology, new AxiomConfidenceHandler() {
+            public void handle(OWLAxiom axiom, double confidence) {
+                handler.handle(axiom.getAxiomType(), confidence);
+            }
+        });
+    }
 
-        PriorityQueue<AxiomConfidencePair> axioms = aae.extract(ontology);
+    /**
+     * Scans the ontology document given by <code>in</code> using <code>scanner</code> and passes the confidence
+     * values of its annotated axioms to <code>handler</code> without collecting them. Axioms depending on the kind of
+     * a property declared later in the document are kept until the end of the scan, axioms whose type cannot be
+     * determined at all are passed using the type <code>null</code>.
+     *
+     * @param in      stream containing the ontology document to scan
+     * @param scanner scanner to use for finding annotated axioms
+     * @param handler handler to pass confidence values to
+     * @throws ConfidenceScanException error reading or parsing the ontology document
+     */
+    public static void extract(InputStream in, ConfidenceScanner scanner, final ConfidenceValueHandler handler)
+            throws ConfidenceScanException {
+        final ReifiedAxiomTypes types = new ReifiedAxiomTypes();
+        final ArrayList<UnresolvedAxiom> unresolved = new ArrayList<UnresolvedAxiom>();
+        scanner.scan(in, new ReifiedAxiomHandler() {
+            public void handle(String source, String property, String target, boolean targetLiteral,
+                               double confidence) {
+                AxiomType<?> type = types.getAxiomType(source, property, target, targetLiteral);
+                if (type == null) {
+                    unresolved.add(new UnresolvedAxiom(source, property, target, targetLiteral, confidence));
+                }
+                else {
+                    handler.handle(type, confidence);
+                }
+            }
+        }, types);
+        for (UnresolvedAxiom axiom : unresolved) {
+            handler.handle(types.getAxiomType(axiom.source, axiom.property, axiom.target, axiom.targetLiteral),
+                           axiom.confidence);
+        }
+    }
 
-        // we just ignore the order in the priority queue as we do not need it
-        for (AxiomConfidencePair pair : axioms) {
-            OWLAxiom axiom = pair.getAxiom();
-            Double conf = pair.getConfidence();
+    /**
+     * Reified axiom whose type depends on a property not declared before it
+     */
+    private static class UnresolvedAxiom {
+        private String source;
+        private String property;
+        private String target;
+        private boolean targetLiteral;
+        private double confidence;
 
-            AxiomType<?> axiomType = axiom.getAxiomType();
-            if (!confidenceLists.containsKey(axiomType)) {
-                confidenceLists.put(axiomType, new LinkedList<Double>());
+        private UnresolvedAxiom(String source, String property, String target, boolean targetLiteral,
+                                double confidence) {
+            this.source = source;
+            this.property = property;
+            this.target = target;
+            this.targetLiteral = targetLiteral;
+            this.confidence = confidence;
+        }
+    }
+
+    /**
+     * Passes the confidence values contained in <code>cache</code> to <code>handler</code> in ascending order
+     *
+     * @param cache   cache of the annotated axioms of an ontology
+     * @param handler handler to pass confidence values to
+     */
+    public static void extract(AxiomConfidenceCache cache, ConfidenceValueHandler handler) {
+        for (int i = 0; i < cache.size(); i++) {
+            handler.handle(cache.getAxiomType(i), cache.getConfidence(i));
+        }
+    }
+
+    private void init() {
+        confidenceColumns = new HashMap<AxiomType<?>, DoubleColumn>();
+        aggregatedConfidenceColumn = new DoubleColumn();
+        collector = new ConfidenceValueHandler() {
+            public void handle(AxiomType<?> type, double confidence) {
+                addConfidence(type, confidence);
             }
+        };
+    }
 
-            confidenceLists.get(axiomType).add(conf);
-            aggregatedConfidenceList.add(conf);
+    private void addConfidence(AxiomType<?> axiomType, double confidence) {
+        DoubleColumn column = confidenceColumns.get(axiomType);
+        if (column == null) {
+            column = new DoubleColumn();
+            confidenceColumns.put(axiomType, column);
         }
+
+        column.add(confidence);
+        aggregatedConfidenceColumn.add(confidence);
+    }
+
+    /**
+     * Returns a copy of all confidence values contained in the ontology
+     *
+     * @return array of all confidence values contained in the ontology
+     */
+    public double[] getConfidenceValueArray() {
+        return aggregatedConfidenceColumn.toArray();
+    }
+
+    /**
+     * Returns a copy of all confidence values for the given OWLAPI AxiomType <code>type</code>
+     *
+     * @param type axiom type to return values for
+     * @return array of confidence values for given axiom type, empty if there are no such values
+     */
+    public double[] getConfidenceValueArray(AxiomType<?> type) {
+        DoubleColumn column = confidenceColumns.get(type);
+        return column == null ? new double[0] : column.toArray();
     }
 
     /**
-     * Returns an immutable list of all confidence values contained in the ontology
+     * Returns an immutable list of all confidence values contained in the ontology. The values are boxed on access,
+     * prefer {@link #getConfidenceValueArray()} for processing many values.
      *
      * @return immutable list of all confidence values contained in the ontology
      */
     public List<Double> getConfidenceValues() {
-        return Collections.unmodifiableList(aggregatedConfidenceList);
+        return aggregatedConfidenceColumn.asList();
     }
 
     /**
-     * Returns an immutable list of all confidence values for the given OWLAPI AxiomType <code>type</code>.
+     * Returns an immutable list of all confidence values for the given OWLAPI AxiomType <code>type</code>. The values
+     * are boxed on access, prefer {@link #getConfidenceValueArray(org.semanticweb.owlapi.model.AxiomType)} for
+     * processing many values.
      *
      * @param type axiom type to return values for
      * @return immutable list of confidence values for given axiom type
      */
     public List<Double> getConfidenceValue(AxiomType<?> type) {
-        if (!confidenceLists.containsKey(type)) {
+        DoubleColumn column = confidenceColumns.get(type);
+        if (column == null) {
             return Collections.emptyList();
         }
 
-        return Collections.unmodifiableList(confidenceLists.get(type));
+        return column.asList();
     }
 
     /**
-     * Return all axiom types which are contained in the ontology and annotated with confidence values.
+     * Return all axiom types which are contained in the ontology and annotated with confidence values. When scanning
+     * documents, the set contains <code>null</code> if the type of some axioms could not be determined.
      *
      * @return immutable set of all axiom types used in the ontology in conjunction with confidence values 
      */
     public Set<AxiomType<?>> getUsedAxiomTypes() {
-        return Collections.unmodifiableSet(confidenceLists.keySet());
+        return Collections.unmodifiableSet(confidenceColumns.keySet());
     }
     
 }
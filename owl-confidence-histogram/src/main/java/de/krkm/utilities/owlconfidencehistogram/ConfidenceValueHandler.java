@@ -0,0 +1,16 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.semanticweb.owlapi.model.AxiomType;
+
+/**
+ * Callback for confidence values streamed from an ontology without collecting them first
+ */
+public interface ConfidenceValueHandler {
+    /**
+     * Handles the confidence value of an annotated axiom of the given type
+     *
+     * @param type       type of the annotated axiom, null if unknown
+     * @param confidence confidence value of the axiom
+     */
+    void handle(AxiomType<?> type, double confidence);
+}
@@ -0,0 +1,82 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Growable column of primitive double values. Compared to a list of boxed values, each value only takes 8 bytes and
+ * the values are stored contiguously.
+ */
+class DoubleColumn {
+    private final static int INITIAL_CAPACITY = 16;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Appends the given value to the column
+     *
+     * @param value value to append
+     */
+    public void add(double value) {
+        if (size == values.length) {
+            // grow by 50% to limit the overhead for large columns
+            values = Arrays.copyOf(values, size + (size >> 1));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at the given position
+     *
+     * @param index position of the value
+     * @return value at the given position
+     */
+    public double get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " exceeds size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the number of values in the column
+     *
+     * @return number of values in the column
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the values of the column
+     *
+     * @return copy of the values of the column
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns a read-only list view of the column. Values are boxed when accessed.
+     *
+     * @return read-only list view of the column
+     */
+    public List<Double> asList() {
+        return new ListView();
+    }
+
+    private class ListView extends AbstractList<Double> implements RandomAccess {
+        @Override
+        public Double get(int index) {
+            return DoubleColumn.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
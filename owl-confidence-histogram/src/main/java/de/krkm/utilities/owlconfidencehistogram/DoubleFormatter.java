@@ -0,0 +1,304 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import java.math.BigInteger;
+
+/**
+ * Formats double values using the shortest decimal representation which parses back to the same value. If there are
+ * several shortest representations, the one closest to the value is used. The output uses the same notation as
+ * {@link Double#toString(double)}.
+ * <p/>
+ * The implementation follows the Schubfach algorithm (R. Giulietti: The Schubfach way to render doubles) which only
+ * needs a few 64-bit multiplications per value and writes directly into a character array, thus, formatting does
+ * not create any garbage.
+ */
+public class DoubleFormatter {
+    /**
+     * maximum number of characters of a formatted value, e.g., <code>-2.2250738585072014E-308</code>
+     */
+    public final static int MAX_CHARS = 24;
+
+    private final static int P = 53;
+    private final static int Q_MIN = -1074;
+    private final static long C_MIN = 1L << (P - 1);
+    private final static long T_MASK = C_MIN - 1;
+    private final static int BQ_MASK = 0x7ff;
+    private final static long MASK_63 = (1L << 63) - 1;
+
+    private final static int K_MIN = -324;
+    private final static int K_MAX = 292;
+
+    /**
+     * for each k, the 126-bit approximation g = floor(10^-k 2^-r) + 1 with 2^125 &lt;= g &lt; 2^126 split into the
+     * higher and the lower 63 bits
+     */
+    private final static long[] G1 = new long[K_MAX - K_MIN + 1];
+    private final static long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    private final static long[] LONG_POWERS_OF_TEN = new long[18];
+
+    static {
+        LONG_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+        }
+        BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = flog2pow10(e) - 125;
+            BigInteger numerator = BigInteger.TEN.pow(Math.max(e, 0)).shiftLeft(Math.max(-r, 0));
+            BigInteger denominator = BigInteger.TEN.pow(Math.max(-e, 0)).shiftLeft(Math.max(r, 0));
+            BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.and(mask63).longValue();
+        }
+    }
+
+    /**
+     * Returns the shortest decimal representation of <code>value</code>
+     *
+     * @param value value to format
+     * @return shortest representation of the value
+     */
+    public static String format(double value) {
+        char[] buffer = new char[MAX_CHARS];
+        return new String(buffer, 0, format(value, buffer, 0));
+    }
+
+    /**
+     * Appends the shortest decimal representation of <code>value</code> to <code>builder</code>
+     *
+     * @param builder builder to append value to
+     * @param value   value to format
+     */
+    public static void append(StringBuilder builder, double value) {
+        char[] buffer = new char[MAX_CHARS];
+        builder.append(buffer, 0, format(value, buffer, 0));
+    }
+
+    /**
+     * Writes the shortest decimal representation of <code>value</code> into <code>buffer</code> starting at
+     * <code>offset</code>. The buffer has to provide at least {@link #MAX_CHARS} characters after the offset.
+     *
+     * @param value  value to format
+     * @param buffer buffer to write representation to
+     * @param offset position of the first character to write
+     * @return position after the last written character
+     */
+    public static int format(double value, char[] buffer, int offset) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK) {
+            return append(buffer, offset, t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity");
+        }
+        if (bits < 0) {
+            buffer[offset++] = '-';
+        }
+        if (bq == 0) {
+            if (t == 0) {
+                return append(buffer, offset, "0.0");
+            }
+            // subnormal values do not occur as confidences, they are left to the JDK
+            return append(buffer, offset, Double.toString(Math.abs(value)));
+        }
+
+        int mq = -Q_MIN + 1 - bq;
+        long c = C_MIN | t;
+        if (0 < mq && mq < P) {
+            // integral values below 2^53 are their own shortest representation
+            long f = c >> mq;
+            if (f << mq == c) {
+                return toChars(f, 0, buffer, offset);
+            }
+        }
+        return toDecimal(-mq, c, buffer, offset);
+    }
+
+    /**
+     * Computes the shortest decimal <code>f 10^e</code> in the rounding interval of <code>c 2^q</code>
+     */
+    private static int toDecimal(int q, long c, char[] buffer, int offset) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // the rounding interval is asymmetric at powers of two
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        }
+        else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try the shorter candidates s' 10 and (s' + 1) 10 with s' = floor(s / 10)
+            long sp10 = 10 * multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buffer, offset);
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k, buffer, offset);
+        }
+        // both candidates are in the rounding interval, pick the closer one, ties to even
+        long cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k, buffer, offset);
+    }
+
+    /**
+     * Returns a rounded-to-odd approximation of <code>g cp 2^-127</code>
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    /**
+     * Writes <code>f 10^e</code> in the notation of {@link Double#toString(double)}
+     */
+    private static int toChars(long f, int e, char[] buffer, int offset) {
+        // the algorithm returns 16 or 17 digits, remove trailing zeros in decreasing steps
+        while (f % 100000000L == 0) {
+            f /= 100000000L;
+            e += 8;
+        }
+        if (f % 10000L == 0) {
+            f /= 10000L;
+            e += 4;
+        }
+        if (f % 100L == 0) {
+            f /= 100L;
+            e += 2;
+        }
+        if (f % 10L == 0) {
+            f /= 10L;
+            e++;
+        }
+        int length = 1;
+        while (length < LONG_POWERS_OF_TEN.length && f >= LONG_POWERS_OF_TEN[length]) {
+            length++;
+        }
+        // decimal exponent of the first digit
+        int exponent = e + length - 1;
+
+        if (exponent >= 0 && exponent < 7) {
+            if (length <= exponent + 1) {
+                writeDigits(f, length, buffer, offset + length, -1);
+                for (int i = length; i <= exponent; i++) {
+                    buffer[offset + i] = '0';
+                }
+                buffer[offset + exponent + 1] = '.';
+                buffer[offset + exponent + 2] = '0';
+                return offset + exponent + 3;
+            }
+            writeDigits(f, length, buffer, offset + length + 1, offset + exponent + 1);
+            return offset + length + 1;
+        }
+        if (exponent < 0 && exponent >= -3) {
+            buffer[offset++] = '0';
+            buffer[offset++] = '.';
+            for (int i = -1; i > exponent; i--) {
+                buffer[offset++] = '0';
+            }
+            writeDigits(f, length, buffer, offset + length, -1);
+            return offset + length;
+        }
+
+        if (length == 1) {
+            buffer[offset++] = (char) ('0' + f);
+            buffer[offset++] = '.';
+            buffer[offset++] = '0';
+        }
+        else {
+            writeDigits(f, length, buffer, offset + length + 1, offset + 1);
+            offset += length + 1;
+        }
+        buffer[offset++] = 'E';
+        if (exponent < 0) {
+            buffer[offset++] = '-';
+            exponent = -exponent;
+        }
+        int exponentLength = exponent >= 100 ? 3 : exponent >= 10 ? 2 : 1;
+        writeDigits(exponent, exponentLength, buffer, offset + exponentLength, -1);
+        return offset + exponentLength;
+    }
+
+    /**
+     * Writes the <code>length</code> decimal digits of <code>value</code> right-aligned to <code>end</code>, inserting
+     * a decimal point at position <code>point</code> unless it is negative
+     */
+    private static void writeDigits(long value, int length, char[] buffer, int end, int point) {
+        for (int i = 0; i < length; i++) {
+            if (end - 1 == point) {
+                buffer[--end] = '.';
+            }
+            long quotient = value / 10;
+            buffer[--end] = (char) ('0' + (value - quotient * 10));
+            value = quotient;
+        }
+    }
+
+    private static int append(char[] buffer, int offset, String s) {
+        s.getChars(0, s.length(), buffer, offset);
+        return offset + s.length();
+    }
+
+    /**
+     * Returns the higher 64 bits of the 128-bit product of <code>x</code> and <code>y</code>
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Returns floor(log10(2^e))
+     */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+
+    /**
+     * Returns floor(log10(3/4 2^e))
+     */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661971961083L + -274743187321L >> 41);
+    }
+
+    /**
+     * Returns floor(log2(10^e))
+     */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+}
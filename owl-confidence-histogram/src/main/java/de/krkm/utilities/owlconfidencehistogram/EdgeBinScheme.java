@@ -0,0 +1,73 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import java.util.Arrays;
+
+/**
+ * Partitions a range into bins given by an explicit list of edges. Finding the bin of a value takes O(log b) for b
+ * bins, independent of the number of values already counted.
+ */
+public class EdgeBinScheme implements BinScheme {
+    private double[] edges;
+
+    /**
+     * Initializes a scheme from the given strictly increasing edges. <code>n</code> edges define <code>n-1</code>
+     * bins.
+     *
+     * @param edges strictly increasing bin edges
+     */
+    public EdgeBinScheme(double[] edges) {
+        if (edges.length < 2) {
+            throw new IllegalArgumentException("At least two bin edges are required");
+        }
+        for (int i = 0; i < edges.length; i++) {
+            if (Double.isNaN(edges[i]) || Double.isInfinite(edges[i]) || (i > 0 && !(edges[i - 1] < edges[i]))) {
+                throw new IllegalArgumentException("Bin edges must be finite and strictly increasing");
+            }
+        }
+        this.edges = edges.clone();
+    }
+
+    /**
+     * Parses a comma-separated list of bin edges
+     *
+     * @param edges comma-separated list of strictly increasing bin edges
+     * @return scheme for the given edges
+     * @throws IllegalArgumentException if the list contains invalid numbers or the edges are not increasing
+     */
+    public static EdgeBinScheme parse(String edges) {
+        String[] parts = edges.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                values[i] = Double.parseDouble(parts[i].trim());
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid bin edge '" + parts[i].trim() + "'");
+            }
+        }
+        return new EdgeBinScheme(values);
+    }
+
+    public int getBinCount() {
+        return edges.length - 1;
+    }
+
+    public int getBin(double value) {
+        int pos = Arrays.binarySearch(edges, value);
+        if (pos >= 0) {
+            // the upper edge of the last bin belongs to the last bin
+            return Math.min(pos, edges.length - 2);
+        }
+        // pos is -(insertion point) - 1, the bin ends at the insertion point
+        int insertion = -pos - 1;
+        return insertion == edges.length ? edges.length - 1 : insertion - 1;
+    }
+
+    public double getLowerEdge(int bin) {
+        return edges[bin];
+    }
+
+    public double getUpperEdge(int bin) {
+        return edges[bin + 1];
+    }
+}
@@ -0,0 +1,87 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+/**
+ * Partitions the range between a lower and an upper bound into bins of equal width
+ */
+public class FixedWidthBinScheme implements BinScheme {
+    private double lower;
+    private double upper;
+    private int bins;
+    private double scale;
+
+    /**
+     * Initializes a scheme of <code>bins</code> bins of equal width between <code>lower</code> and
+     * <code>upper</code>
+     *
+     * @param lower lower bound of the first bin
+     * @param upper upper bound of the last bin
+     * @param bins  number of bins
+     */
+    public FixedWidthBinScheme(double lower, double upper, int bins) {
+        if (bins < 1) {
+            throw new IllegalArgumentException("Number of bins must be positive");
+        }
+        if (!(lower < upper) || Double.isInfinite(lower) || Double.isInfinite(upper)) {
+            throw new IllegalArgumentException("Invalid range [" + lower + ", " + upper + "]");
+        }
+        this.lower = lower;
+        this.upper = upper;
+        this.bins = bins;
+        this.scale = bins / (upper - lower);
+    }
+
+    /**
+     * Returns the lower bound of the first bin
+     *
+     * @return lower bound of the first bin
+     */
+    public double getLower() {
+        return lower;
+    }
+
+    /**
+     * Returns the upper bound of the last bin
+     *
+     * @return upper bound of the last bin
+     */
+    public double getUpper() {
+        return upper;
+    }
+
+    public int getBinCount() {
+        return bins;
+    }
+
+    public int getBin(double value) {
+        if (value < lower) {
+            return -1;
+        }
+        if (value > upper) {
+            return bins;
+        }
+        // rounding might push values close to the upper bound beyond the last bin
+        return correctBin(value, Math.min((int) ((value - lower) * scale), bins - 1));
+    }
+
+    /**
+     * Moves values lying on a bin edge, which rounding might have assigned to the neighboring bin, to the bin having
+     * the value as its lower edge as reported by {@link #getLowerEdge(int)}
+     */
+    private int correctBin(double value, int bin) {
+        if (value < getLowerEdge(bin)) {
+            return bin - 1;
+        }
+        if (bin + 1 < bins && value >= getLowerEdge(bin + 1)) {
+            return bin + 1;
+        }
+        return bin;
+    }
+
+    public double getLowerEdge(int bin) {
+        return lower + bin / scale;
+    }
+
+    public double getUpperEdge(int bin) {
+        return bin == bins - 1 ? upper : lower + (bin + 1) / scale;
+    }
+}
@@ -0,0 +1,58 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.semanticweb.owlapi.model.AxiomType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects streamed confidence values per axiom type into chunks and adds each full chunk to a
+ * {@link ConfidenceHistogram} at once, thus, the values are binned by the fastest available {@link BinningKernel}
+ * instead of one by one. {@link #flush()} has to be called after the last value to add the partially filled chunks.
+ */
+public class HistogramBuffer implements ConfidenceValueHandler {
+    private final static int CHUNK_SIZE = 8192;
+
+    private ConfidenceHistogram histogram;
+    private HashMap<AxiomType<?>, Chunk> chunks = new HashMap<AxiomType<?>, Chunk>();
+
+    /**
+     * Initializes a buffer adding its values to the given histogram
+     *
+     * @param histogram histogram to add values to
+     */
+    public HistogramBuffer(ConfidenceHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    public void handle(AxiomType<?> type, double confidence) {
+        Chunk chunk = chunks.get(type);
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunks.put(type, chunk);
+        }
+        chunk.values[chunk.size++] = confidence;
+        if (chunk.size == CHUNK_SIZE) {
+            histogram.addAll(type, chunk.values, 0, CHUNK_SIZE);
+            chunk.size = 0;
+        }
+    }
+
+    /**
+     * Adds all buffered values to the histogram
+     */
+    public void flush() {
+        for (Map.Entry<AxiomType<?>, Chunk> entry : chunks.entrySet()) {
+            Chunk chunk = entry.getValue();
+            if (chunk.size > 0) {
+                histogram.addAll(entry.getKey(), chunk.values, 0, chunk.size);
+                chunk.size = 0;
+            }
+        }
+    }
+
+    private static class Chunk {
+        private double[] values = new double[CHUNK_SIZE];
+        private int size;
+    }
+}
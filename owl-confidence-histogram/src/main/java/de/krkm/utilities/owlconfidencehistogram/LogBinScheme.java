@@ -0,0 +1,89 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+/**
+ * Partitions the range between a positive lower and an upper bound into bins of equal width on a logarithmic scale,
+ * i.e., the ratio between the upper and lower edge is the same for all bins. This resolves the many small values
+ * typically found in confidence distributions better than fixed-width bins.
+ */
+public class LogBinScheme implements BinScheme {
+    private double lower;
+    private double upper;
+    private double logLower;
+    private int bins;
+    private double scale;
+
+    /**
+     * Initializes a scheme of <code>bins</code> logarithmic bins between <code>lower</code> and <code>upper</code>
+     *
+     * @param lower positive lower bound of the first bin
+     * @param upper upper bound of the last bin
+     * @param bins  number of bins
+     */
+    public LogBinScheme(double lower, double upper, int bins) {
+        if (bins < 1) {
+            throw new IllegalArgumentException("Number of bins must be positive");
+        }
+        if (!(lower > 0) || !(lower < upper) || Double.isInfinite(upper)) {
+            throw new IllegalArgumentException("Invalid range [" + lower + ", " + upper + "] for logarithmic bins");
+        }
+        this.lower = lower;
+        this.upper = upper;
+        this.bins = bins;
+        this.logLower = Math.log(lower);
+        this.scale = bins / (Math.log(upper) - logLower);
+    }
+
+    /**
+     * Returns the lower bound of the first bin
+     *
+     * @return lower bound of the first bin
+     */
+    public double getLower() {
+        return lower;
+    }
+
+    /**
+     * Returns the upper bound of the last bin
+     *
+     * @return upper bound of the last bin
+     */
+    public double getUpper() {
+        return upper;
+    }
+
+    public int getBinCount() {
+        return bins;
+    }
+
+    public int getBin(double value) {
+        if (value < lower) {
+            return -1;
+        }
+        if (value > upper) {
+            return bins;
+        }
+        return correctBin(value, Math.min((int) ((Math.log(value) - logLower) * scale), bins - 1));
+    }
+
+    /**
+     * Moves values lying on a bin edge, which rounding might have assigned to the neighboring bin, to the bin having
+     * the value as its lower edge as reported by {@link #getLowerEdge(int)}
+     */
+    private int correctBin(double value, int bin) {
+        if (value < getLowerEdge(bin)) {
+            return bin - 1;
+        }
+        if (bin + 1 < bins && value >= getLowerEdge(bin + 1)) {
+            return bin + 1;
+        }
+        return bin;
+    }
+
+    public double getLowerEdge(int bin) {
+        return bin == 0 ? lower : Math.exp(logLower + bin / scale);
+    }
+
+    public double getUpperEdge(int bin) {
+        return bin == bins - 1 ? upper : Math.exp(logLower + (bin + 1) / scale);
+    }
+}
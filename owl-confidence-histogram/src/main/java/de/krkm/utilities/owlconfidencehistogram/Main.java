@@ -1,30 +1,96 @@
 package de.krkm.utilities.owlconfidencehistogram;
 
 import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
+import de.krkm.utilities.annotatedaxiomextractor.AxiomConfidenceCache;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanException;
+import de.krkm.utilities.annotatedaxiomextractor.scanner.ConfidenceScanner;
 import org.apache.commons.cli.*;
-import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Provides the command-line entry point for the confidence value extractor
  */
 public class Main {
+    /**
+     * name used for axioms whose type could not be determined
+     */
+    public final static String UNKNOWN_AXIOM_TYPE = "Unknown";
+
     @SuppressWarnings("AccessStaticViaInstance")
     public static void main(String[] args) {
         Options options = new Options();
-        options.addOption(OptionBuilder.withLongOpt("ontology").hasArg().isRequired()
+        options.addOption(OptionBuilder.withLongOpt("ontology").hasArg()
                                        .withArgName("FILENAME")
-                                       .withDescription("file to read ontology from").create("o"));
+                                       .withDescription("file to read ontology from, required unless --merge is " +
+                                                        "given").create("o"));
         options.addOption(OptionBuilder.withLongOpt("out").hasArg().isRequired()
                                        .withArgName("DIRECTORY")
                                        .withDescription("directory to write confidence value files to").create
                         ("out"));
-
+        options.addOption(OptionBuilder.withLongOpt("threads").hasArg().withArgName("NUMBER")
+                                       .withDescription("number of threads used for extracting confidence values")
+                                       .create("t"));
+        options.addOption(OptionBuilder.withLongOpt("scan")
+                                       .withDescription("scan RDF/XML or N-Triples (.nt) document for annotated " +
+                                                        "axioms instead of loading the ontology")
+                                       .create("scan"));
+        options.addOption(OptionBuilder.withLongOpt("cache")
+                                       .withDescription("read confidence values from the cache file next to the " +
+                                                        "ontology file and create it if it is missing or outdated")
+                                       .create("c"));
+        options.addOption(OptionBuilder.withLongOpt("bins").hasArg().withArgName("NUMBER")
+                                       .withDescription("write histogram tables of NUMBER fixed-width bins instead " +
+                                                        "of the raw confidence values")
+                                       .create("b"));
+        options.addOption(OptionBuilder.withLongOpt("log-bins").hasArg().withArgName("NUMBER")
+                                       .withDescription("write histogram tables of NUMBER logarithmic bins instead " +
+                                                        "of the raw confidence values")
+                                       .create("lb"));
+        options.addOption(OptionBuilder.withLongOpt("edges").hasArg().withArgName("LIST")
+                                       .withDescription("write histogram tables of the bins given by the " +
+                                                        "comma-separated list of increasing edges instead of the " +
+                                                        "raw confidence values")
+                                       .create("e"));
+        options.addOption(OptionBuilder.withLongOpt("lower").hasArg().withArgName("VALUE")
+                                       .withDescription("lower bound of fixed-width (default 0) and logarithmic " +
+                                                        "(default 0.001) bins")
+                                       .create("l"));
+        options.addOption(OptionBuilder.withLongOpt("upper").hasArg().withArgName("VALUE")
+                                       .withDescription("upper bound of fixed-width and logarithmic bins (default 1)")
+                                       .create("u"));
+        options.addOption(OptionBuilder.withLongOpt("sketch").hasArg().withArgName("FILENAME")
+                                       .withDescription("write mergeable quantile sketches of the confidence values " +
+                                                        "to FILENAME and a quantile table instead of the raw values")
+                                       .create("s"));
+        options.addOption(OptionBuilder.withLongOpt("merge").hasArg().withArgName("LIST")
+                                       .withDescription("merge the comma-separated list of sketch files and write " +
+                                                        "the quantile table instead of reading an ontology")
+                                       .create("m"));
+        options.addOption(OptionBuilder.withLongOpt("quantiles").hasArg().withArgName("LIST")
+                                       .withDescription("comma-separated list of quantiles written to the quantile " +
+                                                        "table (default 0.05,0.5,0.95)")
+                                       .create("q"));
+        options.addOption(OptionBuilder.withLongOpt("batch").hasArg().withArgName("PATTERN")
+                                       .withDescription("process all ontologies in the given directory or matching " +
+                                                        "the given glob concurrently, --threads limits the number " +
+                                                        "of ontologies processed at the same time")
+                                       .create("batch"));
+        options.addOption(OptionBuilder.withLongOpt("memory").hasArg().withArgName("MB")
+                                       .withDescription("memory budget in megabytes bounding the number of " +
+                                                        "ontologies processed concurrently in batch mode " +
+                                                        "(default: maximum heap size)")
+                                       .create("mem"));
+        options.addOption(OptionBuilder.withLongOpt("format").hasArg().withArgName("FORMAT")
+                                       .withDescription("format of the raw confidence value files, either text " +
+                                                        "(default) or binary little-endian double columns")
+                                       .create("f"));
 
         CommandLineParser parser = new PosixParser();
         ArrayList<IRI> iris = new ArrayList<IRI>();
@@ -32,8 +98,24 @@ public class Main {
         iris.add(IRI.create("http://www.dl-learner.org/enrichment.owl#confidence"));
 
         CommandLine line = null;
+        BinScheme scheme = null;
+        double[] quantiles = null;
         try {
             line = parser.parse(options, args);
+            if (line.hasOption("scan") && line.hasOption("c")) {
+                throw new ParseException("Options --scan and --cache are mutually exclusive");
+            }
+            int inputs = (line.hasOption("o") ? 1 : 0) + (line.hasOption("m") ? 1 : 0) +
+                    (line.hasOption("batch") ? 1 : 0);
+            if (inputs != 1) {
+                throw new ParseException("Exactly one of the options --ontology, --merge and --batch is required");
+            }
+            if (line.hasOption("f") && !line.getOptionValue("f").equals("text") &&
+                    !line.getOptionValue("f").equals("binary")) {
+                throw new ParseException("Unknown format " + line.getOptionValue("f"));
+            }
+            scheme = getBinScheme(line);
+            quantiles = getQuantiles(line);
         }
         catch (ParseException e) {
             System.err.println("Unable to parse arguments: " + e.getMessage());
@@ -44,14 +126,15 @@ public class Main {
 
         String inFileName = line.getOptionValue("o");
         String outDirName = line.getOptionValue("out");
-
-        FileInputStream in = null;
-        try {
-            in = new FileInputStream(inFileName);
-        }
-        catch (FileNotFoundException e) {
-            System.err.format("Unable to open file '%s': %s", inFileName, e.getMessage());
-            System.exit(2);
+        int threads = line.hasOption("batch") ? Runtime.getRuntime().availableProcessors() : 1;
+        if (line.hasOption("t")) {
+            try {
+                threads = Integer.parseInt(line.getOptionValue("t"));
+            }
+            catch (NumberFormatException e) {
+                System.err.println("Invalid number of threads: " + line.getOptionValue("t"));
+                System.exit(1);
+            }
         }
 
         File outDir = new File(outDirName);
@@ -63,38 +146,139 @@ public class Main {
             }
         }
 
+        if (line.hasOption("m")) {
+            try {
+                ConfidenceSketches merged = null;
+                for (String fileName : line.getOptionValue("m").split(",")) {
+                    ConfidenceSketches sketches = ConfidenceSketches.read(new File(fileName.trim()));
+                    if (merged == null) {
+                        merged = sketches;
+                    }
+                    else {
+                        merged.merge(sketches);
+                    }
+                }
+                writeSketches(merged, line.getOptionValue("s"), outDir, quantiles);
+            }
+            catch (IllegalArgumentException e) {
+                System.err.println("Unable to merge sketches: " + e.getMessage());
+                System.exit(1);
+            }
+            catch (IOException e) {
+                System.err.println("Unable to read or write file: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (line.hasOption("batch")) {
+            long memoryBudget = Runtime.getRuntime().maxMemory();
+            try {
+                if (line.hasOption("mem")) {
+                    memoryBudget = Long.parseLong(line.getOptionValue("mem")) * 1024 * 1024;
+                }
+            }
+            catch (NumberFormatException e) {
+                System.err.println("Invalid memory budget: " + line.getOptionValue("mem"));
+                System.exit(1);
+            }
+            try {
+                BatchProcessor processor = new BatchProcessor(getSource(line), iris, scheme, quantiles);
+                List<File> files = BatchProcessor.resolve(line.getOptionValue("batch"));
+                if (files.isEmpty()) {
+                    System.err.println("No ontologies found for " + line.getOptionValue("batch"));
+                    System.exit(1);
+                }
+                ConfidenceSketches merged =
+                        processor.run(files, outDir, processor.getWorkerCount(files, memoryBudget, threads));
+                if (line.hasOption("s")) {
+                    merged.write(new File(line.getOptionValue("s")));
+                }
+            }
+            catch (BatchException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            catch (IOException e) {
+                System.err.println("Unable to read or write file: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(inFileName);
+        }
+        catch (FileNotFoundException e) {
+            System.err.format("Unable to open file '%s': %s", inFileName, e.getMessage());
+            System.exit(2);
+        }
+
         try {
-            ConfidenceValueExtractor cve = new ConfidenceValueExtractor(in, AnnotatedAxiomExtractor
-                    .getAnnotationsProperties(
-                            OWLManager.getOWLDataFactory(), iris.toArray(new IRI[iris.size()])));
+            if (scheme != null || line.hasOption("s")) {
+                // only bin counters and sketches are kept in memory
+                ConfidenceHistogram histogram = scheme == null ? null : new ConfidenceHistogram(scheme);
+                final HistogramBuffer buffer = histogram == null ? null : new HistogramBuffer(histogram);
+                final ConfidenceSketches sketches = line.hasOption("s") ? new ConfidenceSketches() : null;
+                getSource(line).extract(new File(inFileName), iris, threads, new ConfidenceValueHandler() {
+                    public void handle(AxiomType<?> type, double confidence) {
+                        if (buffer != null) {
+                            buffer.handle(type, confidence);
+                        }
+                        if (sketches != null) {
+                            sketches.handle(type, confidence);
+                        }
+                    }
+                });
+                if (buffer != null) {
+                    buffer.flush();
+                }
 
-            BufferedWriter writer = new BufferedWriter(
-                    new FileWriter(outDir.getAbsolutePath() + File.separator + "aggregated.txt"));
+                if (histogram != null) {
+                    writeHistogram(histogram, outDir);
+                }
+                if (sketches != null) {
+                    writeSketches(sketches, line.getOptionValue("s"), outDir, quantiles);
+                }
+                return;
+            }
 
-            for (Double val : cve.getConfidenceValues()) {
-                writer.write(String.valueOf(val));
-                writer.newLine();
+            ConfidenceValueExtractor cve;
+            if (line.hasOption("c")) {
+                AxiomConfidenceCache cache = AxiomConfidenceCache.openOrCreate(new File(inFileName), iris, threads);
+                try {
+                    cve = new ConfidenceValueExtractor(cache);
+                }
+                finally {
+                    cache.close();
+                }
+            }
+            else if (line.hasOption("scan")) {
+                cve = new ConfidenceValueExtractor(in, ConfidenceScanner.forFileName(inFileName, iris));
+            }
+            else {
+                cve = new ConfidenceValueExtractor(in, AnnotatedAxiomExtractor
+                        .getAnnotationsProperties(
+                                new OWLDataFactoryImpl(), iris.toArray(new IRI[iris.size()])), threads);
             }
-            writer.close();
 
+            boolean binary = line.getOptionValue("f", "text").equals("binary");
+            writeValues(cve.getConfidenceValueArray(), "all", new File(outDir, "aggregated"), binary);
             for (AxiomType<?> type : cve.getUsedAxiomTypes()) {
-                writer = new BufferedWriter(
-                        new FileWriter(outDir.getAbsolutePath() + File.separator + filterAxiomTypeName(type) + "" +
-                                               ".txt"));
-
-                for (Double val : cve.getConfidenceValue(type)) {
-                    writer.write(String.valueOf(val));
-                    writer.newLine();
-                }
-                writer.close();
+                writeValues(cve.getConfidenceValueArray(type), getAxiomTypeName(type),
+                            new File(outDir, filterAxiomTypeName(type)), binary);
             }
 
         }
         catch (OWLOntologyCreationException e) {
             System.err.println("Unable to load ontology: " + e.getMessage());
         }
+        catch (ConfidenceScanException e) {
+            System.err.println("Unable to scan ontology: " + e.getMessage());
+        }
         catch (IOException e) {
-            System.err.println("Unable to write output file: " + e.getMessage());
+            System.err.println("Unable to read or write file: " + e.getMessage());
         }
         finally {
             try {
@@ -106,13 +290,160 @@ public class Main {
         }
     }
 
+    /**
+     * Writes the raw confidence values either as binary column to <code>base</code> + ".bin" or as text file having
+     * one value per line to <code>base</code> + ".txt"
+     */
+    private static void writeValues(double[] values, String axiomTypeName, File base, boolean binary)
+            throws IOException {
+        if (binary) {
+            ConfidenceColumnFile.write(new File(base.getPath() + ConfidenceColumnFile.FILE_SUFFIX), axiomTypeName,
+                                       values);
+            return;
+        }
+        BufferedWriter writer = new BufferedWriter(new FileWriter(base.getPath() + ".txt"));
+        try {
+            char[] buffer = new char[DoubleFormatter.MAX_CHARS];
+            for (double val : values) {
+                writer.write(buffer, 0, DoubleFormatter.format(val, buffer, 0));
+                writer.newLine();
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the bin tables of the given histogram to <code>outDir</code>
+     */
+    static void writeHistogram(ConfidenceHistogram histogram, File outDir) throws IOException {
+        Writer writer = new BufferedWriter(
+                new FileWriter(outDir.getAbsolutePath() + File.separator + "aggregated.tsv"));
+        try {
+            histogram.writeTable(writer);
+        }
+        finally {
+            writer.close();
+        }
+
+        for (AxiomType<?> type : histogram.getAxiomTypes()) {
+            writer = new BufferedWriter(new FileWriter(
+                    outDir.getAbsolutePath() + File.separator + filterAxiomTypeName(type) + ".tsv"));
+            try {
+                histogram.writeTable(type, writer);
+            }
+            finally {
+                writer.close();
+            }
+        }
+        if (histogram.getInvalid() > 0) {
+            System.err.println("Ignored " + histogram.getInvalid() + " NaN confidence values");
+        }
+    }
+
+    /**
+     * Writes the quantile table of the given sketches to <code>outDir</code> and the sketches themselves to
+     * <code>sketchFileName</code> if it is not null
+     */
+    static void writeSketches(ConfidenceSketches sketches, String sketchFileName, File outDir,
+                              double[] quantiles) throws IOException {
+        if (sketchFileName != null) {
+            sketches.write(new File(sketchFileName));
+        }
+        Writer writer = new BufferedWriter(
+                new FileWriter(outDir.getAbsolutePath() + File.separator + "quantiles.tsv"));
+        try {
+            sketches.writeQuantileTable(quantiles, writer);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns the quantiles selected on the command line
+     */
+    private static double[] getQuantiles(CommandLine line) throws ParseException {
+        String[] parts = line.getOptionValue("q", "0.05,0.5,0.95").split(",");
+        double[] quantiles = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                quantiles[i] = Double.parseDouble(parts[i].trim());
+            }
+            catch (NumberFormatException e) {
+                throw new ParseException("Invalid quantile '" + parts[i].trim() + "'");
+            }
+            if (!(quantiles[i] >= 0 && quantiles[i] <= 1)) {
+                throw new ParseException("Quantiles must be between 0 and 1");
+            }
+        }
+        return quantiles;
+    }
+
+    /**
+     * Returns the way of reading confidence values selected on the command line
+     */
+    private static ConfidenceSource getSource(CommandLine line) {
+        if (line.hasOption("c")) {
+            return ConfidenceSource.CACHE;
+        }
+        if (line.hasOption("scan")) {
+            return ConfidenceSource.SCAN;
+        }
+        return ConfidenceSource.LOAD;
+    }
+
+    /**
+     * Returns the bin scheme selected on the command line or null if the raw confidence values should be written
+     */
+    private static BinScheme getBinScheme(CommandLine line) throws ParseException {
+        int selected = (line.hasOption("b") ? 1 : 0) + (line.hasOption("lb") ? 1 : 0) + (line.hasOption("e") ? 1 : 0);
+        if (selected > 1) {
+            throw new ParseException("Options --bins, --log-bins and --edges are mutually exclusive");
+        }
+        try {
+            if (line.hasOption("e")) {
+                return EdgeBinScheme.parse(line.getOptionValue("e"));
+            }
+            if (line.hasOption("b")) {
+                return new FixedWidthBinScheme(Double.parseDouble(line.getOptionValue("l", "0")),
+                                               Double.parseDouble(line.getOptionValue("u", "1")),
+                                               Integer.parseInt(line.getOptionValue("b")));
+            }
+            if (line.hasOption("lb")) {
+                return new LogBinScheme(Double.parseDouble(line.getOptionValue("l", "0.001")),
+                                        Double.parseDouble(line.getOptionValue("u", "1")),
+                                        Integer.parseInt(line.getOptionValue("lb")));
+            }
+        }
+        catch (NumberFormatException e) {
+            throw new ParseException("Invalid number: " + e.getMessage());
+        }
+        catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the given axiom type or {@link #UNKNOWN_AXIOM_TYPE} for <code>null</code>, which denotes
+     * axioms whose type could not be determined when scanning a document
+     *
+     * @param axiomType axiom type to get name for, may be null
+     * @return name of axiom type
+     */
+    public static String getAxiomTypeName(AxiomType<?> axiomType) {
+        return axiomType == null ? UNKNOWN_AXIOM_TYPE : axiomType.getName();
+    }
+
     /**
      * Filter the AxiomType names for usage in filenames
      *
-     * @param axiomType the axiomtype to get a file name for
+     * @param axiomType the axiomtype to get a file name for, may be null
      * @return filtered name of axiom type
      */
     public static String filterAxiomTypeName(AxiomType<?> axiomType) {
-        return axiomType.getName().replaceAll("[^A-Za-z0-9]+", "_");
+        return getAxiomTypeName(axiomType).replaceAll("[^A-Za-z0-9]+", "_");
     }
 }
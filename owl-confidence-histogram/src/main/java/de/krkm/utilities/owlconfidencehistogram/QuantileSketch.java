@@ -0,0 +1,336 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * KLL quantile sketch (Karnin, Lang, Liberty: Optimal Quantile Approximation in Streams) summarizing a stream of
+ * values in bounded memory. The sketch consists of a hierarchy of compactors, items on level <code>h</code> represent
+ * <code>2^h</code> values of the stream. When the sketch exceeds its capacity, the lowest full level is sorted and
+ * every other item of it is promoted to the next level.
+ * <p/>
+ * For parameter <code>k</code>, the sketch retains O(k log(n/k)) items and the rank error of quantile queries is
+ * about 1.7/k, i.e., below 1% for the default <code>k</code> of 200. Sketches having the same <code>k</code> can be
+ * merged, the result has the same error guarantees as a sketch built from the concatenated streams.
+ */
+public class QuantileSketch {
+    public final static int DEFAULT_K = 200;
+
+    private final static int MIN_LEVEL_CAPACITY = 8;
+    private final static double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private int k;
+    private long n;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private int retained;
+    private int capacity;
+
+    /**
+     * compaction is randomized to avoid a systematic bias, the fixed seed makes results reproducible
+     */
+    private Random random = new Random(0x4b4c4cL);
+
+    /**
+     * Initializes an empty sketch using the default accuracy parameter
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Initializes an empty sketch using the given accuracy parameter
+     *
+     * @param k accuracy parameter, larger values reduce the error but increase the memory usage
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("Parameter k must be at least " + MIN_LEVEL_CAPACITY);
+        }
+        this.k = k;
+        levels[0] = new double[k];
+        capacity = computeCapacity();
+    }
+
+    /**
+     * Adds the given value to the sketch. NaN values are ignored.
+     *
+     * @param value value to add
+     */
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        n++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        if (retained > capacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Merges the given sketch into this sketch. <code>other</code> is not modified.
+     *
+     * @param other sketch to merge into this one
+     * @throws IllegalArgumentException if the sketches have different accuracy parameters
+     */
+    public void merge(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Unable to merge sketches with k=" + k + " and k=" + other.k);
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        n += other.n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    /**
+     * Returns the approximate <code>fraction</code>-quantile of the values added to the sketch, e.g., the median for
+     * 0.5. The quantiles 0 and 1 are the exact minimum and maximum.
+     *
+     * @param fraction fraction between 0 and 1
+     * @return approximate quantile or NaN if the sketch is empty
+     */
+    public double getQuantile(double fraction) {
+        return getQuantiles(new double[]{fraction})[0];
+    }
+
+    /**
+     * Returns the approximate quantiles for all given fractions. This is faster than querying each quantile
+     * separately since the retained items are sorted only once.
+     *
+     * @param fractions fractions between 0 and 1
+     * @return approximate quantiles in the order of the given fractions, NaN if the sketch is empty
+     */
+    public double[] getQuantiles(double[] fractions) {
+        double[] result = new double[fractions.length];
+        if (n == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        // sorted view of all retained items with their weights
+        double[] values = new double[0];
+        long[] weights = new long[0];
+        for (int level = 0; level < levels.length; level++) {
+            double[] levelValues = Arrays.copyOf(levels[level], sizes[level]);
+            Arrays.sort(levelValues);
+            double[] mergedValues = new double[values.length + levelValues.length];
+            long[] mergedWeights = new long[mergedValues.length];
+            int i = 0;
+            int j = 0;
+            for (int m = 0; m < mergedValues.length; m++) {
+                if (j == levelValues.length || (i < values.length && values[i] <= levelValues[j])) {
+                    mergedValues[m] = values[i];
+                    mergedWeights[m] = weights[i++];
+                }
+                else {
+                    mergedValues[m] = levelValues[j++];
+                    mergedWeights[m] = 1L << level;
+                }
+            }
+            values = mergedValues;
+            weights = mergedWeights;
+        }
+
+        for (int f = 0; f < fractions.length; f++) {
+            double fraction = fractions[f];
+            if (!(fraction >= 0 && fraction <= 1)) {
+                throw new IllegalArgumentException("Invalid fraction " + fraction);
+            }
+            if (fraction == 0) {
+                result[f] = min;
+                continue;
+            }
+            if (fraction == 1) {
+                result[f] = max;
+                continue;
+            }
+            double rank = fraction * n;
+            long cumulative = 0;
+            result[f] = max;
+            for (int i = 0; i < values.length; i++) {
+                cumulative += weights[i];
+                if (cumulative >= rank) {
+                    result[f] = values[i];
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of values added to the sketch
+     *
+     * @return number of values added to the sketch
+     */
+    public long getCount() {
+        return n;
+    }
+
+    /**
+     * Returns the smallest value added to the sketch
+     *
+     * @return smallest value or positive infinity if the sketch is empty
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value added to the sketch
+     *
+     * @return largest value or negative infinity if the sketch is empty
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the accuracy parameter of the sketch
+     *
+     * @return accuracy parameter of the sketch
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Writes the sketch to <code>out</code>
+     *
+     * @param out output to write sketch to
+     * @throws IOException on errors writing the sketch
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(n);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(levels.length);
+        for (int level = 0; level < levels.length; level++) {
+            out.writeInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                out.writeDouble(levels[level][i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #write(java.io.DataOutput)} from <code>in</code>
+     *
+     * @param in input to read sketch from
+     * @return sketch read from the input
+     * @throws IOException on errors reading the sketch or if the input does not contain a valid sketch
+     */
+    public static QuantileSketch read(DataInput in) throws IOException {
+        int k = in.readInt();
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IOException("Invalid sketch parameter k=" + k);
+        }
+        QuantileSketch sketch = new QuantileSketch(k);
+        sketch.n = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        int levelCount = in.readInt();
+        // a sketch of at most 2^63 values never has more than 64 levels
+        if (levelCount < 1 || levelCount > 64 || sketch.n < 0) {
+            throw new IOException("Invalid sketch header");
+        }
+        sketch.levels = new double[levelCount][];
+        sketch.sizes = new int[levelCount];
+        sketch.capacity = sketch.computeCapacity();
+        for (int level = 0; level < levelCount; level++) {
+            int size = in.readInt();
+            if (size < 0 || size > sketch.capacity) {
+                throw new IOException("Invalid size " + size + " of sketch level " + level);
+            }
+            sketch.levels[level] = new double[Math.max(size, MIN_LEVEL_CAPACITY)];
+            for (int i = 0; i < size; i++) {
+                sketch.levels[level][i] = in.readDouble();
+            }
+            sketch.sizes[level] = size;
+            sketch.retained += size;
+        }
+        return sketch;
+    }
+
+    private void append(int level, double value) {
+        if (level >= levels.length) {
+            // merging a higher sketch adds several levels at once
+            int height = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int i = height; i <= level; i++) {
+                levels[i] = new double[MIN_LEVEL_CAPACITY];
+            }
+            capacity = computeCapacity();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    /**
+     * Compacts levels until the number of retained items fits the capacity of the sketch
+     */
+    private void compress() {
+        while (retained > capacity) {
+            int level = 0;
+            while (sizes[level] < getLevelCapacity(level)) {
+                level++;
+            }
+            compact(level);
+        }
+    }
+
+    /**
+     * Sorts the given level and promotes every other item to the next level. If the level contains an odd number of
+     * items, the smallest one stays on the level.
+     */
+    private void compact(int level) {
+        int size = sizes[level];
+        Arrays.sort(levels[level], 0, size);
+        int start = size % 2;
+        int offset = random.nextBoolean() ? 1 : 0;
+        // appending to the next level might reallocate the level arrays, thus, keep a reference to the items
+        double[] items = levels[level];
+        sizes[level] = start;
+        retained -= size - start;
+        for (int i = start + offset; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+    }
+
+    private int getLevelCapacity(int level) {
+        int depth = levels.length - level - 1;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int computeCapacity() {
+        int total = 0;
+        for (int level = 0; level < levels.length; level++) {
+            total += getLevelCapacity(level);
+        }
+        return total;
+    }
+}
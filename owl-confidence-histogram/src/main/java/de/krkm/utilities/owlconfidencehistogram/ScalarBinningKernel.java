@@ -0,0 +1,25 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+/**
+ * Binning kernel processing one value at a time, supports all bin schemes
+ */
+class ScalarBinningKernel implements BinningKernel {
+    private BinScheme scheme;
+
+    ScalarBinningKernel(BinScheme scheme) {
+        this.scheme = scheme;
+    }
+
+    public long count(double[] values, int from, int to, long[] counts) {
+        long invalid = 0;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            if (value != value) {
+                invalid++;
+                continue;
+            }
+            counts[scheme.getBin(value) + 1]++;
+        }
+        return invalid;
+    }
+}
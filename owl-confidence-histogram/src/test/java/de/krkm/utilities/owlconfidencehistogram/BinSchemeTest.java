@@ -0,0 +1,168 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+public class BinSchemeTest {
+    @Test
+    public void testFixedWidthBins() throws Exception {
+        FixedWidthBinScheme scheme = new FixedWidthBinScheme(0, 1, 10);
+        assertEquals(10, scheme.getBinCount());
+        assertEquals(-1, scheme.getBin(-0.0001));
+        assertEquals(-1, scheme.getBin(Double.NEGATIVE_INFINITY));
+        assertEquals(0, scheme.getBin(0));
+        assertEquals(0, scheme.getBin(0.0999));
+        assertEquals(9, scheme.getBin(0.95));
+        // the upper bound belongs to the last bin
+        assertEquals(9, scheme.getBin(1));
+        assertEquals(10, scheme.getBin(1.0001));
+        assertEquals(10, scheme.getBin(Double.POSITIVE_INFINITY));
+        assertEquals(0.0, scheme.getLowerEdge(0));
+        assertEquals(1.0, scheme.getUpperEdge(9));
+        assertEdgesBelongToUpperBin(scheme);
+        assertEdgesBelongToUpperBin(new FixedWidthBinScheme(0.001, 1, 37));
+        assertEdgesBelongToUpperBin(new FixedWidthBinScheme(-3, 7, 1000));
+    }
+
+    @Test
+    public void testLogBins() throws Exception {
+        LogBinScheme scheme = new LogBinScheme(0.001, 1, 3);
+        assertEquals(3, scheme.getBinCount());
+        assertEquals(-1, scheme.getBin(0));
+        assertEquals(-1, scheme.getBin(0.000999));
+        assertEquals(0, scheme.getBin(0.001));
+        assertEquals(0, scheme.getBin(0.005));
+        assertEquals(1, scheme.getBin(0.05));
+        assertEquals(2, scheme.getBin(0.5));
+        assertEquals(2, scheme.getBin(1));
+        assertEquals(3, scheme.getBin(1.5));
+        assertEquals(0.01, scheme.getUpperEdge(0), 1e-15);
+        assertEquals(0.1, scheme.getLowerEdge(2), 1e-15);
+        assertEdgesBelongToUpperBin(scheme);
+        assertEdgesBelongToUpperBin(new LogBinScheme(0.001, 1, 100));
+        assertEdgesBelongToUpperBin(new LogBinScheme(1e-9, 10, 77));
+    }
+
+    @Test
+    public void testEdgeBins() throws Exception {
+        EdgeBinScheme scheme = EdgeBinScheme.parse("0, 0.5, 0.9,1");
+        assertEquals(3, scheme.getBinCount());
+        assertEquals(-1, scheme.getBin(-0.1));
+        assertEquals(0, scheme.getBin(0));
+        assertEquals(0, scheme.getBin(0.3));
+        assertEquals(1, scheme.getBin(0.5));
+        assertEquals(1, scheme.getBin(0.7));
+        assertEquals(2, scheme.getBin(0.9));
+        assertEquals(2, scheme.getBin(1));
+        assertEquals(3, scheme.getBin(1.1));
+        assertEquals(0.5, scheme.getUpperEdge(0));
+        assertEquals(0.9, scheme.getLowerEdge(2));
+        assertEdgesBelongToUpperBin(scheme);
+    }
+
+    @Test
+    public void testInvalidSchemes() throws Exception {
+        assertInvalidEdges("0.5,0.5,1");
+        assertInvalidEdges("1,0");
+        assertInvalidEdges("0");
+        assertInvalidEdges("0,NaN");
+        assertInvalidEdges("0,Infinity");
+        assertInvalidEdges("0,x");
+        try {
+            new FixedWidthBinScheme(1, 0, 10);
+            fail("Accepted empty range");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+        try {
+            new FixedWidthBinScheme(0, 1, 0);
+            fail("Accepted zero bins");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+        try {
+            new LogBinScheme(0, 1, 10);
+            fail("Accepted logarithmic bins starting at 0");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+        try {
+            new FixedWidthBinScheme(0, Double.NaN, 10);
+            fail("Accepted NaN bound");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testKernelsMatchSchemes() throws Exception {
+        Random random = new Random(7);
+        double[] values = new double[10007];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 1.2 - 0.1;
+        }
+        values[17] = Double.NaN;
+        values[18] = 0;
+        values[19] = 1;
+        values[20] = Double.NEGATIVE_INFINITY;
+        values[21] = Double.POSITIVE_INFINITY;
+        values[values.length - 1] = Double.NaN;
+
+        BinScheme[] schemes = {new FixedWidthBinScheme(0, 1, 20), new LogBinScheme(0.001, 1, 20),
+                               EdgeBinScheme.parse("0,0.1,0.5,1")};
+        for (BinScheme scheme : schemes) {
+            long[] expected = new long[scheme.getBinCount() + 2];
+            long expectedInvalid = 0;
+            for (double value : values) {
+                if (Double.isNaN(value)) {
+                    expectedInvalid++;
+                }
+                else {
+                    expected[scheme.getBin(value) + 1]++;
+                }
+            }
+            for (BinningKernel kernel : new BinningKernel[]{BinningKernels.createScalar(scheme),
+                                                            BinningKernels.create(scheme)}) {
+                long[] counts = new long[expected.length];
+                // an offset exercises the vectorized loop and the scalar tail
+                long invalid = kernel.count(values, 3, values.length, counts);
+                long[] head = new long[expected.length];
+                invalid += BinningKernels.createScalar(scheme).count(values, 0, 3, head);
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += head[i];
+                }
+                assertEquals(expectedInvalid, invalid);
+                for (int i = 0; i < counts.length; i++) {
+                    assertEquals(expected[i], counts[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asserts that each bin contains its lower edge and the last bin also its upper edge
+     */
+    private static void assertEdgesBelongToUpperBin(BinScheme scheme) {
+        for (int bin = 0; bin < scheme.getBinCount(); bin++) {
+            assertEquals(bin, scheme.getBin(scheme.getLowerEdge(bin)));
+            if (bin > 0) {
+                assertEquals(scheme.getUpperEdge(bin - 1), scheme.getLowerEdge(bin));
+            }
+        }
+        int last = scheme.getBinCount() - 1;
+        assertEquals(last, scheme.getBin(scheme.getUpperEdge(last)));
+    }
+
+    private static void assertInvalidEdges(String edges) {
+        try {
+            EdgeBinScheme.parse(edges);
+            fail("Accepted invalid edges " + edges);
+        }
+        catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+public class ConfidenceColumnFileTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        DoubleColumn column = new DoubleColumn();
+        // more values than fit into a single write chunk and the initial capacity of the column
+        for (int i = 0; i < 20000; i++) {
+            column.add(i % 7 == 0 ? Double.NaN : (i * 37 % 1000) / 1000.0);
+        }
+        assertEquals(20000, column.size());
+        assertEquals(0.037, column.get(1));
+        assertEquals(20000, column.asList().size());
+
+        File file = File.createTempFile("column", ConfidenceColumnFile.FILE_SUFFIX);
+        try {
+            double[] values = column.toArray();
+            ConfidenceColumnFile.write(file, "SubClassOf", values);
+            // values start at a multiple of 8 bytes
+            assertEquals(0, (file.length() - values.length * 8L) % 8);
+
+            ConfidenceColumnFile read = ConfidenceColumnFile.open(file);
+            assertEquals("SubClassOf", read.getAxiomTypeName());
+            assertEquals(values.length, read.getCount());
+            assertEquals(0.0, read.getMin());
+            assertEquals(0.999, read.getMax());
+            DoubleBuffer buffer = read.getValues();
+            assertEquals(values.length, buffer.remaining());
+            for (double value : values) {
+                assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(buffer.get()));
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testEmptyColumn() throws Exception {
+        File file = File.createTempFile("column", ConfidenceColumnFile.FILE_SUFFIX);
+        try {
+            ConfidenceColumnFile.write(file, "Unknown", new DoubleColumn().toArray());
+            ConfidenceColumnFile read = ConfidenceColumnFile.open(file);
+            assertEquals(0, read.getCount());
+            assertTrue(Double.isNaN(read.getMin()));
+            assertTrue(Double.isNaN(read.getMax()));
+            assertEquals(0, read.getValues().remaining());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTruncatedFileIsRejected() throws Exception {
+        File file = File.createTempFile("column", ConfidenceColumnFile.FILE_SUFFIX);
+        try {
+            ConfidenceColumnFile.write(file, "SubClassOf", new double[]{0.1, 0.2, 0.3});
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(raf.length() - 4);
+            }
+            finally {
+                raf.close();
+            }
+            ConfidenceColumnFile.open(file);
+            fail("Opened truncated file");
+        }
+        catch (IOException expected) {
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
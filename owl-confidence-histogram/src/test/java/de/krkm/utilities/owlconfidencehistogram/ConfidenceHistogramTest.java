@@ -0,0 +1,109 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.AxiomType;
+
+import java.io.StringWriter;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class ConfidenceHistogramTest {
+    private final static double[] VALUES = {0, 0.25, 0.5, 0.5, 0.75, 1, -0.5, 1.5, Double.NaN};
+
+    @Test
+    public void testStreamedCounts() throws Exception {
+        ConfidenceHistogram histogram = new ConfidenceHistogram(EdgeBinScheme.parse("0,0.5,1"));
+        for (double value : VALUES) {
+            histogram.handle(AxiomType.SUBCLASS_OF, value);
+        }
+        histogram.handle(AxiomType.DISJOINT_CLASSES, 0.9);
+
+        assertCounts(histogram);
+        assertEquals(2, histogram.getCount(AxiomType.SUBCLASS_OF, 0));
+        assertEquals(4, histogram.getCount(AxiomType.SUBCLASS_OF, 1));
+        assertEquals(1, histogram.getCount(AxiomType.DISJOINT_CLASSES, 1));
+        assertEquals(0, histogram.getCount(AxiomType.DISJOINT_CLASSES, 0));
+        assertEquals(0, histogram.getCount(AxiomType.EQUIVALENT_CLASSES, 1));
+        assertEquals(2, histogram.getAxiomTypes().size());
+    }
+
+    @Test
+    public void testBulkCountsEqualStreamedCounts() throws Exception {
+        BinScheme[] schemes = {new FixedWidthBinScheme(0, 1, 2), EdgeBinScheme.parse("0,0.5,1")};
+        for (BinScheme scheme : schemes) {
+            ConfidenceHistogram histogram = new ConfidenceHistogram(scheme);
+            histogram.addAll(AxiomType.SUBCLASS_OF, VALUES, 0, 4);
+            histogram.addAll(AxiomType.SUBCLASS_OF, VALUES, 4, VALUES.length);
+            histogram.addAll(AxiomType.DISJOINT_CLASSES, new double[]{0.9});
+            assertCounts(histogram);
+            assertEquals(4, histogram.getCount(AxiomType.SUBCLASS_OF, 1));
+        }
+    }
+
+    @Test
+    public void testBufferedCountsEqualStreamedCounts() throws Exception {
+        ConfidenceHistogram histogram = new ConfidenceHistogram(new FixedWidthBinScheme(0, 1, 2));
+        HistogramBuffer buffer = new HistogramBuffer(histogram);
+        for (double value : VALUES) {
+            buffer.handle(AxiomType.SUBCLASS_OF, value);
+        }
+        buffer.handle(AxiomType.DISJOINT_CLASSES, 0.9);
+        buffer.flush();
+        assertCounts(histogram);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        BinScheme scheme = EdgeBinScheme.parse("0,0.5,1");
+        ConfidenceHistogram first = new ConfidenceHistogram(scheme);
+        ConfidenceHistogram second = new ConfidenceHistogram(scheme);
+        for (int i = 0; i < VALUES.length; i++) {
+            (i % 2 == 0 ? first : second).handle(AxiomType.SUBCLASS_OF, VALUES[i]);
+        }
+        second.handle(AxiomType.DISJOINT_CLASSES, 0.9);
+        first.merge(second);
+        assertCounts(first);
+        assertEquals(4, first.getCount(AxiomType.SUBCLASS_OF, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentSchemes() throws Exception {
+        new ConfidenceHistogram(EdgeBinScheme.parse("0,1")).merge(new ConfidenceHistogram(EdgeBinScheme.parse("0,1")));
+    }
+
+    @Test
+    public void testWriteTable() throws Exception {
+        ConfidenceHistogram histogram = new ConfidenceHistogram(EdgeBinScheme.parse("0,0.5,1"));
+        for (double value : VALUES) {
+            histogram.handle(AxiomType.SUBCLASS_OF, value);
+        }
+        StringWriter out = new StringWriter();
+        histogram.writeTable(out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("#"));
+        assertEquals("-Infinity\t0.0\t1\t0.125", lines[1]);
+        assertEquals("0.0\t0.5\t2\t0.25", lines[2]);
+        assertEquals("0.5\t1.0\t4\t0.5", lines[3]);
+        assertEquals("1.0\tInfinity\t1\t0.125", lines[4]);
+
+        // underflow and overflow rows are omitted if empty
+        out = new StringWriter();
+        histogram.writeTable(AxiomType.DISJOINT_CLASSES, out);
+        assertEquals("# lower\tupper\tcount\tfraction\n0.0\t0.5\t0\t0.0\n0.5\t1.0\t0\t0.0\n", out.toString());
+    }
+
+    /**
+     * Asserts the aggregated counts of {@link #VALUES} as subsumptions and 0.9 as disjointness in bins [0, 0.5) and
+     * [0.5, 1]
+     */
+    private static void assertCounts(ConfidenceHistogram histogram) {
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(5, histogram.getCount(1));
+        assertEquals(1, histogram.getUnderflow());
+        assertEquals(1, histogram.getOverflow());
+        assertEquals(1, histogram.getInvalid());
+        assertEquals(9, histogram.getTotal());
+    }
+}
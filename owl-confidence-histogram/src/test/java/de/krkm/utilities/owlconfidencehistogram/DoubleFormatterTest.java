@@ -0,0 +1,104 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class DoubleFormatterTest {
+    @Test
+    public void testRandomBitPatterns() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000000; i++) {
+            assertRoundTrip(Double.longBitsToDouble(random.nextLong()));
+        }
+    }
+
+    @Test
+    public void testRandomConfidences() throws Exception {
+        Random random = new Random(43);
+        for (int i = 0; i < 100000; i++) {
+            assertRoundTrip(random.nextDouble());
+            assertRoundTrip(Math.round(random.nextDouble() * 1000) / 1000.0);
+        }
+    }
+
+    @Test
+    public void testEdgeCases() throws Exception {
+        double[] values = {
+            0.0, -0.0, 1.0, -1.0, 0.1, 0.5, 1.0 / 3, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE,
+            -Double.MAX_VALUE, Double.MIN_NORMAL, nextDown(Double.MIN_NORMAL), Math.nextUp(Double.MIN_NORMAL),
+            Math.nextUp(1.0), nextDown(1.0), 2.2250738585072014E-308, 4.9E-324, 1.0E23, 9007199254740991.0,
+            9007199254740992.0, 9007199254740993.0, 1.0E7, 9999999.0, 0.001, 9.999999999999999E-4
+        };
+        for (double value : values) {
+            assertRoundTrip(value);
+        }
+        for (int e = -325; e <= 309; e++) {
+            double power = Double.parseDouble("1E" + e);
+            assertRoundTrip(power);
+            assertRoundTrip(Math.nextUp(power));
+            assertRoundTrip(nextDown(power));
+        }
+        for (int e = -1074; e <= 1023; e++) {
+            assertRoundTrip(Math.scalb(1.0, e));
+        }
+        // subnormal values
+        for (long bits = 1; bits < 1L << 52; bits = bits * 3 + 1) {
+            assertRoundTrip(Double.longBitsToDouble(bits));
+        }
+    }
+
+    @Test
+    public void testSpecialValues() throws Exception {
+        assertEquals("NaN", DoubleFormatter.format(Double.NaN));
+        assertEquals("Infinity", DoubleFormatter.format(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", DoubleFormatter.format(Double.NEGATIVE_INFINITY));
+        assertEquals("0.0", DoubleFormatter.format(0.0));
+        assertEquals("-0.0", DoubleFormatter.format(-0.0));
+    }
+
+    @Test
+    public void testNotation() throws Exception {
+        assertEquals("1.0", DoubleFormatter.format(1.0));
+        assertEquals("0.1", DoubleFormatter.format(0.1));
+        assertEquals("0.3", DoubleFormatter.format(0.3));
+        assertEquals("0.30000000000000004", DoubleFormatter.format(0.1 + 0.2));
+        assertEquals("100.0", DoubleFormatter.format(100.0));
+        assertEquals("1234.5", DoubleFormatter.format(1234.5));
+        assertEquals("0.001", DoubleFormatter.format(0.001));
+        assertEquals("1.0E-4", DoubleFormatter.format(1.0E-4));
+        assertEquals("1.0E7", DoubleFormatter.format(1.0E7));
+        assertEquals("1.25E-5", DoubleFormatter.format(1.25E-5));
+        assertEquals("-2.2250738585072014E-308", DoubleFormatter.format(-Double.MIN_NORMAL));
+        assertEquals("1.7976931348623157E308", DoubleFormatter.format(Double.MAX_VALUE));
+    }
+
+    @Test
+    public void testBufferOffset() throws Exception {
+        char[] buffer = new char[2 + DoubleFormatter.MAX_CHARS];
+        buffer[0] = 'x';
+        buffer[1] = 'y';
+        int end = DoubleFormatter.format(0.75, buffer, 2);
+        assertEquals("xy0.75", new String(buffer, 0, end));
+
+        StringBuilder builder = new StringBuilder("a=");
+        DoubleFormatter.append(builder, 0.25);
+        assertEquals("a=0.25", builder.toString());
+    }
+
+    private static double nextDown(double value) {
+        return Math.nextAfter(value, Double.NEGATIVE_INFINITY);
+    }
+
+    private static void assertRoundTrip(double value) {
+        String formatted = DoubleFormatter.format(value);
+        assertTrue("'" + formatted + "' exceeds the maximum length", formatted.length() <= DoubleFormatter.MAX_CHARS);
+        double parsed = Double.parseDouble(formatted);
+        // compare the bits to distinguish -0.0 from 0.0
+        assertEquals("'" + formatted + "' does not parse to " + value, Double.doubleToLongBits(value),
+                     Double.doubleToLongBits(parsed));
+    }
+}
@@ -0,0 +1,145 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class QuantileSketchTest {
+    private final static double[] FRACTIONS = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    @Test
+    public void testRankErrorBound() throws Exception {
+        for (int k : new int[]{50, QuantileSketch.DEFAULT_K}) {
+            double[] values = createValues(200000, k);
+            QuantileSketch sketch = new QuantileSketch(k);
+            for (double value : values) {
+                sketch.update(value);
+            }
+            assertEquals((long) values.length, sketch.getCount());
+            assertRankError(sketch, values);
+        }
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        double[] values = createValues(100000, 1);
+        QuantileSketch merged = new QuantileSketch();
+        // parts of different sizes exercise merging sketches of different heights
+        int[] bounds = {0, 100, 5000, 40000, values.length};
+        for (int part = 0; part + 1 < bounds.length; part++) {
+            QuantileSketch sketch = new QuantileSketch();
+            for (int i = bounds[part]; i < bounds[part + 1]; i++) {
+                sketch.update(values[i]);
+            }
+            merged.merge(sketch);
+        }
+        assertEquals((long) values.length, merged.getCount());
+        assertRankError(merged, values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentK() throws Exception {
+        new QuantileSketch(100).merge(new QuantileSketch(200));
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        double[] values = createValues(50000, 2);
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            sketch.update(value);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        sketch.write(out);
+        out.close();
+        QuantileSketch read = QuantileSketch.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(sketch.getK(), read.getK());
+        assertEquals(sketch.getCount(), read.getCount());
+        assertEquals(sketch.getMin(), read.getMin());
+        assertEquals(sketch.getMax(), read.getMax());
+        assertTrue(Arrays.equals(sketch.getQuantiles(FRACTIONS), read.getQuantiles(FRACTIONS)));
+
+        // a read sketch keeps accepting values
+        for (double value : values) {
+            read.update(value);
+        }
+        assertEquals(2L * values.length, read.getCount());
+        double[] doubled = Arrays.copyOf(values, 2 * values.length);
+        System.arraycopy(values, 0, doubled, values.length, values.length);
+        assertRankError(read, doubled);
+    }
+
+    @Test
+    public void testEmptySketch() throws Exception {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.update(Double.NaN);
+        assertEquals(0L, sketch.getCount());
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+    }
+
+    /**
+     * Creates values resembling confidence values, i.e., from [0, 1] having many duplicates
+     */
+    private static double[] createValues(int count, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.round(random.nextDouble() * 10000) / 10000.0;
+        }
+        return values;
+    }
+
+    /**
+     * Asserts that the rank of each approximate quantile deviates by at most the documented 1.7/k from its fraction
+     * and that the extreme quantiles are exact
+     */
+    private static void assertRankError(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double epsilon = 1.7 / sketch.getK();
+        double[] quantiles = sketch.getQuantiles(FRACTIONS);
+        for (int i = 0; i < FRACTIONS.length; i++) {
+            // equal values span a range of ranks
+            double lowerRank = (double) lowerBound(sorted, quantiles[i]) / sorted.length;
+            double upperRank = (double) upperBound(sorted, quantiles[i]) / sorted.length;
+            double error = Math.max(0, Math.max(lowerRank - FRACTIONS[i], FRACTIONS[i] - upperRank));
+            assertTrue("rank error " + error + " of quantile " + FRACTIONS[i] + " exceeds " + epsilon,
+                       error <= epsilon);
+        }
+        assertEquals(sorted[0], sketch.getQuantile(0));
+        assertEquals(sorted[sorted.length - 1], sketch.getQuantile(1));
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index < sorted.length && sorted[index] == value) {
+            index++;
+        }
+        return index;
+    }
+}
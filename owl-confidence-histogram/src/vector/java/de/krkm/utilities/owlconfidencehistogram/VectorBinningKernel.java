@@ -0,0 +1,84 @@
+package de.krkm.utilities.owlconfidencehistogram;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Binning kernel for fixed-width and logarithmic bins based on the JDK Vector API. Only the computation of the bin
+ * indexes is vectorized, the counters are still incremented one value at a time afterwards, since the Vector API has
+ * no conflict-free scatter-increment. Per-lane histograms would not help here as their increments are scalar as
+ * well, so the speedup is limited to the arithmetic and mostly shows for logarithmic bins.
+ * <p/>
+ * This class is only compiled by the <code>vector</code> profile and is loaded by {@link BinningKernels}. Unlike the
+ * bin schemes, the kernel does not correct the rounding of bin indexes of values lying exactly on a bin edge, and for
+ * logarithmic bins, the vectorized logarithm may differ from {@link Math#log(double)} by one ulp. Thus, such values
+ * might be counted in the neighboring bin.
+ */
+public class VectorBinningKernel implements BinningKernel {
+    private final static VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final boolean logarithmic;
+    private final double lower;
+    private final double upper;
+    private final double offset;
+    private final double scale;
+    private final int bins;
+    private final ScalarBinningKernel tail;
+
+    /**
+     * Initializes a kernel for the given scheme
+     *
+     * @param scheme fixed-width or logarithmic bin scheme
+     * @throws IllegalArgumentException if the scheme is not supported
+     */
+    public VectorBinningKernel(BinScheme scheme) {
+        bins = scheme.getBinCount();
+        if (scheme instanceof FixedWidthBinScheme) {
+            FixedWidthBinScheme fixed = (FixedWidthBinScheme) scheme;
+            logarithmic = false;
+            lower = fixed.getLower();
+            upper = fixed.getUpper();
+            offset = lower;
+            scale = bins / (upper - lower);
+        }
+        else if (scheme instanceof LogBinScheme) {
+            LogBinScheme log = (LogBinScheme) scheme;
+            logarithmic = true;
+            lower = log.getLower();
+            upper = log.getUpper();
+            offset = Math.log(lower);
+            scale = bins / (Math.log(upper) - offset);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported bin scheme " + scheme.getClass().getName());
+        }
+        tail = new ScalarBinningKernel(scheme);
+    }
+
+    public long count(double[] values, int from, int to, long[] counts) {
+        long invalid = 0;
+        double[] slots = new double[SPECIES.length()];
+        int bound = from + SPECIES.loopBound(to - from);
+        int i = from;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector position = logarithmic ? v.lanewise(VectorOperators.LOG) : v;
+            // slot of each lane as double, the conversion to int is done while incrementing the counters
+            DoubleVector slot = position.sub(offset).mul(scale).min(bins - 1).add(1)
+                                        .blend(0, v.compare(VectorOperators.LT, lower))
+                                        .blend(bins + 1, v.compare(VectorOperators.GT, upper))
+                                        .blend(-1, v.test(VectorOperators.IS_NAN));
+            slot.intoArray(slots, 0);
+            for (double s : slots) {
+                if (s < 0) {
+                    invalid++;
+                }
+                else {
+                    counts[(int) s]++;
+                }
+            }
+        }
+        return invalid + tail.count(values, i, to, counts);
+    }
+}
@@ -1,5 +1,7 @@
 package de.krkm.utilities.owlsubpropertycycleremover;
 
+import de.krkm.utilities.annotatedaxiomextractor.AnnotatedAxiomExtractor;
+import de.krkm.utilities.annotatedaxiomextractor.ConfidenceIndex;
 import de.krkm.utilities.collectiontostring.CollectionToStringWrapper;
 import de.krkm.utilities.owlsubpropertycycleremover.cycletype.CycleType;
 import de.krkm.utilities.owlsubpropertycycleremover.graph.Graph;
@@ -22,7 +24,8 @@ public class OntologyCycleRemover {
 
     private BufferedWriter removedWriter;
     private OWLOntology ontology;
-    private List<OWLAnnotationProperty> annotationProperties;
+    private ArrayList<OWLAnnotationProperty> annotationProperties;
+    private ConfidenceIndex confidenceIndex;
     private OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
     private OutputStreamWriter streamWriter;
 
@@ -36,15 +39,10 @@ public class OntologyCycleRemover {
      * @param input stream to read ontology from
      */
     public OntologyCycleRemover(InputStream input) throws OWLOntologyCreationException {
-        annotationProperties = new ArrayList<OWLAnnotationProperty>();
-
         ArrayList<IRI> iris = new ArrayList<IRI>();
         iris.add(IRI.create("http://ki.informatik.uni-mannheim.de/gold-miner/annotations#confidence"));
         iris.add(IRI.create("http://www.dl-learner.org/enrichment.owl#confidence"));
-
-        for (IRI iri : iris) {
-            annotationProperties.add(ontologyManager.getOWLDataFactory().getOWLAnnotationProperty(iri));
-        }
+        setConfidenceURIs(iris);
 
         System.out.println("Loading ontology");
         ontology = ontologyManager.loadOntologyFromOntologyDocument(input);
@@ -62,6 +60,26 @@ public class OntologyCycleRemover {
         for (IRI iri : iris) {
             annotationProperties.add(ontologyManager.getOWLDataFactory().getOWLAnnotationProperty(iri));
         }
+        if (confidenceIndex != null) {
+            confidenceIndex.detach();
+            confidenceIndex = null;
+        }
+    }
+
+    /**
+     * Returns the confidence index of the loaded ontology. The index is built on first access and follows all
+     * changes of the ontology afterwards, thus, it can be shared with later processing steps instead of extracting the
+     * confidence values again.
+     *
+     * @return confidence index of the loaded ontology
+     */
+    public ConfidenceIndex getConfidenceIndex() {
+        if (confidenceIndex == null) {
+            confidenceIndex = new ConfidenceIndex(annotationProperties);
+            new AnnotatedAxiomExtractor(annotationProperties).extract(ontology, confidenceIndex);
+            confidenceIndex.attach(ontologyManager, ontology);
+        }
+        return confidenceIndex;
     }
 
     /**
@@ -93,16 +111,7 @@ public class OntologyCycleRemover {
                 continue;
             }
 
-            Double confidenceValue = null;
-            for (OWLAnnotationProperty prop : annotationProperties) {
-                Set<OWLAnnotation> annotations = ax.getAnnotations(prop);
-
-                if (!annotations.isEmpty()) {
-                    OWLAnnotation annotation = annotations.iterator().next();
-                    confidenceValue = Double.parseDouble(annotation.getValue().toString().split("\"")[1]);
-                    break;
-                }
-            }
+            Double confidenceValue = getConfidenceIndex().getConfidence(ax);
 
             Node sNode = g.getNode(subject);
             Node oNode = g.getNode(object);